@@ -0,0 +1,155 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.config.ConfigEnv;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpPacket;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPCryptoContext;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPPolicy;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @class public final class BenchmarkFixtures
+ * @brief 벤치마크에서 공통으로 사용하는 고정 입력 데이터
+ * 모든 값은 고정되어 있어서, 실행할 때마다 같은 입력으로 측정된다.
+ */
+public final class BenchmarkFixtures {
+
+    /** 벤치마크 설정으로 사용할 application.yml 프로파일 */
+    private static final String CONFIG_PROFILE = "local";
+
+    /** OvenMediaEngine 이 보낸 offer SDP (H264/90000 + OPUS/48000/2, BUNDLE, rtcp-mux) */
+    public static final String OME_OFFER_SDP_PATH = "fixtures/ome_offer.sdp";
+    /** OME offer SDP 의 ICE 정보 */
+    public static final String OME_ICE_UFRAG = "lBkCdN";
+    public static final String OME_ICE_PWD = "dUJkHe6WnD9BGqv5wy1c2YAT3jXtSVPx";
+
+    /** OME offer SDP 의 비디오 트랙 정보 */
+    public static final long VIDEO_SSRC = 2346570055L;
+    public static final int VIDEO_PAYLOAD_TYPE = 98;
+    public static final String VIDEO_ENCODING_NAME = "H264";
+    public static final int VIDEO_CLOCK_RATE = 90000;
+    /** 30fps 기준 프레임 간 RTP timestamp 증가량 */
+    public static final int VIDEO_TIMESTAMP_STEP = VIDEO_CLOCK_RATE / 30;
+
+    /** RTP 페이로드 크기 (MTU 1500 기준 일반적인 비디오 패킷 크기) */
+    public static final int RTP_PAYLOAD_SIZE = 1200;
+
+    /** RFC 3711 Appendix B.2 (AES-CM Test Vectors) 의 master key / master salt */
+    public static final byte[] SRTP_MASTER_KEY = hexToBytes("E1F97A0D3E018BE0D64FA32C06DE4139");
+    public static final byte[] SRTP_MASTER_SALT = hexToBytes("0EC675AD498AFEEBB6960B3AABE6");
+
+    /**
+     * RFC 5769 2.1 Sample Request
+     * (SOFTWARE, PRIORITY, ICE-CONTROLLED, USERNAME, MESSAGE-INTEGRITY, FINGERPRINT)
+     */
+    public static final byte[] STUN_SAMPLE_REQUEST = hexToBytes(
+            "000100582112a442b7e7a701bc34d686fa87dfae"
+                    + "802200105354554e207465737420636c69656e74"
+                    + "002400046e0001ff"
+                    + "80290008932ff9b151263b36"
+                    + "000600096576746a3a68367659202020"
+                    + "000800149aeaa70cbfd8cb56781ef2b5b2d3f249c1b571a2"
+                    + "80280004e57a3bcf"
+    );
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * application.yml 을 읽어서 ConfigManager 를 초기화한다. (Spring 컨텍스트 없이 사용)
+     */
+    public static synchronized void initConfig() {
+        if (ConfigManager.getDefaultConfig() != null) {
+            return;
+        }
+
+        try {
+            StandardEnvironment environment = new StandardEnvironment();
+            List<PropertySource<?>> propertySources = new YamlPropertySourceLoader().load(
+                    "application", new ClassPathResource("application.yml")
+            );
+            for (PropertySource<?> propertySource : propertySources) {
+                if (CONFIG_PROFILE.equals(propertySource.getProperty("spring.config.activate.on-profile"))) {
+                    environment.getPropertySources().addLast(propertySource);
+                }
+            }
+
+            new ConfigManager(new ConfigEnv(environment));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return 고정된 내용의 H264 RTP 패킷
+     */
+    public static byte[] makeVideoRtpPacket(int seqNum, long timestamp, boolean isKeyframe) {
+        byte[] payload = new byte[RTP_PAYLOAD_SIZE];
+        // FU-A (type 28), start bit + NAL type (IDR 5 / non-IDR 1)
+        payload[0] = 0x7C;
+        payload[1] = (byte) (0x80 | (isKeyframe ? 5 : 1));
+        for (int i = 2; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        RtpPacket rtpPacket = new RtpPacket(RtpPacket.RTP_PACKET_MAX_SIZE, false);
+        rtpPacket.wrap(false, VIDEO_PAYLOAD_TYPE, seqNum, timestamp, VIDEO_SSRC, payload, 0, payload.length);
+
+        byte[] data = new byte[rtpPacket.getLength()];
+        rtpPacket.getBuffer().rewind();
+        rtpPacket.getBuffer().get(data);
+        return data;
+    }
+
+    /**
+     * @param encType SRTPPolicy.AESCM_ENCRYPTION or SRTPPolicy.AESF8_ENCRYPTION
+     * @return SRTP_AES128_*_HMAC_SHA1_80 과 같은 정책으로 키가 유도된 SSRC 별 암호화 컨텍스트
+     */
+    public static SRTPCryptoContext newSrtpContext(int encType, long ssrc) {
+        SRTPPolicy srtpPolicy = newSrtpPolicy(encType);
+
+        SRTPCryptoContext defaultContext = new SRTPCryptoContext(
+                0, 0, 0, SRTP_MASTER_KEY, SRTP_MASTER_SALT, srtpPolicy
+        );
+        SRTPCryptoContext context = defaultContext.deriveContext(ssrc, 0, 0);
+        context.deriveSrtpKeys(0);
+        return context;
+    }
+
+    /**
+     * @param encType SRTPPolicy.AESCM_ENCRYPTION or SRTPPolicy.AESF8_ENCRYPTION
+     * @return SRTP_AES128_*_HMAC_SHA1_80 과 같은 정책
+     */
+    public static SRTPPolicy newSrtpPolicy(int encType) {
+        return new SRTPPolicy(
+                encType, 16,
+                SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10,
+                14
+        );
+    }
+
+    public static String loadResource(String path) {
+        try (InputStream inputStream = new ClassPathResource(path).getInputStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+}
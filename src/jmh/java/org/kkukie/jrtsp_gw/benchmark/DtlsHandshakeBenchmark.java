@@ -0,0 +1,141 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.DTLSClientProtocol;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.DTLSServerProtocol;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.DTLSTransport;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.DatagramTransport;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.AlgorithmCertificate;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.DtlsCertificateGenerator;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.DtlsSrtpClientProvider;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.DtlsSrtpServerProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTLS-SRTP 전체 핸드셰이크(서버 + 클라이언트, 상호 인증서) 처리량 (handshakes/s)
+ *  - ECDSA : P-256 인증서, ECDHE-ECDSA cipher suite 선택
+ *  - RSA   : RSA-2048 인증서, ECDHE-RSA cipher suite 선택
+ * 패킷은 메모리 큐로 주고받으며, 서버는 별도 스레드에서 실행된다.
+ * 동시 재접속 부하는 JMH 스레드 수로 조절한다. (예: -t 8 : 8 개의 핸드셰이크가 동시에 진행된다.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtlsHandshakeBenchmark {
+
+    private static final int MTU = 1500;
+
+    @Param({"ECDSA", "RSA"})
+    public String certAlgorithm;
+
+    private File certDir;
+    private DtlsSrtpServerProvider serverProvider;
+    private DtlsSrtpClientProvider clientProvider;
+    private ExecutorService serverExecutor;
+
+    private final BlockingQueue<byte[]> clientToServer = new LinkedBlockingQueue<>();
+    private final BlockingQueue<byte[]> serverToClient = new LinkedBlockingQueue<>();
+    private final MemoryTransport serverTransport = new MemoryTransport(clientToServer, serverToClient);
+    private final MemoryTransport clientTransport = new MemoryTransport(serverToClient, clientToServer);
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        certDir = Files.createTempDirectory("dtls-bench").toFile();
+        String certPath = new File(certDir, "cert.pem").getAbsolutePath();
+        String keyPath = new File(certDir, "key.pem").getAbsolutePath();
+        DtlsCertificateGenerator.generate(certPath, keyPath, AlgorithmCertificate.valueOf(certAlgorithm));
+
+        serverProvider = new DtlsSrtpServerProvider(certPath, keyPath);
+        clientProvider = new DtlsSrtpClientProvider(certPath, keyPath);
+        serverExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serverExecutor.shutdownNow();
+        File[] files = certDir.listFiles();
+        if (files != null) {
+            Arrays.stream(files).forEach(File::delete);
+        }
+        certDir.delete();
+    }
+
+    @Benchmark
+    public DTLSTransport handshake() throws Exception {
+        clientToServer.clear();
+        serverToClient.clear();
+
+        Future<?> serverFuture = serverExecutor.submit(() ->
+                new DTLSServerProtocol(secureRandom).accept(serverProvider.provide(), serverTransport)
+        );
+        DTLSTransport dtlsTransport = new DTLSClientProtocol(secureRandom).connect(clientProvider.provide(), clientTransport);
+        serverFuture.get(10, TimeUnit.SECONDS);
+        return dtlsTransport;
+    }
+
+    private static class MemoryTransport implements DatagramTransport {
+
+        private final BlockingQueue<byte[]> rxQueue;
+        private final BlockingQueue<byte[]> txQueue;
+
+        private MemoryTransport(BlockingQueue<byte[]> rxQueue, BlockingQueue<byte[]> txQueue) {
+            this.rxQueue = rxQueue;
+            this.txQueue = txQueue;
+        }
+
+        @Override
+        public int getReceiveLimit() {
+            return MTU;
+        }
+
+        @Override
+        public int getSendLimit() {
+            return MTU;
+        }
+
+        @Override
+        public int receive(byte[] buf, int off, int len, int waitMillis) throws IOException {
+            try {
+                byte[] packet = rxQueue.poll(waitMillis, TimeUnit.MILLISECONDS);
+                if (packet == null) {
+                    return -1;
+                }
+                int length = Math.min(packet.length, len);
+                System.arraycopy(packet, 0, buf, off, length);
+                return length;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        @Override
+        public void send(byte[] buf, int off, int len) {
+            txQueue.offer(Arrays.copyOfRange(buf, off, off + len));
+        }
+
+        @Override
+        public void close() {
+            // nothing
+        }
+
+    }
+
+}
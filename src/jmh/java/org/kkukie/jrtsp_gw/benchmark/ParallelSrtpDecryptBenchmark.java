@@ -0,0 +1,132 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.media.core.manager.SrtpDecryptWorkerGroup;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.PacketTransformer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPCipherFactory;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPPolicy;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPTransformEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSRC 가 여러 개인 호(simulcast 등)의 SRTP 패킷 묶음을 복원하는 시간 (AES-CM + HMAC-SHA1_80, in-place)
+ *  - threadSize 0 : Ingest 스레드 하나에서 순서대로 복호화
+ *  - threadSize N : SrtpDecryptWorkerGroup 에서 SSRC 별로 나눠서 복호화하고 모두 끝날 때까지 기다린다.
+ * replay 검사 때문에 매 호출 전에 다음 sequence number 의 패킷들을 암호화해둔다. (측정 시간에는 포함되지 않는다.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSrtpDecryptBenchmark {
+
+    @Param({"JCE"})
+    public String backend;
+
+    @Param({"0", "2", "4"})
+    public int threadSize;
+
+    @Param({"4"})
+    public int ssrcCount;
+
+    @Param({"32"})
+    public int packetsPerSsrc;
+
+    private PacketTransformer senderTransformer;
+    private PacketTransformer receiverTransformer;
+
+    private long[] ssrcs;
+    private ByteBuffer[] srtpBuffers;
+
+    private int seqNum = 0;
+    private long timestamp = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SRTPCipherFactory.init(backend);
+        SrtpDecryptWorkerGroup.getInstance().start(threadSize);
+
+        senderTransformer = newTransformer();
+        receiverTransformer = newTransformer();
+
+        ssrcs = new long[ssrcCount];
+        for (int i = 0; i < ssrcCount; i++) {
+            ssrcs[i] = BenchmarkFixtures.VIDEO_SSRC + i;
+        }
+
+        srtpBuffers = new ByteBuffer[ssrcCount * packetsPerSsrc];
+        for (int i = 0; i < srtpBuffers.length; i++) {
+            srtpBuffers[i] = ByteBuffer.allocate(1500);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SrtpDecryptWorkerGroup.getInstance().stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void encryptNextPackets() {
+        int index = 0;
+        for (int i = 0; i < packetsPerSsrc; i++) {
+            seqNum = (seqNum + 1) & 0xFFFF;
+            timestamp += BenchmarkFixtures.VIDEO_TIMESTAMP_STEP;
+
+            // SSRC 가 번갈아 도착한다.
+            for (long ssrc : ssrcs) {
+                byte[] rtpPacket = BenchmarkFixtures.makeVideoRtpPacket(seqNum, timestamp, false);
+                ByteBuffer.wrap(rtpPacket).putInt(8, (int) ssrc);
+
+                ByteBuffer srtpBuffer = srtpBuffers[index++];
+                srtpBuffer.clear();
+                srtpBuffer.put(senderTransformer.transform(rtpPacket));
+                srtpBuffer.flip();
+            }
+        }
+    }
+
+    @Benchmark
+    public int reverseTransform() throws InterruptedException {
+        if (threadSize == 0) {
+            int restoredCount = 0;
+            for (ByteBuffer srtpBuffer : srtpBuffers) {
+                if (receiverTransformer.reverseTransform(srtpBuffer)) {
+                    restoredCount++;
+                }
+            }
+            return restoredCount;
+        }
+
+        SrtpDecryptWorkerGroup workerGroup = SrtpDecryptWorkerGroup.getInstance();
+        CountDownLatch latch = new CountDownLatch(srtpBuffers.length);
+        AtomicInteger restoredCount = new AtomicInteger(0);
+        for (int i = 0; i < srtpBuffers.length; i++) {
+            ByteBuffer srtpBuffer = srtpBuffers[i];
+            boolean isQueued = workerGroup.execute(ssrcs[i % ssrcCount], () -> {
+                if (receiverTransformer.reverseTransform(srtpBuffer)) {
+                    restoredCount.incrementAndGet();
+                }
+                latch.countDown();
+            });
+            if (!isQueued) {
+                latch.countDown();
+            }
+        }
+        latch.await();
+        return restoredCount.get();
+    }
+
+    private static PacketTransformer newTransformer() {
+        SRTPPolicy srtpPolicy = BenchmarkFixtures.newSrtpPolicy(SRTPPolicy.AESCM_ENCRYPTION);
+        return new SRTPTransformEngine(
+                BenchmarkFixtures.SRTP_MASTER_KEY, BenchmarkFixtures.SRTP_MASTER_SALT, srtpPolicy, srtpPolicy
+        ).getRTPTransformer();
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.media.core.scheduler.WallClock;
+import org.kkukie.jrtsp_gw.media.core.stream.rtcp.RtcpPacket;
+import org.kkukie.jrtsp_gw.media.core.stream.rtcp.RtcpPacketFactory;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpPacket;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics.RtpStatistics;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.module.RtpClock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RtcpPacketFactory 로 RTCP 리포트(RR + SDES)를 만들고 인코딩/디코딩하는 비용
+ * 통계에는 OME 비디오 SSRC 로 1000 개의 RTP 패킷을 수신한 상태를 미리 만들어둔다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RtcpPacketFactoryBenchmark {
+
+    private static final int RECEIVED_PACKET_COUNT = 1000;
+
+    private RtpStatistics rtpStatistics;
+    private final byte[] encodeBuffer = new byte[RtpPacket.RTP_PACKET_MAX_SIZE];
+    private byte[] reportData;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rtpStatistics = new RtpStatistics(new RtpClock(new WallClock()));
+
+        RtpPacket rtpPacket = new RtpPacket(RtpPacket.RTP_PACKET_MAX_SIZE, false);
+        for (int i = 0; i < RECEIVED_PACKET_COUNT; i++) {
+            byte[] data = BenchmarkFixtures.makeVideoRtpPacket(i, (long) i * BenchmarkFixtures.VIDEO_TIMESTAMP_STEP, i == 0);
+            rtpPacket.wrap(data);
+            rtpStatistics.onRtpReceive(rtpPacket);
+        }
+
+        RtcpPacket report = RtcpPacketFactory.buildReport(rtpStatistics);
+        int length = report.encode(encodeBuffer, 0);
+        reportData = new byte[length];
+        System.arraycopy(encodeBuffer, 0, reportData, 0, length);
+    }
+
+    @Benchmark
+    public RtcpPacket buildReport() {
+        return RtcpPacketFactory.buildReport(rtpStatistics);
+    }
+
+    @Benchmark
+    public int buildAndEncodeReport() {
+        return RtcpPacketFactory.buildReport(rtpStatistics).encode(encodeBuffer, 0);
+    }
+
+    @Benchmark
+    public RtcpPacket decodeReport() {
+        RtcpPacket rtcpPacket = new RtcpPacket();
+        rtcpPacket.decode(reportData, 0);
+        return rtcpPacket;
+    }
+
+}
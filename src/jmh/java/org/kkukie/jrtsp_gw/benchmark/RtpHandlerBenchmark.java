@@ -0,0 +1,68 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.media.core.handler.RtpHandler;
+import org.kkukie.jrtsp_gw.media.core.scheduler.WallClock;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpInfo;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandlerException;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.format.RTPFormat;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.format.RTPFormats;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics.RtpStatistics;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.module.RtpClock;
+import org.kkukie.jrtsp_gw.session.media.base.MediaType;
+import org.kkukie.jrtsp_gw.session.media.format.FormatFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RtpHandler 의 수신 경로 (RTP 판별 + RtpPacket 변환 + 통계 + 콜백)
+ * SRTP 복호화는 SrtpReverseTransformBenchmark 에서 따로 측정한다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RtpHandlerBenchmark {
+
+    private final InetSocketAddress localPeer = new InetSocketAddress("127.0.0.1", 30001);
+    private final InetSocketAddress remotePeer = new InetSocketAddress("127.0.0.1", 40001);
+
+    private RtpHandler rtpHandler;
+    private byte[] rtpPacket;
+    private RtpInfo lastRtpInfo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, RTPFormats> mediaFormatMap = new HashMap<>();
+        RTPFormats videoFormats = new RTPFormats();
+        videoFormats.add(new RTPFormat(
+                BenchmarkFixtures.VIDEO_PAYLOAD_TYPE,
+                FormatFactory.createVideoFormat(BenchmarkFixtures.VIDEO_ENCODING_NAME),
+                BenchmarkFixtures.VIDEO_CLOCK_RATE
+        ));
+        mediaFormatMap.put(MediaType.VIDEO.getName(), videoFormats);
+
+        RtpClock rtpClock = new RtpClock(new WallClock());
+        rtpHandler = new RtpHandler("benchmark", rtpClock, new RtpStatistics(rtpClock), mediaFormatMap);
+        rtpHandler.setRtpRecvCallback(rtpInfo -> lastRtpInfo = rtpInfo);
+
+        rtpPacket = BenchmarkFixtures.makeVideoRtpPacket(1, 0, false);
+    }
+
+    @Benchmark
+    public boolean canHandle() {
+        return rtpHandler.canHandle(rtpPacket);
+    }
+
+    @Benchmark
+    public RtpInfo handle() throws PacketHandlerException {
+        rtpHandler.handle(rtpPacket, localPeer, remotePeer);
+        return lastRtpInfo;
+    }
+
+}
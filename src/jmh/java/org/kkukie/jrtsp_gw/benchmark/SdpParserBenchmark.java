@@ -0,0 +1,32 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import media.core.rtsp.sdp.SdpParser;
+import media.core.rtsp.sdp.SdpSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OME 가 보낸 offer SDP 를 SdpParser 로 파싱하는 비용
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SdpParserBenchmark {
+
+    private String omeOfferSdp;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        omeOfferSdp = BenchmarkFixtures.loadResource(BenchmarkFixtures.OME_OFFER_SDP_PATH);
+    }
+
+    @Benchmark
+    public SdpSession parseOmeOffer() {
+        return SdpParser.INSTANCE.parse(omeOfferSdp);
+    }
+
+}
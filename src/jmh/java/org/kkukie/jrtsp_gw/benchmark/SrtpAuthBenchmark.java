@@ -0,0 +1,69 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.KeyParameter;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPCipherBackend;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SRTP 인증 태그 계산 (HMAC-SHA1, RTP 패킷 + ROC)
+ *  - BOUNCYCASTLE : 기존 경로, HMac(SHA1Digest) (ipad/opad 상태를 Memoable 로 복원)
+ *  - JCE_MAC      : javax.crypto.Mac("HmacSHA1") (매 패킷 reset 할 때 ipad 블록을 다시 해시)
+ *  - JCE          : JceHmacSha1 (미리 계산한 ipad/opad 상태를 복제해서 사용)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SrtpAuthBenchmark {
+
+    @Param({"BOUNCYCASTLE", "JCE_MAC", "JCE"})
+    public String impl;
+
+    /** SRTP_AES128_CM_HMAC_SHA1_80 의 세션 인증 키 길이 */
+    private final byte[] authKey = new byte[20];
+    private final byte[] roc = new byte[4];
+    private final byte[] tag = new byte[20];
+
+    private org.kkukie.jrtsp_gw.media.bouncycastle.crypto.Mac srtpMac;
+    private Mac jceMac;
+    private byte[] rtpPacket;
+
+    @Setup(Level.Trial)
+    public void setup() throws GeneralSecurityException {
+        for (int i = 0; i < authKey.length; i++) {
+            authKey[i] = (byte) (i + 1);
+        }
+
+        if ("JCE_MAC".equals(impl)) {
+            jceMac = Mac.getInstance("HmacSHA1");
+            jceMac.init(new SecretKeySpec(authKey, "HmacSHA1"));
+        } else {
+            srtpMac = SRTPCipherBackend.of(impl).createHmacSha1();
+            srtpMac.init(new KeyParameter(authKey));
+        }
+
+        rtpPacket = BenchmarkFixtures.makeVideoRtpPacket(1, 0, false);
+    }
+
+    @Benchmark
+    public byte[] hmacSha1() throws GeneralSecurityException {
+        if (jceMac != null) {
+            jceMac.update(rtpPacket, 0, rtpPacket.length);
+            jceMac.update(roc, 0, roc.length);
+            jceMac.doFinal(tag, 0);
+        } else {
+            srtpMac.update(rtpPacket, 0, rtpPacket.length);
+            srtpMac.update(roc, 0, roc.length);
+            srtpMac.doFinal(tag, 0);
+        }
+        return tag;
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.PacketTransformer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPCipherFactory;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPPolicy;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPTransformEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 SSRC 의 SRTP 패킷 묶음(burst)을 복원하는 비용 (AES-CM + HMAC-SHA1_80, in-place)
+ *  - perPacket : 패킷마다 PacketTransformer.reverseTransform(ByteBuffer) 호출
+ *  - burst     : PacketTransformer.reverseTransform(ByteBuffer[], count, restored) 한 번 호출
+ * replay 검사 때문에 매 호출 전에 다음 sequence number 의 패킷들을 암호화해둔다. (측정 시간에는 포함되지 않는다.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SrtpBurstReverseTransformBenchmark {
+
+    @Param({"BOUNCYCASTLE", "JCE"})
+    public String backend;
+
+    @Param({"16"})
+    public int burstSize;
+
+    private PacketTransformer senderTransformer;
+    private PacketTransformer receiverTransformer;
+
+    private ByteBuffer[] srtpBuffers;
+    private boolean[] restored;
+
+    private int seqNum = 0;
+    private long timestamp = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SRTPCipherFactory.init(backend);
+
+        senderTransformer = newTransformer();
+        receiverTransformer = newTransformer();
+
+        srtpBuffers = new ByteBuffer[burstSize];
+        for (int i = 0; i < burstSize; i++) {
+            srtpBuffers[i] = ByteBuffer.allocate(1500);
+        }
+        restored = new boolean[burstSize];
+    }
+
+    @Setup(Level.Invocation)
+    public void encryptNextBurst() {
+        for (ByteBuffer srtpBuffer : srtpBuffers) {
+            seqNum = (seqNum + 1) & 0xFFFF;
+            timestamp += BenchmarkFixtures.VIDEO_TIMESTAMP_STEP;
+
+            byte[] srtpPacket = senderTransformer.transform(
+                    BenchmarkFixtures.makeVideoRtpPacket(seqNum, timestamp, false)
+            );
+            srtpBuffer.clear();
+            srtpBuffer.put(srtpPacket);
+            srtpBuffer.flip();
+        }
+    }
+
+    @Benchmark
+    public int perPacket() {
+        int restoredCount = 0;
+        for (ByteBuffer srtpBuffer : srtpBuffers) {
+            if (receiverTransformer.reverseTransform(srtpBuffer)) {
+                restoredCount++;
+            }
+        }
+        return restoredCount;
+    }
+
+    @Benchmark
+    public int burst() {
+        return receiverTransformer.reverseTransform(srtpBuffers, burstSize, restored);
+    }
+
+    private static PacketTransformer newTransformer() {
+        SRTPPolicy srtpPolicy = BenchmarkFixtures.newSrtpPolicy(SRTPPolicy.AESCM_ENCRYPTION);
+        return new SRTPTransformEngine(
+                BenchmarkFixtures.SRTP_MASTER_KEY, BenchmarkFixtures.SRTP_MASTER_SALT, srtpPolicy, srtpPolicy
+        ).getRTPTransformer();
+    }
+
+}
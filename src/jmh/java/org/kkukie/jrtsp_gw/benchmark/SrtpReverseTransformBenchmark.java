@@ -0,0 +1,90 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.PacketTransformer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.RawPacket;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPCipherFactory;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPCryptoContext;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPPolicy;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPTransformEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SRTPCryptoContext.reverseTransformPacket (인증 태그 검사 + replay 검사 + 복호화)
+ * replay 검사 때문에 같은 패킷을 반복해서 복호화할 수 없으므로,
+ * 매 호출 전에 다음 sequence number 의 패킷을 송신 컨텍스트로 암호화해둔다. (측정 시간에는 포함되지 않는다.)
+ * transformerCopy / transformerInPlace 는 PacketTransformer 의 byte[] 경로와 in-place (heap ByteBuffer) 경로를 비교한다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SrtpReverseTransformBenchmark {
+
+    @Param({"AES_CM", "AES_F8"})
+    public String cipher;
+
+    @Param({"BOUNCYCASTLE", "JCE"})
+    public String backend;
+
+    private SRTPCryptoContext senderContext;
+    private SRTPCryptoContext receiverContext;
+    private PacketTransformer receiverTransformer;
+
+    private final RawPacket sendPacket = new RawPacket();
+    private final RawPacket recvPacket = new RawPacket();
+    private final ByteBuffer recvBuffer = ByteBuffer.allocate(1500);
+
+    private int seqNum = 0;
+    private long timestamp = 0;
+    private byte[] srtpPacket;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SRTPCipherFactory.init(backend);
+
+        int encType = "AES_F8".equals(cipher) ? SRTPPolicy.AESF8_ENCRYPTION : SRTPPolicy.AESCM_ENCRYPTION;
+        senderContext = BenchmarkFixtures.newSrtpContext(encType, BenchmarkFixtures.VIDEO_SSRC);
+        receiverContext = BenchmarkFixtures.newSrtpContext(encType, BenchmarkFixtures.VIDEO_SSRC);
+
+        SRTPPolicy srtpPolicy = BenchmarkFixtures.newSrtpPolicy(encType);
+        receiverTransformer = new SRTPTransformEngine(
+                BenchmarkFixtures.SRTP_MASTER_KEY, BenchmarkFixtures.SRTP_MASTER_SALT, srtpPolicy, srtpPolicy
+        ).getRTPTransformer();
+    }
+
+    @Setup(Level.Invocation)
+    public void encryptNextPacket() {
+        seqNum = (seqNum + 1) & 0xFFFF;
+        timestamp += BenchmarkFixtures.VIDEO_TIMESTAMP_STEP;
+
+        byte[] rtpPacket = BenchmarkFixtures.makeVideoRtpPacket(seqNum, timestamp, false);
+        sendPacket.wrap(rtpPacket, 0, rtpPacket.length);
+        senderContext.transformPacket(sendPacket);
+        srtpPacket = sendPacket.getData();
+    }
+
+    @Benchmark
+    public boolean reverseTransformPacket() {
+        recvPacket.wrap(srtpPacket, 0, srtpPacket.length);
+        return receiverContext.reverseTransformPacket(recvPacket);
+    }
+
+    @Benchmark
+    public byte[] transformerCopy() {
+        return receiverTransformer.reverseTransform(srtpPacket);
+    }
+
+    @Benchmark
+    public boolean transformerInPlace() {
+        recvBuffer.clear();
+        recvBuffer.put(srtpPacket);
+        recvBuffer.flip();
+        return receiverTransformer.reverseTransform(recvBuffer);
+    }
+
+}
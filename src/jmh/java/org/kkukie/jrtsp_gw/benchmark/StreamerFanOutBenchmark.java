@@ -0,0 +1,93 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.Streamer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.base.MediaType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streamer.sendRtpPacket 로 하나의 RTP 패킷을 N 명의 RTSP(TCP interleaved) 시청자에게 전달하는 비용
+ * 시청자 채널은 EmbeddedChannel 이며, 파이프라인 끝의 sink 가 전달받은 버퍼를 바로 해제한다. (소켓 I/O 는 제외)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamerFanOutBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int viewers;
+
+    private Streamer[] streamers;
+    private EmbeddedChannel[] channels;
+    private ByteBuf rtpBuf;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkFixtures.initConfig();
+
+        streamers = new Streamer[viewers];
+        channels = new EmbeddedChannel[viewers];
+        for (int i = 0; i < viewers; i++) {
+            EmbeddedChannel channel = new EmbeddedChannel();
+            channel.pipeline().addLast("sink", new ReleasingSink());
+            channel.pipeline().addLast("rtsp", new ChannelInboundHandlerAdapter());
+            channels[i] = channel;
+
+            Streamer streamer = new Streamer(
+                    MediaType.VIDEO, "benchmark", "session-" + i, "0",
+                    true, "127.0.0.1", 0
+            );
+            streamer.setRtspChannelContext(channel.pipeline().context("rtsp"));
+            streamer.start();
+            streamers[i] = streamer;
+        }
+
+        byte[] rtpPacket = BenchmarkFixtures.makeVideoRtpPacket(1, 0, false);
+        rtpBuf = PooledByteBufAllocator.DEFAULT.directBuffer(rtpPacket.length);
+        rtpBuf.writeBytes(rtpPacket);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (EmbeddedChannel channel : channels) {
+            channel.finishAndReleaseAll();
+        }
+        rtpBuf.release();
+    }
+
+    @Benchmark
+    public void sendRtpPacket() {
+        for (Streamer streamer : streamers) {
+            streamer.sendRtpPacket(rtpBuf, MediaType.VIDEO.getName(), false);
+        }
+    }
+
+    /**
+     * 시청자 소켓 대신 쓰기 요청을 바로 완료 처리하는 핸들러
+     */
+    private static final class ReleasingSink extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            promise.trySuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            // 전송할 데이터가 없다.
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.kkukie.jrtsp_gw.benchmark;
+
+import org.kkukie.jrtsp_gw.media.core.stream.stun.messages.StunMessage;
+import org.kkukie.jrtsp_gw.media.core.stream.stun.messages.StunRequest;
+import org.kkukie.jrtsp_gw.media.core.stream.stun.exception.StunException;
+import org.kkukie.jrtsp_gw.media.core.stream.stun.model.StunMessageFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StunMessage.decode / encode
+ * 1) RFC 5769 Sample Request 디코딩
+ * 2) 게이트웨이가 OME 로 보내는 ICE Binding Request (USERNAME + MESSAGE-INTEGRITY + FINGERPRINT) 인코딩/디코딩
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StunMessageBenchmark {
+
+    private StunRequest bindingRequest;
+    private byte[] bindingRequestData;
+
+    @Setup(Level.Trial)
+    public void setup() throws StunException {
+        bindingRequest = StunMessageFactory.createBindingRequest(
+                BenchmarkFixtures.OME_ICE_UFRAG + ":benchmark", BenchmarkFixtures.OME_ICE_PWD
+        );
+        bindingRequestData = bindingRequest.encode();
+    }
+
+    @Benchmark
+    public StunMessage decodeRfc5769SampleRequest() throws StunException {
+        byte[] data = BenchmarkFixtures.STUN_SAMPLE_REQUEST;
+        return StunMessage.decode(data, (char) 0, (char) data.length);
+    }
+
+    @Benchmark
+    public StunMessage decodeBindingRequest() throws StunException {
+        return StunMessage.decode(bindingRequestData, (char) 0, (char) bindingRequestData.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBindingRequest() {
+        return bindingRequest.encode();
+    }
+
+}
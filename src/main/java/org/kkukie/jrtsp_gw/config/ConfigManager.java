@@ -39,6 +39,26 @@ public class ConfigManager {
             defaultConfig.setLocalPortMin(configEnv.getIntProperty("default.localPortMin"));
             defaultConfig.setLocalPortMax(configEnv.getIntProperty("default.localPortMax"));
             defaultConfig.setRtpBurstBufferCount(configEnv.getIntProperty("default.rtpBurstBufferCount"));
+            defaultConfig.setSelectorThreadSize(configEnv.getIntProperty("default.selectorThreadSize"));
+            defaultConfig.setIngestTransportType(configEnv.getStringProperty("default.ingestTransportType"));
+            defaultConfig.setUdpEgressFlushDelayUs(configEnv.getIntProperty("default.udpEgressFlushDelayUs"));
+            defaultConfig.setGopCacheMaxBytesPerConference(configEnv.getIntProperty("default.gopCacheMaxBytesPerConference"));
+            defaultConfig.setGopCacheMaxBytesTotal(configEnv.getIntProperty("default.gopCacheMaxBytesTotal"));
+            defaultConfig.setRelayRingSize(configEnv.getIntProperty("default.relayRingSize"));
+            defaultConfig.setTcpEgressWriteBufferLowMark(configEnv.getIntProperty("default.tcpEgressWriteBufferLowMark"));
+            defaultConfig.setTcpEgressWriteBufferHighMark(configEnv.getIntProperty("default.tcpEgressWriteBufferHighMark"));
+            defaultConfig.setTcpEgressUnwritableTimeoutMs(configEnv.getIntProperty("default.tcpEgressUnwritableTimeoutMs"));
+            defaultConfig.setSrtpCipherBackend(configEnv.getStringProperty("default.srtpCipherBackend"));
+            defaultConfig.setSrtpDecryptThreadSize(configEnv.getIntProperty("default.srtpDecryptThreadSize"));
+            defaultConfig.setNackMaxRetries(configEnv.getIntProperty("default.nackMaxRetries"));
+            defaultConfig.setJitterBufferVideoMaxDelayMs(configEnv.getIntProperty("default.jitterBufferVideoMaxDelayMs"));
+            defaultConfig.setJitterBufferAudioMaxDelayMs(configEnv.getIntProperty("default.jitterBufferAudioMaxDelayMs"));
+            defaultConfig.setKeyframeRequestMinIntervalMs(configEnv.getIntProperty("default.keyframeRequestMinIntervalMs"));
+            defaultConfig.setViewerFeedbackType(configEnv.getStringProperty("default.viewerFeedbackType"));
+            defaultConfig.setViewerFeedbackPercentile(configEnv.getIntProperty("default.viewerFeedbackPercentile"));
+            defaultConfig.setViewerFeedbackMinBitrateKbps(configEnv.getIntProperty("default.viewerFeedbackMinBitrateKbps"));
+            defaultConfig.setViewerFeedbackMaxBitrateKbps(configEnv.getIntProperty("default.viewerFeedbackMaxBitrateKbps"));
+            defaultConfig.setRtspSenderReportIntervalMs(configEnv.getIntProperty("default.rtspSenderReportIntervalMs"));
             log.debug("DefaultConfig: {}", defaultConfig.toString());
         }
     }
@@ -75,6 +95,8 @@ public class ConfigManager {
             dtlsConfig = new DtlsConfig();
             dtlsConfig.setKeyPath(configEnv.getStringProperty("dtls.keyPath"));
             dtlsConfig.setCertPath(configEnv.getStringProperty("dtls.certPath"));
+            dtlsConfig.setHandshakeThreadSize(configEnv.getIntProperty("dtls.handshakeThreadSize"));
+            dtlsConfig.setCertReloadIntervalMs(configEnv.getIntProperty("dtls.certReloadIntervalMs"));
             log.debug("DtlsConfig: {}", dtlsConfig.toString());
         }
     }
@@ -22,6 +22,26 @@ public class DefaultConfig extends AbstractConfig {
     private int localPortMin = 0;
     private int localPortMax = 0;
     private int rtpBurstBufferCount = 0;
+    private int selectorThreadSize = 0;
+    private String ingestTransportType = null;
+    private int udpEgressFlushDelayUs = 0;
+    private int gopCacheMaxBytesPerConference = 0;
+    private int gopCacheMaxBytesTotal = 0;
+    private int relayRingSize = 0;
+    private int tcpEgressWriteBufferLowMark = 0;
+    private int tcpEgressWriteBufferHighMark = 0;
+    private int tcpEgressUnwritableTimeoutMs = 0;
+    private String srtpCipherBackend = null;
+    private int srtpDecryptThreadSize = 0;
+    private int nackMaxRetries = 0;
+    private int jitterBufferVideoMaxDelayMs = 0;
+    private int jitterBufferAudioMaxDelayMs = 0;
+    private int keyframeRequestMinIntervalMs = 0;
+    private String viewerFeedbackType = null;
+    private int viewerFeedbackPercentile = 0;
+    private int viewerFeedbackMinBitrateKbps = 0;
+    private int viewerFeedbackMaxBitrateKbps = 0;
+    private int rtspSenderReportIntervalMs = 0;
 
     @Override
     public String toString() {
@@ -37,6 +57,26 @@ public class DefaultConfig extends AbstractConfig {
                 ", localPortMin=" + localPortMin +
                 ", localPortMax=" + localPortMax +
                 ", rtpBurstBufferCount=" + rtpBurstBufferCount +
+                ", selectorThreadSize=" + selectorThreadSize +
+                ", ingestTransportType='" + ingestTransportType + '\'' +
+                ", udpEgressFlushDelayUs=" + udpEgressFlushDelayUs +
+                ", gopCacheMaxBytesPerConference=" + gopCacheMaxBytesPerConference +
+                ", gopCacheMaxBytesTotal=" + gopCacheMaxBytesTotal +
+                ", relayRingSize=" + relayRingSize +
+                ", tcpEgressWriteBufferLowMark=" + tcpEgressWriteBufferLowMark +
+                ", tcpEgressWriteBufferHighMark=" + tcpEgressWriteBufferHighMark +
+                ", tcpEgressUnwritableTimeoutMs=" + tcpEgressUnwritableTimeoutMs +
+                ", srtpCipherBackend='" + srtpCipherBackend + '\'' +
+                ", srtpDecryptThreadSize=" + srtpDecryptThreadSize +
+                ", nackMaxRetries=" + nackMaxRetries +
+                ", jitterBufferVideoMaxDelayMs=" + jitterBufferVideoMaxDelayMs +
+                ", jitterBufferAudioMaxDelayMs=" + jitterBufferAudioMaxDelayMs +
+                ", keyframeRequestMinIntervalMs=" + keyframeRequestMinIntervalMs +
+                ", viewerFeedbackType='" + viewerFeedbackType + '\'' +
+                ", viewerFeedbackPercentile=" + viewerFeedbackPercentile +
+                ", viewerFeedbackMinBitrateKbps=" + viewerFeedbackMinBitrateKbps +
+                ", viewerFeedbackMaxBitrateKbps=" + viewerFeedbackMaxBitrateKbps +
+                ", rtspSenderReportIntervalMs=" + rtspSenderReportIntervalMs +
                 '}';
     }
 
@@ -13,12 +13,16 @@ public class DtlsConfig extends AbstractConfig {
 
     private String keyPath;
     private String certPath;
+    private int handshakeThreadSize;
+    private int certReloadIntervalMs;
 
     @Override
     public String toString() {
         return "DtlsConfig{" +
                 "keyPath='" + keyPath + '\'' +
                 ", certPath='" + certPath + '\'' +
+                ", handshakeThreadSize=" + handshakeThreadSize +
+                ", certReloadIntervalMs=" + certReloadIntervalMs +
                 '}';
     }
 
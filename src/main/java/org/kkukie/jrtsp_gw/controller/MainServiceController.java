@@ -1,6 +1,24 @@
 package org.kkukie.jrtsp_gw.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.core.manager.SrtpDecryptWorkerGroup;
+import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
+import org.kkukie.jrtsp_gw.media.core.stream.dtls.DtlsHandler;
+import org.kkukie.jrtsp_gw.media.core.stream.dtls.DtlsHandshakeExecutor;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPCryptoContext;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.nack.RtpLossRecovery;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.Streamer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback.ViewerFeedbackAggregator;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback.ViewerFeedbackManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.KeyframeRequestManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.KeyframeRequester;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.NettyChannelManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay.RtpRelayManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay.RtpRelayRing;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.sr.SenderReportManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.sr.SenderReportScheduler;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.TcpEgressGuard;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.UdpFlushBatcher;
 import org.kkukie.jrtsp_gw.media.core.stream.webrtc.service.WebRtcService;
 import org.kkukie.jrtsp_gw.media.core.stream.webrtc.service.model.WebRtcServiceInfo;
 import org.kkukie.jrtsp_gw.media.core.stream.webrtc.websocket.service.WebSocketService;
@@ -82,6 +100,224 @@ public class MainServiceController {
         return webRtcServiceInfo.getRemoteSdp();
     }
 
+    /**
+     * Streamer 별 UDP 송신 flush 통계
+     * (streamerKey,avgPacketsPerFlush,lastPacketsPerFlush,flushCount)
+     */
+    @GetMapping("/{conferenceId}/egress_flush_stats")
+    public String getEgressFlushStatsByConferenceId(@PathVariable String conferenceId) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        stringBuilder.append("EgressFlushStats");
+        for (Streamer streamer : NettyChannelManager.getInstance().getStreamersByCallId(conferenceId)) {
+            UdpFlushBatcher udpFlushBatcher = streamer.getUdpFlushBatcher();
+            if (udpFlushBatcher == null) { continue; }
+
+            stringBuilder.append("\n").append(streamer.getKey())
+                    .append(",").append(String.format("%.2f", udpFlushBatcher.getAvgPacketsPerFlush()))
+                    .append(",").append(udpFlushBatcher.getLastPacketsPerFlush())
+                    .append(",").append(udpFlushBatcher.getTotalFlushCount());
+        }
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * TCP(interleaved) 시청자별 송신 버퍼 통계
+     * (streamerKey,pendingBytes,maxPendingBytes,droppedPackets,droppedBytes,isSkippingVideo)
+     */
+    @GetMapping("/{conferenceId}/tcp_egress_stats")
+    public String getTcpEgressStatsByConferenceId(@PathVariable String conferenceId) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        stringBuilder.append("TcpEgressStats");
+        for (Streamer streamer : NettyChannelManager.getInstance().getStreamersByCallId(conferenceId)) {
+            TcpEgressGuard tcpEgressGuard = streamer.getTcpEgressGuard();
+            if (tcpEgressGuard == null) { continue; }
+
+            stringBuilder.append("\n").append(streamer.getKey())
+                    .append(",").append(tcpEgressGuard.getPendingBytes())
+                    .append(",").append(tcpEgressGuard.getMaxPendingBytes())
+                    .append(",").append(tcpEgressGuard.getDroppedPackets())
+                    .append(",").append(tcpEgressGuard.getDroppedBytes())
+                    .append(",").append(tcpEgressGuard.isSkippingVideo());
+        }
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Ingest -> RTSP fan-out 링 통계
+     * (capacity,occupancy,maxOccupancy,enqueued,droppedVideo,droppedAudio)
+     */
+    @GetMapping("/{conferenceId}/relay_ring_stats")
+    public String getRelayRingStatsByConferenceId(@PathVariable String conferenceId) {
+        RtpRelayRing relayRing = RtpRelayManager.getInstance().getRelayRing(conferenceId);
+        if (relayRing == null) { return "none"; }
+
+        return relayRing.getCapacity()
+                + "," + relayRing.getOccupancy()
+                + "," + relayRing.getMaxOccupancy()
+                + "," + relayRing.getEnqueuedCount()
+                + "," + relayRing.getDroppedVideoCount()
+                + "," + relayRing.getDroppedAudioCount();
+    }
+
+    /**
+     * SRTP 병렬 복호화 워커 그룹 통계
+     * (threadSize,pendingTaskCount,droppedCount)
+     */
+    @GetMapping("/srtp_decrypt_stats")
+    public String getSrtpDecryptStats() {
+        SrtpDecryptWorkerGroup srtpDecryptWorkerGroup = SrtpDecryptWorkerGroup.getInstance();
+        return srtpDecryptWorkerGroup.getThreadSize()
+                + "," + srtpDecryptWorkerGroup.getPendingTaskCount()
+                + "," + srtpDecryptWorkerGroup.getDroppedCount();
+    }
+
+    /**
+     * DTLS 핸드셰이크 실행기 동시성 및 지연 시간 통계
+     * (active,pending,maxActive,completed,failed,rejected,avgLatencyMs,maxLatencyMs,lastLatencyMs)
+     */
+    @GetMapping("/dtls_handshake_stats")
+    public String getDtlsHandshakeStats() {
+        DtlsHandshakeExecutor dtlsHandshakeExecutor = DtlsHandshakeExecutor.getInstance();
+        return dtlsHandshakeExecutor.getActiveCount()
+                + "," + dtlsHandshakeExecutor.getPendingCount()
+                + "," + dtlsHandshakeExecutor.getMaxActiveCount()
+                + "," + dtlsHandshakeExecutor.getCompletedCount()
+                + "," + dtlsHandshakeExecutor.getFailedCount()
+                + "," + dtlsHandshakeExecutor.getRejectedCount()
+                + "," + String.format("%.1f", dtlsHandshakeExecutor.getAvgLatencyMs())
+                + "," + dtlsHandshakeExecutor.getMaxLatencyMs()
+                + "," + dtlsHandshakeExecutor.getLastLatencyMs();
+    }
+
+    /**
+     * 수신 SRTP 스트림(SSRC)별 재전송 검사 통계
+     * (ssrc,roc,seqNum,replayed,tooOld,rocWrap)
+     */
+    @GetMapping("/{conferenceId}/srtp_replay_stats")
+    public String getSrtpReplayStatsByConferenceId(@PathVariable String conferenceId) {
+        DataChannel dataChannel = getDataChannel(conferenceId);
+        if (dataChannel == null) { return "none"; }
+
+        DtlsHandler dtlsHandler = dataChannel.getPacketHandlerMaster().getDtlsHandler();
+        if (dtlsHandler == null) { return "none"; }
+
+        StringBuilder stringBuilder = new StringBuilder();
+
+        stringBuilder.append("SrtpReplayStats");
+        for (SRTPCryptoContext context : dtlsHandler.getSrtpDecoderContexts()) {
+            stringBuilder.append("\n").append(context.getSSRC())
+                    .append(",").append(context.getROC())
+                    .append(",").append(context.getSeqNum())
+                    .append(",").append(context.getReplayedCount())
+                    .append(",").append(context.getTooOldCount())
+                    .append(",").append(context.getRocWrapCount());
+        }
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * 수신 손실 복구(비디오 NACK + 오디오/비디오 지터 버퍼) 통계
+     * (nackPackets,nackRequests,recovered,unrecovered,reordered,duplicate,skipped,late,heldPackets,avgHoldMs,maxHoldMs,rttMs,videoDelayMs,audioDelayMs,resyncs)
+     */
+    @GetMapping("/{conferenceId}/nack_stats")
+    public String getNackStatsByConferenceId(@PathVariable String conferenceId) {
+        DataChannel dataChannel = getDataChannel(conferenceId);
+        if (dataChannel == null) { return "none"; }
+
+        RtpLossRecovery lossRecovery = dataChannel.getPacketHandlerMaster().getLossRecovery();
+        if (lossRecovery == null) { return "none"; }
+
+        return lossRecovery.getNackPacketCount()
+                + "," + lossRecovery.getNackRequestCount()
+                + "," + lossRecovery.getRecoveredCount()
+                + "," + lossRecovery.getUnrecoveredCount()
+                + "," + lossRecovery.getReorderedCount()
+                + "," + lossRecovery.getDuplicateCount()
+                + "," + lossRecovery.getSkippedCount()
+                + "," + lossRecovery.getLateCount()
+                + "," + lossRecovery.getHeldPacketCount()
+                + "," + String.format("%.1f", lossRecovery.getAvgHoldTimeMs())
+                + "," + lossRecovery.getMaxHoldTimeMs()
+                + "," + lossRecovery.getRttMs()
+                + "," + lossRecovery.getVideoDelayMs()
+                + "," + lossRecovery.getAudioDelayMs()
+                + "," + lossRecovery.getResyncCount();
+    }
+
+    /**
+     * 시청자 PLAY 시 송신측에 보낸 키프레임 요청(PLI/FIR) 통계
+     * (requests,pli,fir,coalesced,gopCacheHits,keyframes,unanswered,lastLatencyMs)
+     */
+    @GetMapping("/{conferenceId}/keyframe_request_stats")
+    public String getKeyframeRequestStatsByConferenceId(@PathVariable String conferenceId) {
+        KeyframeRequester keyframeRequester = KeyframeRequestManager.getInstance().getKeyframeRequester(conferenceId);
+        if (keyframeRequester == null) { return "none"; }
+
+        return keyframeRequester.getRequestCount()
+                + "," + keyframeRequester.getPliCount()
+                + "," + keyframeRequester.getFirCount()
+                + "," + keyframeRequester.getCoalescedCount()
+                + "," + keyframeRequester.getGopCacheHitCount()
+                + "," + keyframeRequester.getKeyframeCount()
+                + "," + keyframeRequester.getUnansweredCount()
+                + "," + keyframeRequester.getLastLatencyMs();
+    }
+
+    /**
+     * 시청자 RR 집계와 송신측에 보낸 비트레이트 피드백(REMB/TMMBR) 통계
+     * (viewers,fractionLost,jitterMs,incomingBitrate,sentBitrate,feedbacks)
+     */
+    @GetMapping("/{conferenceId}/viewer_feedback_stats")
+    public String getViewerFeedbackStatsByConferenceId(@PathVariable String conferenceId) {
+        ViewerFeedbackAggregator aggregator = ViewerFeedbackManager.getInstance().getAggregator(conferenceId);
+        if (aggregator == null) { return "none"; }
+
+        return aggregator.getViewerCount()
+                + "," + aggregator.getFractionLost()
+                + "," + aggregator.getJitterMs()
+                + "," + aggregator.getIncomingBitrate()
+                + "," + aggregator.getSentBitrate()
+                + "," + aggregator.getFeedbackCount();
+    }
+
+    /**
+     * RTSP 시청자에게 보낸 RTCP SR 통계
+     * (sent,noMapping,staleMapping)
+     */
+    @GetMapping("/{conferenceId}/sender_report_stats")
+    public String getSenderReportStatsByConferenceId(@PathVariable String conferenceId) {
+        SenderReportScheduler scheduler = SenderReportManager.getInstance().getScheduler(conferenceId);
+        if (scheduler == null) { return "none"; }
+
+        return scheduler.getSentCount()
+                + "," + scheduler.getNoMappingCount()
+                + "," + scheduler.getStaleMappingCount();
+    }
+
+    private DataChannel getDataChannel(String conferenceId) {
+        ConferenceInfo conference = ConferenceMaster.getInstance().findConference(conferenceId);
+        if (conference == null) {
+            return null;
+        }
+
+        WebRtcService webRtcService = conference.getWebRtcService();
+        if (webRtcService == null) {
+            return null;
+        }
+
+        WebSocketService webSocketService = webRtcService.getWebSocketService();
+        if (webSocketService == null) {
+            return null;
+        }
+
+        return webSocketService.getWebSocketInfo().getDataChannel();
+    }
+
     private WebRtcServiceInfo getWebRtcServiceInfo(String conferenceId) {
         ConferenceInfo conference = ConferenceMaster.getInstance().findConference(conferenceId);
         if (conference == null) {
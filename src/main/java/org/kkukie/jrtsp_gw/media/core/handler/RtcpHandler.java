@@ -1,24 +1,24 @@
 package org.kkukie.jrtsp_gw.media.core.handler;
 
+import io.netty.util.Timeout;
 import lombok.extern.slf4j.Slf4j;
-import org.kkukie.jrtsp_gw.media.core.scheduler.ServiceScheduler;
-import org.kkukie.jrtsp_gw.media.core.scheduler.base.Scheduler;
+import org.kkukie.jrtsp_gw.media.core.manager.MediaTimerManager;
+import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
 import org.kkukie.jrtsp_gw.media.core.stream.dtls.DtlsHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.rtcp.*;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpPacket;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandlerException;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics.RtpStatistics;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback.BitrateFeedbackType;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.nio.ByteBuffer;
-import java.util.concurrent.Future;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 @Slf4j
@@ -30,16 +30,18 @@ public class RtcpHandler implements PacketHandler {
     private static final long SSRC_TASK_DELAY = 7000;
 
     /* Core elements */
-    private final DatagramSocket datagramSocket;
-    private final ByteBuffer byteBuffer;
+    private final DataChannel dataChannel;
     private int pipelinePriority;
 
-    /* Scheduler */
-    private final Scheduler serviceScheduler;
-    private TxTask scheduledTask;
-    private Future<?> reportTaskFuture;
+    /*
+     * Scheduler
+     * Timers are armed on the global MediaTimerManager. When they expire, the task is handed over to the I/O thread of
+     * the data channel, so report building, SRTCP encryption and statistics updates run on the same thread as the receive path.
+     */
+    private volatile TxTask scheduledTask;
+    private volatile Timeout reportTimeout;
     private final SsrcTask ssrcTask;
-    private Future<?> ssrcTaskFuture;
+    private volatile Timeout ssrcTimeout;
 
     /* RTCP elements */
     private final RtpStatistics statistics;
@@ -57,6 +59,12 @@ public class RtcpHandler implements PacketHandler {
     /** Flag that is true once the handler joined an RTP session */
     private final AtomicBoolean joined;
 
+    /** Command sequence number of the next FIR (RFC 5104, 4.3.1.1) */
+    private final AtomicInteger firSeqNo = new AtomicInteger(0);
+
+    /** Per packet overhead reported in a TMMBR : IPv4 (20) + UDP (8) + RTP (12) headers */
+    private static final int TMMBR_OVERHEAD = 40;
+
     /* WebRTC */
     /** Checks whether communication of this channel is secure. WebRTC calls only. */
     private boolean secure;
@@ -70,20 +78,18 @@ public class RtcpHandler implements PacketHandler {
 
     private final SocketAddress remoteAddress;
 
-    public RtcpHandler(String conferenceId, DatagramSocket datagramSocket, final RtpStatistics statistics, String mediaType, SocketAddress remoteAddress) {
+    public RtcpHandler(String conferenceId, DataChannel dataChannel, final RtpStatistics statistics, String mediaType, SocketAddress remoteAddress) {
         this.conferenceId = conferenceId;
-        this.datagramSocket = datagramSocket;
+        this.dataChannel = dataChannel;
 
         this.mediaType = mediaType.equals(AUDIO_TYPE);
         this.remoteAddress = remoteAddress;
 
         // Scheduler
-        this.serviceScheduler = new ServiceScheduler();
         this.ssrcTask = new SsrcTask();
 
         // core stuff
         this.pipelinePriority = 0;
-        this.byteBuffer = ByteBuffer.allocateDirect(RtpPacket.RTP_PACKET_MAX_SIZE);
 
         // rtcp stuff
         this.statistics = statistics;
@@ -104,12 +110,36 @@ public class RtcpHandler implements PacketHandler {
         stop();
     }
 
-    public void start() {
-        serviceScheduler.start();
+    public void stop() {
+        cancelTimeouts();
     }
 
-    public void stop() {
-        serviceScheduler.stop();
+    private void cancelTimeouts() {
+        Timeout curReportTimeout = this.reportTimeout;
+        if (curReportTimeout != null) {
+            curReportTimeout.cancel();
+            this.reportTimeout = null;
+        }
+
+        Timeout curSsrcTimeout = this.ssrcTimeout;
+        if (curSsrcTimeout != null) {
+            curSsrcTimeout.cancel();
+            this.ssrcTimeout = null;
+        }
+    }
+
+    /**
+     * Runs the task on the I/O thread of the data channel when the timeout expires.
+     */
+    private Timeout scheduleOnIoThread(Runnable task, long delay) {
+        return MediaTimerManager.getInstance().newTimeout(
+                timeout -> {
+                    if (!dataChannel.execute(task)) {
+                        log.debug("|RtcpHandler({})| Data channel is closed. Scheduled RTCP task is dropped.", conferenceId);
+                    }
+                },
+                delay, TimeUnit.MILLISECONDS
+        );
     }
 
     @Override
@@ -170,8 +200,12 @@ public class RtcpHandler implements PacketHandler {
             scheduleRtcp(this.tn, RtcpPacketType.RTCP_REPORT);
 
             // Start SSRC timeout timer
-            this.ssrcTaskFuture = this.serviceScheduler.scheduleWithFixedDelay(ssrcTask, SSRC_TASK_DELAY, SSRC_TASK_DELAY, TimeUnit.MILLISECONDS);
             this.joined.set(true);
+            try {
+                this.ssrcTimeout = scheduleOnIoThread(ssrcTask, SSRC_TASK_DELAY);
+            } catch (IllegalStateException e) {
+                log.warn("|RtcpHandler({})| Media timer is not running. SSRC timeouts will not be checked.", conferenceId);
+            }
 
             log.debug("|RtcpHandler({})| Joined the rtp session.", conferenceId);
         }
@@ -199,9 +233,7 @@ public class RtcpHandler implements PacketHandler {
             // this.scheduleRtcp(this.tn, RtcpPacketType.RTCP_BYE);
 
             // cancel scheduled task and schedule BYE now
-            if(this.reportTaskFuture != null) {
-                this.reportTaskFuture.cancel(true);
-            }
+            cancelTimeouts();
 
             // Send BYE
             // Do not run in separate thread so channel can be properly closed by the owner of this handler
@@ -236,7 +268,7 @@ public class RtcpHandler implements PacketHandler {
         this.scheduledTask = new TxTask(packetType);
 
         try {
-            this.reportTaskFuture = this.serviceScheduler.schedule(this.scheduledTask, interval, TimeUnit.MILLISECONDS);
+            this.reportTimeout = scheduleOnIoThread(this.scheduledTask, interval);
             // Let the RTP handler know what is the type of scheduled packet
             this.statistics.setRtcpPacketType(packetType);
         } catch (IllegalStateException e) {
@@ -246,12 +278,11 @@ public class RtcpHandler implements PacketHandler {
 
     private void scheduleNow(RtcpPacketType packetType) {
         this.scheduledTask = new TxTask(packetType);
-        try {
-            this.reportTaskFuture = this.serviceScheduler.submit(this.scheduledTask);
+        if (this.dataChannel.execute(this.scheduledTask)) {
             // Let the RTP handler know what is the type of scheduled packet
             this.statistics.setRtcpPacketType(packetType);
-        } catch (IllegalStateException e) {
-            log.warn("|RtcpHandler({})| RTCP timer already canceled. No more reports will be scheduled.", conferenceId);
+        } else {
+            log.warn("|RtcpHandler({})| Data channel is closed. No more reports will be scheduled.", conferenceId);
         }
     }
 
@@ -262,12 +293,15 @@ public class RtcpHandler implements PacketHandler {
      */
     private void rescheduleRtcp(TxTask task, long timestamp) {
         // Cancel current execution of the task
-        this.reportTaskFuture.cancel(true);
+        Timeout curReportTimeout = this.reportTimeout;
+        if (curReportTimeout != null) {
+            curReportTimeout.cancel();
+        }
 
         // Re-schedule task execution
         long interval = resolveInterval(timestamp);
         try {
-            this.reportTaskFuture = this.serviceScheduler.schedule(task, interval, TimeUnit.MILLISECONDS);
+            this.reportTimeout = scheduleOnIoThread(task, interval);
         } catch (IllegalStateException e) {
             log.warn("|RtcpHandler({})| RTCP timer already canceled. Scheduled report was canceled and cannot be re-scheduled.", conferenceId);
         }
@@ -364,7 +398,9 @@ public class RtcpHandler implements PacketHandler {
             }
             rtcpPacket.decode(decoded, 0);
         } else {
-            rtcpPacket.decode(packet, offset);
+            // The packet buffer may be longer than the packet and is reused after this call
+            decoded = Arrays.copyOfRange(packet, offset, offset + dataLength);
+            rtcpPacket.decode(decoded, 0);
         }
 
         // Trace incoming RTCP report
@@ -372,11 +408,7 @@ public class RtcpHandler implements PacketHandler {
             log.trace("|RtcpHandler({})| RECEIVED RTCP\n[{}]", conferenceId, rtcpPacket);
         }
 
-        if (this.secure && decoded != null) {
-            this.onRtcpReceive(new RtcpInfo(rtcpPacket, decoded, remotePeer, localPeer, this.mediaType));
-        } else {
-            this.onRtcpReceive(new RtcpInfo(rtcpPacket, packet, remotePeer, localPeer, this.mediaType));
-        }
+        this.onRtcpReceive(new RtcpInfo(rtcpPacket, decoded, remotePeer, localPeer, this.mediaType));
 
 
         // Upgrade RTCP statistics
@@ -416,22 +448,12 @@ public class RtcpHandler implements PacketHandler {
             return;
         }
 
-        if (this.datagramSocket != null) {
+        if (this.dataChannel != null) {
             if (this.secure) {
                 data = this.dtlsHandler.encodeRTCP(data, 0, data.length);
             }
 
-            // prepare buffer
-            byteBuffer.clear();
-            byteBuffer.rewind();
-            byteBuffer.put(data, 0, data.length);
-            byteBuffer.flip();
-            byteBuffer.rewind();
-
-            byte[] sendData = byteBuffer.array();
-            this.datagramSocket.send(
-                    new DatagramPacket(sendData, sendData.length, remoteAddress)
-            );
+            this.dataChannel.send(data, 0, data.length, remoteAddress);
 
             // trace outgoing RTCP report
             if (log.isTraceEnabled()) {
@@ -458,7 +480,7 @@ public class RtcpHandler implements PacketHandler {
 
         RtcpPacketType type = packet.hasBye() ? RtcpPacketType.RTCP_BYE : RtcpPacketType.RTCP_REPORT;
 
-        if (this.datagramSocket != null) {
+        if (this.dataChannel != null) {
             // decode packet
             byte[] data = new byte[RtpPacket.RTP_PACKET_MAX_SIZE];
             packet.encode(data, 0);
@@ -470,34 +492,20 @@ public class RtcpHandler implements PacketHandler {
                 dataLength = data.length;
             }
 
-            // prepare buffer
-            byteBuffer.clear();
-            byteBuffer.rewind();
-            byteBuffer.put(data, 0, dataLength);
-            byteBuffer.flip();
-            byteBuffer.rewind();
-
             // trace outgoing RTCP report
             if (log.isTraceEnabled()) {
                 log.trace("|RtcpHandler({})| SENDING RTCP\n[{}]", conferenceId, packet);
             }
 
             // Make double sure channel is still open and connected before sending
-            if (datagramSocket != null) {
+            if (this.dataChannel.isOpen()) {
                 // send packet
                 // XXX Should register on RTP statistics IF sending fails!
-                byte[] sendData = byteBuffer.array();
-                this.datagramSocket.send(
-                        new DatagramPacket(sendData, sendData.length, remoteAddress)
-                );
+                this.dataChannel.send(data, 0, dataLength, remoteAddress);
             } else {
                 // cancel packet transmission
                 if (log.isDebugEnabled()) {
-                    if (this.datagramSocket.isClosed()) {
-                        log.debug("|RtcpHandler({})| Channel is closed.", conferenceId);
-                    } else if (!this.datagramSocket.isConnected()) {
-                        log.debug("|RtcpHandler({})| RtChannel is disconnected.", conferenceId);
-                    }
+                    log.debug("|RtcpHandler({})| Channel is closed.", conferenceId);
                     log.debug("|RtcpHandler({})| Could not send {} packet.", conferenceId, type);
                 }
                 return;
@@ -514,42 +522,115 @@ public class RtcpHandler implements PacketHandler {
         }
     }
 
-    public synchronized void reset() {
-        if (joined.get()) {
-            throw new IllegalStateException("|RtcpHandler(" + conferenceId + ")| Cannot reset handler while is part of active RTP session.");
+    /**
+     * Sends a Generic NACK (RFC 4585) to the media source.
+     * The packet is built on the caller thread, and SRTCP protect and transmission run on the I/O thread of the data channel.
+     *
+     * @param mediaSsrc The SSRC of the media source that lost the packets
+     * @param seqNumbers The lost sequence numbers, in ascending order
+     * @param length The number of valid sequence numbers
+     */
+    public void sendNack(long mediaSsrc, int[] seqNumbers, int length) {
+        if (!this.joined.get() || length <= 0) {
+            return;
         }
 
-        if (this.reportTaskFuture != null) {
-            this.reportTaskFuture.cancel(false);
-            this.reportTaskFuture = null;
-            this.scheduledTask = null;
+        RtcpPacket nack = RtcpPacketFactory.buildNack(this.statistics.getSsrc(), mediaSsrc, seqNumbers, length);
+        boolean isExecuted = this.dataChannel.execute(() -> {
+            try {
+                sendRtcpPacket(nack);
+            } catch (IOException e) {
+                log.warn("|RtcpHandler({})| Fail to send NACK. (mediaSsrc={})", conferenceId, mediaSsrc, e);
+            }
+        });
+        if (!isExecuted) {
+            log.debug("|RtcpHandler({})| Data channel is closed. NACK is dropped. (mediaSsrc={})", conferenceId, mediaSsrc);
         }
+    }
 
-        if (this.ssrcTaskFuture != null) {
-            this.ssrcTaskFuture.cancel(false);
-            this.ssrcTaskFuture = null;
+    /**
+     * Requests a keyframe from the media source with a PLI (RFC 4585) or a FIR (RFC 5104).
+     * The packet is built on the caller thread, and SRTCP protect and transmission run on the I/O thread of the data channel.
+     *
+     * @param mediaSsrc The SSRC of the video source
+     * @param isFir Sends a FIR instead of a PLI
+     */
+    public void sendKeyframeRequest(long mediaSsrc, boolean isFir) {
+        if (!this.joined.get()) {
+            return;
         }
 
-        this.tp = 0;
-        this.tn = -1;
-        this.initial.set(true);
-        this.joined.set(false);
+        RtcpPacket keyframeRequest;
+        if (isFir) {
+            // The media source SSRC of a FIR is not used, the target SSRC goes to the FCI.
+            keyframeRequest = RtcpPacketFactory.buildPsFb(
+                    RtcpPsFb.PSFB_FIR, this.statistics.getSsrc(), 0,
+                    new RtcpFciFir(mediaSsrc, firSeqNo.getAndIncrement() & 0xFF)
+            );
+        } else {
+            keyframeRequest = RtcpPacketFactory.buildPsFb(RtcpPsFb.PSFB_PLI, this.statistics.getSsrc(), mediaSsrc);
+        }
 
-        if (this.secure) {
-            disableSRTCP();
+        boolean isExecuted = this.dataChannel.execute(() -> {
+            try {
+                sendRtcpPacket(keyframeRequest);
+            } catch (IOException e) {
+                log.warn("|RtcpHandler({})| Fail to send {}. (mediaSsrc={})", conferenceId, isFir ? "FIR" : "PLI", mediaSsrc, e);
+            }
+        });
+        if (!isExecuted) {
+            log.debug("|RtcpHandler({})| Data channel is closed. {} is dropped. (mediaSsrc={})", conferenceId, isFir ? "FIR" : "PLI", mediaSsrc);
         }
     }
 
     /**
-     * Disconnects and closes the datagram channel used to send and receive RTCP traffic.
+     * Sends the aggregated receiver estimate of the RTSP viewers to the media source.
+     * REMB (draft-alvestrand-rmcat-remb) or TMMBR (RFC 5104) as configured.
      */
-    private void closeChannel() {
-        if (this.datagramSocket != null) {
-            if (!this.datagramSocket.isClosed()) {
-                this.datagramSocket.disconnect();
+    public void sendBitrateFeedback(BitrateFeedbackType feedbackType, long mediaSsrc, long bitrate) {
+        if (!this.joined.get()) {
+            return;
+        }
+
+        RtcpPacket bitrateFeedback;
+        switch (feedbackType) {
+            case REMB:
+                bitrateFeedback = RtcpPacketFactory.buildRemb(this.statistics.getSsrc(), bitrate, mediaSsrc);
+                break;
+            case TMMBR:
+                bitrateFeedback = RtcpPacketFactory.buildTmmbr(this.statistics.getSsrc(), mediaSsrc, bitrate, TMMBR_OVERHEAD);
+                break;
+            default:
+                return;
+        }
+
+        boolean isExecuted = this.dataChannel.execute(() -> {
+            try {
+                sendRtcpPacket(bitrateFeedback);
+            } catch (IOException e) {
+                log.warn("|RtcpHandler({})| Fail to send {}. (mediaSsrc={}, bitrate={})", conferenceId, feedbackType, mediaSsrc, bitrate, e);
             }
+        });
+        if (!isExecuted) {
+            log.debug("|RtcpHandler({})| Data channel is closed. {} is dropped. (mediaSsrc={})", conferenceId, feedbackType, mediaSsrc);
+        }
+    }
 
-            this.datagramSocket.close();
+    public synchronized void reset() {
+        if (joined.get()) {
+            throw new IllegalStateException("|RtcpHandler(" + conferenceId + ")| Cannot reset handler while is part of active RTP session.");
+        }
+
+        cancelTimeouts();
+        this.scheduledTask = null;
+
+        this.tp = 0;
+        this.tn = -1;
+        this.initial.set(true);
+        this.joined.set(false);
+
+        if (this.secure) {
+            disableSRTCP();
         }
     }
 
@@ -676,6 +757,15 @@ public class RtcpHandler implements PacketHandler {
         @Override
         public void run() {
             statistics.isSenderTimeout();
+
+            // Fixed delay : re-arm after each check while in the RTP session
+            if (joined.get()) {
+                try {
+                    ssrcTimeout = scheduleOnIoThread(this, SSRC_TASK_DELAY);
+                } catch (IllegalStateException e) {
+                    log.warn("|RtcpHandler({})| Media timer is stopped. SSRC timeouts will not be checked anymore.", conferenceId);
+                }
+            }
         }
 
     }
@@ -1,6 +1,10 @@
 package org.kkukie.jrtsp_gw.media.core.handler;
 
+import io.netty.util.Timeout;
 import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.core.manager.MediaTimerManager;
+import org.kkukie.jrtsp_gw.media.core.manager.SrtpDecryptWorkerGroup;
+import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
 import org.kkukie.jrtsp_gw.media.core.stream.dtls.DtlsHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.rtcp.RtcpHeader;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpInfo;
@@ -9,17 +13,25 @@ import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandlerException;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.format.RTPFormat;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.format.RTPFormats;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.nack.RtpLossRecovery;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics.RtpStatistics;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.module.RtpClock;
 
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 @Slf4j
 public class RtpHandler implements PacketHandler {
 
+    /** SRTP 병렬 복호화에 사용하는 RtpPacket 의 최대 재사용 개수 */
+    private static final int MAX_DECRYPT_PACKET_POOL_SIZE = 64;
+
     private final String conferenceId;
 
     private final RtpClock rtpClock;
@@ -31,10 +43,31 @@ public class RtpHandler implements PacketHandler {
     private final boolean loopable;
 
     private boolean secure;
-    private DtlsHandler dtlsHandler;
+    private volatile DtlsHandler dtlsHandler;
+
+    /**
+     * SRTP 병렬 복호화 (SrtpDecryptWorkerGroup) 시 사용
+     * 1) 패킷마다 별도의 RtpPacket 에 복사해서 SSRC 별 워커로 넘긴다. (복호화 후 pool 로 반환)
+     * 2) 복호화가 끝난 패킷은 joinLock 안에서 한 번에 하나씩 통계 갱신과 콜백(fan-out 단계)으로 넘긴다.
+     *      - 같은 SSRC 의 패킷은 같은 워커에서 처리되므로 SSRC 별 순서는 유지된다.
+     */
+    private final BlockingQueue<RtpPacket> decryptPacketPool = new ArrayBlockingQueue<>(MAX_DECRYPT_PACKET_POOL_SIZE);
+    private final Object joinLock = new Object();
 
     private final Map<String, RTPFormats> mediaFormatMap;
 
+    /**
+     * 수신 손실 복구 (비디오 NACK + 오디오/비디오 지터 버퍼), 사용하지 않으면 null
+     * 1) lossRecovery 객체로 동기화한다. (joinLock 을 잡는 경우에는 joinLock 다음에 잡는다.)
+     * 2) 재요청/지터 버퍼 시간 초과는 MediaTimerManager 로 예약하고, 만료되면 dataChannel 의 I/O 스레드에서 처리한다.
+     */
+    private volatile RtpLossRecovery lossRecovery = null;
+    private DataChannel dataChannel = null;
+    private Timeout lossRecoveryTimeout = null;
+    private long lossRecoveryDueTime = -1;
+    private final Runnable lossRecoveryTask = this::onLossRecoveryTimer;
+    private final Consumer<RtpInfo> rtpOutput = this::onRtpReceive;
+
     private Consumer<RtpInfo> rtpRecvCallback = whatever -> {};
 
     public RtpHandler (String conferenceId,
@@ -47,7 +80,8 @@ public class RtpHandler implements PacketHandler {
 
         this.rtpClock = clock;
         this.statistics = statistics;
-        this.rtpPacket = new RtpPacket(RtpPacket.RTP_PACKET_MAX_SIZE, true);
+        // SRTP 복호화가 backing array 에서 바로 처리되도록 heap buffer 를 사용한다.
+        this.rtpPacket = new RtpPacket(RtpPacket.RTP_PACKET_MAX_SIZE, false);
 
         this.loopable = false;
         this.secure = false;
@@ -61,13 +95,28 @@ public class RtpHandler implements PacketHandler {
         }
 
         dtlsHandler = null;
+        decryptPacketPool.clear();
+
+        RtpLossRecovery curLossRecovery = lossRecovery;
+        if (curLossRecovery != null) {
+            lossRecovery = null;
+            synchronized (curLossRecovery) {
+                if (lossRecoveryTimeout != null) {
+                    lossRecoveryTimeout.cancel();
+                    lossRecoveryTimeout = null;
+                }
+                curLossRecovery.clear();
+            }
+        }
 
-        for (RTPFormats rtpFormats : mediaFormatMap.values()) {
-            if (rtpFormats != null) {
-                rtpFormats.clean();
+        synchronized (joinLock) {
+            for (RTPFormats rtpFormats : mediaFormatMap.values()) {
+                if (rtpFormats != null) {
+                    rtpFormats.clean();
+                }
             }
+            mediaFormatMap.clear();
         }
-        mediaFormatMap.clear();
     }
 
     public int getPipelinePriority () {
@@ -88,6 +137,15 @@ public class RtpHandler implements PacketHandler {
         this.dtlsHandler = null;
     }
 
+    public void enableLossRecovery (RtpLossRecovery lossRecovery, DataChannel dataChannel) {
+        this.dataChannel = dataChannel;
+        this.lossRecovery = lossRecovery;
+    }
+
+    public RtpLossRecovery getLossRecovery () {
+        return lossRecovery;
+    }
+
     public boolean canHandle (byte[] packet) {
         return canHandle(packet, packet.length, 0);
     }
@@ -167,31 +225,81 @@ public class RtpHandler implements PacketHandler {
     @Override
     public byte[] handle (byte[] packet, int dataLength, int offset, InetSocketAddress localPeer, InetSocketAddress remotePeer) throws PacketHandlerException {
         // Do not handle data while DTLS handshake is ongoing. WebRTC calls only.
-        if (this.secure && !this.dtlsHandler.isHandshakeComplete()) {
+        DtlsHandler curDtlsHandler = this.dtlsHandler;
+        if (this.secure && (curDtlsHandler == null || !curDtlsHandler.isHandshakeComplete())) {
             return null;
         }
 
+        if (this.secure && SrtpDecryptWorkerGroup.getInstance().isActive()) {
+            // Decode SRTP packet on the worker of its SSRC, and join the result in receiveDecrypted()
+            decryptOnWorker(curDtlsHandler, packet, dataLength, offset, localPeer, remotePeer);
+            return null;
+        }
+
+        // Transform incoming data directly into an RTP Packet
+        ByteBuffer buffer = this.rtpPacket.getBuffer();
+        buffer.clear();
+        buffer.put(packet, offset, dataLength);
+        buffer.flip();
+
         if (this.secure) {
-            // Decode SRTP packet into RTP. WebRTC calls only.
-            byte[] decoded = this.dtlsHandler.decodeRTP(packet, offset, dataLength);
-            if (decoded == null || decoded.length == 0) {
+            // Decode SRTP packet into RTP in place (the auth tag is stripped by the limit). WebRTC calls only.
+            if (!curDtlsHandler.decodeRTP(buffer) || buffer.limit() == 0) {
                 log.warn("|RtpHandler({})| SRTP packet is not valid! Dropping packet.", conferenceId);
                 return null;
-            } else {
-                // Transform incoming data directly into an RTP Packet
-                ByteBuffer buffer = this.rtpPacket.getBuffer();
-                buffer.clear();
-                buffer.put(decoded);
-                buffer.flip();
             }
-        } else {
-            // Transform incoming data directly into an RTP Packet
-            ByteBuffer buffer = this.rtpPacket.getBuffer();
-            buffer.clear();
-            buffer.put(packet, offset, dataLength);
-            buffer.flip();
+            buffer.rewind();
+        }
+
+        return receive(this.rtpPacket, packet, dataLength, offset, localPeer, remotePeer);
+    }
+
+    private void decryptOnWorker(DtlsHandler curDtlsHandler, byte[] packet, int dataLength, int offset,
+                                 InetSocketAddress localPeer, InetSocketAddress remotePeer) {
+        RtpPacket decryptPacket = decryptPacketPool.poll();
+        if (decryptPacket == null || decryptPacket.getBuffer().capacity() < dataLength) {
+            decryptPacket = new RtpPacket(Math.max(dataLength, RtpPacket.RTP_PACKET_MAX_SIZE), false);
+        }
+
+        ByteBuffer buffer = decryptPacket.getBuffer();
+        buffer.clear();
+        buffer.put(packet, offset, dataLength);
+        buffer.flip();
+
+        RtpPacket curDecryptPacket = decryptPacket;
+        long ssrc = curDecryptPacket.getSyncSource();
+        if (!SrtpDecryptWorkerGroup.getInstance().execute(ssrc, () -> receiveDecrypted(curDtlsHandler, curDecryptPacket, localPeer, remotePeer))) {
+            decryptPacketPool.offer(curDecryptPacket);
+            log.warn("|RtpHandler({})| SRTP decrypt worker is busy! Dropping packet. (ssrc={})", conferenceId, ssrc);
+        }
+    }
+
+    /**
+     * SrtpDecryptWorkerGroup 의 워커 스레드에서 실행된다.
+     */
+    private void receiveDecrypted(DtlsHandler curDtlsHandler, RtpPacket decryptPacket,
+                                  InetSocketAddress localPeer, InetSocketAddress remotePeer) {
+        try {
+            ByteBuffer buffer = decryptPacket.getBuffer();
+            if (!curDtlsHandler.decodeRTP(buffer) || buffer.limit() == 0) {
+                log.warn("|RtpHandler({})| SRTP packet is not valid! Dropping packet.", conferenceId);
+                return;
+            }
+            buffer.rewind();
+
+            synchronized (joinLock) {
+                if (this.dtlsHandler != null) {
+                    receive(decryptPacket, null, 0, 0, localPeer, remotePeer);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("|RtpHandler({})| Fail to handle the decrypted RTP packet.", conferenceId, e);
+        } finally {
+            decryptPacketPool.offer(decryptPacket);
         }
+    }
 
+    private byte[] receive (RtpPacket rtpPacket, byte[] packet, int dataLength, int offset, InetSocketAddress localPeer, InetSocketAddress remotePeer) {
         // For RTP keep-alive purposes
         this.statistics.setLastHeartbeat(this.rtpClock.getWallClock().getTime());
         // RTP v0 packets are used in some applications. Discarded since we do not handle them.
@@ -202,16 +310,24 @@ public class RtpHandler implements PacketHandler {
                     // Update statistics for RTCP
                     this.statistics.onRtpReceive(rtpPacket);
                     this.statistics.onRtpSent(rtpPacket);
-                    // Return same packet (looping) so it can be transmitted
-                    return packet;
+                    // Return same packet (looping) so it can be transmitted (the packet buffer is reused after this call)
+                    return packet != null ? Arrays.copyOfRange(packet, offset, offset + dataLength) : null;
                 } else {
                     // Update statistics for RTCP
                     this.statistics.onRtpReceive(rtpPacket);
 
                     // Write packet
-                    String curMediaType = getMediaType(rtpPacket.getPayloadType());
-                    if (curMediaType != null && !curMediaType.isEmpty()) {
-                        this.onRtpReceive(new RtpInfo(rtpPacket, remotePeer, localPeer, curMediaType));
+                    RtpInfo rtpInfo = makeRtpInfo(rtpPacket, remotePeer, localPeer);
+                    if (rtpInfo != null) {
+                        RtpLossRecovery curLossRecovery = this.lossRecovery;
+                        if (curLossRecovery != null) {
+                            synchronized (curLossRecovery) {
+                                curLossRecovery.receive(rtpInfo, currentTimeMillis(), rtpOutput);
+                                scheduleLossRecoveryTimer(curLossRecovery);
+                            }
+                        } else {
+                            this.onRtpReceive(rtpInfo);
+                        }
                     }
                 }
             } else {
@@ -222,8 +338,66 @@ public class RtpHandler implements PacketHandler {
         return null;
     }
 
-    private String getMediaType(int payloadType) {
-        String curMediaType = null;
+    /**
+     * lossRecovery 락 안에서 호출한다.
+     */
+    private void scheduleLossRecoveryTimer(RtpLossRecovery curLossRecovery) {
+        long dueTime = curLossRecovery.getNextDueTime();
+        if (dueTime < 0 || (lossRecoveryTimeout != null && !lossRecoveryTimeout.isExpired() && lossRecoveryDueTime <= dueTime)) {
+            return;
+        }
+
+        if (lossRecoveryTimeout != null) {
+            lossRecoveryTimeout.cancel();
+        }
+
+        try {
+            lossRecoveryDueTime = dueTime;
+            lossRecoveryTimeout = MediaTimerManager.getInstance().newTimeout(
+                    timeout -> {
+                        if (!dataChannel.execute(lossRecoveryTask)) {
+                            log.debug("|RtpHandler({})| Data channel is closed. Loss recovery timer is dropped.", conferenceId);
+                        }
+                    },
+                    Math.max(dueTime - currentTimeMillis(), 1), TimeUnit.MILLISECONDS
+            );
+        } catch (IllegalStateException e) {
+            lossRecoveryTimeout = null;
+            log.warn("|RtpHandler({})| Media timer is not running. NACK retries and jitter buffer timeouts are handled on packet arrival only.", conferenceId);
+        }
+    }
+
+    /**
+     * dataChannel 의 I/O 스레드에서 실행된다.
+     */
+    private void onLossRecoveryTimer() {
+        RtpLossRecovery curLossRecovery = this.lossRecovery;
+        if (curLossRecovery == null) {
+            return;
+        }
+
+        try {
+            // SRTP 병렬 복호화 시 워커와 콜백 순서가 섞이지 않도록 joinLock 을 먼저 잡는다.
+            synchronized (joinLock) {
+                synchronized (curLossRecovery) {
+                    if (lossRecoveryTimeout != null && lossRecoveryTimeout.isExpired()) {
+                        lossRecoveryTimeout = null;
+                    }
+                    curLossRecovery.onTimer(currentTimeMillis(), rtpOutput);
+                    scheduleLossRecoveryTimer(curLossRecovery);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("|RtpHandler({})| Fail to handle the loss recovery timer.", conferenceId, e);
+        }
+    }
+
+    private static long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private RtpInfo makeRtpInfo(RtpPacket rtpPacket, InetSocketAddress remotePeer, InetSocketAddress localPeer) {
+        int payloadType = rtpPacket.getPayloadType();
         for (Map.Entry<String, RTPFormats> entry : mediaFormatMap.entrySet()) {
             if (entry == null) { continue; }
 
@@ -235,11 +409,12 @@ public class RtpHandler implements PacketHandler {
 
             RTPFormat rtpFormat = formats.getRTPFormat(payloadType);
             if (rtpFormat != null) {
-                curMediaType = mediaType;
-                break;
+                String encodingName = rtpFormat.getFormat() != null && rtpFormat.getFormat().getName() != null ?
+                        rtpFormat.getFormat().getName().toString() : null;
+                return new RtpInfo(rtpPacket, remotePeer, localPeer, mediaType, encodingName);
             }
         }
-        return curMediaType;
+        return null;
     }
 
     public int compareTo (PacketHandler o) {
@@ -0,0 +1,123 @@
+package org.kkukie.jrtsp_gw.media.core.manager;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 1) 게이트웨이 전역에서 공유하는 Netty EventLoopGroup 을 관리한다.
+ * 2) 네이티브 epoll 을 사용할 수 있으면 Epoll, 아니면 Nio 기반으로 생성한다.
+ * 3) Ingest(WebRTC 수신) 채널은 호마다 그룹을 만들지 않고 이 그룹에 등록된다.
+ * 4) Egress(RTSP UDP 송신) 채널은 Streamer 마다 그룹을 만들지 않고 Egress 그룹에 등록된다.
+ *      - 같은 호(Conference)의 Streamer 는 항상 같은 EventLoop 에 배정된다. (스레드 간 전달 최소화)
+ */
+@Slf4j
+public class EventLoopGroupManager {
+
+    private static final EventLoopGroupManager eventLoopGroupManager = new EventLoopGroupManager();
+
+    private final boolean epollAvailable;
+
+    /* start / stop 은 lock 안에서 바꾸고, getter 는 lock 없이 다른 스레드에서 읽는다. */
+    private volatile EventLoopGroup ingestGroup = null;
+    private volatile EventLoopGroup egressGroup = null;
+    private volatile EventLoop[] egressLoops = new EventLoop[0];
+
+    private EventLoopGroupManager() {
+        this.epollAvailable = Epoll.isAvailable();
+    }
+
+    public static EventLoopGroupManager getInstance() {
+        return eventLoopGroupManager;
+    }
+
+    public synchronized void startIngestGroup(int threadSize) {
+        if (ingestGroup == null) {
+            ingestGroup = newEventLoopGroup(threadSize, "ingest-loop");
+            log.debug("|EventLoopGroupManager| Ingest group is started. (epoll={}, threadSize={})",
+                    epollAvailable, threadSize > 0 ? threadSize : "default"
+            );
+        }
+    }
+
+    public synchronized void startEgressGroup(int threadSize) {
+        if (egressGroup == null) {
+            egressGroup = newEventLoopGroup(threadSize, "egress-loop");
+
+            List<EventLoop> eventLoops = new ArrayList<>();
+            for (EventExecutor eventExecutor : egressGroup) {
+                eventLoops.add((EventLoop) eventExecutor);
+            }
+            egressLoops = eventLoops.toArray(new EventLoop[0]);
+
+            log.debug("|EventLoopGroupManager| Egress group is started. (epoll={}, threadSize={})",
+                    epollAvailable, egressLoops.length
+            );
+        }
+    }
+
+    public synchronized void stop() {
+        if (ingestGroup != null) {
+            ingestGroup.shutdownGracefully();
+            ingestGroup = null;
+            log.debug("|EventLoopGroupManager| Ingest group is stopped.");
+        }
+
+        if (egressGroup != null) {
+            egressGroup.shutdownGracefully();
+            egressGroup = null;
+            egressLoops = new EventLoop[0];
+            log.debug("|EventLoopGroupManager| Egress group is stopped.");
+        }
+    }
+
+    public EventLoopGroup getIngestGroup() {
+        return ingestGroup;
+    }
+
+    public EventLoopGroup getEgressGroup() {
+        return egressGroup;
+    }
+
+    /**
+     * @param conferenceId Conference ID
+     * @return 해당 호에 고정 배정된 Egress EventLoop, 그룹이 시작되지 않았으면 null
+     */
+    public EventLoop getEgressLoop(String conferenceId) {
+        EventLoop[] curEgressLoops = egressLoops;
+        if (curEgressLoops.length == 0) {
+            return null;
+        }
+
+        int hash = conferenceId != null ? conferenceId.hashCode() : 0;
+        return curEgressLoops[Math.floorMod(hash, curEgressLoops.length)];
+    }
+
+    public boolean isEpollAvailable() {
+        return epollAvailable;
+    }
+
+    public Class<? extends DatagramChannel> getDatagramChannelClass() {
+        return epollAvailable ? EpollDatagramChannel.class : NioDatagramChannel.class;
+    }
+
+    private EventLoopGroup newEventLoopGroup(int threadSize, String poolName) {
+        // threadSize 가 0 이면 Netty 기본값(코어 수 * 2)을 사용한다.
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(poolName, true);
+        return epollAvailable ?
+                new EpollEventLoopGroup(threadSize, threadFactory)
+                : new NioEventLoopGroup(threadSize, threadFactory);
+    }
+
+}
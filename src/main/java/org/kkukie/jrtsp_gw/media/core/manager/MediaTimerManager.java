@@ -0,0 +1,77 @@
+package org.kkukie.jrtsp_gw.media.core.manager;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1) 게이트웨이 전역에서 공유하는 미디어 타이머 (Netty HashedWheelTimer, 스레드 1개)
+ *      - RTCP 보고서 송신, SSRC timeout 검사처럼 호마다 주기적으로 실행되는 작업을 예약한다.
+ *      - 호마다 스케줄러 스레드를 만들지 않는다.
+ * 2) 타이머 스레드는 만료 시점만 알려주고, 실제 작업(보고서 생성, SRTCP 암호화, 송신)은 호의 I/O 스레드로 넘겨서 실행해야 한다.
+ *      - DataChannel.execute()
+ * 3) 만료 시점의 정밀도는 TICK_DURATION_MS 이다. (RTCP 주기는 초 단위이므로 충분하다.)
+ */
+@Slf4j
+public class MediaTimerManager {
+
+    private static final long TICK_DURATION_MS = 10;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private static final MediaTimerManager mediaTimerManager = new MediaTimerManager();
+
+    private volatile HashedWheelTimer timer = null;
+
+    private MediaTimerManager() {
+        // nothing
+    }
+
+    public static MediaTimerManager getInstance() {
+        return mediaTimerManager;
+    }
+
+    public synchronized void start() {
+        if (timer == null) {
+            timer = new HashedWheelTimer(
+                    new DefaultThreadFactory("media-timer", true),
+                    TICK_DURATION_MS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL
+            );
+            timer.start();
+            log.debug("|MediaTimerManager| Started. (tick={}ms, ticksPerWheel={})", TICK_DURATION_MS, TICKS_PER_WHEEL);
+        }
+    }
+
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+            log.debug("|MediaTimerManager| Stopped.");
+        }
+    }
+
+    public boolean isActive() {
+        return timer != null;
+    }
+
+    /**
+     * @return 예약된 작업, 취소할 때 Timeout.cancel() 을 호출한다.
+     * @throws IllegalStateException 타이머가 시작되지 않았거나 중지된 경우
+     */
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        HashedWheelTimer curTimer = timer;
+        if (curTimer == null) {
+            throw new IllegalStateException("Media timer is not running.");
+        }
+        return curTimer.newTimeout(task, delay, unit);
+    }
+
+    public long getPendingTimeoutCount() {
+        HashedWheelTimer curTimer = timer;
+        return curTimer != null ? curTimer.pendingTimeouts() : 0;
+    }
+
+}
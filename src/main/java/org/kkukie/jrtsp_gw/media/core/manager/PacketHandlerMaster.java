@@ -1,9 +1,13 @@
 package org.kkukie.jrtsp_gw.media.core.manager;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.config.DefaultConfig;
 import org.kkukie.jrtsp_gw.media.core.handler.RtcpHandler;
 import org.kkukie.jrtsp_gw.media.core.handler.RtpHandler;
 import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
@@ -11,23 +15,41 @@ import org.kkukie.jrtsp_gw.media.core.scheduler.WallClock;
 import org.kkukie.jrtsp_gw.media.core.stream.dtls.DtlsHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.dtls.DtlsListener;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpInfo;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpPacket;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandlerPipeline;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.format.RTPFormat;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.format.RTPFormats;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.nack.RtpLossRecovery;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics.RtpMember;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics.RtpStatistics;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.Streamer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback.BitrateFeedbackType;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback.ViewerFeedbackAggregator;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback.ViewerFeedbackManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.GopCache;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.GopCacheManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.KeyframeDetector;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.KeyframeRequestManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.KeyframeRequester;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay.RelayPacket;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay.RtpRelayManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay.RtpRelayRing;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.NettyChannelManager;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.module.RtpClock;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.sr.SenderReportManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.sr.SenderReportScheduler;
 import org.kkukie.jrtsp_gw.media.core.stream.stun.candidate.IceComponent;
 import org.kkukie.jrtsp_gw.media.core.stream.stun.handler.IceHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.stun.model.IceAuthenticatorImpl;
 import org.kkukie.jrtsp_gw.media.core.stream.webrtc.websocket.model.ice.IceInfo;
 import org.kkukie.jrtsp_gw.session.media.MediaSession;
+import org.kkukie.jrtsp_gw.session.media.format.AudioFormat;
 import org.kkukie.jrtsp_gw.session.media.base.MediaType;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.nio.channels.DatagramChannel;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +66,13 @@ public class PacketHandlerMaster {
 
     private final PacketHandlerPipeline handlers = new PacketHandlerPipeline();
 
+    private volatile GopCache gopCache = null;
+    private volatile RtpRelayRing relayRing = null;
+    private volatile KeyframeRequester keyframeRequester = null;
+    private volatile ViewerFeedbackAggregator viewerFeedbackAggregator = null;
+    private volatile SenderReportScheduler senderReportScheduler = null;
+    private long keyframeTimestamp = -1;
+
     public void initIce(IceInfo iceInfo, List<InetSocketAddress> targetAddressList, DataChannel dataChannel) {
         IceHandler iceHandler = new IceHandler(conferenceId, IceComponent.RTP_ID, dataChannel);
 
@@ -64,10 +93,10 @@ public class PacketHandlerMaster {
         }
     }
 
-    public void initDtls(DatagramChannel mediaChannel, SocketAddress realRemoteAddress, DtlsListener dtlsListener) {
+    public void initDtls(DataChannel dataChannel, SocketAddress realRemoteAddress, DtlsListener dtlsListener) {
         if (mediaSession.isSecure()) {
             DtlsHandler dtlsHandler = new DtlsHandler(conferenceId, realRemoteAddress);
-            dtlsHandler.setChannel(mediaChannel);
+            dtlsHandler.setChannel(dataChannel);
             dtlsHandler.addListener(dtlsListener);
             dtlsHandler.setPipelinePriority(DTLS_PRIORITY);
             if (handlers.addHandler(dtlsHandler)) {
@@ -76,12 +105,23 @@ public class PacketHandlerMaster {
         }
     }
 
-    public void initRtp(DatagramChannel mediaChannel, SocketAddress realRemoteAddress, Map<String, RTPFormats> mediaFormatMap) {
+    public void initRtp(DataChannel dataChannel, SocketAddress realRemoteAddress, Map<String, RTPFormats> mediaFormatMap) {
         RtpClock rtpClock = new RtpClock(new WallClock());
         RtpStatistics rtpStatistics = new RtpStatistics(rtpClock);
 
+        initRelayRing();
         initRtpHandler(mediaFormatMap, rtpClock, rtpStatistics);
-        initRtcpHandler(mediaChannel, realRemoteAddress, rtpStatistics);
+        initRtcpHandler(dataChannel, realRemoteAddress, rtpStatistics);
+        initLossRecovery(dataChannel);
+        initKeyframeRequester();
+        initViewerFeedback();
+        initSenderReport(dataChannel, rtpStatistics, mediaFormatMap);
+    }
+
+    private void initRelayRing() {
+        if (relayRing == null) {
+            relayRing = RtpRelayManager.getInstance().createRelayRing(conferenceId, this::fanOut, this::cacheDroppedPacket, this::flushStreamers);
+        }
     }
 
     private void initRtpHandler(Map<String, RTPFormats> mediaFormatMap,
@@ -105,13 +145,12 @@ public class PacketHandlerMaster {
         }
     }
 
-    private void initRtcpHandler(DatagramChannel mediaChannel, SocketAddress realRemoteAddress, RtpStatistics rtpStatistics) {
+    private void initRtcpHandler(DataChannel dataChannel, SocketAddress realRemoteAddress, RtpStatistics rtpStatistics) {
         if (mediaSession.isRtcpMux()) {
             RtcpHandler rtcpHandler = new RtcpHandler(
-                    conferenceId, mediaChannel.socket(),
+                    conferenceId, dataChannel,
                     rtpStatistics, MediaType.AUDIO.getName(), realRemoteAddress
             );
-            rtcpHandler.start();
             rtcpHandler.setPipelinePriority(RTCP_PRIORITY);
             if (handlers.addHandler(rtcpHandler)) {
                 log.debug("|PacketHandlerMaster({})| Success to add RtcpHandler to pipeline (priority={}).", conferenceId, RTCP_PRIORITY);
@@ -125,6 +164,120 @@ public class PacketHandlerMaster {
         }
     }
 
+    /**
+     * 수신 손실 복구 (비디오 NACK + 오디오/비디오 지터 버퍼)
+     * NACK 은 RtcpHandler 로 보내므로 RTCP 를 처리하지 않는 호(rtcp-mux 미사용)는 지터 버퍼만 사용한다.
+     */
+    private void initLossRecovery(DataChannel dataChannel) {
+        DefaultConfig defaultConfig = ConfigManager.getDefaultConfig();
+        RtpHandler rtpHandler = (RtpHandler) handlers.getHandler(RtpHandler.class.getName());
+        if (defaultConfig == null || rtpHandler == null) {
+            return;
+        }
+
+        RtcpHandler rtcpHandler = (RtcpHandler) handlers.getHandler(RtcpHandler.class.getName());
+        int nackMaxRetries = rtcpHandler != null ? defaultConfig.getNackMaxRetries() : 0;
+        int videoMaxDelayMs = defaultConfig.getJitterBufferVideoMaxDelayMs();
+        int audioMaxDelayMs = defaultConfig.getJitterBufferAudioMaxDelayMs();
+        if (nackMaxRetries <= 0 && videoMaxDelayMs <= 0 && audioMaxDelayMs <= 0) {
+            return;
+        }
+
+        RtpLossRecovery lossRecovery = new RtpLossRecovery(
+                nackMaxRetries, videoMaxDelayMs, audioMaxDelayMs,
+                rtcpHandler != null ? rtcpHandler::sendNack : (mediaSsrc, seqNumbers, length) -> {}
+        );
+        rtpHandler.enableLossRecovery(lossRecovery, dataChannel);
+        log.debug("|PacketHandlerMaster({})| Loss recovery is enabled. (nackMaxRetries={}, jitterBufferVideoMaxDelayMs={}, jitterBufferAudioMaxDelayMs={})",
+                conferenceId, nackMaxRetries, videoMaxDelayMs, audioMaxDelayMs
+        );
+    }
+
+    /**
+     * 시청자 PLAY 시 송신측에 보내는 키프레임 요청 (PLI/FIR)
+     * RtcpHandler 로 보내므로 RTCP 를 처리하지 않는 호(rtcp-mux 미사용)는 요청하지 않는다.
+     */
+    private void initKeyframeRequester() {
+        RtcpHandler rtcpHandler = (RtcpHandler) handlers.getHandler(RtcpHandler.class.getName());
+        if (rtcpHandler == null || keyframeRequester != null) {
+            return;
+        }
+
+        keyframeRequester = KeyframeRequestManager.getInstance().createKeyframeRequester(conferenceId, rtcpHandler::sendKeyframeRequest);
+        if (keyframeRequester != null) {
+            log.debug("|PacketHandlerMaster({})| Keyframe request is enabled.", conferenceId);
+        }
+    }
+
+    /**
+     * 시청자 RTCP RR 을 모아서 송신측에 보내는 비트레이트 피드백 (REMB/TMMBR)
+     * RtcpHandler 로 보내므로 RTCP 를 처리하지 않는 호(rtcp-mux 미사용)는 보내지 않는다.
+     */
+    private void initViewerFeedback() {
+        RtcpHandler rtcpHandler = (RtcpHandler) handlers.getHandler(RtcpHandler.class.getName());
+        if (rtcpHandler == null || viewerFeedbackAggregator != null) {
+            return;
+        }
+
+        BitrateFeedbackType feedbackType = ViewerFeedbackManager.getInstance().getFeedbackType();
+        viewerFeedbackAggregator = ViewerFeedbackManager.getInstance().createAggregator(
+                conferenceId, (mediaSsrc, bitrate) -> rtcpHandler.sendBitrateFeedback(feedbackType, mediaSsrc, bitrate)
+        );
+        if (viewerFeedbackAggregator != null) {
+            log.debug("|PacketHandlerMaster({})| Viewer bitrate feedback is enabled.", conferenceId);
+        }
+    }
+
+    /**
+     * RTSP 시청자에게 보내는 RTCP SR
+     * 송신측 SR 은 RtcpHandler 가 받으므로 RTCP 를 처리하지 않는 호(rtcp-mux 미사용)는 보내지 않는다.
+     */
+    private void initSenderReport(DataChannel dataChannel, RtpStatistics rtpStatistics, Map<String, RTPFormats> mediaFormatMap) {
+        RtcpHandler rtcpHandler = (RtcpHandler) handlers.getHandler(RtcpHandler.class.getName());
+        if (rtcpHandler == null || senderReportScheduler != null) {
+            return;
+        }
+
+        senderReportScheduler = SenderReportManager.getInstance().createScheduler(
+                conferenceId,
+                getClockRate(mediaFormatMap, MediaType.AUDIO.getName()),
+                getClockRate(mediaFormatMap, MediaType.VIDEO.getName()),
+                ssrc -> {
+                    RtpMember rtpMember = rtpStatistics.getMember(ssrc);
+                    return rtpMember != null ? rtpMember.getLastSrMapping() : null;
+                },
+                dataChannel::execute
+        );
+        if (senderReportScheduler != null) {
+            log.debug("|PacketHandlerMaster({})| Sender report toward RTSP viewers is enabled.", conferenceId);
+        }
+    }
+
+    /**
+     * @return 협상된 코덱(우선순위 코덱)의 RTP clock rate, 알 수 없으면 0
+     */
+    private static int getClockRate(Map<String, RTPFormats> mediaFormatMap, String mediaType) {
+        RTPFormats rtpFormats = mediaFormatMap != null ? mediaFormatMap.get(mediaType) : null;
+        if (rtpFormats == null || rtpFormats.isEmpty()) {
+            return 0;
+        }
+
+        RTPFormat rtpFormat = rtpFormats.toArray()[0];
+        if (rtpFormat.getClockRate() > 0) {
+            return rtpFormat.getClockRate();
+        }
+        // 오디오 RTPFormat 은 clock rate 대신 AudioFormat 의 sample rate 를 갖는다.
+        if (rtpFormat.getFormat() instanceof AudioFormat) {
+            return ((AudioFormat) rtpFormat.getFormat()).getSampleRate();
+        }
+        return 0;
+    }
+
+    public RtpLossRecovery getLossRecovery() {
+        RtpHandler rtpHandler = (RtpHandler) handlers.getHandler(RtpHandler.class.getName());
+        return rtpHandler != null ? rtpHandler.getLossRecovery() : null;
+    }
+
     public void handleRtpPacket(RtpInfo rtpInfo) {
         // Send to Rtsp Client
         if (rtpInfo.getMediaType().equals(MediaType.AUDIO.getName())) {
@@ -138,6 +291,14 @@ public class PacketHandlerMaster {
             }
         } else if (rtpInfo.getMediaType().equals(MediaType.VIDEO.getName())) {
             mediaSession.getRemoteSdpMediaInfo().setVideoPayloadType(rtpInfo.getRtpPacket().getPayloadType());
+            KeyframeRequester curKeyframeRequester = keyframeRequester;
+            if (curKeyframeRequester != null) {
+                curKeyframeRequester.setVideoSsrc(rtpInfo.getRtpPacket().getSyncSource());
+            }
+            ViewerFeedbackAggregator curViewerFeedbackAggregator = viewerFeedbackAggregator;
+            if (curViewerFeedbackAggregator != null) {
+                curViewerFeedbackAggregator.onVideoPacket(rtpInfo.getRtpPacket().getSyncSource(), rtpInfo.getRtpPacket().getLength());
+            }
             if (log.isTraceEnabled()) {
                 log.trace("|MediaSession({})| VIDEO [{}] >>> ({}) {}/{}", conferenceId,
                         mediaSession.getRemoteSdpMediaInfo().getVideoPayloadType(),
@@ -151,33 +312,154 @@ public class PacketHandlerMaster {
     }
 
     private void relayToRtspClient(RtpInfo rtpInfo) {
-        List<Streamer> streamerList = NettyChannelManager.getInstance().getStreamerListByCallId(conferenceId);
-        if (streamerList == null || streamerList.isEmpty()) {
+        boolean isVideo = rtpInfo.getMediaType().equals(MediaType.VIDEO.getName());
+        if (NettyChannelManager.getInstance().getStreamersByCallId(conferenceId).length == 0
+                && !(isVideo && GopCacheManager.getInstance().isEnabled())) {
             return;
         }
 
-        for (Streamer streamer : streamerList) {
-            applyRtpMetaToStreamer(rtpInfo, streamer);
+        RelayPacket relayPacket = makeRelayPacket(rtpInfo, isVideo);
+        RtpRelayRing curRelayRing = relayRing;
+        if (curRelayRing != null) {
+            // Egress EventLoop 에서 fan-out 한다. (Ingest 스레드는 바로 다음 패킷을 처리한다.)
+            if (!curRelayRing.publish(relayPacket) && isVideo) {
+                // 링에 들어가지 못한 패킷은 GOP 캐시에도 없으므로 다음 키프레임까지 캐시를 비운다.
+                GopCache curGopCache = gopCache;
+                if (curGopCache != null) {
+                    curGopCache.clear();
+                }
+            }
+        } else {
+            try {
+                fanOut(relayPacket);
+            } finally {
+                relayPacket.release();
+            }
+        }
+    }
+
+    private RelayPacket makeRelayPacket(RtpInfo rtpInfo, boolean isVideo) {
+        RtpPacket rtpPacket = rtpInfo.getRtpPacket();
+        long timestamp = rtpPacket.getTimestamp();
+
+        // RtpPacket 은 RtpHandler 에서 재사용되므로 한 번만 풀링된 버퍼로 옮기고,
+        // 각 Streamer 는 이 버퍼를 retainedDuplicate() 로 공유한다. (구독자 수만큼 복사하지 않는다.)
+        ByteBuf rtpBuf = toByteBuf(rtpPacket);
+
+        boolean isKeyframe = false;
+        boolean isKeyframeStart = false;
+        if (isVideo && KeyframeDetector.isSupported(rtpInfo.getEncodingName())) {
+            isKeyframeStart = KeyframeDetector.isKeyframeStart(rtpBuf, rtpInfo.getEncodingName());
+            if (isKeyframeStart) {
+                if (timestamp != keyframeTimestamp) {
+                    onKeyframe();
+                }
+                keyframeTimestamp = timestamp;
+            }
+            isKeyframe = timestamp == keyframeTimestamp;
+        }
+
+        return new RelayPacket(
+                rtpBuf, rtpInfo.getMediaType(), rtpInfo.getEncodingName(),
+                rtpPacket.getSyncSource(), rtpPacket.getSeqNumber(), timestamp,
+                isKeyframe, isKeyframeStart
+        );
+    }
+
+    private void onKeyframe() {
+        KeyframeRequester curKeyframeRequester = keyframeRequester;
+        if (curKeyframeRequester != null) {
+            curKeyframeRequester.onKeyframe();
+        }
+    }
+
+    /**
+     * RTSP 구독자에게 패킷을 전달한다.
+     * (relayRing 사용 시 Egress EventLoop, 미사용 시 Ingest 스레드에서 실행)
+     */
+    private void fanOut(RelayPacket relayPacket) {
+        Streamer[] streamers = NettyChannelManager.getInstance().getStreamersByCallId(conferenceId);
+
+        GopCache curGopCache = null;
+        if (relayPacket.getMediaType().equals(MediaType.VIDEO.getName())) {
+            curGopCache = getOrCreateGopCache();
+        }
+
+        if (curGopCache != null) {
+            // GOP 재전송과 순서가 섞이지 않도록 캐시 락 안에서 전달한다.
+            synchronized (curGopCache) {
+                curGopCache.add(relayPacket.getRtpBuf(), relayPacket.getTimestamp(), relayPacket.getEncodingName());
+                relayToStreamers(relayPacket, streamers);
+            }
+        } else {
+            relayToStreamers(relayPacket, streamers);
+        }
+    }
+
+    /**
+     * 밀려서 시청자에게 보내지 않은 비디오 패킷도 GOP 캐시에는 넣는다. (Egress EventLoop)
+     */
+    private void cacheDroppedPacket(RelayPacket relayPacket) {
+        GopCache curGopCache = getOrCreateGopCache();
+        if (curGopCache != null) {
+            curGopCache.add(relayPacket.getRtpBuf(), relayPacket.getTimestamp(), relayPacket.getEncodingName());
+        }
+    }
+
+    /**
+     * 릴레이 묶음(RtpRelayRing drain)이 끝날 때 구독자의 UDP 송신을 한 번에 flush 한다. (Egress EventLoop)
+     */
+    private void flushStreamers() {
+        for (Streamer streamer : NettyChannelManager.getInstance().getStreamersByCallId(conferenceId)) {
+            streamer.flushUdpEgress();
+        }
+    }
+
+    private void relayToStreamers(RelayPacket relayPacket, Streamer[] streamers) {
+        for (Streamer streamer : streamers) {
+            applyRtpMetaToStreamer(relayPacket, streamer);
             if (streamer.isStarted()) {
-                streamer.sendRtpPacket(rtpInfo.getRtpPacket(), rtpInfo.getMediaType());
+                streamer.sendRtpPacket(relayPacket.getRtpBuf(), relayPacket.getMediaType(), relayPacket.isKeyframeStart());
             }
         }
     }
 
-    private void applyRtpMetaToStreamer(RtpInfo rtpInfo, Streamer streamer) {
-        if (rtpInfo.getMediaType().equals(MediaType.AUDIO.getName())) {
-            streamer.setAudioSsrc(rtpInfo.getRtpPacket().getSyncSource());
-            streamer.setAudioCurSeqNum(rtpInfo.getRtpPacket().getSeqNumber());
-            streamer.setAudioCurTimeStamp(rtpInfo.getRtpPacket().getTimestamp());
-        } else if (rtpInfo.getMediaType().equals(MediaType.VIDEO.getName())) {
-            streamer.setVideoSsrc(rtpInfo.getRtpPacket().getSyncSource());
-            streamer.setVideoCurSeqNum(rtpInfo.getRtpPacket().getSeqNumber());
-            streamer.setVideoCurTimeStamp(rtpInfo.getRtpPacket().getTimestamp());
+    private GopCache getOrCreateGopCache() {
+        GopCache curGopCache = gopCache;
+        if (curGopCache == null) {
+            curGopCache = GopCacheManager.getInstance().getOrCreateGopCache(conferenceId);
+            gopCache = curGopCache;
+        }
+        return curGopCache;
+    }
+
+    private ByteBuf toByteBuf(RtpPacket rtpPacket) {
+        ByteBuffer rtpData = rtpPacket.getBuffer().duplicate();
+        rtpData.rewind();
+
+        ByteBuf rtpBuf = PooledByteBufAllocator.DEFAULT.directBuffer(rtpData.remaining());
+        rtpBuf.writeBytes(rtpData);
+        return rtpBuf;
+    }
+
+    private void applyRtpMetaToStreamer(RelayPacket relayPacket, Streamer streamer) {
+        if (relayPacket.getMediaType().equals(MediaType.AUDIO.getName())) {
+            streamer.setAudioSsrc(relayPacket.getSsrc());
+            streamer.setAudioCurSeqNum(relayPacket.getSeqNum());
+            streamer.setAudioCurTimeStamp(relayPacket.getTimestamp());
+        } else if (relayPacket.getMediaType().equals(MediaType.VIDEO.getName())) {
+            streamer.setVideoSsrc(relayPacket.getSsrc());
+            streamer.setVideoCurSeqNum(relayPacket.getSeqNum());
+            streamer.setVideoCurTimeStamp(relayPacket.getTimestamp());
         }
     }
 
+    public DtlsHandler getDtlsHandler() {
+        return (DtlsHandler) handlers.getHandler(DtlsHandler.class.getName());
+    }
+
     public void selectCandidate(boolean useCandidate) {
-        DtlsHandler dtlsHandler = (DtlsHandler) handlers.getHandler(DtlsHandler.class.getName());
+        DtlsHandler dtlsHandler = getDtlsHandler();
         if (mediaSession.isSecure() && dtlsHandler != null) {
             dtlsHandler.handshake(useCandidate);
         }
@@ -203,6 +485,33 @@ public class PacketHandlerMaster {
         } catch (Exception e) {
             log.warn("|PacketHandlerMaster({})| reset.Exception", conferenceId, e);
         }
+
+        RtpRelayRing curRelayRing = relayRing;
+        if (curRelayRing != null) {
+            relayRing = null;
+            RtpRelayManager.getInstance().deleteRelayRing(conferenceId, curRelayRing);
+        }
+
+        gopCache = null;
+        GopCacheManager.getInstance().deleteGopCache(conferenceId);
+
+        KeyframeRequester curKeyframeRequester = keyframeRequester;
+        if (curKeyframeRequester != null) {
+            keyframeRequester = null;
+            KeyframeRequestManager.getInstance().deleteKeyframeRequester(conferenceId, curKeyframeRequester);
+        }
+
+        ViewerFeedbackAggregator curViewerFeedbackAggregator = viewerFeedbackAggregator;
+        if (curViewerFeedbackAggregator != null) {
+            viewerFeedbackAggregator = null;
+            ViewerFeedbackManager.getInstance().deleteAggregator(conferenceId, curViewerFeedbackAggregator);
+        }
+
+        SenderReportScheduler curSenderReportScheduler = senderReportScheduler;
+        if (curSenderReportScheduler != null) {
+            senderReportScheduler = null;
+            SenderReportManager.getInstance().deleteScheduler(conferenceId, curSenderReportScheduler);
+        }
     }
 
 }
@@ -1,8 +1,8 @@
 package org.kkukie.jrtsp_gw.media.core.manager;
 
 import lombok.extern.slf4j.Slf4j;
-import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
-import org.kkukie.jrtsp_gw.media.core.scheduler.ServiceScheduler;
+import org.jetbrains.annotations.NotNull;
+import org.kkukie.jrtsp_gw.media.core.model.transport.NioDataTransport;
 
 import java.io.IOException;
 import java.nio.channels.DatagramChannel;
@@ -12,120 +12,97 @@ import java.nio.channels.spi.SelectorProvider;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 1) 등록된 UDP 채널을 모니터링하면서 해당 채널의 패킷 수신 기능을 트리거링한다.
  * 2) 현재는 채널 수신(읽기, SelectionKey.OP_READ)만 트리거링한다. (포로그램 목적에 부합)
- * 3) 요청된 호(CallId가 배정된 WebSocketService)당 하나만 존재한다.
+ * 3) 프로세스 전체에서 하나만 존재하며, 모든 호(Conference)의 NioDataTransport 가 공유한다.
+ * 4) 각 이벤트 루프 스레드는 select() 에서 블로킹되며, 채널 등록 시 wakeup() 으로 깨운다.
+ *      - 수신 패킷이 없는 호는 CPU 를 사용하지 않는다.
  */
 
 @Slf4j
 public class PacketSelector {
 
-    private final String conferenceId;
+    /** 한 번의 select 이벤트에서 채널 하나당 최대로 읽을 패킷 수 (채널 간 공정성 보장) */
+    private static final int MAX_READ_COUNT_PER_KEY = 64;
+
+    private static final PacketSelector packetSelector = new PacketSelector();
 
     private volatile boolean active;
     private final Object LOCK;
-    private final List<Selector> selectors;
-    private final List<PollTask> pollTasks;
-    private final List<Future<?>> pollTaskFutures;
+    private final List<SelectorLoop> selectorLoops;
     private final AtomicInteger currSelectorIndex;
-    private final ServiceScheduler scheduler = new ServiceScheduler();
+    private ExecutorService executor;
+
+    private final ThreadFactory threadFactory = new ThreadFactory() {
+
+        private final AtomicInteger index = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            return new Thread(runnable, "packet-selector-" + index.incrementAndGet());
+        }
+    };
 
-    public PacketSelector(String conferenceId) {
-        this.conferenceId = conferenceId;
-        
+    private PacketSelector() {
         LOCK = new Object();
         active = false;
-        selectors = new ArrayList<>(ServiceScheduler.POOL_SIZE);
-        pollTasks = new ArrayList<>(ServiceScheduler.POOL_SIZE);
-        pollTaskFutures = new ArrayList<>(ServiceScheduler.POOL_SIZE);
+        selectorLoops = new ArrayList<>();
         currSelectorIndex = new AtomicInteger(0);
+    }
 
-        log.debug("|PacketSelector({})| ServiceScheduler.POOL_SIZE = [ {} ]", conferenceId, ServiceScheduler.POOL_SIZE);
+    public static PacketSelector getInstance() {
+        return packetSelector;
     }
 
-    public void registerChannel(DatagramChannel datagramChannel, DataChannel dataChannel) {
-        try {
-            int index = currSelectorIndex.getAndIncrement();
-            if (index >= selectors.size()) {
-                currSelectorIndex.set(index % selectors.size());
-                index = currSelectorIndex.get();
-            }
-            SelectionKey key = datagramChannel.register(
-                    selectors.get(index),
-                    SelectionKey.OP_READ
-            );
-            key.attach(dataChannel);
-            log.debug("|PacketSelector({})| Success to register the channel. (localAddress={}, isBlocking={})",
-                    conferenceId, datagramChannel.getLocalAddress(), datagramChannel.isBlocking()
-            );
-        } catch (Exception e) {
-            log.warn("|PacketSelector({})| Fail to register the datagram channel.", conferenceId, e);
+    public void registerChannel(NioDataTransport transport) {
+        if (!active || selectorLoops.isEmpty()) {
+            log.warn("|PacketSelector| Fail to register the channel. Selector is not running. (conferenceId={})", transport.getConferenceId());
+            return;
         }
+
+        int index = Math.floorMod(currSelectorIndex.getAndIncrement(), selectorLoops.size());
+        selectorLoops.get(index).register(transport);
     }
 
-    public void unregisterChannel(DataChannel dataChannel) {
+    public void unregisterChannel(NioDataTransport transport) {
         try {
-            SelectionKey selectionKey = dataChannel.getSelectionKey();
+            SelectionKey selectionKey = transport.getSelectionKey();
             if (selectionKey != null) {
                 selectionKey.cancel();
-                log.debug("|PacketSelector({})| Success to unregister the channel.", conferenceId);
+                // Let the loop flush the cancelled key without waiting for the next datagram
+                selectionKey.selector().wakeup();
+                transport.setSelectionKey(null);
+                log.debug("|PacketSelector| Success to unregister the channel. (conferenceId={})", transport.getConferenceId());
             }
         } catch (Exception e) {
-            log.warn("|PacketSelector({})| Fail to unregister the datagram channel.", conferenceId, e);
-        }
-    }
-
-    private void generateTasks() throws IOException {
-        for (int i = 0; i < ServiceScheduler.POOL_SIZE; i++) {
-            selectors.add(SelectorProvider.provider().openSelector());
-            PollTask pollTask = new PollTask(i, selectors.get(i));
-            pollTasks.add(pollTask);
-            ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay(pollTask, 0L, 1L, TimeUnit.MILLISECONDS);
-            pollTaskFutures.add(future);
+            log.warn("|PacketSelector| Fail to unregister the datagram channel. (conferenceId={})", transport.getConferenceId(), e);
         }
     }
 
-    private void stopTasks() {
-        for (Future<?> future : pollTaskFutures) {
-            future.cancel(false);
-        }
-        pollTaskFutures.clear();
-    }
-
-    private void closeSelectors() {
-        for (int i = 0; i < selectors.size(); i++) {
-            Selector selector = selectors.get(i);
-            if (selector != null && selector.isOpen()) {
-                try {
-                    selector.close();
-                } catch (Exception e) {
-                    log.warn("|PacketSelector({})| Could not close selector({}).", conferenceId, i, e);
-                }
-            }
-        }
-    }
-
-    private void cleanResources() {
-        pollTasks.clear();
-        selectors.clear();
-    }
-
-    public void start() {
+    public void start(int threadSize) {
         synchronized (LOCK) {
             if (!active) {
                 active = true;
+                int loopCount = threadSize > 0 ? threadSize : Runtime.getRuntime().availableProcessors();
                 try {
-                    scheduler.start();
-                    generateTasks();
-                    log.debug("|PacketSelector({})| Started.", conferenceId);
+                    executor = Executors.newFixedThreadPool(loopCount, threadFactory);
+                    for (int i = 0; i < loopCount; i++) {
+                        SelectorLoop selectorLoop = new SelectorLoop(i, SelectorProvider.provider().openSelector());
+                        selectorLoops.add(selectorLoop);
+                        executor.execute(selectorLoop);
+                    }
+                    log.debug("|PacketSelector| Started. (threadSize={})", loopCount);
                 } catch (IOException e) {
-                    log.warn("|PacketSelector({})| An error occurred while initializing the polling tasks.", conferenceId, e);
+                    log.warn("|PacketSelector| An error occurred while initializing the selector loops.", e);
                     stop();
                 }
             }
@@ -136,79 +113,150 @@ public class PacketSelector {
         synchronized (LOCK) {
             if (active) {
                 active = false;
-                log.debug("|PacketSelector({})| Stopping...", conferenceId);
-                stopTasks();
-                closeSelectors();
-                cleanResources();
-                scheduler.stop();
-                log.debug("|PacketSelector({})| Stopped.", conferenceId);
+                log.debug("|PacketSelector| Stopping...");
+                for (SelectorLoop selectorLoop : selectorLoops) {
+                    selectorLoop.wakeup();
+                }
+                if (executor != null) {
+                    executor.shutdown();
+                    executor = null;
+                }
+                selectorLoops.clear();
+                log.debug("|PacketSelector| Stopped.");
             }
         }
     }
 
+    public boolean isActive() {
+        return active;
+    }
+
     /////////////////////////////////////////////////////////////////////////
 
-    private class PollTask implements Runnable {
+    private class SelectorLoop implements Runnable, Executor {
 
         private final int id;
         private final Selector localSelector;
+        private final Queue<Runnable> pendingTasks;
 
-        public PollTask(int id, Selector selector) {
+        public SelectorLoop(int id, Selector selector) {
             this.id = id;
-            localSelector = selector;
+            this.localSelector = selector;
+            this.pendingTasks = new ConcurrentLinkedQueue<>();
+        }
+
+        /**
+         * SelectableChannel.register() 는 select() 중인 Selector 에 대해 블로킹되므로,
+         * 등록 작업을 루프 스레드에 넘기고 select() 를 깨운다.
+         */
+        public void register(NioDataTransport transport) {
+            DatagramChannel datagramChannel = transport.getMediaChannel();
+            execute(() -> {
+                try {
+                    SelectionKey key = datagramChannel.register(localSelector, SelectionKey.OP_READ, transport);
+                    transport.setSelectionKey(key);
+                    transport.setIoExecutor(this);
+                    log.debug("|PacketSelector| |SelectorLoop({})| Success to register the channel. (conferenceId={}, localAddress={})",
+                            id, transport.getConferenceId(), datagramChannel.getLocalAddress()
+                    );
+                } catch (Exception e) {
+                    log.warn("|PacketSelector| |SelectorLoop({})| Fail to register the datagram channel. (conferenceId={})",
+                            id, transport.getConferenceId(), e
+                    );
+                }
+            });
+        }
+
+        /**
+         * 다음 select() 가 깨어났을 때 루프 스레드에서 작업을 실행한다. (채널 등록, RTCP 송신 등)
+         */
+        @Override
+        public void execute(@NotNull Runnable task) {
+            pendingTasks.offer(task);
+            localSelector.wakeup();
+        }
+
+        public void wakeup() {
+            localSelector.wakeup();
+        }
+
+        private void runPendingTasks() {
+            Runnable task;
+            while ((task = pendingTasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn("|PacketSelector| |SelectorLoop({})| Fail to run the pending task.", id, e);
+                }
+            }
         }
 
         @Override
         public void run() {
-            if (active) {
+            while (active) {
                 try {
-                    // Select channels enabled for reading operation (without blocking!)
-                    int selected = localSelector.selectNow();
-                    if (selected == 0) {
-                        //Thread.yield();
-                        return;
-                    }
+                    // Block until at least one channel is readable or the loop is woken up
+                    localSelector.select();
                 } catch (IOException e) {
-                    log.error("|PacketSelector({})| |PollTask({})| Could not select channels from Selector!", conferenceId, id);
+                    log.error("|PacketSelector| |SelectorLoop({})| Could not select channels from Selector!", id, e);
+                    continue;
                 }
 
+                runPendingTasks();
+
                 // Iterate over selected channels
                 Iterator<SelectionKey> it = localSelector.selectedKeys().iterator();
                 while (it.hasNext() && active) {
                     SelectionKey key = it.next();
                     it.remove();
+                    handleKey(key);
+                }
+            }
+
+            closeSelector();
+        }
+
+        private void handleKey(SelectionKey key) {
+            // Get references to channel and associated RTP socket
+            DatagramChannel datagramChannel = (DatagramChannel) key.channel();
+            Object attachment = key.attachment();
+            if (attachment == null) { return; }
 
-                    // Get references to channel and associated RTP socket
-                    DatagramChannel datagramChannel = (DatagramChannel) key.channel();
-                    Object attachment = key.attachment();
-                    if (attachment == null) { continue; }
-
-                    try {
-                        if (attachment instanceof DataChannel) {
-                            DataChannel channel = (DataChannel) attachment;
-                            if (datagramChannel.isOpen()) {
-                                if (key.isValid()) {
-                                    channel.receive();
-                                    if (channel.hasPendingData()) {
-                                        channel.send();
-                                    }
-                                }
-                            } else {
-                                channel.close();
+            try {
+                if (attachment instanceof NioDataTransport) {
+                    NioDataTransport transport = (NioDataTransport) attachment;
+                    if (datagramChannel.isOpen()) {
+                        int readCount = 0;
+                        while (key.isValid() && readCount++ < MAX_READ_COUNT_PER_KEY) {
+                            if (transport.receive() == null) {
+                                break;
                             }
-                        } else {
-                            log.warn("|PacketSelector({})| |PollTask({})| Not defined the attachment.", conferenceId, id);
                         }
-                    } catch (Exception e) {
-                        log.error("|PacketSelector({})| |PollTask({})| An unexpected problem occurred while reading from channel.", conferenceId, id, e);
+                        if (transport.getDataChannel().hasPendingData()) {
+                            transport.getDataChannel().send();
+                        }
+                    } else {
+                        transport.getDataChannel().close();
                     }
+                } else {
+                    log.warn("|PacketSelector| |SelectorLoop({})| Not defined the attachment.", id);
                 }
+            } catch (Exception e) {
+                log.error("|PacketSelector| |SelectorLoop({})| An unexpected problem occurred while reading from channel.", id, e);
+            }
+        }
 
-                localSelector.selectedKeys().clear();
-            } else {
-                Thread.yield();
+        private void closeSelector() {
+            if (localSelector.isOpen()) {
+                try {
+                    localSelector.close();
+                } catch (Exception e) {
+                    log.warn("|PacketSelector| Could not close selector({}).", id, e);
+                }
             }
+            pendingTasks.clear();
         }
+
     }
 
 }
@@ -0,0 +1,117 @@
+package org.kkukie.jrtsp_gw.media.core.manager;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 1) 게이트웨이 전역에서 공유하는 SRTP 복호화 워커 그룹
+ * 2) 복호화 작업을 SSRC 기준으로 워커(단일 스레드 + 제한된 작업 큐)에 나눠서 처리한다.
+ *      - 같은 SSRC 의 패킷은 항상 같은 워커에서 수신 순서대로 처리된다. (SRTP 컨텍스트를 스레드 간에 공유하지 않는다.)
+ *      - 한 호의 여러 SSRC (오디오/비디오, simulcast 레이어)는 서로 다른 코어에서 동시에 복호화된다.
+ * 3) 워커의 작업 큐가 가득 차면 패킷을 버린다. (Ingest 스레드는 블로킹되지 않는다.)
+ * 4) threadSize 가 0 이면 시작하지 않으며, SRTP 는 Ingest 스레드에서 바로 복호화한다.
+ */
+@Slf4j
+public class SrtpDecryptWorkerGroup {
+
+    /** 워커 하나에 쌓일 수 있는 최대 복호화 작업 수 */
+    private static final int MAX_PENDING_TASK_COUNT = 1024;
+
+    private static final SrtpDecryptWorkerGroup srtpDecryptWorkerGroup = new SrtpDecryptWorkerGroup();
+
+    private volatile ThreadPoolExecutor[] workers = new ThreadPoolExecutor[0];
+
+    private final AtomicLong droppedCount = new AtomicLong(0);
+
+    private SrtpDecryptWorkerGroup() {
+        // nothing
+    }
+
+    public static SrtpDecryptWorkerGroup getInstance() {
+        return srtpDecryptWorkerGroup;
+    }
+
+    public synchronized void start(int threadSize) {
+        if (threadSize <= 0 || workers.length > 0) {
+            return;
+        }
+
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory("srtp-decrypt", true);
+        ThreadPoolExecutor[] newWorkers = new ThreadPoolExecutor[threadSize];
+        for (int i = 0; i < threadSize; i++) {
+            newWorkers[i] = new ThreadPoolExecutor(
+                    1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(MAX_PENDING_TASK_COUNT),
+                    threadFactory
+            );
+        }
+        workers = newWorkers;
+        log.debug("|SrtpDecryptWorkerGroup| Started. (threadSize={})", threadSize);
+    }
+
+    public synchronized void stop() {
+        ThreadPoolExecutor[] curWorkers = workers;
+        if (curWorkers.length == 0) {
+            return;
+        }
+
+        workers = new ThreadPoolExecutor[0];
+        for (ThreadPoolExecutor worker : curWorkers) {
+            worker.shutdown();
+        }
+        log.debug("|SrtpDecryptWorkerGroup| Stopped.");
+    }
+
+    public boolean isActive() {
+        return workers.length > 0;
+    }
+
+    /**
+     * SSRC 에 고정 배정된 워커에서 작업을 실행한다.
+     *
+     * @param ssrc SRTP 패킷의 SSRC
+     * @param task 복호화 작업
+     * @return 작업이 워커 큐에 들어갔으면 true, 그룹이 시작되지 않았거나 큐가 가득 찼으면 false
+     */
+    public boolean execute(long ssrc, Runnable task) {
+        ThreadPoolExecutor[] curWorkers = workers;
+        if (curWorkers.length == 0) {
+            return false;
+        }
+
+        try {
+            curWorkers[getWorkerIndex(ssrc, curWorkers.length)].execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    public int getThreadSize() {
+        return workers.length;
+    }
+
+    public int getPendingTaskCount() {
+        int pendingTaskCount = 0;
+        for (ThreadPoolExecutor worker : workers) {
+            pendingTaskCount += worker.getQueue().size();
+        }
+        return pendingTaskCount;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    static int getWorkerIndex(long ssrc, int workerCount) {
+        return Math.floorMod(Long.hashCode(ssrc), workerCount);
+    }
+
+}
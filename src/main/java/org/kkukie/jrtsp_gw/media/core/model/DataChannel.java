@@ -3,8 +3,12 @@ package org.kkukie.jrtsp_gw.media.core.model;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
 import org.kkukie.jrtsp_gw.media.core.manager.PacketHandlerMaster;
-import org.kkukie.jrtsp_gw.media.core.manager.PacketSelector;
+import org.kkukie.jrtsp_gw.media.core.model.transport.DataTransport;
+import org.kkukie.jrtsp_gw.media.core.model.transport.DataTransportType;
+import org.kkukie.jrtsp_gw.media.core.model.transport.NettyDataTransport;
+import org.kkukie.jrtsp_gw.media.core.model.transport.NioDataTransport;
 import org.kkukie.jrtsp_gw.media.core.stream.dtls.DtlsListener;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.stun.events.IceEventListener;
@@ -16,9 +20,6 @@ import org.kkukie.jrtsp_gw.session.media.MediaSession;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.nio.ByteBuffer;
-import java.nio.channels.DatagramChannel;
-import java.nio.channels.SelectionKey;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -26,13 +27,13 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 /**
  * [관리 항목]
  * 1. 로컬 미디어 채널(소켓) 생성
+ *      - DataTransport (NIO : PacketSelector / NETTY : 공유 EventLoopGroup)
  * 2. 네트워크 패킷 핸들러 관리
  *      - IceHandler
  *      - DtlsHandler
  *      - RtpHandler
  *      - RtcpHandler
  * 3. DTLS
- * 4. PacketSelector 를 사용하여 채널 등록
  *
  */
 @Slf4j
@@ -40,45 +41,40 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 @Setter
 public class DataChannel implements DtlsListener, IceEventListener {
 
-    private static final int BUFFER_SIZE = 8192;
-
     private final String conferenceId;
 
     private final MediaSession mediaSession;
 
-    protected SelectionKey selectionKey;
-    private DatagramChannel mediaChannel;
+    private final DataTransport dataTransport;
     private final SocketAddress localMediaAddress;
     private SocketAddress realRemoteAddress = null;
     private List<InetSocketAddress> targetAddressList = null;
 
-    private final ByteBuffer recvBuffer;
     private final Queue<byte[]> pendingData;
 
     private final PacketHandlerMaster packetHandlerMaster;
-    private final PacketSelector packetSelector;
 
     ////////////////////////////////////////////////////////////////////////
-    public DataChannel(PacketSelector packetSelector, MediaSession mediaSession,
-                       String conferenceId, SocketAddress localMediaAddress) {
-        this.packetSelector = packetSelector;
+    public DataChannel(MediaSession mediaSession, String conferenceId, SocketAddress localMediaAddress) {
         this.mediaSession = mediaSession;
         this.conferenceId = conferenceId;
         this.localMediaAddress = localMediaAddress;
-        this.recvBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
         this.pendingData = new ConcurrentLinkedQueue<>();
         this.packetHandlerMaster = new PacketHandlerMaster(conferenceId, mediaSession);
+
+        DataTransportType dataTransportType = DataTransportType.of(
+                ConfigManager.getDefaultConfig().getIngestTransportType()
+        );
+        if (dataTransportType == DataTransportType.NETTY) {
+            this.dataTransport = new NettyDataTransport(this);
+        } else {
+            this.dataTransport = new NioDataTransport(this);
+        }
     }
 
     public void initChannel() {
         try {
-            freeChannel();
-
-            mediaChannel = DatagramChannel.open();
-            mediaChannel.configureBlocking(false);
-            mediaChannel.bind(localMediaAddress);
-
-            packetSelector.registerChannel(mediaChannel, this);
+            dataTransport.open(localMediaAddress);
         } catch (Exception e) {
             log.warn("|DataChannel({})| Fail to create the media channel.", conferenceId, e);
         }
@@ -87,102 +83,40 @@ public class DataChannel implements DtlsListener, IceEventListener {
     public void close() {
         packetHandlerMaster.reset();
 
-        flush();
-        freeChannel();
-        if (selectionKey != null) {
-            selectionKey.cancel();
-        }
+        dataTransport.close();
         realRemoteAddress = null;
     }
 
-    private void freeChannel() {
-        try {
-            packetSelector.unregisterChannel(this);
-
-            if (mediaChannel != null) {
-                mediaChannel.close();
-                mediaChannel = null;
-            }
-        } catch (Exception e) {
-            log.warn("|DataChannel({})| Fail to remove the media channel.", conferenceId, e);
-        }
-    }
-
-    public boolean isConnected() {
-        return mediaChannel != null && mediaChannel.isConnected();
-    }
-
     public boolean isOpen() {
-        if(this.mediaChannel != null) {
-            return this.mediaChannel.isOpen();
-        }
-        return false;
-    }
-
-    public void connect(SocketAddress address) throws IOException {
-        if(this.mediaChannel == null) {
-            throw new IOException("|DataChannel(" + conferenceId + ")| No channel available to connect.");
-        }
-        this.mediaChannel.connect(address);
-    }
-
-    public void disconnect() throws IOException {
-        if(isConnected()) {
-            this.mediaChannel.disconnect();
-        }
+        return dataTransport.isOpen();
     }
 
     public boolean hasPendingData() {
         return !this.pendingData.isEmpty();
     }
 
-    public byte[] receive() {
-        recvBuffer.clear();
-
-        int dataLength;
-        try {
-            SocketAddress remotePeer = mediaChannel.receive(recvBuffer);
-            if (!isConnected() && remotePeer != null) {
-                connect(remotePeer);
-            }
-            dataLength = this.recvBuffer.position();
-        } catch (IOException e) {
-            dataLength = -1;
-        }
-
-        // Stop if socket was shutdown or error occurred
-        if (dataLength == -1) {
-            close();
-        } else if (dataLength > 0) {
-            // Copy data from buffer so we don't mess with original
-            byte[] dataCopy = new byte[dataLength];
-            this.recvBuffer.rewind();
-            this.recvBuffer.get(dataCopy, 0, dataLength);
-
-            // Delegate work to the proper handler
-            PacketHandler handler = packetHandlerMaster.getHandlers().getCapableHandler(dataCopy);
-            if (handler != null) {
-                try {
-                    byte[] response = handler.handle(
-                            dataCopy, dataLength, 0,
-                            (InetSocketAddress) mediaChannel.getLocalAddress(),
-                            (InetSocketAddress) mediaChannel.getRemoteAddress()
-                    );
-                    if (response != null && response.length > 0) {
-                        queueData(response);
-                    }
-                } catch (Exception e) {
-                    log.error("|DataChannel({})| Could not handle incoming packet.", conferenceId, e);
-                }
-            } else {
-                if (log.isTraceEnabled()) {
-                    log.trace("|DataChannel({})| No protocol handler was found to process an incoming packet. Packet will be dropped.", conferenceId);
+    /**
+     * DataTransport 가 수신한 패킷을 처리 가능한 핸들러로 전달한다.
+     * 핸들러가 응답 패킷을 만들면 pendingData 에 쌓아두고, 이후 send() 로 전송된다.
+     * data 는 dataLength 보다 길 수 있고 호출이 끝나면 재사용될 수 있으므로, 핸들러가 보관하려면 복사해야 한다.
+     */
+    public void handlePacket(byte[] data, int dataLength, InetSocketAddress localAddress, InetSocketAddress remoteAddress) {
+        // Delegate work to the proper handler
+        PacketHandler handler = packetHandlerMaster.getHandlers().getCapableHandler(data, dataLength);
+        if (handler != null) {
+            try {
+                byte[] response = handler.handle(data, dataLength, 0, localAddress, remoteAddress);
+                if (response != null && response.length > 0) {
+                    queueData(response);
                 }
+            } catch (Exception e) {
+                log.error("|DataChannel({})| Could not handle incoming packet.", conferenceId, e);
+            }
+        } else {
+            if (log.isTraceEnabled()) {
+                log.trace("|DataChannel({})| No protocol handler was found to process an incoming packet. Packet will be dropped.", conferenceId);
             }
-            return dataCopy;
         }
-
-        return null;
     }
 
     public void queueData(final byte[] data) {
@@ -191,48 +125,36 @@ public class DataChannel implements DtlsListener, IceEventListener {
         }
     }
 
-    public void send() throws IOException {
-        if (this.mediaChannel == null) { return; }
+    public void send() {
+        if (realRemoteAddress == null || !dataTransport.isOpen()) { return; }
 
-        byte[] data = this.pendingData.poll();
-        if (data != null) {
-            ByteBuffer buffer = ByteBuffer.wrap(data);
-            if (realRemoteAddress == null) { return; }
-            this.mediaChannel.send(buffer, realRemoteAddress);
-            // Keep sending queued data, recursive style
-            send();
+        byte[] data;
+        while ((data = this.pendingData.poll()) != null) {
+            try {
+                dataTransport.send(data, 0, data.length, realRemoteAddress);
+            } catch (IOException e) {
+                log.warn("|DataChannel({})| Fail to send the pending data.", conferenceId, e);
+            }
         }
     }
 
     public boolean send(byte[] data, SocketAddress remoteAddress) throws IOException {
-        if (remoteAddress == null) { return false; }
-        if (data != null) {
-            ByteBuffer buffer = ByteBuffer.wrap(data);
-            if (this.mediaChannel != null) {
-                return this.mediaChannel.send(buffer, remoteAddress) > 0;
-            } else {
-                return false;
-            }
-        }
-        return false;
+        if (data == null) { return false; }
+        return send(data, 0, data.length, remoteAddress);
     }
 
-    public void flush() {
-        try {
-            this.recvBuffer.clear();
-            // let's clear the receiver
-            SocketAddress currAddress;
-            do {
-                if (mediaChannel != null && mediaChannel.isOpen()) {
-                    currAddress = mediaChannel.receive(recvBuffer);
-                    this.recvBuffer.clear();
-                } else {
-                    currAddress = null;
-                }
-            } while (currAddress != null);
-        } catch (Exception e) {
-            log.warn("|DataChannel({})| Stopped flushing the channel abruptly.", conferenceId, e);
-        }
+    public boolean send(byte[] data, int offset, int length, SocketAddress remoteAddress) throws IOException {
+        if (remoteAddress == null || data == null) { return false; }
+        return dataTransport.send(data, offset, length, remoteAddress);
+    }
+
+    /**
+     * 이 호의 수신 I/O 스레드에서 작업을 실행한다.
+     *
+     * @return 작업이 I/O 스레드에 전달되었으면 true, 채널이 닫혀 있으면 false
+     */
+    public boolean execute(Runnable task) {
+        return dataTransport.execute(task);
     }
 
     /////////////////////////////////////////////////////////////////////////
@@ -274,8 +196,8 @@ public class DataChannel implements DtlsListener, IceEventListener {
         }
 
         synchronized (packetHandlerMaster) {
-            packetHandlerMaster.initDtls(mediaChannel, realRemoteAddress, this);
-            packetHandlerMaster.initRtp(mediaChannel, realRemoteAddress, mediaSession.getMediaFormatMap());
+            packetHandlerMaster.initDtls(this, realRemoteAddress, this);
+            packetHandlerMaster.initRtp(this, realRemoteAddress, mediaSession.getMediaFormatMap());
             packetHandlerMaster.selectCandidate(useCandidate);
         }
     }
@@ -0,0 +1,53 @@
+package org.kkukie.jrtsp_gw.media.core.model.transport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
+
+/**
+ * NettyDataTransport 수신 핸들러
+ * 수신한 데이터그램을 DataChannel 로 전달하고, 처리 결과로 쌓인 응답 패킷을 바로 전송한다.
+ * PacketHandler 들이 byte[] 기반이므로, 채널마다 수신 배열 하나를 두고 데이터그램마다 재사용한다. (패킷마다 할당하지 않는다.)
+ * 채널의 EventLoop 에서만 실행되므로 배열을 공유하지 않는다.
+ */
+@Slf4j
+public class DataChannelInboundHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+    private static final int RECV_BUFFER_SIZE = 2048;
+
+    private final DataChannel dataChannel;
+    private byte[] recvData = new byte[RECV_BUFFER_SIZE];
+
+    public DataChannelInboundHandler(DataChannel dataChannel) {
+        this.dataChannel = dataChannel;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+        ByteBuf buf = msg.content();
+        int dataLength = buf.readableBytes();
+        if (dataLength <= 0) {
+            return;
+        }
+
+        if (dataLength > recvData.length) {
+            recvData = new byte[dataLength];
+        }
+        // 핸들러가 보관해야 하는 패킷은 핸들러에서 복사한다. (DataChannel.handlePacket)
+        buf.getBytes(buf.readerIndex(), recvData, 0, dataLength);
+        dataChannel.handlePacket(recvData, dataLength, msg.recipient(), msg.sender());
+
+        if (dataChannel.hasPendingData()) {
+            dataChannel.send();
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("|DataChannelInboundHandler({})| Fail to handle the packet.", dataChannel.getConferenceId(), cause);
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.kkukie.jrtsp_gw.media.core.model.transport;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * DataChannel 이 사용하는 UDP 소켓 추상화
+ * 수신한 패킷은 구현체가 DataChannel.handlePacket() 으로 전달한다.
+ */
+public interface DataTransport {
+
+    /**
+     * 로컬 주소에 소켓을 바인딩하고 수신을 시작한다.
+     *
+     * @param localAddress 바인딩할 로컬 주소
+     * @throws IOException 소켓 생성 또는 바인딩 실패 시
+     */
+    void open(SocketAddress localAddress) throws IOException;
+
+    void close();
+
+    boolean isOpen();
+
+    /**
+     * 지정한 원격 주소로 데이터를 전송한다.
+     *
+     * @return 전송 요청에 성공하면 true
+     */
+    boolean send(byte[] data, int offset, int length, SocketAddress remoteAddress) throws IOException;
+
+    /**
+     * 이 소켓의 수신을 처리하는 I/O 스레드에서 작업을 실행한다. (수신 처리와 같은 스레드에서 순서대로 실행된다.)
+     *
+     * @return 작업이 I/O 스레드에 전달되었으면 true, 소켓이 열려 있지 않거나 I/O 스레드가 없으면 false
+     */
+    boolean execute(Runnable task);
+
+}
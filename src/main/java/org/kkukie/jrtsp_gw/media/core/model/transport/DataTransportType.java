@@ -0,0 +1,25 @@
+package org.kkukie.jrtsp_gw.media.core.model.transport;
+
+/**
+ * WebRTC 수신(ICE/DTLS/SRTP) 소켓 구현 방식
+ *  - NIO   : java.nio DatagramChannel + 공유 PacketSelector (기본값)
+ *  - NETTY : Netty DatagramChannel (epoll 사용 가능 시 EpollDatagramChannel) + 공유 EventLoopGroup
+ */
+public enum DataTransportType {
+
+    NIO, NETTY;
+
+    public static DataTransportType of(String name) {
+        if (name == null || name.isEmpty()) {
+            return NIO;
+        }
+
+        for (DataTransportType type : values()) {
+            if (type.name().equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        return NIO;
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.kkukie.jrtsp_gw.media.core.model.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.socket.DatagramPacket;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.config.DefaultConfig;
+import org.kkukie.jrtsp_gw.media.core.manager.EventLoopGroupManager;
+import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Netty DatagramChannel 기반 DataTransport
+ * 1) 게이트웨이 공유 Ingest EventLoopGroup 에 등록된다. (호마다 스레드를 만들지 않는다.)
+ * 2) epoll 을 사용할 수 있으면 recvmmsg 로 한 번의 시스템 콜에 여러 데이터그램을 읽는다.
+ * 3) 수신 버퍼는 PooledByteBufAllocator 에서 할당된다.
+ */
+@Slf4j
+public class NettyDataTransport implements DataTransport {
+
+    /** 데이터그램 하나의 최대 크기 (MTU 1500 보다 크게 잡는다) */
+    private static final int MAX_DATAGRAM_SIZE = 2048;
+    /** recvmmsg 한 번에 읽을 최대 데이터그램 수 */
+    private static final int RECV_BATCH_COUNT = 16;
+
+    private final DataChannel dataChannel;
+
+    private Channel channel = null;
+
+    public NettyDataTransport(DataChannel dataChannel) {
+        this.dataChannel = dataChannel;
+    }
+
+    @Override
+    public void open(SocketAddress localAddress) throws IOException {
+        close();
+
+        DefaultConfig defaultConfig = ConfigManager.getDefaultConfig();
+        EventLoopGroupManager eventLoopGroupManager = EventLoopGroupManager.getInstance();
+        EventLoopGroup ingestGroup = eventLoopGroupManager.getIngestGroup();
+        if (ingestGroup == null) {
+            throw new IOException("|NettyDataTransport(" + dataChannel.getConferenceId() + ")| Ingest event loop group is not started.");
+        }
+
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(ingestGroup).channel(eventLoopGroupManager.getDatagramChannelClass())
+                .option(ChannelOption.SO_BROADCAST, false)
+                .option(ChannelOption.SO_SNDBUF, defaultConfig.getSendBufSize())
+                .option(ChannelOption.SO_RCVBUF, defaultConfig.getRecvBufSize())
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .handler(new DataChannelInboundHandler(dataChannel));
+
+        if (eventLoopGroupManager.isEpollAvailable()) {
+            // recvmmsg : 수신 버퍼 하나를 MAX_DATAGRAM_SIZE 단위로 나눠 여러 데이터그램을 한 번에 읽는다.
+            bootstrap.option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, MAX_DATAGRAM_SIZE)
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(MAX_DATAGRAM_SIZE * RECV_BATCH_COUNT));
+        } else {
+            bootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(MAX_DATAGRAM_SIZE));
+        }
+
+        try {
+            channel = bootstrap.bind(localAddress).sync().channel();
+            log.debug("|NettyDataTransport({})| Channel is opened. (localAddress={}, epoll={})",
+                    dataChannel.getConferenceId(), localAddress, eventLoopGroupManager.isEpollAvailable()
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("|NettyDataTransport(" + dataChannel.getConferenceId() + ")| Interrupted while binding the channel.", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            log.debug("|NettyDataTransport({})| Channel is closed.", dataChannel.getConferenceId());
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel != null && channel.isOpen();
+    }
+
+    @Override
+    public boolean send(byte[] data, int offset, int length, SocketAddress remoteAddress) {
+        Channel curChannel = channel;
+        if (remoteAddress == null || data == null || curChannel == null || !curChannel.isActive()) {
+            return false;
+        }
+
+        curChannel.writeAndFlush(
+                new DatagramPacket(Unpooled.wrappedBuffer(data, offset, length), (InetSocketAddress) remoteAddress),
+                curChannel.voidPromise()
+        );
+        return true;
+    }
+
+    @Override
+    public boolean execute(Runnable task) {
+        Channel curChannel = channel;
+        if (curChannel == null || !curChannel.isOpen()) {
+            return false;
+        }
+
+        try {
+            curChannel.eventLoop().execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // The ingest group is shutting down
+            return false;
+        }
+    }
+
+}
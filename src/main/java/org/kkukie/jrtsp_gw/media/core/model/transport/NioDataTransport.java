@@ -0,0 +1,174 @@
+package org.kkukie.jrtsp_gw.media.core.model.transport;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.core.manager.PacketSelector;
+import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.Executor;
+
+/**
+ * java.nio DatagramChannel 기반 DataTransport
+ * 공유 PacketSelector 에 등록되어 읽기 이벤트가 발생하면 receive() 가 호출된다.
+ */
+@Slf4j
+public class NioDataTransport implements DataTransport {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Getter
+    private final DataChannel dataChannel;
+    private final PacketSelector packetSelector;
+    private final ByteBuffer recvBuffer;
+
+    @Getter
+    @Setter
+    private SelectionKey selectionKey;
+    @Getter
+    private DatagramChannel mediaChannel;
+    /** 이 채널이 등록된 PacketSelector 의 루프 스레드 */
+    @Setter
+    private volatile Executor ioExecutor;
+
+    public NioDataTransport(DataChannel dataChannel) {
+        this.dataChannel = dataChannel;
+        this.packetSelector = PacketSelector.getInstance();
+        this.recvBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    @Override
+    public void open(SocketAddress localAddress) throws IOException {
+        close();
+
+        mediaChannel = DatagramChannel.open();
+        mediaChannel.configureBlocking(false);
+        mediaChannel.bind(localAddress);
+
+        packetSelector.registerChannel(this);
+    }
+
+    @Override
+    public void close() {
+        flush();
+
+        try {
+            packetSelector.unregisterChannel(this);
+            ioExecutor = null;
+
+            if (mediaChannel != null) {
+                mediaChannel.close();
+                mediaChannel = null;
+            }
+        } catch (Exception e) {
+            log.warn("|NioDataTransport({})| Fail to remove the media channel.", getConferenceId(), e);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mediaChannel != null && mediaChannel.isOpen();
+    }
+
+    public boolean isConnected() {
+        return mediaChannel != null && mediaChannel.isConnected();
+    }
+
+    public void connect(SocketAddress address) throws IOException {
+        if (mediaChannel == null) {
+            throw new IOException("|NioDataTransport(" + getConferenceId() + ")| No channel available to connect.");
+        }
+        mediaChannel.connect(address);
+    }
+
+    @Override
+    public boolean send(byte[] data, int offset, int length, SocketAddress remoteAddress) throws IOException {
+        if (remoteAddress == null || data == null || mediaChannel == null) {
+            return false;
+        }
+        return mediaChannel.send(ByteBuffer.wrap(data, offset, length), remoteAddress) > 0;
+    }
+
+    @Override
+    public boolean execute(Runnable task) {
+        Executor curIoExecutor = ioExecutor;
+        if (curIoExecutor == null || !isOpen()) {
+            return false;
+        }
+
+        curIoExecutor.execute(task);
+        return true;
+    }
+
+    /**
+     * 소켓에서 패킷 하나를 읽어 DataChannel 에 전달한다.
+     *
+     * @return 읽은 패킷, 읽을 데이터가 없으면 null
+     */
+    public byte[] receive() {
+        recvBuffer.clear();
+
+        int dataLength;
+        try {
+            SocketAddress remotePeer = mediaChannel.receive(recvBuffer);
+            if (!isConnected() && remotePeer != null) {
+                connect(remotePeer);
+            }
+            dataLength = recvBuffer.position();
+        } catch (IOException e) {
+            dataLength = -1;
+        }
+
+        // Stop if socket was shutdown or error occurred
+        if (dataLength == -1) {
+            dataChannel.close();
+        } else if (dataLength > 0) {
+            // Copy data from buffer so we don't mess with original
+            byte[] dataCopy = new byte[dataLength];
+            recvBuffer.rewind();
+            recvBuffer.get(dataCopy, 0, dataLength);
+
+            try {
+                dataChannel.handlePacket(
+                        dataCopy, dataLength,
+                        (InetSocketAddress) mediaChannel.getLocalAddress(),
+                        (InetSocketAddress) mediaChannel.getRemoteAddress()
+                );
+            } catch (IOException e) {
+                log.warn("|NioDataTransport({})| Fail to get the channel address.", getConferenceId(), e);
+            }
+            return dataCopy;
+        }
+
+        return null;
+    }
+
+    private void flush() {
+        try {
+            recvBuffer.clear();
+            // let's clear the receiver
+            SocketAddress currAddress;
+            do {
+                if (mediaChannel != null && mediaChannel.isOpen()) {
+                    currAddress = mediaChannel.receive(recvBuffer);
+                    recvBuffer.clear();
+                } else {
+                    currAddress = null;
+                }
+            } while (currAddress != null);
+        } catch (Exception e) {
+            log.warn("|NioDataTransport({})| Stopped flushing the channel abruptly.", getConferenceId(), e);
+        }
+    }
+
+    public String getConferenceId() {
+        return dataChannel.getConferenceId();
+    }
+
+}
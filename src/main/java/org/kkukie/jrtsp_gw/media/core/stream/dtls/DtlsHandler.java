@@ -7,6 +7,7 @@ import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.DTLSClientProtocol;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.DTLSServerProtocol;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.DTLSTransport;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.DatagramTransport;
+import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.channels.PacketHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.*;
 
@@ -15,20 +16,23 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
-import java.nio.channels.DatagramChannel;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class DtlsHandler implements PacketHandler, DatagramTransport {
 
     public static final int DEFAULT_MTU = 1500;
+    /** 핸드셰이크 스레드가 작업을 시작한 때부터 완료까지 허용하는 최대 시간 (실행기 큐에서 기다린 시간은 포함하지 않는다.) */
     public static final int MAX_DELAY = 20000;
-    private static final AtomicLong THREAD_COUNTER = new AtomicLong(0);
+    /** 핸드셰이크 스레드가 처리하기 전까지 쌓아둘 수 있는 최대 수신 패킷 수 (넘치면 버리고 상대의 재전송을 기다린다.) */
+    private static final int MAX_RX_QUEUE_SIZE = 64;
+    private static final ByteBuffer WAKE_UP = ByteBuffer.allocate(0);
     private static final int MIN_IP_OVERHEAD = 20;
     private static final int MAX_IP_OVERHEAD = MIN_IP_OVERHEAD + 64;
     private static final int UDP_OVERHEAD = 8;
@@ -37,7 +41,7 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
     private final int receiveLimit;
     private final int sendLimit;
-    private final Queue<ByteBuffer> rxQueue;
+    private final BlockingQueue<ByteBuffer> rxQueue;
     private final List<DtlsListener> listeners;
     // Packet Handler properties
     private int pipelinePriority;
@@ -47,11 +51,13 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     private DtlsSrtpServer server;
     private final DtlsSrtpClient client;
 
-    private long startTime;
+    private long maxDelay = MAX_DELAY;
+    private long requestTime;
+    private volatile long startTime;
     private volatile boolean handshakeComplete;
     private volatile boolean handshakeFailed;
     private volatile boolean handshaking;
-    private Thread worker;
+    private volatile boolean closed;
 
     // SRTP properties
     // http://tools.ietf.org/html/rfc5764#section-4.2
@@ -62,7 +68,7 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
     private final DtlsSrtpServerProvider tlsServerProvider;
 
-    private DatagramChannel datagramChannel;
+    private DataChannel dataChannel;
 
     private final SocketAddress remoteAddress;
 
@@ -85,15 +91,16 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
         this.client = dtlsClientProvider.provide();
 
         this.listeners = new ArrayList<>();
-        this.rxQueue = new ConcurrentLinkedQueue<>();
+        this.rxQueue = new LinkedBlockingQueue<>(MAX_RX_QUEUE_SIZE);
         this.startTime = 0L;
         this.handshakeComplete = false;
         this.handshakeFailed = false;
         this.handshaking = false;
+        this.closed = false;
     }
 
-    public void setChannel (DatagramChannel datagramChannel) {
-        this.datagramChannel = datagramChannel;
+    public void setChannel (DataChannel dataChannel) {
+        this.dataChannel = dataChannel;
     }
 
     public void addListener (DtlsListener listener) {
@@ -102,6 +109,13 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
         }
     }
 
+    /**
+     * @param maxDelay 핸드셰이크 최대 시간 (테스트에서 줄여서 사용한다.)
+     */
+    void setMaxDelay (long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
     public boolean isHandshakeComplete () {
         return handshakeComplete;
     }
@@ -218,6 +232,30 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
         return this.srtpDecoder.reverseTransform(packet, offset, length);
     }
 
+    /**
+     * Decodes an RTP Packet in place
+     *
+     * @param packet The buffer holding the encoded RTP packet in [0, limit).
+     *               On success it holds the decoded RTP packet and the limit is adjusted.
+     * @return Whether the packet was successfully decoded
+     */
+    public boolean decodeRTP (ByteBuffer packet) {
+        return this.srtpDecoder.reverseTransform(packet);
+    }
+
+    /**
+     * Gets the SRTP crypto contexts of the incoming RTP streams (one per SSRC)
+     *
+     * @return The crypto contexts. Returns an empty list if SRTP is not ready.
+     */
+    public List<SRTPCryptoContext> getSrtpDecoderContexts () {
+        PacketTransformer decoder = this.srtpDecoder;
+        if (!(decoder instanceof SRTPTransformer)) {
+            return new ArrayList<>();
+        }
+        return ((SRTPTransformer) decoder).getContexts();
+    }
+
     /**
      * Encodes an RTP packet
      *
@@ -251,13 +289,17 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     public void handshake (boolean useCandidate) {
         if (!handshaking && !handshakeComplete) {
             this.handshaking = true;
-            this.startTime = System.currentTimeMillis();
-            if (useCandidate) {
-                this.worker = new Thread(new HandshakeClient(), "DTLS-Client-" + THREAD_COUNTER.incrementAndGet());
-                this.worker.start();
-            } else {
-                this.worker = new Thread(new HandshakeServer(), "DTLS-Server-" + THREAD_COUNTER.incrementAndGet());
-                this.worker.start();
+            this.closed = false;
+            this.requestTime = System.currentTimeMillis();
+
+            // Run on the shared handshake executor instead of a dedicated thread per conference
+            Runnable handshakeTask = useCandidate ? new HandshakeClient() : new HandshakeServer();
+            if (!DtlsHandshakeExecutor.getInstance().execute(handshakeTask)) {
+                log.warn("|DtlsHandler({})| Fail to start the DTLS handshake. The handshake executor is not running or busy.", conferenceId);
+
+                this.handshakeFailed = true;
+                this.handshaking = false;
+                fireHandshakeFailed(new IllegalStateException("DTLS handshake executor rejected the handshake."));
             }
         }
     }
@@ -283,7 +325,7 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     @Override
     public void destroy () throws IOException {
         this.server = this.tlsServerProvider.provide();
-        this.datagramChannel = null;
+        this.dataChannel = null;
         this.srtcpDecoder = null;
         this.srtcpEncoder = null;
         this.srtpDecoder = null;
@@ -324,7 +366,10 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
     @Override
     public byte[] handle (byte[] packet, int dataLength, int offset, InetSocketAddress localPeer, InetSocketAddress remotePeer) {
-        this.rxQueue.offer(ByteBuffer.wrap(packet, offset, dataLength));
+        // The packet buffer is reused by the transport after this call, so the handshake thread gets a copy
+        if (!this.rxQueue.offer(ByteBuffer.wrap(Arrays.copyOfRange(packet, offset, offset + dataLength)))) {
+            log.debug("|DtlsHandler({})| DTLS receive queue is full. Dropping packet.", conferenceId);
+        }
         return null;
     }
 
@@ -351,30 +396,38 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     public int receive (byte[] buf, int off, int len, int waitMillis) throws IOException {
         // MEDIA-48: DTLS handshake thread does not terminate
         // https://telestax.atlassian.net/browse/MEDIA-48
+        if (this.closed) {
+            throw new IllegalStateException("DTLS handler is closed.");
+        }
         if (this.hasTimeout()) {
             close();
-            IllegalStateException illegalStateException = new IllegalStateException("Handshake is taking too long! (>" + MAX_DELAY + "ms");
-            fireHandshakeFailed(illegalStateException);
-            throw illegalStateException;
+            // The handshake task reports the failure to the listeners after updating the handshake state
+            throw new IllegalStateException("Handshake is taking too long! (>" + maxDelay + "ms");
         }
 
-        int attempts = waitMillis;
-        do {
-            ByteBuffer data = this.rxQueue.poll();
-            if (data != null && data.limit() > 0) {
-                int limit = data.limit();
-                data.get(buf, off, limit);
-                return limit;
-            }
+        // Park until a packet is pushed by handle() or the wait (retransmit timer) expires
+        long remainingMillis = maxDelay - (System.currentTimeMillis() - this.startTime);
+        long waitDeadline = System.currentTimeMillis() + Math.min(waitMillis, remainingMillis);
+        try {
+            long waitTime;
+            while ((waitTime = waitDeadline - System.currentTimeMillis()) > 0) {
+                ByteBuffer data = this.rxQueue.poll(waitTime, TimeUnit.MILLISECONDS);
+                if (data != null && data.hasRemaining()) {
+                    int length = Math.min(data.remaining(), len);
+                    data.get(buf, off, length);
+                    return length;
+                }
 
-            try {
-                Thread.sleep(1);
-            } catch (Exception e) {
-                log.warn("|DtlsHandler({})| Could not sleep thread to receive DTLS data.", conferenceId);
-            } finally {
-                attempts--;
+                // Woken up by close()
+                if (this.closed) {
+                    throw new IllegalStateException("DTLS handler is closed.");
+                }
             }
-        } while (attempts > 0);
+        } catch (InterruptedException e) {
+            // The handshake executor is stopping. (An IOException would only restart the outbound flight.)
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while receiving DTLS packet.");
+        }
 
         // Throw IO exception if no data was received in this interval. Restarts outbound flight.
         throw new SocketTimeoutException("Could not receive DTLS packet in " + waitMillis);
@@ -383,11 +436,8 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     @Override
     public void send (byte[] buf, int off, int len) throws IOException {
         if (!hasTimeout()) {
-            if (this.datagramChannel != null && datagramChannel.isOpen()) {
-                this.datagramChannel.send(
-                        ByteBuffer.wrap(buf, off, len),
-                        remoteAddress
-                );
+            if (this.dataChannel != null && dataChannel.isOpen()) {
+                this.dataChannel.send(buf, off, len, remoteAddress);
             } else {
                 log.warn("|DtlsHandler({})| Handler skipped send operation because channel is not open or connected.", conferenceId);
             }
@@ -398,19 +448,35 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
     @Override
     public void close () throws IOException {
+        this.closed = true;
         this.rxQueue.clear();
         this.startTime = 0L;
-        this.datagramChannel = null;
+        this.dataChannel = null;
+
+        // Wake up the handshake thread waiting in receive(), it stops by the closed flag
+        this.rxQueue.offer(WAKE_UP);
     }
 
     private boolean hasTimeout () {
-        return (System.currentTimeMillis() - this.startTime) > MAX_DELAY;
+        return this.closed || (System.currentTimeMillis() - this.startTime) > maxDelay;
     }
 
     private class HandshakeServer implements Runnable {
 
         public void run () {
-            DtlsHandler.this.rxQueue.clear();
+            // Closed while this task was waiting in the executor
+            if (closed) {
+                handshaking = false;
+                log.debug("|DtlsHandler({})| Handler is closed before the handshake starts.", conferenceId);
+                return;
+            }
+
+            // Packets received while this task was waiting in the executor are the peer's first flight, so they are kept
+            // The handshake time is counted from here, so a task that waited long in the executor still gets the full time
+            startTime = System.currentTimeMillis();
+            DtlsHandshakeExecutor.getInstance().onHandshakeStarted();
+            boolean isSuccess = false;
+
             SecureRandom secureRandom = new SecureRandom();
             DTLSServerProtocol serverProtocol = new DTLSServerProtocol(secureRandom);
 
@@ -446,6 +512,8 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
                 handshakeFailed = false;
                 handshaking = false;
 
+                isSuccess = true;
+
                 // Warn listeners handshake completed
                 fireHandshakeComplete();
             } catch (Exception e) {
@@ -458,6 +526,8 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
                 // Warn listeners handshake completed
                 fireHandshakeFailed(e);
+            } finally {
+                DtlsHandshakeExecutor.getInstance().onHandshakeFinished(isSuccess, System.currentTimeMillis() - requestTime);
             }
         }
 
@@ -466,7 +536,19 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     private class HandshakeClient implements Runnable {
 
         public void run () {
-            DtlsHandler.this.rxQueue.clear();
+            // Closed while this task was waiting in the executor
+            if (closed) {
+                handshaking = false;
+                log.debug("|DtlsHandler({})| Handler is closed before the handshake starts.", conferenceId);
+                return;
+            }
+
+            // Packets received while this task was waiting in the executor are the peer's first flight, so they are kept
+            // The handshake time is counted from here, so a task that waited long in the executor still gets the full time
+            startTime = System.currentTimeMillis();
+            DtlsHandshakeExecutor.getInstance().onHandshakeStarted();
+            boolean isSuccess = false;
+
             SecureRandom secureRandom = new SecureRandom();
             DTLSClientProtocol clientProtocol = new DTLSClientProtocol(secureRandom);
 
@@ -502,6 +584,8 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
                 handshakeFailed = false;
                 handshaking = false;
 
+                isSuccess = true;
+
                 // Warn listeners handshake completed
                 fireHandshakeComplete();
             } catch (Exception e) {
@@ -514,6 +598,8 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
                 // Warn listeners handshake completed
                 fireHandshakeFailed(e);
+            } finally {
+                DtlsHandshakeExecutor.getInstance().onHandshakeFinished(isSuccess, System.currentTimeMillis() - requestTime);
             }
         }
 
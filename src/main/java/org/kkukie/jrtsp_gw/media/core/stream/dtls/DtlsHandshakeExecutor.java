@@ -0,0 +1,157 @@
+package org.kkukie.jrtsp_gw.media.core.stream.dtls;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 1) 게이트웨이 전역에서 공유하는 DTLS 핸드셰이크 실행기
+ *      - 호(Conference)마다 스레드를 만들지 않고, 크기가 정해진 스레드 풀에서 핸드셰이크를 실행한다.
+ *      - 동시에 진행되는 핸드셰이크 수는 threadSize 로 제한되며, 나머지는 작업 큐에서 순서대로 기다린다.
+ *      - 핸드셰이크 시간은 스레드가 작업을 시작한 시점부터 DtlsHandler.MAX_DELAY 로 제한된다.
+ *          응답 없는 상대가 스레드를 잡는 시간이 제한되고, 큐에서 오래 기다린 작업도 시작하면 같은 시간을 받는다. (재연결이 몰려도 한꺼번에 실패하지 않는다.)
+ * 2) 핸드셰이크 스레드는 수신 패킷을 기다리는 동안 DtlsHandler 의 수신 큐에서 파킹된다. (sleep polling 없음)
+ *      - 재전송 타이머는 수신 대기 timeout 으로 동작한다. (DTLSReliableHandshake)
+ * 3) 핸드셰이크 동시성(진행 중, 대기 중, 최대 동시 진행 수)과 지연 시간(요청 ~ 완료) 통계를 제공한다.
+ */
+@Slf4j
+public class DtlsHandshakeExecutor {
+
+    /** 실행을 기다릴 수 있는 최대 핸드셰이크 수 */
+    private static final int MAX_PENDING_HANDSHAKE_COUNT = 1024;
+
+    private static final DtlsHandshakeExecutor dtlsHandshakeExecutor = new DtlsHandshakeExecutor();
+
+    private ThreadPoolExecutor executor = null;
+
+    /* 통계 */
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+    private volatile int maxActiveCount = 0;
+    private final AtomicLong completedCount = new AtomicLong(0);
+    private final AtomicLong failedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong totalLatencyMs = new AtomicLong(0);
+    private volatile long maxLatencyMs = 0;
+    private volatile long lastLatencyMs = 0;
+
+    private DtlsHandshakeExecutor() {
+        // nothing
+    }
+
+    public static DtlsHandshakeExecutor getInstance() {
+        return dtlsHandshakeExecutor;
+    }
+
+    /**
+     * @param threadSize 동시에 진행할 수 있는 최대 핸드셰이크 수 (0 : availableProcessors * 2)
+     */
+    public synchronized void start(int threadSize) {
+        if (executor != null) {
+            return;
+        }
+
+        int poolSize = threadSize > 0 ? threadSize : Runtime.getRuntime().availableProcessors() * 2;
+        executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_PENDING_HANDSHAKE_COUNT),
+                new DefaultThreadFactory("dtls-handshake", true)
+        );
+        log.debug("|DtlsHandshakeExecutor| Started. (threadSize={})", poolSize);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            log.debug("|DtlsHandshakeExecutor| Stopped.");
+        }
+    }
+
+    /**
+     * @param handshakeTask 핸드셰이크 작업
+     * @return 작업이 실행 큐에 들어갔으면 true, 실행기가 시작되지 않았거나 큐가 가득 찼으면 false
+     */
+    public synchronized boolean execute(Runnable handshakeTask) {
+        if (executor == null) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+
+        try {
+            executor.execute(handshakeTask);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    void onHandshakeStarted() {
+        int curActiveCount = activeCount.incrementAndGet();
+        if (curActiveCount > maxActiveCount) {
+            maxActiveCount = curActiveCount;
+        }
+    }
+
+    /**
+     * @param latencyMs 핸드셰이크 요청부터 완료(실패)까지 걸린 시간
+     */
+    void onHandshakeFinished(boolean isSuccess, long latencyMs) {
+        activeCount.decrementAndGet();
+        if (!isSuccess) {
+            failedCount.incrementAndGet();
+            return;
+        }
+
+        completedCount.incrementAndGet();
+        totalLatencyMs.addAndGet(latencyMs);
+        lastLatencyMs = latencyMs;
+        if (latencyMs > maxLatencyMs) {
+            maxLatencyMs = latencyMs;
+        }
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public synchronized int getPendingCount() {
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    public int getMaxActiveCount() {
+        return maxActiveCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public double getAvgLatencyMs() {
+        long curCompletedCount = completedCount.get();
+        return curCompletedCount > 0 ? (double) totalLatencyMs.get() / curCompletedCount : 0;
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    public long getLastLatencyMs() {
+        return lastLatencyMs;
+    }
+
+}
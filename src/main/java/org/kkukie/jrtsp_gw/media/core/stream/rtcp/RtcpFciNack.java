@@ -0,0 +1,61 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtcp;
+
+/**
+ * Generic NACK FCI (RFC 4585, 6.2.1)
+ */
+public class RtcpFciNack implements RtcpFci {
+
+    /** Number of packets (PID + BLP) that can be reported by one FCI entry */
+    public static final int MAX_SEQ_RANGE = 17;
+
+    // PID : Packet ID, BLP : Bitmask of following Lost Packets
+    //
+    //    0                   1                   2                   3
+    //    0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   |            PID                |             BLP               |
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    int pid = 0;
+    int blp = 0;
+
+    public RtcpFciNack(int pid, int blp) {
+        this.pid = pid & 0xFFFF;
+        this.blp = blp & 0xFFFF;
+    }
+
+    public RtcpFciNack() {
+    }
+
+    public int getPid() {
+        return pid;
+    }
+
+    public int getBlp() {
+        return blp;
+    }
+
+    @Override
+    public int decode(byte[] rawData, int offSet) {
+        this.pid = (rawData[offSet++] & 0xFF) << 8;
+        this.pid |= rawData[offSet++] & 0xFF;
+
+        this.blp = (rawData[offSet++] & 0xFF) << 8;
+        this.blp |= rawData[offSet++] & 0xFF;
+        return offSet;
+    }
+
+    @Override
+    public int encode(byte[] rawData, int offSet) {
+        rawData[offSet++] = (byte) ((this.pid & 0xFF00) >> 8);
+        rawData[offSet++] = (byte) (this.pid & 0x00FF);
+
+        rawData[offSet++] = (byte) ((this.blp & 0xFF00) >> 8);
+        rawData[offSet++] = (byte) (this.blp & 0x00FF);
+        return offSet;
+    }
+
+    @Override
+    public String toString() {
+        return "NACK FCI:\npid=" + pid + ", blp=" + Integer.toBinaryString(blp);
+    }
+}
@@ -0,0 +1,105 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtcp;
+
+import java.util.Arrays;
+
+/**
+ * Receiver Estimated Max Bitrate FCI (draft-alvestrand-rmcat-remb-03, 2.2)
+ * Carried by an Application Layer Feedback message (PSFB, FMT=15) with the media source SSRC set to 0.
+ */
+public class RtcpFciRemb implements RtcpFci {
+
+    /** Unique identifier 'R' 'E' 'M' 'B' */
+    private static final byte[] IDENTIFIER = {'R', 'E', 'M', 'B'};
+    private static final int MAX_MANTISSA = 0x3FFFF;
+
+    //    0                   1                   2                   3
+    //    0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   |  Unique identifier 'R' 'E' 'M' 'B'                            |
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   |  Num SSRC     | BR Exp    |  BR Mantissa                      |
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   |   SSRC feedback                                               |
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   |  ...                                                          |
+    long bitrate = 0;
+    long[] ssrcs = new long[0];
+
+    /**
+     * @param bitrate The maximum total media bit rate (bps)
+     * @param ssrcs The media sources the estimate applies to
+     */
+    public RtcpFciRemb(long bitrate, long... ssrcs) {
+        this.bitrate = bitrate;
+        this.ssrcs = ssrcs;
+    }
+
+    public RtcpFciRemb() {
+    }
+
+    public long getBitrate() {
+        return bitrate;
+    }
+
+    public long[] getSsrcs() {
+        return ssrcs;
+    }
+
+    @Override
+    public int decode(byte[] rawData, int offSet) {
+        // Unique identifier
+        offSet += 4;
+
+        int numSsrc = rawData[offSet++] & 0xFF;
+        int exp = (rawData[offSet] & 0xFC) >> 2;
+        long mantissa = rawData[offSet++] & 0x03;
+        mantissa <<= 8;
+        mantissa |= rawData[offSet++] & 0xFF;
+        mantissa <<= 8;
+        mantissa |= rawData[offSet++] & 0xFF;
+        this.bitrate = mantissa << exp;
+
+        this.ssrcs = new long[numSsrc];
+        for (int i = 0; i < numSsrc; i++) {
+            long ssrc = rawData[offSet++] & 0xFF;
+            ssrc <<= 8;
+            ssrc |= rawData[offSet++] & 0xFF;
+            ssrc <<= 8;
+            ssrc |= rawData[offSet++] & 0xFF;
+            ssrc <<= 8;
+            ssrc |= rawData[offSet++] & 0xFF;
+            this.ssrcs[i] = ssrc;
+        }
+        return offSet;
+    }
+
+    @Override
+    public int encode(byte[] rawData, int offSet) {
+        System.arraycopy(IDENTIFIER, 0, rawData, offSet, IDENTIFIER.length);
+        offSet += IDENTIFIER.length;
+
+        int exp = 0;
+        while ((this.bitrate >> exp) > MAX_MANTISSA) {
+            exp++;
+        }
+        long mantissa = this.bitrate >> exp;
+
+        rawData[offSet++] = (byte) (this.ssrcs.length & 0xFF);
+        rawData[offSet++] = (byte) ((exp << 2) | ((mantissa >> 16) & 0x03));
+        rawData[offSet++] = (byte) ((mantissa >> 8) & 0xFF);
+        rawData[offSet++] = (byte) (mantissa & 0xFF);
+
+        for (long ssrc : this.ssrcs) {
+            rawData[offSet++] = (byte) ((ssrc & 0xFF000000L) >> 24);
+            rawData[offSet++] = (byte) ((ssrc & 0x00FF0000) >> 16);
+            rawData[offSet++] = (byte) ((ssrc & 0x0000FF00) >> 8);
+            rawData[offSet++] = (byte) (ssrc & 0x000000FF);
+        }
+        return offSet;
+    }
+
+    @Override
+    public String toString() {
+        return "REMB FCI:\nbitrate=" + bitrate + ", ssrcs=" + Arrays.toString(ssrcs);
+    }
+}
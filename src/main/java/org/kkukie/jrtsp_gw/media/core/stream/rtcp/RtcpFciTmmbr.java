@@ -0,0 +1,98 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtcp;
+
+/**
+ * Temporary Maximum Media Stream Bit Rate Request FCI (RFC 5104, 4.2.1)
+ * Carried by a Transport-layer Feedback message (RTPFB, FMT=3) with the media source SSRC set to 0.
+ */
+public class RtcpFciTmmbr implements RtcpFci {
+
+    private static final int MAX_MANTISSA = 0x1FFFF;
+
+    //    0                   1                   2                   3
+    //    0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   |                              SSRC                             |
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   | MxTBR Exp |  MxTBR Mantissa                 |Measured Overhead|
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    long ssrc = 0;
+    long bitrate = 0;
+    int overhead = 0;
+
+    /**
+     * @param ssrc The media sender that is requested to obey the new maximum bit rate
+     * @param bitrate The maximum total media bit rate (bps)
+     * @param overhead The average packet overhead (bytes, 0 ~ 511)
+     */
+    public RtcpFciTmmbr(long ssrc, long bitrate, int overhead) {
+        this.ssrc = ssrc;
+        this.bitrate = bitrate;
+        this.overhead = overhead & 0x1FF;
+    }
+
+    public RtcpFciTmmbr() {
+    }
+
+    public long getSsrc() {
+        return ssrc;
+    }
+
+    public long getBitrate() {
+        return bitrate;
+    }
+
+    public int getOverhead() {
+        return overhead;
+    }
+
+    @Override
+    public int decode(byte[] rawData, int offSet) {
+        this.ssrc = rawData[offSet++] & 0xFF;
+        this.ssrc <<= 8;
+        this.ssrc |= rawData[offSet++] & 0xFF;
+        this.ssrc <<= 8;
+        this.ssrc |= rawData[offSet++] & 0xFF;
+        this.ssrc <<= 8;
+        this.ssrc |= rawData[offSet++] & 0xFF;
+
+        long word = rawData[offSet++] & 0xFF;
+        word <<= 8;
+        word |= rawData[offSet++] & 0xFF;
+        word <<= 8;
+        word |= rawData[offSet++] & 0xFF;
+        word <<= 8;
+        word |= rawData[offSet++] & 0xFF;
+
+        int exp = (int) (word >> 26);
+        long mantissa = (word >> 9) & MAX_MANTISSA;
+        this.bitrate = mantissa << exp;
+        this.overhead = (int) (word & 0x1FF);
+        return offSet;
+    }
+
+    @Override
+    public int encode(byte[] rawData, int offSet) {
+        rawData[offSet++] = (byte) ((this.ssrc & 0xFF000000L) >> 24);
+        rawData[offSet++] = (byte) ((this.ssrc & 0x00FF0000) >> 16);
+        rawData[offSet++] = (byte) ((this.ssrc & 0x0000FF00) >> 8);
+        rawData[offSet++] = (byte) (this.ssrc & 0x000000FF);
+
+        int exp = 0;
+        while ((this.bitrate >> exp) > MAX_MANTISSA) {
+            exp++;
+        }
+        long mantissa = this.bitrate >> exp;
+        long word = ((long) exp << 26) | (mantissa << 9) | this.overhead;
+
+        rawData[offSet++] = (byte) ((word >> 24) & 0xFF);
+        rawData[offSet++] = (byte) ((word >> 16) & 0xFF);
+        rawData[offSet++] = (byte) ((word >> 8) & 0xFF);
+        rawData[offSet++] = (byte) (word & 0xFF);
+        return offSet;
+    }
+
+    @Override
+    public String toString() {
+        return "TMMBR FCI:\nssrc=" + ssrc + ", bitrate=" + bitrate + ", overhead=" + overhead;
+    }
+}
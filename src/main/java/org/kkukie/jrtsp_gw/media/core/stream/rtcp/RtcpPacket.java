@@ -48,7 +48,7 @@ public class RtcpPacket implements Serializable {
 	private RtcpSdes sdes = null;
 	private RtcpBye bye = null;
 	private RtcpAppDefined appDefined = null;
-//	private RtcpRtpFb rtcpRtpFb = null;
+	private RtcpRtpFb rtcpRtpFb = null;
 	private RtcpPsFb rtcpPsFb = null;
 
 	private int packetCount = 0;
@@ -87,6 +87,10 @@ public class RtcpPacket implements Serializable {
 		this.rtcpPsFb = rtcpPsFb;
 	}
 
+	public RtcpPacket(RtcpRtpFb rtcpRtpFb) {
+		this.rtcpRtpFb = rtcpRtpFb;
+	}
+
 	public int decode(byte[] rawData, int offSet) {
 //		this.size = rawData.length - offSet;
 		this.size = 0;
@@ -130,9 +134,9 @@ public class RtcpPacket implements Serializable {
 					break;
 				case RtcpHeader.RTCP_RTPFB:
 					packetCount++;
-					this.rtcpPsFb = new RtcpPsFb();
-					offSet = rawData.length;
-					// offSet = this.rtcpPsFb.decode(rawData, offSet);
+					this.rtcpRtpFb = new RtcpRtpFb();
+					offSet = this.rtcpRtpFb.decode(rawData, offSet);
+					this.size += this.rtcpRtpFb.length;
 					logger.trace("RtcpPacket: Type=RTCP_RTPFB, offSet={}", offSet);
 					break;
 				case RtcpHeader.RTCP_PSFB:
@@ -160,6 +164,11 @@ public class RtcpPacket implements Serializable {
 			offSet = this.rtcpPsFb.encode(rawData, offSet);
 		}
 
+		if (this.rtcpRtpFb != null){
+			packetCount++;
+			offSet = this.rtcpRtpFb.encode(rawData, offSet);
+		}
+
 		if (this.senderReport != null) {
 			packetCount++;
 			offSet = this.senderReport.encode(rawData, offSet);
@@ -227,6 +236,10 @@ public class RtcpPacket implements Serializable {
 		return this.bye != null;
 	}
 
+	public RtcpRtpFb getRtcpRtpFb() {
+		return rtcpRtpFb;
+	}
+
 	public RtcpAppDefined getAppDefined() {
 		return appDefined;
 	}
@@ -242,6 +242,76 @@ public class RtcpPacketFactory {
 		return new RtcpPacket(fbFir);
 	}
 
+	/**
+	 * Builds a packet containing an RTCP Generic NACK (RFC 4585).
+	 *
+	 * @param senderSsrc
+	 *            The SSRC of the RTCP packet sender
+	 * @param mediaSsrc
+	 *            The SSRC of the media source that lost the packets
+	 * @param seqNumbers
+	 *            The lost sequence numbers, in ascending order (with wrap-around)
+	 * @param length
+	 *            The number of valid sequence numbers
+	 * @return The RTCP packet
+	 */
+	public static RtcpPacket buildNack(long senderSsrc, long mediaSsrc, int[] seqNumbers, int length) {
+		RtcpRtpFb nack = new RtcpRtpFb(false, RtcpRtpFb.RTPFB_NACK, senderSsrc, mediaSsrc);
+
+		int i = 0;
+		while (i < length) {
+			int pid = seqNumbers[i++] & 0xFFFF;
+			int blp = 0;
+			// Following lost packets within 16 sequence numbers go to the bitmask of the same FCI
+			while (i < length) {
+				int diff = ((seqNumbers[i] & 0xFFFF) - pid) & 0xFFFF;
+				if (diff == 0 || diff >= RtcpFciNack.MAX_SEQ_RANGE) {
+					break;
+				}
+				blp |= 1 << (diff - 1);
+				i++;
+			}
+			nack.addRtcpFci(new RtcpFciNack(pid, blp));
+		}
+		return new RtcpPacket(nack);
+	}
+
+	/**
+	 * Builds a packet containing a Receiver Estimated Max Bitrate (draft-alvestrand-rmcat-remb).
+	 *
+	 * @param senderSsrc
+	 *            The SSRC of the RTCP packet sender
+	 * @param bitrate
+	 *            The estimated maximum total media bit rate (bps)
+	 * @param mediaSsrcs
+	 *            The SSRCs of the media sources the estimate applies to
+	 * @return The RTCP packet
+	 */
+	public static RtcpPacket buildRemb(long senderSsrc, long bitrate, long... mediaSsrcs) {
+		RtcpPsFb remb = new RtcpPsFb(false, RtcpPsFb.PSFB_AFB, senderSsrc, 0);
+		remb.addRtcpFci(new RtcpFciRemb(bitrate, mediaSsrcs));
+		return new RtcpPacket(remb);
+	}
+
+	/**
+	 * Builds a packet containing a Temporary Maximum Media Stream Bit Rate Request (RFC 5104).
+	 *
+	 * @param senderSsrc
+	 *            The SSRC of the RTCP packet sender
+	 * @param mediaSsrc
+	 *            The SSRC of the media source that is requested to obey the bit rate
+	 * @param bitrate
+	 *            The maximum total media bit rate (bps)
+	 * @param overhead
+	 *            The average packet overhead (bytes)
+	 * @return The RTCP packet
+	 */
+	public static RtcpPacket buildTmmbr(long senderSsrc, long mediaSsrc, long bitrate, int overhead) {
+		RtcpRtpFb tmmbr = new RtcpRtpFb(false, RtcpRtpFb.RTPFB_TMMBR, senderSsrc, 0);
+		tmmbr.addRtcpFci(new RtcpFciTmmbr(mediaSsrc, bitrate, overhead));
+		return new RtcpPacket(tmmbr);
+	}
+
 	public static RtcpPacket buildPacket(RtcpPacketType packetType, RtpStatistics statistics) {
 		switch (packetType) {
 		case RTCP_REPORT:
@@ -36,6 +36,7 @@ public class RtcpPsFb extends RtcpHeader {
     //   :                                                               :
     public RtcpPsFb() {
         super();
+        this.rtcpFcis = new ArrayList<>(RtcpPacket.MAX_SOURCES);
     }
 
     public RtcpPsFb(boolean padding, int fmt, long senderSsrc, long mediaSsrc) {
@@ -50,6 +51,14 @@ public class RtcpPsFb extends RtcpHeader {
         return this.senderSsrc;
     }
 
+    public long getMediaSsrc() {
+        return this.mediaSsrc;
+    }
+
+    public List<RtcpFci> getRtcpFcis() {
+        return rtcpFcis;
+    }
+
     public void addRtcpFci(RtcpFci... rtcpFci){
         rtcpFcis.addAll(Arrays.asList(rtcpFci));
     }
@@ -93,8 +102,14 @@ public class RtcpPsFb extends RtcpHeader {
                     this.rtcpFcis.add(rtcpFci);
                     break;
                 case PSFB_AFB:
+                    // REMB is the only application layer feedback in use
+                    rtcpFci = new RtcpFciRemb();
+                    offSet = rtcpFci.decode(rawData, offSet);
+                    this.rtcpFcis.add(rtcpFci);
                     break;
                 default:
+                    // Unsupported FMT, skip the FCI
+                    offSet = tmp + this.length;
                     break;
             }
         }
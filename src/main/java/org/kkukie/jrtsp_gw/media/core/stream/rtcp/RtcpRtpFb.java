@@ -0,0 +1,141 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtcp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Transport-layer Feedback Message (RFC 4585, 6.2)
+ */
+public class RtcpRtpFb extends RtcpHeader {
+    public static final int RTPFB_NACK = 1;
+    public static final int RTPFB_TMMBR = 3;
+
+    protected long senderSsrc;
+    protected long mediaSsrc;
+    protected List<RtcpFci> rtcpFcis;
+
+
+    // RFC 4585: Feedback format.
+    // Common packet format:
+    //
+    //    0                   1                   2                   3
+    //    0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   |V=2|P|   FMT   |   PT=205      |          length               |
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    // 0 |                  SSRC of packet sender                        |
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    // 4 |                  SSRC of media source                         |
+    //   +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    //   :            Feedback Control Information (FCI)                 :
+    //   :                                                               :
+    public RtcpRtpFb() {
+        super();
+        this.rtcpFcis = new ArrayList<>(RtcpPacket.MAX_SOURCES);
+    }
+
+    public RtcpRtpFb(boolean padding, int fmt, long senderSsrc, long mediaSsrc) {
+        super(padding, RTCP_RTPFB);
+        this.count = fmt;
+        this.senderSsrc = senderSsrc;
+        this.mediaSsrc = mediaSsrc;
+        this.rtcpFcis = new ArrayList<>(RtcpPacket.MAX_SOURCES);
+    }
+
+    public long getSenderSsrc() {
+        return this.senderSsrc;
+    }
+
+    public long getMediaSsrc() {
+        return this.mediaSsrc;
+    }
+
+    public List<RtcpFci> getRtcpFcis() {
+        return rtcpFcis;
+    }
+
+    public void addRtcpFci(RtcpFci... rtcpFci){
+        rtcpFcis.addAll(Arrays.asList(rtcpFci));
+    }
+
+    public int decode(byte[] rawData, int offSet){
+        int tmp = offSet;
+
+        offSet = super.decode(rawData, offSet);
+
+        this.senderSsrc |= rawData[offSet++] & 0xFF;
+        this.senderSsrc <<= 8;
+        this.senderSsrc |= rawData[offSet++] & 0xFF;
+        this.senderSsrc <<= 8;
+        this.senderSsrc |= rawData[offSet++] & 0xFF;
+        this.senderSsrc <<= 8;
+        this.senderSsrc |= rawData[offSet++] & 0xFF;
+
+        this.mediaSsrc |= rawData[offSet++] & 0xFF;
+        this.mediaSsrc <<= 8;
+        this.mediaSsrc |= rawData[offSet++] & 0xFF;
+        this.mediaSsrc <<= 8;
+        this.mediaSsrc |= rawData[offSet++] & 0xFF;
+        this.mediaSsrc <<= 8;
+        this.mediaSsrc |= rawData[offSet++] & 0xFF;
+
+        if (this.count == RTPFB_NACK || this.count == RTPFB_TMMBR) {
+            while ((offSet - tmp) < this.length) {
+                RtcpFci rtcpFci = this.count == RTPFB_NACK ? new RtcpFciNack() : new RtcpFciTmmbr();
+                offSet = rtcpFci.decode(rawData, offSet);
+                this.rtcpFcis.add(rtcpFci);
+            }
+        } else {
+            // Unsupported FMT, skip the FCI
+            offSet = tmp + this.length;
+        }
+
+        return offSet;
+    }
+
+    public int encode(byte[] rawData, int offSet){
+        int startPosition = offSet;
+        offSet = super.encode(rawData, offSet);
+
+        rawData[offSet++] = ((byte) ((this.senderSsrc & 0xFF000000) >> 24));
+        rawData[offSet++] = ((byte) ((this.senderSsrc & 0x00FF0000) >> 16));
+        rawData[offSet++] = ((byte) ((this.senderSsrc & 0x0000FF00) >> 8));
+        rawData[offSet++] = ((byte) (this.senderSsrc & 0x000000FF));
+
+        rawData[offSet++] = ((byte) ((this.mediaSsrc & 0xFF000000) >> 24));
+        rawData[offSet++] = ((byte) ((this.mediaSsrc & 0x00FF0000) >> 16));
+        rawData[offSet++] = ((byte) ((this.mediaSsrc & 0x0000FF00) >> 8));
+        rawData[offSet++] = ((byte) (this.mediaSsrc & 0x000000FF));
+
+        for(RtcpFci rtcpFci : rtcpFcis){
+            if(rtcpFci != null){
+                offSet = rtcpFci.encode(rawData, offSet);
+            } else {
+                break;
+            }
+        }
+
+        this.length = (offSet - startPosition - 4) / 4;
+        rawData[startPosition + 2] = ((byte) ((this.length & 0xFF00) >> 8));
+        rawData[startPosition + 3] = ((byte) (this.length & 0x00FF));
+
+        return offSet;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Transport-Layer Feedback Message:\n");
+        builder.append("version=").append(this.version).append(", ");
+        builder.append("padding=").append(this.padding).append(", ");
+        builder.append("format=").append(this.count).append(", ");
+        builder.append("packet type=").append(this.packetType).append(", ");
+        builder.append("length=").append(this.length).append(", ");
+        builder.append("ssrc=").append(this.senderSsrc).append(", ");
+        builder.append("media ssrc=").append(this.mediaSsrc);
+        for(RtcpFci fci : this.rtcpFcis){
+            builder.append("\n").append(fci.toString());
+        }
+        return builder.toString();
+    }
+}
@@ -5,12 +5,18 @@ import java.net.InetSocketAddress;
 public class RtpInfo {
     private final RtpPacket rtpPacket;
     private final String mediaType;
+    private final String encodingName;
     private final InetSocketAddress fromAddr;
     private final InetSocketAddress toAddr;
 
     public RtpInfo(RtpPacket rtpPacket, InetSocketAddress fromAddr, InetSocketAddress toAddr, String mediaType) {
+        this(rtpPacket, fromAddr, toAddr, mediaType, null);
+    }
+
+    public RtpInfo(RtpPacket rtpPacket, InetSocketAddress fromAddr, InetSocketAddress toAddr, String mediaType, String encodingName) {
         this.rtpPacket = rtpPacket;
         this.mediaType = mediaType;
+        this.encodingName = encodingName;
         this.fromAddr = fromAddr;
         this.toAddr = toAddr;
     }
@@ -23,6 +29,13 @@ public class RtpInfo {
         return mediaType;
     }
 
+    /**
+     * @return SDP 에 협상된 코덱 이름 (ex. H264, VP8, opus), 알 수 없으면 null
+     */
+    public String getEncodingName() {
+        return encodingName;
+    }
+
     public InetSocketAddress getFromAddr() {
         return fromAddr;
     }
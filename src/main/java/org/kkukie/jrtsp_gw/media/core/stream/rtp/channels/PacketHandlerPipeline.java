@@ -118,6 +118,23 @@ public class PacketHandlerPipeline {
         return null;
     }
 
+    /**
+     * Gets the protocol handler capable of processing the packet.
+     *
+     * @param packet     The buffer holding the packet, it may be longer than the packet
+     * @param dataLength The length of the packet
+     * @return The protocol handler capable of processing the packet.<br>
+     *         Returns null in case no capable handler exists.
+     */
+    public PacketHandler getCapableHandler(byte[] packet, int dataLength) {
+        for (PacketHandler protocolHandler : this.handlers) {
+            if (protocolHandler.canHandle(packet, dataLength, 0)) {
+                return protocolHandler;
+            }
+        }
+        return null;
+    }
+
     public PacketHandler getHandler(String className) {
         for (PacketHandler handler : this.handlers) {
             if (handler.getClass().getName().equals(className)) {
@@ -21,6 +21,8 @@
 
 package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
 
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.ClientCertificateType;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.SignatureAlgorithm;
 
@@ -47,6 +49,17 @@ public enum AlgorithmCertificate {
         this.clientCertificate = clientCertificate;
     }
 
+    /**
+     * @param privateKey the private key of the local certificate
+     * @return {@link #ECDSA} for an EC key, {@link #RSA} otherwise
+     */
+    public static AlgorithmCertificate of (AsymmetricKeyParameter privateKey) {
+        if (privateKey instanceof ECPrivateKeyParameters) {
+            return ECDSA;
+        }
+        return RSA;
+    }
+
     public short getSignatureAlgorithm () {
         return signatureAlgorithm;
     }
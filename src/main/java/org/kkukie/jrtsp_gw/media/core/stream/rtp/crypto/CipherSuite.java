@@ -297,6 +297,25 @@ public enum CipherSuite {
     TLS_DHE_RSA_WITH_SALSA20_SHA1(0xE41F),
     TLS_FALLBACK_SCSV(0x5600);
 
+    /**
+     * Suites for an ECDSA (P-256) certificate, AEAD first.
+     * An ECDSA signature is much cheaper than an RSA-2048 one, so these are preferred whenever the certificate allows it.
+     */
+    private static final CipherSuite[] ECDSA_CIPHER_SUITES = {
+            TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256, TLS_ECDHE_ECDSA_WITH_AES_256_GCM_SHA384,
+            TLS_ECDHE_ECDSA_WITH_AES_128_CBC_SHA256, TLS_ECDHE_ECDSA_WITH_AES_256_CBC_SHA384,
+            TLS_ECDHE_ECDSA_WITH_AES_128_CBC_SHA, TLS_ECDHE_ECDSA_WITH_AES_256_CBC_SHA};
+
+    /**
+     * Suites for an RSA certificate.
+     */
+    private static final CipherSuite[] RSA_CIPHER_SUITES = {
+            TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384, TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256, TLS_ECDHE_RSA_WITH_AES_256_CBC_SHA384,
+            TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256, TLS_ECDHE_RSA_WITH_AES_256_CBC_SHA, TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA, TLS_DHE_RSA_WITH_AES_256_GCM_SHA384,
+            TLS_DHE_RSA_WITH_AES_128_GCM_SHA256, TLS_DHE_RSA_WITH_AES_256_CBC_SHA256, TLS_DHE_RSA_WITH_AES_128_CBC_SHA256,
+            TLS_DHE_RSA_WITH_AES_256_CBC_SHA, TLS_DHE_RSA_WITH_AES_128_CBC_SHA, TLS_RSA_WITH_AES_256_GCM_SHA384, TLS_RSA_WITH_AES_128_GCM_SHA256,
+            TLS_RSA_WITH_AES_256_CBC_SHA256, TLS_RSA_WITH_AES_128_CBC_SHA256, TLS_RSA_WITH_AES_256_CBC_SHA, TLS_RSA_WITH_AES_128_CBC_SHA};
+
     private final int value;
 
     CipherSuite (int value) {
@@ -318,6 +337,31 @@ public enum CipherSuite {
         return null;
     }
 
+    /**
+     * The server can only select suites that match its own certificate.
+     *
+     * @param algorithmCertificate the algorithm of the local certificate
+     * @return the suites to select from, in order of preference
+     */
+    public static CipherSuite[] getServerCipherSuites (AlgorithmCertificate algorithmCertificate) {
+        if (algorithmCertificate == AlgorithmCertificate.ECDSA) {
+            return ECDSA_CIPHER_SUITES.clone();
+        }
+        return RSA_CIPHER_SUITES.clone();
+    }
+
+    /**
+     * The client offers both, the selected suite depends on the certificate of the server.
+     *
+     * @return the suites to offer, ECDHE-ECDSA first
+     */
+    public static CipherSuite[] getClientCipherSuites () {
+        CipherSuite[] cipherSuites = new CipherSuite[ECDSA_CIPHER_SUITES.length + RSA_CIPHER_SUITES.length];
+        System.arraycopy(ECDSA_CIPHER_SUITES, 0, cipherSuites, 0, ECDSA_CIPHER_SUITES.length);
+        System.arraycopy(RSA_CIPHER_SUITES, 0, cipherSuites, ECDSA_CIPHER_SUITES.length, RSA_CIPHER_SUITES.length);
+        return cipherSuites;
+    }
+
     public int getValue () {
         return value;
     }
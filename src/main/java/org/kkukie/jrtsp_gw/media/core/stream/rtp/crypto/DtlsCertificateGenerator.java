@@ -0,0 +1,139 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.ASN1EncodableVector;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.ASN1Encoding;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.ASN1Integer;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.DERBitString;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.DERNull;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.DERSequence;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x500.X500Name;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Certificate;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.TBSCertificate;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Time;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.V3TBSCertificateGenerator;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x9.X9ObjectIdentifiers;
+import org.kkukie.jrtsp_gw.media.bouncycastle.util.io.pem.PemObject;
+import org.kkukie.jrtsp_gw.media.bouncycastle.util.io.pem.PemWriter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTLS 용 자체 서명(self-signed) 인증서와 개인키를 만들어서 PEM 파일로 저장한다.
+ *  - ECDSA : P-256 (secp256r1) + SHA256withECDSA (WebRTC 브라우저와 같은 형식, 핸드셰이크 서명 비용이 RSA-2048 보다 훨씬 작다.)
+ *  - RSA : 2048 bit + SHA256withRSA
+ * 키 생성과 서명은 JCE 를 사용하고, 인증서 구조(ASN.1)는 내장 BouncyCastle 로 만든다.
+ * 개인키는 PKCS#8 ("PRIVATE KEY") 로 저장하며, TlsUtils.readPrivateKeyResource 로 읽을 수 있다.
+ */
+@Slf4j
+public class DtlsCertificateGenerator {
+
+    private static final String COMMON_NAME = "CN=jrtsp_gw";
+    private static final long VALID_DAYS = 365;
+
+    private DtlsCertificateGenerator() {
+        // nothing
+    }
+
+    /**
+     * @param algorithmCertificate ECDSA 또는 RSA
+     */
+    public static void generate(String certPath, String keyPath, AlgorithmCertificate algorithmCertificate)
+            throws IOException, GeneralSecurityException {
+        SecureRandom secureRandom = new SecureRandom();
+
+        KeyPair keyPair;
+        AlgorithmIdentifier signatureAlgorithm;
+        String jceSignatureAlgorithm;
+        if (algorithmCertificate == AlgorithmCertificate.ECDSA) {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+            keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"), secureRandom);
+            keyPair = keyPairGenerator.generateKeyPair();
+            signatureAlgorithm = new AlgorithmIdentifier(X9ObjectIdentifiers.ecdsa_with_SHA256);
+            jceSignatureAlgorithm = "SHA256withECDSA";
+        } else if (algorithmCertificate == AlgorithmCertificate.RSA) {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(2048, secureRandom);
+            keyPair = keyPairGenerator.generateKeyPair();
+            signatureAlgorithm = new AlgorithmIdentifier(PKCSObjectIdentifiers.sha256WithRSAEncryption, DERNull.INSTANCE);
+            jceSignatureAlgorithm = "SHA256withRSA";
+        } else {
+            throw new IllegalArgumentException("Unsupported certificate algorithm. (" + algorithmCertificate + ")");
+        }
+
+        // TBSCertificate
+        long now = System.currentTimeMillis();
+        X500Name name = new X500Name(COMMON_NAME);
+        V3TBSCertificateGenerator tbsCertificateGenerator = new V3TBSCertificateGenerator();
+        tbsCertificateGenerator.setSerialNumber(new ASN1Integer(new BigInteger(63, secureRandom).add(BigInteger.ONE)));
+        tbsCertificateGenerator.setSignature(signatureAlgorithm);
+        tbsCertificateGenerator.setIssuer(name);
+        tbsCertificateGenerator.setSubject(name);
+        // 시계가 조금 틀린 상대도 받아들일 수 있도록 하루 전부터 유효하게 한다.
+        tbsCertificateGenerator.setStartDate(new Time(new Date(now - TimeUnit.DAYS.toMillis(1))));
+        tbsCertificateGenerator.setEndDate(new Time(new Date(now + TimeUnit.DAYS.toMillis(VALID_DAYS))));
+        tbsCertificateGenerator.setSubjectPublicKeyInfo(SubjectPublicKeyInfo.getInstance(keyPair.getPublic().getEncoded()));
+        TBSCertificate tbsCertificate = tbsCertificateGenerator.generateTBSCertificate();
+
+        // Sign
+        Signature signature = Signature.getInstance(jceSignatureAlgorithm);
+        signature.initSign(keyPair.getPrivate(), secureRandom);
+        signature.update(tbsCertificate.getEncoded(ASN1Encoding.DER));
+
+        ASN1EncodableVector certificateVector = new ASN1EncodableVector();
+        certificateVector.add(tbsCertificate);
+        certificateVector.add(signatureAlgorithm);
+        certificateVector.add(new DERBitString(signature.sign()));
+        Certificate certificate = Certificate.getInstance(new DERSequence(certificateVector));
+
+        writePem(Paths.get(keyPath), new PemObject("PRIVATE KEY", keyPair.getPrivate().getEncoded()), true);
+        writePem(Paths.get(certPath), new PemObject("CERTIFICATE", certificate.getEncoded(ASN1Encoding.DER)), false);
+        log.debug("|DtlsCertificateGenerator| {} certificate is generated. (certPath={}, keyPath={})", algorithmCertificate, certPath, keyPath);
+    }
+
+    private static void writePem(Path path, PemObject pemObject, boolean isSecret) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        // 다른 스레드(DtlsCertificateStore reload)가 쓰는 도중의 파일을 읽지 않도록 임시 파일에 쓰고 옮긴다.
+        Path tmpPath = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            if (isSecret) {
+                try {
+                    Files.setPosixFilePermissions(tmpPath, PosixFilePermissions.fromString("rw-------"));
+                } catch (UnsupportedOperationException e) {
+                    // Not a POSIX file system
+                }
+            }
+
+            try (PemWriter pemWriter = new PemWriter(new OutputStreamWriter(Files.newOutputStream(tmpPath), StandardCharsets.US_ASCII))) {
+                pemWriter.writeObject(pemObject);
+            }
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+}
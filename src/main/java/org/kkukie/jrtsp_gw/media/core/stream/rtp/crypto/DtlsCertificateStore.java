@@ -0,0 +1,201 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Certificate;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.RSAKeyParameters;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.util.PublicKeyFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 1) 게이트웨이 전역에서 공유하는 DTLS 인증서/개인키 저장소
+ *      - PEM 파일은 (인증서, 개인키) 쌍별로 한 번만 읽고 파싱해서 보관한다. (핸드셰이크마다 파일을 다시 읽지 않는다.)
+ *      - 인증서의 fingerprint 는 해시 함수별로 한 번만 계산한다.
+ *      - 인증서의 공개키와 개인키가 맞지 않는 쌍은 사용하지 않는다.
+ * 2) reloadIfModified() 가 호출되면 수정 시간이 바뀐 쌍만 다시 읽는다. (Hot reload)
+ *      - 인증서, 개인키, fingerprint 는 한 Credential 로 묶어서 한 번에 바꾼다. (서로 다른 세대가 섞이지 않는다.)
+ *      - 다시 읽기에 실패하거나 쌍이 맞지 않으면 기존 값을 계속 사용한다.
+ *      - 진행 중인 핸드셰이크는 시작할 때 가져간 Credential 을 그대로 사용한다.
+ */
+@Slf4j
+public class DtlsCertificateStore {
+
+    private static final DtlsCertificateStore dtlsCertificateStore = new DtlsCertificateStore();
+
+    private final Map<String, Credential> credentials = new ConcurrentHashMap<>();
+
+    private final AtomicLong loadCount = new AtomicLong(0);
+    private final AtomicLong reloadCount = new AtomicLong(0);
+
+    private DtlsCertificateStore() {
+        // nothing
+    }
+
+    public static DtlsCertificateStore getInstance() {
+        return dtlsCertificateStore;
+    }
+
+    /**
+     * @return 인증서와 개인키 쌍 (한 번 가져간 값은 reload 에도 바뀌지 않는다.)
+     */
+    public Credential getCredential(String certPath, String keyPath) throws IOException {
+        String credentialKey = getCredentialKey(certPath, keyPath);
+        Credential credential = credentials.get(credentialKey);
+        if (credential == null) {
+            credential = loadCredential(certPath, keyPath);
+            Credential prevCredential = credentials.putIfAbsent(credentialKey, credential);
+            if (prevCredential != null) {
+                credential = prevCredential;
+            }
+        }
+        return credential;
+    }
+
+    /**
+     * @return 개인키가 EC 키이면 ECDSA, 그 외(또는 읽을 수 없으면) RSA
+     */
+    public AlgorithmCertificate getAlgorithmCertificate(String certPath, String keyPath) {
+        try {
+            return AlgorithmCertificate.of(getCredential(certPath, keyPath).getPrivateKey());
+        } catch (Exception e) {
+            // 핸드셰이크에서 같은 이유로 실패한다.
+            return AlgorithmCertificate.RSA;
+        }
+    }
+
+    /**
+     * 수정 시간이 바뀐 인증서/개인키 쌍을 다시 읽는다.
+     *
+     * @return 다시 읽은 쌍의 수
+     */
+    public int reloadIfModified() {
+        int curReloadCount = 0;
+        for (Map.Entry<String, Credential> entry : credentials.entrySet()) {
+            Credential credential = entry.getValue();
+            try {
+                if (getLastModifiedTime(credential.certPath) == credential.certModifiedTime
+                        && getLastModifiedTime(credential.keyPath) == credential.keyModifiedTime) {
+                    continue;
+                }
+                credentials.put(entry.getKey(), loadCredential(credential.certPath, credential.keyPath));
+                curReloadCount++;
+                log.info("|DtlsCertificateStore| Certificate is reloaded. (certPath={}, keyPath={})", credential.certPath, credential.keyPath);
+            } catch (Exception e) {
+                log.warn("|DtlsCertificateStore| Fail to reload the certificate. Keep using the previous one. (certPath={}, keyPath={})",
+                        credential.certPath, credential.keyPath, e
+                );
+            }
+        }
+
+        reloadCount.addAndGet(curReloadCount);
+        return curReloadCount;
+    }
+
+    public void clear() {
+        credentials.clear();
+    }
+
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    private Credential loadCredential(String certPath, String keyPath) throws IOException {
+        // 파일을 읽기 전의 수정 시간을 기록해서, 읽는 도중에 바뀌면 다음 reload 에서 다시 읽도록 한다.
+        long certModifiedTime = getLastModifiedTime(certPath);
+        long keyModifiedTime = getLastModifiedTime(keyPath);
+        Certificate certificate = TlsUtils.readCertificateResource(certPath);
+        AsymmetricKeyParameter privateKey = TlsUtils.readPrivateKeyResource(keyPath);
+        if (!isKeyPair(certificate, privateKey)) {
+            throw new IOException("The private key does not match the certificate. (certPath=" + certPath + ", keyPath=" + keyPath + ")");
+        }
+        loadCount.incrementAndGet();
+        return new Credential(certPath, keyPath, certificate, privateKey, certModifiedTime, keyModifiedTime);
+    }
+
+    /**
+     * @return 인증서의 공개키가 개인키와 짝이면 true
+     */
+    static boolean isKeyPair(Certificate certificate, AsymmetricKeyParameter privateKey) throws IOException {
+        AsymmetricKeyParameter publicKey = PublicKeyFactory.createKey(certificate.getSubjectPublicKeyInfo());
+        if (privateKey instanceof ECPrivateKeyParameters && publicKey instanceof ECPublicKeyParameters) {
+            ECPrivateKeyParameters ecPrivateKey = (ECPrivateKeyParameters) privateKey;
+            return ecPrivateKey.getParameters().getG().multiply(ecPrivateKey.getD())
+                    .equals(((ECPublicKeyParameters) publicKey).getQ());
+        }
+        if (privateKey instanceof RSAPrivateCrtKeyParameters && publicKey instanceof RSAKeyParameters) {
+            RSAPrivateCrtKeyParameters rsaPrivateKey = (RSAPrivateCrtKeyParameters) privateKey;
+            RSAKeyParameters rsaPublicKey = (RSAKeyParameters) publicKey;
+            return rsaPrivateKey.getModulus().equals(rsaPublicKey.getModulus())
+                    && rsaPrivateKey.getPublicExponent().equals(rsaPublicKey.getExponent());
+        }
+        return false;
+    }
+
+    private static String getCredentialKey(String certPath, String keyPath) {
+        return certPath + "|" + keyPath;
+    }
+
+    private static long getLastModifiedTime(String path) throws IOException {
+        return Files.getLastModifiedTime(Paths.get(path)).toMillis();
+    }
+
+    /**
+     * 한 번에 읽은 인증서, 개인키와 인증서의 fingerprint
+     */
+    public static class Credential {
+
+        private final String certPath;
+        private final String keyPath;
+        private final Certificate certificate;
+        private final AsymmetricKeyParameter privateKey;
+        private final long certModifiedTime;
+        private final long keyModifiedTime;
+        private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+        private Credential(String certPath, String keyPath, Certificate certificate, AsymmetricKeyParameter privateKey,
+                           long certModifiedTime, long keyModifiedTime) {
+            this.certPath = certPath;
+            this.keyPath = keyPath;
+            this.certificate = certificate;
+            this.privateKey = privateKey;
+            this.certModifiedTime = certModifiedTime;
+            this.keyModifiedTime = keyModifiedTime;
+        }
+
+        public Certificate getCertificate() {
+            return certificate;
+        }
+
+        public AsymmetricKeyParameter getPrivateKey() {
+            return privateKey;
+        }
+
+        /**
+         * @param hashFunction sha-1, sha-256, sha-512 (그 외는 sha-256)
+         * @return "sha-256 AB:CD:..." 형식의 fingerprint
+         */
+        public String getFingerprint(String hashFunction) throws IOException {
+            String fingerprint = fingerprints.get(hashFunction);
+            if (fingerprint == null) {
+                fingerprint = TlsUtils.fingerprint(hashFunction, certificate);
+                fingerprints.put(hashFunction, fingerprint);
+            }
+            return fingerprint;
+        }
+
+    }
+
+}
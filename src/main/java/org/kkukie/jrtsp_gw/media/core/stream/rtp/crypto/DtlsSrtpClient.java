@@ -26,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.Vector;
 
@@ -53,6 +54,8 @@ public class DtlsSrtpClient extends DefaultTlsClient {
     private SRTPPolicy srtcpPolicy;
 
     private UseSRTPData clientSrtpData;
+    // protection profile selected by the server
+    private int selectedProfile = SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80;
 
     private TlsSession session = null;
 
@@ -93,7 +96,8 @@ public class DtlsSrtpClient extends DefaultTlsClient {
         if (clientExtensions == null) {
             clientExtensions = new Hashtable<>();
         }
-        int[] protectionProfiles = {SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80}; //this is the only one supported for now
+        // offer AEAD (GCM) profiles first, the server chooses one of them
+        int[] protectionProfiles = SRTPParameters.getPreferredProtectionProfiles();
         byte[] mki = new byte[]{};  //do not use mki
         clientSrtpData = new UseSRTPData(protectionProfiles, mki);
         TlsSRTPUtils.addUseSRTPExtension(clientExtensions, clientSrtpData);
@@ -118,6 +122,20 @@ public class DtlsSrtpClient extends DefaultTlsClient {
     @Override
     public void processServerExtensions (Hashtable newServerExtensions) throws IOException {
         super.processServerExtensions(newServerExtensions);
+
+        UseSRTPData serverSrtpData = TlsSRTPUtils.getUseSRTPExtension(newServerExtensions);
+        if (serverSrtpData == null || serverSrtpData.getProtectionProfiles().length != 1) {
+            logger.warn("DTLS: Fail to get server srtp data. (from {})", newServerExtensions);
+            return;
+        }
+
+        int selectedProfile = serverSrtpData.getProtectionProfiles()[0];
+        if (Arrays.stream(clientSrtpData.getProtectionProfiles()).noneMatch(profile -> profile == selectedProfile)) {
+            // the server must select one of the offered profiles (RFC 5764 section 4.1.1)
+            throw new TlsFatalAlert(AlertDescription.illegal_parameter);
+        }
+        this.selectedProfile = selectedProfile;
+        logger.debug("DTLS: SRTP protection profile is selected by the server. (profile={})", selectedProfile);
     }
 
 
@@ -130,10 +148,7 @@ public class DtlsSrtpClient extends DefaultTlsClient {
     public String generateFingerprint (String hashFunction) {
         try {
             this.hashFunction = hashFunction;
-            TlsCertificate dtlsCertChain = TlsUtils.loadCertificateChain(certificateResources);
-
-            org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Certificate certificate = dtlsCertChain.getCertificateAt(0);
-            return TlsUtils.fingerprint(this.hashFunction, certificate);
+            return DtlsCertificateStore.getInstance().getCredential(certificateResources[0], keyResource).getFingerprint(this.hashFunction);
         } catch (IOException e) {
             logger.error("Could not get local fingerprint: {}", e.getMessage());
             return "";
@@ -146,7 +161,7 @@ public class DtlsSrtpClient extends DefaultTlsClient {
      */
     public void prepareSrtpSharedSecret () {
         logger.debug("DtlsSrtpClient: Preparing SRTP Shared Secret...");
-        SRTPParameters srtpParams = SRTPParameters.getSrtpParametersForProfile(clientSrtpData.getProtectionProfiles()[0]);
+        SRTPParameters srtpParams = SRTPParameters.getSrtpParametersForProfile(selectedProfile);
         final int keyLen = srtpParams.getCipherKeyLength();
         final int saltLen = srtpParams.getCipherSaltLength();
 
@@ -257,8 +272,9 @@ public class DtlsSrtpClient extends DefaultTlsClient {
                 short[] certificateTypes = certificateRequest.getCertificateTypes();
                 if (certificateTypes == null) return null;
 
+                // Sign with the local certificate (RSA or ECDSA)
                 for (short certificateType : certificateTypes) {
-                    if (certificateType == ClientCertificateType.rsa_sign) {
+                    if (certificateType == algorithmCertificate.getClientCertificate()) {
                         ok = true;
                         break;
                     }
@@ -270,7 +286,7 @@ public class DtlsSrtpClient extends DefaultTlsClient {
                 if (sigAlgs != null) {
                     for (int i = 0; i < sigAlgs.size(); ++i) {
                         SignatureAndHashAlgorithm sigAlg = (SignatureAndHashAlgorithm) sigAlgs.elementAt(i);
-                        if (sigAlg.getSignature() == SignatureAlgorithm.rsa) {
+                        if (sigAlg.getSignature() == algorithmCertificate.getSignatureAlgorithm()) {
                             signatureAndHashAlgorithm = sigAlg;
                             break;
                         }
@@ -280,9 +296,9 @@ public class DtlsSrtpClient extends DefaultTlsClient {
                         return null;
                     }
                 }
-                AsymmetricKeyParameter dtlsPrivateKey = TlsUtils.loadPrivateKeyResource(keyResource);
-                TlsCertificate dtlsCertChain = TlsUtils.loadCertificateChain(certificateResources);
-                return new DefaultTlsSignerCredentials(context, dtlsCertChain, dtlsPrivateKey, signatureAndHashAlgorithm);
+                DtlsCertificateStore.Credential credential = TlsUtils.loadCredential(certificateResources, keyResource);
+                TlsCertificate dtlsCertChain = TlsUtils.loadCertificateChain(credential);
+                return new DefaultTlsSignerCredentials(context, dtlsCertChain, credential.getPrivateKey(), signatureAndHashAlgorithm);
             }
         };
     }
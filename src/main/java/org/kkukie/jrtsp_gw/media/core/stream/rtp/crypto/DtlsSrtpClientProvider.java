@@ -23,21 +23,11 @@ package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
 
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.ProtocolVersion;
 
-import static org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.CipherSuite.*;
-
 /**
  * @author guilherme.jansen@telestax.com
  */
 public class DtlsSrtpClientProvider {
 
-    private static final int[] defaultCipherSuites = {
-            TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384, TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256, TLS_ECDHE_RSA_WITH_AES_256_CBC_SHA384,
-            TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256, TLS_ECDHE_RSA_WITH_AES_256_CBC_SHA, TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA, TLS_DHE_RSA_WITH_AES_256_GCM_SHA384,
-            TLS_DHE_RSA_WITH_AES_128_GCM_SHA256, TLS_DHE_RSA_WITH_AES_256_CBC_SHA256, TLS_DHE_RSA_WITH_AES_128_CBC_SHA256,
-            TLS_DHE_RSA_WITH_AES_256_CBC_SHA, TLS_DHE_RSA_WITH_AES_128_CBC_SHA, TLS_RSA_WITH_AES_256_GCM_SHA384, TLS_RSA_WITH_AES_128_GCM_SHA256,
-            TLS_RSA_WITH_AES_256_CBC_SHA256, TLS_RSA_WITH_AES_128_CBC_SHA256, TLS_RSA_WITH_AES_256_CBC_SHA, TLS_RSA_WITH_AES_128_CBC_SHA,
-            TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256};
-
     private final ProtocolVersion minVersion;
     private final ProtocolVersion maxVersion;
     private final CipherSuite[] cipherSuites;
@@ -48,13 +38,10 @@ public class DtlsSrtpClientProvider {
     public DtlsSrtpClientProvider (String certificatePath, String keyPath) {
         this.minVersion = ProtocolVersion.DTLSv10;
         this.maxVersion = ProtocolVersion.DTLSv12;
-        this.cipherSuites = new CipherSuite[defaultCipherSuites.length];
-        for (int idx = 0; idx < defaultCipherSuites.length; idx++) {
-            cipherSuites[idx] = CipherSuite.getEnum(defaultCipherSuites[idx]);
-        }
         this.certificatePaths = new String[]{certificatePath};
         this.keyPath = keyPath;
-        this.algorithmCertificate = AlgorithmCertificate.RSA;
+        this.algorithmCertificate = DtlsCertificateStore.getInstance().getAlgorithmCertificate(certificatePath, keyPath);
+        this.cipherSuites = CipherSuite.getClientCipherSuites();
     }
 
     public DtlsSrtpClient provide () {
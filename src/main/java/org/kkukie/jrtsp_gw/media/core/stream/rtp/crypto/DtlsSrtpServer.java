@@ -139,7 +139,10 @@ public class DtlsSrtpServer extends DefaultTlsServer {
                 }
             }
         }
-        return new CertificateRequest(new short[]{algorithmCertificate.getClientCertificate()}, serverSigAlgs, null);
+        // Browsers use ECDSA certificates by default, so accept both regardless of the local certificate
+        short[] certificateTypes = new short[]{algorithmCertificate.getClientCertificate(),
+                algorithmCertificate == AlgorithmCertificate.ECDSA ? ClientCertificateType.rsa_sign : ClientCertificateType.ecdsa_sign};
+        return new CertificateRequest(certificateTypes, serverSigAlgs, null);
     }
 
     public void notifyClientCertificate (TlsCertificate clientTlsCertificate) throws IOException {
@@ -219,17 +222,12 @@ public class DtlsSrtpServer extends DefaultTlsServer {
         UseSRTPData clientSrtpData = TlsSRTPUtils.getUseSRTPExtension(newClientExtensions);
 
         if (clientSrtpData != null) {
-            for (int profile : clientSrtpData.getProtectionProfiles()) {
-                switch (profile) {
-                    case SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32:
-                    case SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80:
-                    case SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32:
-                    case SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_80:
-                        chosenProfile = profile;
-                        break;
-                    default:
-                }
+            // prefer AEAD (GCM) profiles when the client offers them
+            int preferredProfile = SRTPParameters.choosePreferredProfile(clientSrtpData.getProtectionProfiles());
+            if (preferredProfile >= 0) {
+                chosenProfile = preferredProfile;
             }
+            logger.debug("DTLS: SRTP protection profile is chosen. (profile={})", chosenProfile);
 
             // server chooses a mutually supported SRTP protection profile
             // http://tools.ietf.org/html/draft-ietf-avt-dtls-srtp-07#section-4.1.2
@@ -344,9 +342,7 @@ public class DtlsSrtpServer extends DefaultTlsServer {
     public String generateFingerprint (String hashFunction) {
         try {
             this.hashFunction = hashFunction;
-            TlsCertificate chain = TlsUtils.loadCertificateChain(certificateResources);
-            Certificate certificate = chain.getCertificateAt(0);
-            return TlsUtils.fingerprint(this.hashFunction, certificate);
+            return DtlsCertificateStore.getInstance().getCredential(certificateResources[0], keyResource).getFingerprint(this.hashFunction);
         } catch (IOException e) {
             logger.error("Could not get local fingerprint: {}", e.getMessage());
             return "";
@@ -0,0 +1,106 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.BlockCipher;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.CipherParameters;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.DataLengthException;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.KeyParameter;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * @class public class JceAesEngine
+ * @brief javax.crypto.Cipher 기반 AES 엔진
+ * 1) BlockCipher 로 사용할 때는 "AES/ECB/NoPadding" 으로 한 블록씩 암호화한다. (F8, 키 유도)
+ * 2) SRTP AES-CM 은 processCtr() 로 "AES/CTR/NoPadding" 을 사용해 페이로드 전체를 한 번에 처리한다.
+ *    (RFC 3711 의 카운터는 IV 하위 16 비트에서 0 부터 증가하므로, 64K 블록 이하에서는 JCE CTR 과 같다.)
+ * 인스턴스는 스레드 안전하지 않다. (SRTP 컨텍스트마다 하나씩 생성한다.)
+ */
+public class JceAesEngine implements BlockCipher {
+
+    private static final int BLOCK_SIZE = 16;
+
+    private final Cipher ecbCipher;
+    private final Cipher ctrCipher;
+
+    private SecretKeySpec keySpec = null;
+
+    public JceAesEngine() {
+        try {
+            ecbCipher = Cipher.getInstance("AES/ECB/NoPadding");
+            ctrCipher = Cipher.getInstance("AES/CTR/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES is not available in this JCE provider.", e);
+        }
+    }
+
+    @Override
+    public void init(boolean forEncryption, CipherParameters params) throws IllegalArgumentException {
+        if (!(params instanceof KeyParameter)) {
+            throw new IllegalArgumentException("Invalid parameter passed to JceAesEngine init - " + params);
+        }
+
+        // AES-CM, F8 모두 키 스트림 생성에 암호화 방향만 사용한다.
+        keySpec = new SecretKeySpec(((KeyParameter) params).getKey(), "AES");
+        try {
+            ecbCipher.init(forEncryption ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, keySpec);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Fail to init the AES key.", e);
+        }
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "AES";
+    }
+
+    @Override
+    public int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    public int processBlock(byte[] in, int inOff, byte[] out, int outOff) throws DataLengthException, IllegalStateException {
+        if (keySpec == null) {
+            throw new IllegalStateException("AES engine not initialised");
+        }
+        if (inOff + BLOCK_SIZE > in.length) {
+            throw new DataLengthException("input buffer too short");
+        }
+        if (outOff + BLOCK_SIZE > out.length) {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        try {
+            return ecbCipher.update(in, inOff, BLOCK_SIZE, out, outOff);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Fail to process the AES block.", e);
+        }
+    }
+
+    /**
+     * data[off, off + len) 를 AES-CTR 키 스트림과 XOR 한다. (암호화/복호화 동일)
+     *
+     * @param iv 초기 카운터 블록 (16 bytes)
+     */
+    public void processCtr(byte[] iv, byte[] data, int off, int len) {
+        if (keySpec == null) {
+            throw new IllegalStateException("AES engine not initialised");
+        }
+
+        try {
+            ctrCipher.init(Cipher.ENCRYPT_MODE, keySpec, new IvParameterSpec(iv, 0, BLOCK_SIZE));
+            ctrCipher.doFinal(data, off, len, data, off);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Fail to process the AES-CTR stream.", e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        // ECB/CTR 모두 호출 사이에 남는 상태가 없다.
+    }
+
+}
@@ -0,0 +1,130 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.CipherParameters;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.DataLengthException;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.Mac;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.KeyParameter;
+
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * @class public class JceHmacSha1
+ * @brief java.security.MessageDigest(SHA-1) 기반 HMAC-SHA1
+ * 1) init() 에서 (key ^ ipad), (key ^ opad) 블록을 한 번만 해시해서 내부/외부 digest 상태를 만들어 둔다.
+ * 2) 패킷마다 미리 만든 상태를 복제(clone)해서 사용하므로, pad 블록 두 개를 다시 해시하지 않는다.
+ *    (javax.crypto.Mac 의 HmacSHA1 은 doFinal 후 reset 할 때마다 ipad 블록을 다시 해시한다.)
+ * 3) HotSpot SHA-1 인트린식(SHA-NI)을 사용할 수 있다.
+ * 인스턴스는 스레드 안전하지 않다. (SRTP 컨텍스트마다 하나씩 생성한다.)
+ */
+public class JceHmacSha1 implements Mac {
+
+    private static final int BLOCK_LENGTH = 64;
+    private static final int DIGEST_SIZE = 20;
+    private static final byte IPAD = (byte) 0x36;
+    private static final byte OPAD = (byte) 0x5C;
+
+    private final byte[] innerHash = new byte[DIGEST_SIZE];
+
+    /** (key ^ ipad) 블록까지 처리한 상태 */
+    private MessageDigest ipadState = null;
+    /** (key ^ opad) 블록까지 처리한 상태 */
+    private MessageDigest opadState = null;
+    /** 현재 패킷을 처리 중인 내부 digest */
+    private MessageDigest inner = null;
+
+    @Override
+    public void init(CipherParameters params) throws IllegalArgumentException {
+        if (!(params instanceof KeyParameter)) {
+            throw new IllegalArgumentException("Invalid parameter passed to JceHmacSha1 init - " + params);
+        }
+
+        byte[] key = ((KeyParameter) params).getKey();
+        try {
+            if (key.length > BLOCK_LENGTH) {
+                key = MessageDigest.getInstance("SHA-1").digest(key);
+            }
+
+            byte[] pad = new byte[BLOCK_LENGTH];
+            System.arraycopy(key, 0, pad, 0, key.length);
+
+            for (int i = 0; i < BLOCK_LENGTH; i++) { pad[i] ^= IPAD; }
+            ipadState = MessageDigest.getInstance("SHA-1");
+            ipadState.update(pad);
+
+            for (int i = 0; i < BLOCK_LENGTH; i++) { pad[i] ^= (IPAD ^ OPAD); }
+            opadState = MessageDigest.getInstance("SHA-1");
+            opadState.update(pad);
+
+            inner = copy(ipadState);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("SHA-1 is not available in this JCE provider.", e);
+        }
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "SHA-1/HMAC";
+    }
+
+    @Override
+    public int getMacSize() {
+        return DIGEST_SIZE;
+    }
+
+    @Override
+    public void update(byte in) throws IllegalStateException {
+        checkInit();
+        inner.update(in);
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) throws DataLengthException, IllegalStateException {
+        checkInit();
+        inner.update(in, inOff, len);
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) throws DataLengthException, IllegalStateException {
+        checkInit();
+        if (outOff + DIGEST_SIZE > out.length) {
+            throw new DataLengthException("output buffer too short");
+        }
+
+        try {
+            inner.digest(innerHash, 0, DIGEST_SIZE);
+
+            MessageDigest outer = copy(opadState);
+            outer.update(innerHash, 0, DIGEST_SIZE);
+            outer.digest(out, outOff, DIGEST_SIZE);
+        } catch (DigestException e) {
+            throw new IllegalStateException("Fail to compute the HMAC-SHA1.", e);
+        }
+
+        inner = copy(ipadState);
+        return DIGEST_SIZE;
+    }
+
+    @Override
+    public void reset() {
+        if (ipadState != null) {
+            inner = copy(ipadState);
+        }
+    }
+
+    private void checkInit() {
+        if (inner == null) {
+            throw new IllegalStateException("HMAC-SHA1 not initialised");
+        }
+    }
+
+    private static MessageDigest copy(MessageDigest state) {
+        try {
+            return (MessageDigest) state.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-1 digest of this JCE provider is not cloneable.", e);
+        }
+    }
+
+}
@@ -6,6 +6,7 @@
  */
 package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
 
+import java.nio.ByteBuffer;
 
 /**
  * Encapsulate the concept of packet transformation. Given a packet,
@@ -57,6 +58,41 @@ public interface PacketTransformer {
      */
     byte[] reverseTransform (byte[] pkt, int offset, int length);
 
+    /**
+     * Reverse-transforms a specific packet in place (i.e. without copying
+     * the packet into a new array).
+     * <p>
+     * The packet must be stored in [0, limit) of the buffer. If the packet is
+     * restored, the buffer holds the restored packet and its limit is adjusted
+     * (the authentication tag is stripped). A heap buffer lets the cipher and
+     * the MAC work on the backing array directly.
+     *
+     * @param pkt the buffer holding the packet to be restored
+     * @return Whether the packet was successfully restored
+     */
+    boolean reverseTransform (ByteBuffer pkt);
+
+    /**
+     * Reverse-transforms a burst of packets in place.
+     * <p>
+     * Each buffer is handled as {@link #reverseTransform(ByteBuffer)} does.
+     *
+     * @param pkts     the buffers holding the packets to be restored
+     * @param count    the number of buffers in pkts to restore
+     * @param restored the result of each packet (true if the packet is restored)
+     * @return the number of restored packets
+     */
+    default int reverseTransform (ByteBuffer[] pkts, int count, boolean[] restored) {
+        int restoredCount = 0;
+        for (int i = 0; i < count; i++) {
+            restored[i] = reverseTransform(pkts[i]);
+            if (restored[i]) {
+                restoredCount++;
+            }
+        }
+        return restoredCount;
+    }
+
     /**
      * Close the transformer and underlying transform engine.
      * <p>
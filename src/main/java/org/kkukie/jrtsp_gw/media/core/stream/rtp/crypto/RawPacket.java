@@ -69,6 +69,28 @@ public class RawPacket {
         wrap(data, offset, length);
     }
 
+    /**
+     * Initializes a new <tt>RawPacket</tt> instance which uses the given
+     * buffer as its content without copying.
+     *
+     * @param buffer the buffer holding the packet data in [0, limit)
+     */
+    public RawPacket (ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Use the given buffer as the content of this packet without copying.
+     * The packet data must be stored in [0, limit) of the buffer. Changes
+     * made to this packet (decryption, shrinking) are applied directly to
+     * the given buffer.
+     *
+     * @param buffer the buffer holding the packet data
+     */
+    public void wrap (ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
     public void wrap (byte[] data, int offset, int length) {
         this.buffer.clear();
         this.buffer.rewind();
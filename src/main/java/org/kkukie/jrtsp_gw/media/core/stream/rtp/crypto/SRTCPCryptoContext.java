@@ -8,10 +8,7 @@ package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
 
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.BlockCipher;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.Mac;
-import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.digests.SHA1Digest;
-import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.engines.AESFastEngine;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.engines.TwofishEngine;
-import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.macs.HMac;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.KeyParameter;
 import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpPacket;
 
@@ -47,9 +44,9 @@ import java.util.Arrays;
 public class SRTCPCryptoContext {
 
     /**
-     * The replay check windows size
+     * The master salt length used by the AES-CM key derivation function
      */
-    private static final long REPLAY_WINDOW_SIZE = 64;
+    private static final int KDF_SALT_LENGTH = 14;
     /**
      * Encryption / Authentication policy for this session
      */
@@ -71,18 +68,14 @@ public class SRTCPCryptoContext {
      * Master key identifier
      */
     private final byte[] mki;
-    /**
-     * Index received so far
-     */
-    private int receivedIndex = 0;
     /**
      * Index sent so far
      */
     private int sentIndex = 0;
     /**
-     * Bit mask for replay check
+     * Replay check window of the last 128 packet indices
      */
-    private long replayWindow;
+    private final SRTPReplayWindow replayWindow = new SRTPReplayWindow();
     /**
      * Master encryption key
      */
@@ -113,6 +106,7 @@ public class SRTCPCryptoContext {
     // The symmetric cipher engines we need here
     private BlockCipher cipher = null;
     private BlockCipher cipherF8 = null; // used inside F8 mode only
+    private SRTPCipherGCM cipherGcm = null; // used inside GCM (AEAD) mode only
 
     /**
      * Construct an empty SRTPCryptoContext using ssrc.
@@ -153,7 +147,8 @@ public class SRTCPCryptoContext {
         this.policy = policy;
         masterKey = new byte[policy.getEncKeyLength()];
         System.arraycopy(masterK, 0, masterKey, 0, masterK.length);
-        masterSalt = new byte[policy.getSaltKeyLength()];
+        // The 96 bit AEAD master salt is padded with zeros to 112 bits for the key derivation (RFC 7714 section 12)
+        masterSalt = new byte[Math.max(policy.getSaltKeyLength(), KDF_SALT_LENGTH)];
         System.arraycopy(masterS, 0, masterSalt, 0, masterS.length);
 
         switch (policy.getEncType()) {
@@ -163,10 +158,10 @@ public class SRTCPCryptoContext {
                 break;
 
             case SRTPPolicy.AESF8_ENCRYPTION:
-                cipherF8 = new AESFastEngine();
+                cipherF8 = SRTPCipherFactory.createAesEngine();
 
             case SRTPPolicy.AESCM_ENCRYPTION:
-                cipher = new AESFastEngine();
+                cipher = SRTPCipherFactory.createAesEngine();
                 encKey = new byte[this.policy.getEncKeyLength()];
                 saltKey = new byte[this.policy.getSaltKeyLength()];
                 break;
@@ -180,6 +175,14 @@ public class SRTCPCryptoContext {
                 saltKey = new byte[this.policy.getSaltKeyLength()];
                 break;
 
+            case SRTPPolicy.AESGCM_ENCRYPTION:
+                // AES-CM is still used as the key derivation PRF
+                cipher = SRTPCipherFactory.createAesEngine();
+                cipherGcm = new SRTPCipherGCM();
+                encKey = new byte[this.policy.getEncKeyLength()];
+                saltKey = new byte[this.policy.getSaltKeyLength()];
+                break;
+
             default:
                 throw new IllegalStateException("Unexpected value: " + policy.getEncType());
         }
@@ -191,7 +194,7 @@ public class SRTCPCryptoContext {
                 break;
 
             case SRTPPolicy.HMACSHA1_AUTHENTICATION:
-                mac = new HMac(new SHA1Digest());
+                mac = SRTPCipherFactory.createHmacSha1();
                 authKey = new byte[policy.getAuthKeyLength()];
                 tagStore = new byte[mac.getMacSize()];
                 break;
@@ -269,6 +272,13 @@ public class SRTCPCryptoContext {
      * @param pkt the RTP packet that is going to be sent out
      */
     public void transformPacket (RawPacket pkt) {
+        if (policy.getEncType() == SRTPPolicy.AESGCM_ENCRYPTION) {
+            processPacketAESGCM(pkt, sentIndex);
+            sentIndex++;
+            sentIndex &= ~0x80000000;       // clear possible overflow
+            return;
+        }
+
         boolean encrypt = false;
         // Encrypt the packet using Counter Mode encryption
         if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
@@ -321,6 +331,10 @@ public class SRTCPCryptoContext {
      * false if authentication or replay check failed
      */
     public boolean reverseTransformPacket (RawPacket pkt) {
+        if (policy.getEncType() == SRTPPolicy.AESGCM_ENCRYPTION) {
+            return reverseTransformPacketAESGCM(pkt);
+        }
+
         boolean decrypt = false;
         int tagLength = policy.getAuthTagLength();
         int indexEflag = pkt.getSRTCPIndex(tagLength);
@@ -414,6 +428,101 @@ public class SRTCPCryptoContext {
         cipherCtr.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
     }
 
+    /**
+     * Perform GCM AES (AEAD) encryption, see RFC 7714 section 9.
+     * <p>
+     * The fixed header (8 bytes) and the E flag + SRTCP index are the
+     * associated data. The packet is always encrypted (E flag is set), the
+     * 16 byte authentication tag follows the cipher text and the E flag +
+     * SRTCP index follows the tag.
+     *
+     * @param pkt   the RTCP packet to be encrypted
+     * @param index SRTCP index of the packet
+     */
+    private void processPacketAESGCM (RawPacket pkt, int index) {
+        int indexEflag = index | 0x80000000;
+        rbStore[0] = (byte) (indexEflag >> 24);
+        rbStore[1] = (byte) (indexEflag >> 16);
+        rbStore[2] = (byte) (indexEflag >> 8);
+        rbStore[3] = (byte) indexEflag;
+
+        computeGcmIv(pkt.getRtcpSsrc(), index);
+
+        final int payloadOffset = 8;
+        final int payloadLength = pkt.getLength() - payloadOffset;
+        pkt.grow(SRTPCipherGCM.TAG_LENGTH);
+        cipherGcm.encrypt(ivStore, pkt.getBuffer(), payloadOffset, payloadLength, rbStore);
+        pkt.append(rbStore, 4);
+    }
+
+    /**
+     * Verify and decrypt a GCM AES (AEAD) SRTCP packet, see RFC 7714 section 9.
+     * <p>
+     * If the E flag is not set, the whole RTCP packet is the associated data
+     * and only the authentication tag is verified (RFC 7714 section 9.3).
+     *
+     * @param pkt the received SRTCP packet
+     * @return true if the packet can be accepted
+     * false if authentication or replay check failed
+     */
+    private boolean reverseTransformPacketAESGCM (RawPacket pkt) {
+        if (pkt.getLength() < 8 + SRTPCipherGCM.TAG_LENGTH + 4) {
+            return false;
+        }
+
+        int indexEflag = pkt.readInt(pkt.getLength() - 4);
+        int index = indexEflag & ~0x80000000;
+
+        /* Replay control */
+        if (!checkReplay(index)) {
+            return false;
+        }
+
+        rbStore[0] = (byte) (indexEflag >> 24);
+        rbStore[1] = (byte) (indexEflag >> 16);
+        rbStore[2] = (byte) (indexEflag >> 8);
+        rbStore[3] = (byte) indexEflag;
+        pkt.shrink(4);
+
+        computeGcmIv(pkt.getRtcpSsrc(), index);
+
+        final int payloadOffset;
+        if ((indexEflag & 0x80000000) == 0x80000000) {
+            payloadOffset = 8;
+        } else {
+            payloadOffset = pkt.getLength() - SRTPCipherGCM.TAG_LENGTH;
+        }
+        final int payloadLength = pkt.getLength() - payloadOffset;
+
+        if (cipherGcm.decrypt(ivStore, pkt.getBuffer(), payloadOffset, payloadLength, rbStore) < 0) {
+            return false;
+        }
+        pkt.shrink(SRTPCipherGCM.TAG_LENGTH);
+
+        update(index);
+        return true;
+    }
+
+    /**
+     * Compute the GCM IV (refer to chapter 9.1 in RFC 7714):
+     * <p>
+     * 00 00 SSRC(4) 00 00 0+SRTCP index(31 bits) XOR k_s(12)
+     */
+    private void computeGcmIv (long ssrc, int index) {
+        ivStore[0] = saltKey[0];
+        ivStore[1] = saltKey[1];
+        ivStore[2] = (byte) ((ssrc >> 24) ^ saltKey[2]);
+        ivStore[3] = (byte) ((ssrc >> 16) ^ saltKey[3]);
+        ivStore[4] = (byte) ((ssrc >> 8) ^ saltKey[4]);
+        ivStore[5] = (byte) (ssrc ^ saltKey[5]);
+        ivStore[6] = saltKey[6];
+        ivStore[7] = saltKey[7];
+        ivStore[8] = (byte) (((index >> 24) & 0x7f) ^ saltKey[8]);
+        ivStore[9] = (byte) ((index >> 16) ^ saltKey[9]);
+        ivStore[10] = (byte) ((index >> 8) ^ saltKey[10]);
+        ivStore[11] = (byte) (index ^ saltKey[11]);
+    }
+
     /**
      * Perform F8 Mode AES encryption / decryption
      *
@@ -461,8 +570,13 @@ public class SRTCPCryptoContext {
         ByteBuffer buf = pkt.getBuffer();
         buf.rewind();
         int len = buf.remaining();
-        buf.get(tempBuffer, 0, len);
-        mac.update(tempBuffer, 0, len);
+        if (buf.hasArray()) {
+            // heap buffer : authenticate the backing array without copying
+            mac.update(buf.array(), buf.arrayOffset(), len);
+        } else {
+            buf.get(tempBuffer, 0, len);
+            mac.update(tempBuffer, 0, len);
+        }
         rbStore[0] = (byte) (index >> 24);
         rbStore[1] = (byte) (index >> 16);
         rbStore[2] = (byte) (index >> 8);
@@ -474,8 +588,8 @@ public class SRTCPCryptoContext {
     /**
      * Checks if a packet is a replayed on based on its sequence number.
      * <p>
-     * This method supports a 64 packet history relative the the given
-     * sequence number.
+     * This method supports a 128 packet history relative the the highest
+     * received index.
      * <p>
      * Sequence Number is guaranteed to be real (not faked) through
      * authentication.
@@ -485,23 +599,7 @@ public class SRTCPCryptoContext {
      * replayed one, false if not
      */
     boolean checkReplay (int index) {
-        // compute the index of previously received packet and its
-        // delta to the new received packet
-        int delta = index - receivedIndex;
-
-        if (delta > 0) {
-            /* Packet not yet received */
-            return true;
-        } else {
-            if (-delta > REPLAY_WINDOW_SIZE) {
-                /* Packet too old */
-                return false;
-            } else {
-                /* Packet already received ! */
-                /* Packet not yet received */
-                return ((this.replayWindow >> (-delta)) & 0x1) == 0;
-            }
-        }
+        return replayWindow.check(index) == SRTPReplayWindow.ACCEPTED;
     }
 
     /**
@@ -553,11 +651,29 @@ public class SRTCPCryptoContext {
         if (cipherF8 != null) {
             SRTPCipherF8.deriveForIV(cipherF8, encKey, saltKey);
         }
+        if (cipherGcm != null) {
+            cipherGcm.init(encKey);
+        }
         encryptionKey = new KeyParameter(encKey);
         cipher.init(true, encryptionKey);
         Arrays.fill(encKey, (byte) 0);
     }
 
+    /**
+     * Use the given session key and salt without the key derivation (AEAD only).
+     * <p>
+     * The RFC 7714 test vectors are given with the session keys and the SRTCP index.
+     *
+     * @param sessionKey  the session encryption key
+     * @param sessionSalt the session salt
+     * @param index       SRTCP index of the next sent packet
+     */
+    void setSessionKeys (byte[] sessionKey, byte[] sessionSalt, int index) {
+        System.arraycopy(sessionSalt, 0, saltKey, 0, saltKey.length);
+        cipherGcm.init(Arrays.copyOf(sessionKey, encKey.length));
+        sentIndex = index & ~0x80000000;
+    }
+
 
     /**
      * Update the SRTP packet index.
@@ -567,17 +683,8 @@ public class SRTCPCryptoContext {
      * @param index index number of the accepted packet
      */
     private void update (int index) {
-        int delta = receivedIndex - index;
-
         /* update the replay bit mask */
-        if (delta > 0) {
-            replayWindow = replayWindow << delta;
-            replayWindow |= 1;
-        } else {
-            replayWindow |= (1L << delta);
-        }
-
-        receivedIndex = index;
+        replayWindow.update(index);
     }
 
     /**
@@ -6,6 +6,7 @@
  */
 package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
 
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
@@ -20,6 +21,8 @@ import java.util.Map;
 public class SRTCPTransformer implements PacketTransformer {
 
     private final RawPacket packet;
+    // refers the caller's buffer for the in place reverse transformation
+    private final RawPacket inPlacePacket;
 
     private final SRTPTransformEngine forwardEngine;
     private final SRTPTransformEngine reverseEngine;
@@ -49,6 +52,7 @@ public class SRTCPTransformer implements PacketTransformer {
      */
     public SRTCPTransformer (SRTPTransformEngine forwardEngine, SRTPTransformEngine reverseEngine) {
         this.packet = new RawPacket();
+        this.inPlacePacket = new RawPacket(ByteBuffer.allocate(0));
         this.forwardEngine = forwardEngine;
         this.reverseEngine = reverseEngine;
         this.contexts = new Hashtable<>();
@@ -109,6 +113,24 @@ public class SRTCPTransformer implements PacketTransformer {
         return null;
     }
 
+    public boolean reverseTransform (ByteBuffer pkt) {
+        // refer the given buffer, the packet is decrypted in place
+        this.inPlacePacket.wrap(pkt);
+
+        // Associate the packet with its encryption context
+        long ssrc = this.inPlacePacket.getRtcpSsrc();
+        SRTCPCryptoContext context = this.contexts.get(ssrc);
+
+        if (context == null) {
+            context = reverseEngine.getDefaultContextControl().deriveContext(ssrc);
+            context.deriveSrtcpKeys();
+            contexts.put(ssrc, context);
+        }
+
+        // Decode packet to RTCP format
+        return context.reverseTransformPacket(inPlacePacket);
+    }
+
     /**
      * Close the transformer and underlying transform engine.
      * <p>
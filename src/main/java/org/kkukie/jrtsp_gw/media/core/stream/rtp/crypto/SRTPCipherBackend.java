@@ -0,0 +1,58 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.BlockCipher;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.Mac;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.digests.SHA1Digest;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.engines.AESEngine;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.macs.HMac;
+
+/**
+ * SRTP/SRTCP AES 암호화, HMAC-SHA1 인증 구현 방식
+ *  - BOUNCYCASTLE : 내장 BouncyCastle AESEngine (작은 테이블, 블록 단위 순수 자바 구현), HMac(SHA1Digest)
+ *                   (AESFastEngine 은 큰 lookup 테이블 때문에 캐시 타이밍 공격에 약해서 deprecated 되었으므로 쓰지 않는다.)
+ *  - JCE          : javax.crypto.Cipher (AES/ECB, AES/CTR), HotSpot AES 인트린식(AES-NI) 사용 가능
+ *                   java.security.MessageDigest (SHA-1), HotSpot SHA-1 인트린식(SHA-NI) 사용 가능
+ */
+public enum SRTPCipherBackend {
+
+    BOUNCYCASTLE {
+        @Override
+        public BlockCipher createAesEngine() {
+            return new AESEngine();
+        }
+
+        @Override
+        public Mac createHmacSha1() {
+            return new HMac(new SHA1Digest());
+        }
+    },
+    JCE {
+        @Override
+        public BlockCipher createAesEngine() {
+            return new JceAesEngine();
+        }
+
+        @Override
+        public Mac createHmacSha1() {
+            return new JceHmacSha1();
+        }
+    };
+
+    public abstract BlockCipher createAesEngine();
+
+    public abstract Mac createHmacSha1();
+
+    public static SRTPCipherBackend of(String name) {
+        if (name == null || name.isEmpty()) {
+            return JCE;
+        }
+
+        for (SRTPCipherBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(name.trim())) {
+                return backend;
+            }
+        }
+        return JCE;
+    }
+
+}
@@ -51,6 +51,12 @@ public class SRTPCipherCTR {
     public void process (BlockCipher cipher, ByteBuffer data, int off, int len, byte[] iv) {
         assert off + len <= data.limit();
 
+        if (cipher instanceof JceAesEngine && data.hasArray()) {
+            // heap buffer : JCE AES/CTR 로 backing array 를 바로 처리한다.
+            ((JceAesEngine) cipher).processCtr(iv, data.array(), data.arrayOffset() + off, len);
+            return;
+        }
+
         // if data fits in inner buffer - use it. Otherwise allocate bigger
         // buffer store it to use it for later processing - up to a defined
         // maximum size.
@@ -64,6 +70,19 @@ public class SRTPCipherCTR {
             cipherStream = streamBuf;
         }
 
+        if (cipher instanceof JceAesEngine) {
+            // JCE AES/CTR 로 페이로드 전체를 한 번에 처리한다.
+            ByteBuffer payload = data.duplicate();
+            payload.position(off);
+            payload.get(cipherStream, 0, len);
+
+            ((JceAesEngine) cipher).processCtr(iv, cipherStream, 0, len);
+
+            payload.position(off);
+            payload.put(cipherStream, 0, len);
+            return;
+        }
+
         getCipherStream(cipher, cipherStream, len, iv);
         for (int i = 0; i < len; i++) {
             data.put(i + off, (byte) (data.get(i + off) ^ cipherStream[i]));
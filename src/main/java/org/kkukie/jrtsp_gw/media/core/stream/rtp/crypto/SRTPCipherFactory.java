@@ -0,0 +1,163 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.BlockCipher;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.Mac;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.KeyParameter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @class public class SRTPCipherFactory
+ * @brief SRTP/SRTCP 컨텍스트가 사용할 AES 엔진과 HMAC-SHA1 을 생성하는 클래스
+ * 서비스 시작 시 init() 으로 백엔드를 선택하며, 선택한 백엔드가 RFC 3711 / RFC 2202 테스트 벡터 검증에 실패하면
+ * BouncyCastle 백엔드로 대체한다. (init() 을 호출하지 않으면 BouncyCastle 을 사용한다.)
+ */
+@Slf4j
+public class SRTPCipherFactory {
+
+    /** RFC 3711 B.2 AES-CM Test Vectors */
+    private static final byte[] B2_SESSION_KEY = hexToBytes("2B7E151628AED2A6ABF7158809CF4F3C");
+    private static final byte[] B2_IV = hexToBytes("F0F1F2F3F4F5F6F7F8F9FAFBFCFD0000");
+    private static final byte[] B2_KEYSTREAM = hexToBytes(
+            "E03EAD0935C95E80E166B16DD92B4EB4"
+                    + "D23513162B02D0F72A43A2FE4A5F97AB"
+                    + "41E95B3BB0A2E8DD477901E4FCA894C0"
+    );
+
+    /** RFC 3711 B.3 Key Derivation Test Vectors (label 0 : cipher key) */
+    private static final byte[] B3_MASTER_KEY = hexToBytes("E1F97A0D3E018BE0D64FA32C06DE4139");
+    private static final byte[] B3_MASTER_SALT_IV = hexToBytes("0EC675AD498AFEEBB6960B3AABE60000");
+    private static final byte[] B3_CIPHER_KEY = hexToBytes("C61E7A93744F39EE10734AFE3FF7A087");
+
+    /** RFC 2202 HMAC-SHA1 Test Cases (case 1, 2 : 블록보다 짧은 키, case 6 : 블록보다 긴 키) */
+    private static final byte[][][] HMAC_SHA1_CASES = {
+            {
+                    hexToBytes("0B0B0B0B0B0B0B0B0B0B0B0B0B0B0B0B0B0B0B0B"),
+                    "Hi There".getBytes(StandardCharsets.US_ASCII),
+                    hexToBytes("B617318655057264E28BC0B6FB378C8EF146BE00")
+            },
+            {
+                    "Jefe".getBytes(StandardCharsets.US_ASCII),
+                    "what do ya want for nothing?".getBytes(StandardCharsets.US_ASCII),
+                    hexToBytes("EFFCDF6AE5EB2FA2D27416D5F184DF9C259A7C79")
+            },
+            {
+                    filledBytes((byte) 0xAA, 80),
+                    "Test Using Larger Than Block-Size Key - Hash Key First".getBytes(StandardCharsets.US_ASCII),
+                    hexToBytes("AA4AE5E15272D00E95705637CE8A3B55ED402112")
+            }
+    };
+
+    private static volatile SRTPCipherBackend backend = SRTPCipherBackend.BOUNCYCASTLE;
+
+    private SRTPCipherFactory() {}
+
+    /**
+     * @param backendName 설정된 백엔드 이름 (jce, bouncycastle)
+     * @return 실제로 사용하게 된 백엔드
+     */
+    public static SRTPCipherBackend init(String backendName) {
+        SRTPCipherBackend configured = SRTPCipherBackend.of(backendName);
+        if (selfTest(configured)) {
+            backend = configured;
+        } else {
+            log.warn("|SRTPCipherFactory| SRTP cipher backend({}) failed the RFC 3711 self-test. Fall back to {}.",
+                    configured, SRTPCipherBackend.BOUNCYCASTLE
+            );
+            backend = SRTPCipherBackend.BOUNCYCASTLE;
+        }
+
+        log.debug("|SRTPCipherFactory| SRTP cipher backend is selected. (configured={}, selected={})", backendName, backend);
+        return backend;
+    }
+
+    public static SRTPCipherBackend getBackend() {
+        return backend;
+    }
+
+    public static BlockCipher createAesEngine() {
+        return backend.createAesEngine();
+    }
+
+    public static Mac createHmacSha1() {
+        return backend.createHmacSha1();
+    }
+
+    /**
+     * RFC 3711 B.2 (AES-CM 키 스트림) 과 B.3 (세션 암호화 키 유도) 벡터로 백엔드를 검증한다.
+     * SRTPCipherCTR 의 블록 단위 경로(getCipherStream)와 페이로드 처리 경로(process)를 모두 확인한다.
+     * HMAC-SHA1 은 RFC 2202 벡터로 검증하며, 같은 인스턴스로 연속 계산해서 재사용 경로도 확인한다.
+     */
+    public static boolean selfTest(SRTPCipherBackend candidate) {
+        try {
+            SRTPCipherCTR cipherCtr = new SRTPCipherCTR();
+
+            // B.2 : 키 스트림
+            BlockCipher cipher = candidate.createAesEngine();
+            cipher.init(true, new KeyParameter(B2_SESSION_KEY));
+
+            byte[] keyStream = new byte[B2_KEYSTREAM.length];
+            cipherCtr.getCipherStream(cipher, keyStream, keyStream.length, B2_IV);
+            if (!Arrays.equals(B2_KEYSTREAM, keyStream)) {
+                return false;
+            }
+
+            // 0 으로 채운 페이로드를 처리하면 키 스트림이 그대로 나와야 한다. (끝 블록이 16 바이트 미만인 경우 포함)
+            int payloadLength = B2_KEYSTREAM.length - 5;
+            ByteBuffer payload = ByteBuffer.allocateDirect(payloadLength + 12);
+            cipherCtr.process(cipher, payload, 12, payloadLength, B2_IV);
+            for (int i = 0; i < payloadLength; i++) {
+                if (payload.get(12 + i) != B2_KEYSTREAM[i]) {
+                    return false;
+                }
+            }
+
+            // B.3 : 키 유도
+            cipher = candidate.createAesEngine();
+            cipher.init(true, new KeyParameter(B3_MASTER_KEY));
+
+            byte[] cipherKey = new byte[B3_CIPHER_KEY.length];
+            cipherCtr.getCipherStream(cipher, cipherKey, cipherKey.length, B3_MASTER_SALT_IV);
+            if (!Arrays.equals(B3_CIPHER_KEY, cipherKey)) {
+                return false;
+            }
+
+            // RFC 2202 : HMAC-SHA1
+            for (byte[][] hmacCase : HMAC_SHA1_CASES) {
+                Mac mac = candidate.createHmacSha1();
+                mac.init(new KeyParameter(hmacCase[0]));
+
+                byte[] tag = new byte[mac.getMacSize()];
+                for (int i = 0; i < 2; i++) {
+                    mac.update(hmacCase[1], 0, hmacCase[1].length);
+                    mac.doFinal(tag, 0);
+                    if (!Arrays.equals(hmacCase[2], tag)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("|SRTPCipherFactory| SRTP cipher backend({}) is not available.", candidate, e);
+            return false;
+        }
+    }
+
+    private static byte[] filledBytes(byte value, int length) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,139 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * @class public class SRTPCipherGCM
+ * @brief SRTP/SRTCP AEAD_AES_128_GCM, AEAD_AES_256_GCM 암호화 클래스 (RFC 7714)
+ * 1) JCE "AES/GCM/NoPadding" 으로 암호화와 인증을 한 번에 처리한다. (HMAC 을 별도로 계산하지 않는다.)
+ * 2) 인증 태그(16 bytes)는 암호문 바로 뒤에 붙는다.
+ * 3) IV 는 호출하는 쪽에서 세션 salt 와 SSRC, 패킷 인덱스로 계산해서 넘긴다. (RFC 7714 8.1, 9.1)
+ * 인스턴스는 스레드 안전하지 않다. (SRTP 컨텍스트마다 하나씩 생성한다.)
+ */
+public class SRTPCipherGCM {
+
+    /** RFC 7714 에서 사용하는 인증 태그 길이 (bytes) */
+    public static final int TAG_LENGTH = 16;
+    /** RFC 7714 에서 사용하는 IV 길이 (bytes) */
+    public static final int IV_LENGTH = 12;
+
+    private static final int MAX_BUFFER_LENGTH = 10 * 1024;
+
+    private final Cipher cipher;
+    private SecretKeySpec keySpec = null;
+
+    private byte[] inBuf = new byte[1500];
+    private byte[] outBuf = new byte[1500];
+
+    public SRTPCipherGCM() {
+        try {
+            cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM is not available in this JCE provider.", e);
+        }
+    }
+
+    /**
+     * @param encKey 유도된 세션 암호화 키 (16 or 32 bytes)
+     */
+    public void init(byte[] encKey) {
+        keySpec = new SecretKeySpec(encKey, "AES");
+    }
+
+    /**
+     * data[0, aadLength) 를 AAD 로, data[aadLength, aadLength + length) 를 평문으로 암호화한다.
+     * 암호문과 인증 태그는 data[aadLength] 부터 덮어쓴다. (data 의 limit 는 length + TAG_LENGTH 만큼 확보되어 있어야 한다.)
+     *
+     * @param iv         12 bytes IV
+     * @param extraAad   헤더 뒤에 이어서 인증할 추가 AAD (SRTCP 의 E-flag + index), 없으면 null
+     * @return 암호문 + 인증 태그 길이
+     */
+    public int encrypt(byte[] iv, ByteBuffer data, int aadLength, int length, byte[] extraAad) {
+        return process(Cipher.ENCRYPT_MODE, iv, data, aadLength, length, extraAad);
+    }
+
+    /**
+     * data[0, aadLength) 를 AAD 로, data[aadLength, aadLength + length) 를 암호문 + 인증 태그로 복호화한다.
+     * 평문은 data[aadLength] 부터 덮어쓴다.
+     *
+     * @return 인증에 성공하면 평문 길이, 실패하면 -1
+     */
+    public int decrypt(byte[] iv, ByteBuffer data, int aadLength, int length, byte[] extraAad) {
+        if (length < TAG_LENGTH) {
+            return -1;
+        }
+
+        try {
+            return process(Cipher.DECRYPT_MODE, iv, data, aadLength, length, extraAad);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private int process(int mode, byte[] iv, ByteBuffer data, int aadLength, int length, byte[] extraAad) {
+        if (keySpec == null) {
+            throw new IllegalStateException("AES-GCM cipher not initialised");
+        }
+
+        if (data.hasArray()) {
+            // heap buffer : backing array 에서 바로 처리한다. (JCE 가 입출력 영역 겹침을 처리한다.)
+            return doFinal(mode, iv, data.array(), data.arrayOffset(), aadLength, length, extraAad, data.array());
+        }
+
+        int totalLength = aadLength + length;
+        byte[] in = inBuf;
+        if (totalLength > in.length) {
+            in = new byte[totalLength];
+            if (in.length <= MAX_BUFFER_LENGTH) {
+                inBuf = in;
+            }
+        }
+        byte[] out = outBuf;
+        if (length + TAG_LENGTH > out.length) {
+            out = new byte[length + TAG_LENGTH];
+            if (out.length <= MAX_BUFFER_LENGTH) {
+                outBuf = out;
+            }
+        }
+
+        ByteBuffer region = data.duplicate();
+        region.position(0);
+        region.get(in, 0, totalLength);
+
+        int outLength = doFinal(mode, iv, in, 0, aadLength, length, extraAad, out);
+
+        region.position(aadLength);
+        region.put(out, 0, outLength);
+        return outLength;
+    }
+
+    /**
+     * in[inOff, inOff + aadLength) 를 AAD 로 처리하고, 결과를 out[inOff + aadLength] (out 이 in 과 같을 때) 또는 out[0] 에 쓴다.
+     */
+    private int doFinal(int mode, byte[] iv, byte[] in, int inOff, int aadLength, int length, byte[] extraAad, byte[] out) {
+        int outOff = out == in ? inOff + aadLength : 0;
+        try {
+            cipher.init(mode, keySpec, new GCMParameterSpec(TAG_LENGTH * 8, iv, 0, IV_LENGTH));
+            if (aadLength > 0) {
+                cipher.updateAAD(in, inOff, aadLength);
+            }
+            if (extraAad != null) {
+                cipher.updateAAD(extraAad);
+            }
+            return cipher.doFinal(in, inOff + aadLength, length, out, outOff);
+        } catch (AEADBadTagException e) {
+            throw new IllegalArgumentException("AES-GCM authentication failed.", e);
+        } catch (GeneralSecurityException e) {
+            if (mode == Cipher.DECRYPT_MODE) {
+                throw new IllegalArgumentException("Fail to decrypt the AES-GCM packet.", e);
+            }
+            throw new IllegalStateException("Fail to encrypt the AES-GCM packet.", e);
+        }
+    }
+
+}
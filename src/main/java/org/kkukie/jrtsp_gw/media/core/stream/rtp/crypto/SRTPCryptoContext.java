@@ -10,7 +10,6 @@ import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.BlockCipher;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.Mac;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.digests.SHA1Digest;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.digests.SHA256Digest;
-import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.engines.AESFastEngine;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.engines.TwofishEngine;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.macs.HMac;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.KeyParameter;
@@ -19,6 +18,7 @@ import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpPacket;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Formatter;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * SRTPCryptoContext class is the core class of SRTP implementation. There can
@@ -47,9 +47,9 @@ import java.util.Formatter;
 public class SRTPCryptoContext {
 
     /**
-     * The replay check windows size
+     * The master salt length used by the AES-CM key derivation function
      */
-    private static final long REPLAY_WINDOW_SIZE = 64;
+    private static final int KDF_SALT_LENGTH = 14;
     /**
      * Encryption / Authentication policy for this session
      */
@@ -108,9 +108,21 @@ public class SRTPCryptoContext {
      */
     private final long keyDerivationRate;
     /**
-     * Bit mask for replay check
+     * Replay check window of the last 128 packet indices
      */
-    private long replayWindow;
+    private final SRTPReplayWindow replayWindow = new SRTPReplayWindow();
+    /**
+     * Number of packets rejected because they were already received
+     */
+    private final AtomicLong replayedCount = new AtomicLong(0);
+    /**
+     * Number of packets rejected because they are older than the replay window
+     */
+    private final AtomicLong tooOldCount = new AtomicLong(0);
+    /**
+     * Number of times the Roll-Over-Counter was incremented by a received packet
+     */
+    private final AtomicLong rocWrapCount = new AtomicLong(0);
     /**
      * Master encryption key
      */
@@ -144,6 +156,10 @@ public class SRTPCryptoContext {
      * Used inside F8 mode only
      */
     private BlockCipher cipherF8 = null;
+    /**
+     * Used inside GCM (AEAD) mode only
+     */
+    private SRTPCipherGCM cipherGcm = null;
 
     /**
      * Construct an empty SRTPCryptoContext using ssrc. The other parameters are
@@ -203,7 +219,8 @@ public class SRTPCryptoContext {
         masterKey = new byte[policy.getEncKeyLength()];
         System.arraycopy(masterK, 0, masterKey, 0, masterK.length);
 
-        masterSalt = new byte[policy.getSaltKeyLength()];
+        // The 96 bit AEAD master salt is padded with zeros to 112 bits for the key derivation (RFC 7714 section 12)
+        masterSalt = new byte[Math.max(policy.getSaltKeyLength(), KDF_SALT_LENGTH)];
         System.arraycopy(masterS, 0, masterSalt, 0, masterS.length);
 
         hmac = new HMac(new SHA1Digest());
@@ -211,11 +228,11 @@ public class SRTPCryptoContext {
 
         switch (policy.getEncType()) {
             case SRTPPolicy.AESF8_ENCRYPTION:
-                cipherF8 = new AESFastEngine();
+                cipherF8 = SRTPCipherFactory.createAesEngine();
                 //$FALL-THROUGH$
 
             case SRTPPolicy.AESCM_ENCRYPTION:
-                cipher = new AESFastEngine();
+                cipher = SRTPCipherFactory.createAesEngine();
                 encKey = new byte[policy.getEncKeyLength()];
                 saltKey = new byte[policy.getSaltKeyLength()];
                 break;
@@ -229,6 +246,14 @@ public class SRTPCryptoContext {
                 saltKey = new byte[this.policy.getSaltKeyLength()];
                 break;
 
+            case SRTPPolicy.AESGCM_ENCRYPTION:
+                // AES-CM is still used as the key derivation PRF
+                cipher = SRTPCipherFactory.createAesEngine();
+                cipherGcm = new SRTPCipherGCM();
+                encKey = new byte[policy.getEncKeyLength()];
+                saltKey = new byte[policy.getSaltKeyLength()];
+                break;
+
             case SRTPPolicy.NULL_ENCRYPTION:
             default:
                 encKey = null;
@@ -243,7 +268,7 @@ public class SRTPCryptoContext {
                 break;
 
             case SRTPPolicy.HMACSHA1_AUTHENTICATION:
-                hmac = new HMac(new SHA1Digest());
+                hmac = SRTPCipherFactory.createHmacSha1();
                 authKey = new byte[policy.getAuthKeyLength()];
                 tagStore = new byte[hmac.getMacSize()];
                 break;
@@ -313,6 +338,42 @@ public class SRTPCryptoContext {
         roc = rocIn;
     }
 
+    /**
+     * Get the number of received packets rejected as replayed
+     *
+     * @return the number of packets already received in the replay window
+     */
+    public long getReplayedCount () {
+        return replayedCount.get();
+    }
+
+    /**
+     * Get the number of received packets rejected as too old
+     *
+     * @return the number of packets older than the replay window
+     */
+    public long getTooOldCount () {
+        return tooOldCount.get();
+    }
+
+    /**
+     * Get the number of Roll-Over-Counter increments on the receiving side
+     *
+     * @return the number of times the 16-bit sequence number wrapped around
+     */
+    public long getRocWrapCount () {
+        return rocWrapCount.get();
+    }
+
+    /**
+     * Get the highest RTP sequence number accepted by this context
+     *
+     * @return the highest accepted sequence number
+     */
+    public int getSeqNum () {
+        return seqNum;
+    }
+
     /**
      * Transform a RTP packet into a SRTP packet. This method is called when a
      * normal RTP packet ready to be sent.
@@ -331,8 +392,10 @@ public class SRTPCryptoContext {
      * @param pkt the RTP packet that is going to be sent out
      */
     public void transformPacket (RawPacket pkt) {
-        /* Encrypt the packet using Counter Mode encryption */
-        if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
+        /* Encrypt and authenticate the packet using GCM (AEAD) */
+        if (policy.getEncType() == SRTPPolicy.AESGCM_ENCRYPTION) {
+            processPacketAESGCM(pkt, roc, true);
+        } else if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
             processPacketAESCM(pkt);
         } else if (policy.getEncType() == SRTPPolicy.AESF8_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISHF8_ENCRYPTION) {
             /* Encrypt the packet using F8 Mode encryption */
@@ -373,17 +436,25 @@ public class SRTPCryptoContext {
     public boolean reverseTransformPacket (RawPacket pkt) {
         int seqNo = pkt.getSequenceNumber();
 
-        if (!seqNumSet) {
-            seqNumSet = true;
-            seqNum = seqNo;
-        }
+        long guessedIndex;
+        if (seqNumSet && seqNo == ((seqNum + 1) & 0xFFFF)) {
+            // In order packet: its index is always ahead of the replay window,
+            // so the index guess and the replay check can be skipped
+            guessedROC = seqNo == 0 ? roc + 1 : roc;
+            guessedIndex = ((long) guessedROC) << 16 | seqNo;
+        } else {
+            if (!seqNumSet) {
+                seqNumSet = true;
+                seqNum = seqNo;
+            }
 
-        // Guess the SRTP index (48 bit), see rFC 3711, 3.3.1
-        // Stores the guessed roc in this.guessedROC
-        long guessedIndex = guessIndex(seqNo);
-        // Replay control
-        if (!checkReplay(seqNo, guessedIndex)) {
-            return false;
+            // Guess the SRTP index (48 bit), see rFC 3711, 3.3.1
+            // Stores the guessed roc in this.guessedROC
+            guessedIndex = guessIndex(seqNo);
+            // Replay control
+            if (!checkReplay(seqNo, guessedIndex)) {
+                return false;
+            }
         }
 
         // Authenticate packet
@@ -406,6 +477,13 @@ public class SRTPCryptoContext {
 
         // Decrypt packet
         switch (policy.getEncType()) {
+            case SRTPPolicy.AESGCM_ENCRYPTION:
+                // using GCM, the authentication tag is verified while decrypting
+                if (!processPacketAESGCM(pkt, guessedROC, false)) {
+                    return false;
+                }
+                break;
+
             case SRTPPolicy.AESCM_ENCRYPTION:
             case SRTPPolicy.TWOFISH_ENCRYPTION:
                 // using Counter Mode encryption
@@ -426,6 +504,30 @@ public class SRTPCryptoContext {
         return true;
     }
 
+    /**
+     * Transform a burst of SRTP packets of this SSRC into RTP packets.
+     * <p>
+     * The packets are checked, authenticated and decrypted in order, exactly as
+     * calling reverseTransformPacket for each packet, so the replay window and
+     * the ROC are updated between them. Packets of another SSRC are rejected.
+     *
+     * @param pkts     the received SRTP packets
+     * @param offset   the index of the first packet in pkts to transform
+     * @param count    the number of packets to transform
+     * @param accepted the result of each packet, indexed as pkts (true if the packet is accepted)
+     * @return the number of accepted packets
+     */
+    public int reverseTransformPackets (RawPacket[] pkts, int offset, int count, boolean[] accepted) {
+        int acceptedCount = 0;
+        for (int i = offset; i < offset + count; i++) {
+            accepted[i] = pkts[i].getSSRC() == ssrcCtx && reverseTransformPacket(pkts[i]);
+            if (accepted[i]) {
+                acceptedCount++;
+            }
+        }
+        return acceptedCount;
+    }
+
     /**
      * Perform Counter Mode AES encryption / decryption
      *
@@ -458,6 +560,55 @@ public class SRTPCryptoContext {
         cipherCtr.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
     }
 
+    /**
+     * Perform GCM AES (AEAD) encryption / decryption, see RFC 7714 section 8.
+     * <p>
+     * The RTP header is the associated data and the 16 byte authentication tag
+     * follows the cipher text. On encryption the tag is appended, on decryption
+     * it is verified and removed.
+     *
+     * @param pkt     the RTP packet to be encrypted / decrypted
+     * @param rocIn   Roll-Over-Counter of the packet
+     * @param encrypt true to encrypt, false to decrypt
+     * @return false if the authentication tag of the received packet is invalid
+     */
+    public boolean processPacketAESGCM (RawPacket pkt, int rocIn, boolean encrypt) {
+        long ssrc = pkt.getSSRC();
+        int seqNo = pkt.getSequenceNumber();
+
+        /* Compute the GCM IV (refer to chapter 8.1 in RFC 7714):
+         *
+         * 00 00 SSRC(4) ROC(4) SEQ(2) XOR k_s(12)
+         */
+        ivStore[0] = saltKey[0];
+        ivStore[1] = saltKey[1];
+        ivStore[2] = (byte) ((ssrc >> 24) ^ saltKey[2]);
+        ivStore[3] = (byte) ((ssrc >> 16) ^ saltKey[3]);
+        ivStore[4] = (byte) ((ssrc >> 8) ^ saltKey[4]);
+        ivStore[5] = (byte) (ssrc ^ saltKey[5]);
+        ivStore[6] = (byte) ((rocIn >> 24) ^ saltKey[6]);
+        ivStore[7] = (byte) ((rocIn >> 16) ^ saltKey[7]);
+        ivStore[8] = (byte) ((rocIn >> 8) ^ saltKey[8]);
+        ivStore[9] = (byte) (rocIn ^ saltKey[9]);
+        ivStore[10] = (byte) ((seqNo >> 8) ^ saltKey[10]);
+        ivStore[11] = (byte) (seqNo ^ saltKey[11]);
+
+        final int headerLength = pkt.getHeaderLength();
+        final int payloadLength = pkt.getPayloadLength();
+
+        if (encrypt) {
+            pkt.grow(SRTPCipherGCM.TAG_LENGTH);
+            cipherGcm.encrypt(ivStore, pkt.getBuffer(), headerLength, payloadLength, null);
+            return true;
+        }
+
+        if (cipherGcm.decrypt(ivStore, pkt.getBuffer(), headerLength, payloadLength, null) < 0) {
+            return false;
+        }
+        pkt.shrink(SRTPCipherGCM.TAG_LENGTH);
+        return true;
+    }
+
     /**
      * Perform F8 Mode AES encryption / decryption
      *
@@ -467,7 +618,7 @@ public class SRTPCryptoContext {
         // 11 bytes of the RTP header are the 11 bytes of the iv
         // the first byte of the RTP header is not used.
         ByteBuffer buf = pkt.getBuffer();
-        buf.compact();
+        buf.rewind();
         buf.get(ivStore, 0, 12);
         ivStore[0] = 0;
 
@@ -493,8 +644,13 @@ public class SRTPCryptoContext {
         ByteBuffer buf = pkt.getBuffer();
         buf.rewind();
         int len = buf.remaining();
-        buf.get(tempBuffer, 0, len);
-        hmac.update(tempBuffer, 0, len);
+        if (buf.hasArray()) {
+            // heap buffer : authenticate the backing array without copying
+            hmac.update(buf.array(), buf.arrayOffset(), len);
+        } else {
+            buf.get(tempBuffer, 0, len);
+            hmac.update(tempBuffer, 0, len);
+        }
         rbStore[0] = (byte) (rocIn >> 24);
         rbStore[1] = (byte) (rocIn >> 16);
         rbStore[2] = (byte) (rocIn >> 8);
@@ -516,8 +672,9 @@ public class SRTPCryptoContext {
     /**
      * Checks if a packet is a replayed on based on its sequence number.
      * <p>
-     * This method supports a 64 packet history relative the the given sequence
-     * number.
+     * This method supports a 128 packet history relative the the highest
+     * received packet index. Rejected packets are counted as replayed or
+     * too old.
      * <p>
      * Sequence Number is guaranteed to be real (not faked) through
      * authentication.
@@ -528,23 +685,17 @@ public class SRTPCryptoContext {
      * replayed one, false if not
      */
     boolean checkReplay (int seqNo, long guessedIndex) {
-        // compute the index of previously received packet and its
-        // delta to the new received packet
-        long localIndex = (((long) this.roc) << 16) | this.seqNum;
-        long delta = guessedIndex - localIndex;
+        switch (replayWindow.check(guessedIndex)) {
+            case SRTPReplayWindow.REPLAYED:
+                replayedCount.incrementAndGet();
+                return false;
 
-        if (delta > 0) {
-            /* Packet not yet received */
-            return true;
-        } else {
-            if (-delta > REPLAY_WINDOW_SIZE) {
-                /* Packet too old */
+            case SRTPReplayWindow.TOO_OLD:
+                tooOldCount.incrementAndGet();
                 return false;
-            } else {
-                /* Packet already received ! */
-                /* Packet not yet received */
-                return ((this.replayWindow >> (-delta)) & 0x1) == 0;
-            }
+
+            default:
+                return true;
         }
     }
 
@@ -614,12 +765,28 @@ public class SRTPCryptoContext {
         if (cipherF8 != null) {
             SRTPCipherF8.deriveForIV(cipherF8, encKey, saltKey);
         }
+        if (cipherGcm != null) {
+            cipherGcm.init(encKey);
+        }
         encryptionKey = new KeyParameter(encKey);
         cipher.init(true, encryptionKey);
 
         Arrays.fill(encKey, (byte) 0);
     }
 
+    /**
+     * Use the given session key and salt without the key derivation (AEAD only).
+     * <p>
+     * The RFC 7714 test vectors are given with the session keys.
+     *
+     * @param sessionKey  the session encryption key
+     * @param sessionSalt the session salt
+     */
+    void setSessionKeys (byte[] sessionKey, byte[] sessionSalt) {
+        System.arraycopy(sessionSalt, 0, saltKey, 0, saltKey.length);
+        cipherGcm.init(Arrays.copyOf(sessionKey, encKey.length));
+    }
+
     /**
      * Compute (guess) the new SRTP index based on the sequence number of a
      * received RTP packet.
@@ -655,22 +822,15 @@ public class SRTPCryptoContext {
      * @param guessedIndex guessed roc
      */
     private void update (int seqNo, long guessedIndex) {
-        long delta = guessedIndex - (((long) this.roc) << 16 | this.seqNum);
-
         /* update the replay bit mask */
-        if (delta > 0) {
-            replayWindow = replayWindow << delta;
-            replayWindow |= 1;
-        } else {
-            replayWindow |= (1L << delta);
-        }
+        replayWindow.update(guessedIndex);
 
-        if (seqNo > seqNum) {
-            //logger.debug("SRTPCryptoContext.update: Updated seq number. [{} > {}]", this.seqNum, seqNo);
-            seqNum = seqNo & 0xffff;
-        }
-        if (this.guessedROC > this.roc) {
-            roc = guessedROC;
+        /* only a newer packet moves the highest index (ROC + sequence number) */
+        if (guessedIndex > (((long) this.roc) << 16 | this.seqNum)) {
+            if (this.guessedROC > this.roc) {
+                rocWrapCount.incrementAndGet();
+                roc = guessedROC;
+            }
             seqNum = seqNo & 0xffff;
         }
     }
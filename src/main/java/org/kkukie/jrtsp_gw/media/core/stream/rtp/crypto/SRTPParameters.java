@@ -13,7 +13,23 @@ public enum SRTPParameters {
     SRTP_AES128_CM_HMAC_SHA1_80(SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80, SRTPPolicy.AESCM_ENCRYPTION, 16, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 10, 14),
     SRTP_AES128_CM_HMAC_SHA1_32(SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32, SRTPPolicy.AESCM_ENCRYPTION, 16, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 4, 10, 14),
     SRTP_NULL_HMAC_SHA1_80(SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_80, SRTPPolicy.NULL_ENCRYPTION, 0, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 10, 0),
-    SRTP_NULL_HMAC_SHA1_32(SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32, SRTPPolicy.NULL_ENCRYPTION, 0, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 4, 10, 0);
+    SRTP_NULL_HMAC_SHA1_32(SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32, SRTPPolicy.NULL_ENCRYPTION, 0, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 4, 10, 0),
+    // AEAD profiles (https://tools.ietf.org/html/rfc7714#section-14.2) : 96 bit salt, 128 bit GCM tag, no HMAC
+    SRTP_AEAD_AES_128_GCM(SRTPProtectionProfile.SRTP_AEAD_AES_128_GCM, SRTPPolicy.AESGCM_ENCRYPTION, 16, SRTPPolicy.NULL_AUTHENTICATION, 0, 16, 16, 12),
+    SRTP_AEAD_AES_256_GCM(SRTPProtectionProfile.SRTP_AEAD_AES_256_GCM, SRTPPolicy.AESGCM_ENCRYPTION, 32, SRTPPolicy.NULL_AUTHENTICATION, 0, 16, 16, 12);
+
+    /**
+     * Supported protection profiles in order of preference.
+     * AEAD (GCM) profiles are preferred, because encryption and authentication are done in one pass
+     */
+    private static final int[] PREFERRED_PROTECTION_PROFILES = {
+            SRTPProtectionProfile.SRTP_AEAD_AES_128_GCM,
+            SRTPProtectionProfile.SRTP_AEAD_AES_256_GCM,
+            SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80,
+            SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32,
+            SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_80,
+            SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32
+    };
 
     private final int profile;
     private final int encType;
@@ -45,11 +61,37 @@ public enum SRTPParameters {
                 return SRTP_NULL_HMAC_SHA1_80;
             case SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32:
                 return SRTP_NULL_HMAC_SHA1_32;
+            case SRTPProtectionProfile.SRTP_AEAD_AES_128_GCM:
+                return SRTP_AEAD_AES_128_GCM;
+            case SRTPProtectionProfile.SRTP_AEAD_AES_256_GCM:
+                return SRTP_AEAD_AES_256_GCM;
             default:
                 throw new IllegalArgumentException("SRTP Protection Profile value %d is not allowed for DTLS SRTP. See http://tools.ietf.org/html/rfc5764#section-4.1.2 for valid values.");
         }
     }
 
+    /**
+     * @return supported protection profiles in order of preference
+     */
+    public static int[] getPreferredProtectionProfiles () {
+        return PREFERRED_PROTECTION_PROFILES.clone();
+    }
+
+    /**
+     * @param offeredProfiles protection profiles offered by the remote peer
+     * @return the most preferred protection profile among the offered ones, -1 if there is none
+     */
+    public static int choosePreferredProfile (int[] offeredProfiles) {
+        for (int preferredProfile : PREFERRED_PROTECTION_PROFILES) {
+            for (int offeredProfile : offeredProfiles) {
+                if (offeredProfile == preferredProfile) {
+                    return preferredProfile;
+                }
+            }
+        }
+        return -1;
+    }
+
     public int getProfile () {
         return profile;
     }
@@ -37,6 +37,13 @@ public class SRTPPolicy {
      * F8 Mode TwoFish Cipher
      */
     public static final int TWOFISHF8_ENCRYPTION = 4;
+
+    /**
+     * Galois/Counter Mode AES AEAD Cipher, defined in RFC 7714
+     * (encryption and authentication are done together, the auth tag length is the GCM tag length)
+     */
+    public static final int AESGCM_ENCRYPTION = 5;
+
     /**
      * Null Authentication, no authentication
      */
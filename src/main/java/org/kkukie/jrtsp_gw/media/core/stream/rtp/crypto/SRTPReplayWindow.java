@@ -0,0 +1,90 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+/**
+ * @class public class SRTPReplayWindow
+ * @brief SRTP/SRTCP 재전송(replay) 검사용 슬라이딩 윈도우 (RFC 3711 3.3.2)
+ * 1) 지금까지 받은 가장 큰 인덱스를 기준으로 최근 128 개 패킷의 수신 여부를 long 두 개의 비트맵으로 관리한다.
+ *    (bit i = (가장 큰 인덱스 - i) 패킷 수신 여부, 0~63 은 lowBits, 64~127 은 highBits)
+ * 2) 검사(check)와 갱신(update)을 분리한다. 갱신은 인증에 성공한 패킷에 대해서만 호출해야 한다.
+ * 인스턴스는 스레드 안전하지 않다. (암호화 컨텍스트마다 하나씩 생성한다.)
+ */
+public class SRTPReplayWindow {
+
+    /** 재전송 검사를 하는 패킷 수 */
+    public static final int WINDOW_SIZE = 128;
+
+    /** 처음 받는 패킷 */
+    public static final int ACCEPTED = 0;
+    /** 이미 받은 패킷 */
+    public static final int REPLAYED = 1;
+    /** 윈도우보다 오래된 패킷 */
+    public static final int TOO_OLD = 2;
+
+    /** 지금까지 받은 가장 큰 인덱스 (받은 패킷이 없으면 -1) */
+    private long highestIndex = -1;
+    private long lowBits = 0;
+    private long highBits = 0;
+
+    /**
+     * @param index 수신한 패킷의 인덱스 (SRTP 는 48 bits, SRTCP 는 31 bits)
+     * @return ACCEPTED, REPLAYED, TOO_OLD 중 하나
+     */
+    public int check(long index) {
+        if (index > highestIndex) {
+            return ACCEPTED;
+        }
+
+        long delta = highestIndex - index;
+        if (delta >= WINDOW_SIZE) {
+            return TOO_OLD;
+        }
+
+        long bits = delta < 64 ? lowBits >>> delta : highBits >>> (delta - 64);
+        return (bits & 0x1) == 0 ? ACCEPTED : REPLAYED;
+    }
+
+    /**
+     * 인증에 성공한 패킷의 인덱스를 윈도우에 기록한다.
+     *
+     * @param index 수신한 패킷의 인덱스
+     */
+    public void update(long index) {
+        if (index > highestIndex) {
+            long delta = highestIndex < 0 ? WINDOW_SIZE : index - highestIndex;
+            if (delta >= WINDOW_SIZE) {
+                lowBits = 0;
+                highBits = 0;
+            } else if (delta >= 64) {
+                highBits = lowBits << (delta - 64);
+                lowBits = 0;
+            } else {
+                highBits = (highBits << delta) | (lowBits >>> (64 - delta));
+                lowBits <<= delta;
+            }
+            lowBits |= 1;
+            highestIndex = index;
+            return;
+        }
+
+        long delta = highestIndex - index;
+        if (delta < 64) {
+            lowBits |= 1L << delta;
+        } else if (delta < WINDOW_SIZE) {
+            highBits |= 1L << (delta - 64);
+        }
+    }
+
+    /**
+     * @return 지금까지 받은 가장 큰 인덱스 (받은 패킷이 없으면 -1)
+     */
+    public long getHighestIndex() {
+        return highestIndex;
+    }
+
+    public void reset() {
+        highestIndex = -1;
+        lowBits = 0;
+        highBits = 0;
+    }
+
+}
@@ -6,7 +6,11 @@
  */
 package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.List;
 
 /**
  * SRTPTransformer implements PacketTransformer and provides implementations for
@@ -24,6 +28,16 @@ import java.util.Hashtable;
 public class SRTPTransformer implements PacketTransformer {
 
     private final RawPacket rawPacket;
+    /**
+     * Refers the caller's buffer for the in place reverse transformation.
+     * One per thread, so the packets of different SSRCs can be restored on
+     * different threads (each crypto context is still used by one thread).
+     */
+    private final ThreadLocal<RawPacket> inPlacePacket;
+    /**
+     * Refer the caller's buffers for the burst reverse transformation
+     */
+    private RawPacket[] burstPackets = new RawPacket[0];
 
     private final SRTPTransformEngine forwardEngine;
     private final SRTPTransformEngine reverseEngine;
@@ -56,6 +70,7 @@ public class SRTPTransformer implements PacketTransformer {
         this.reverseEngine = reverseEngine;
         this.contexts = new Hashtable<>();
         this.rawPacket = new RawPacket();
+        this.inPlacePacket = ThreadLocal.withInitial(() -> new RawPacket(ByteBuffer.allocate(0)));
     }
 
     public byte[] transform (byte[] pkt) {
@@ -113,6 +128,83 @@ public class SRTPTransformer implements PacketTransformer {
         return null;
     }
 
+    public boolean reverseTransform (ByteBuffer pkt) {
+        // Refer the given buffer, the packet is decrypted in place
+        RawPacket packet = this.inPlacePacket.get();
+        packet.wrap(pkt);
+
+        // Associate packet to a crypto context
+        long ssrc = packet.getSSRC();
+        SRTPCryptoContext context = this.contexts.get(ssrc);
+        if (context == null) {
+            context = this.reverseEngine.getDefaultContext().deriveContext(ssrc, 0, 0);
+            context.deriveSrtpKeys(packet.getSequenceNumber());
+            contexts.put(ssrc, context);
+        }
+
+        // SRTP -> RTP
+        return context.reverseTransformPacket(packet);
+    }
+
+    /**
+     * Reverse-transforms a burst of packets in place.
+     * <p>
+     * Consecutive packets of the same SSRC are handed to their crypto context
+     * in one call, so the context lookup is done once per SSRC run.
+     */
+    @Override
+    public int reverseTransform (ByteBuffer[] pkts, int count, boolean[] restored) {
+        if (burstPackets.length < count) {
+            RawPacket[] newBurstPackets = Arrays.copyOf(burstPackets, count);
+            for (int i = burstPackets.length; i < count; i++) {
+                newBurstPackets[i] = new RawPacket(ByteBuffer.allocate(0));
+            }
+            burstPackets = newBurstPackets;
+        }
+
+        int restoredCount = 0;
+        int runStart = 0;
+        while (runStart < count) {
+            burstPackets[runStart].wrap(pkts[runStart]);
+            long ssrc = burstPackets[runStart].getSSRC();
+
+            // find the run of the same SSRC
+            int runEnd = runStart + 1;
+            while (runEnd < count) {
+                burstPackets[runEnd].wrap(pkts[runEnd]);
+                if (burstPackets[runEnd].getSSRC() != ssrc) {
+                    break;
+                }
+                runEnd++;
+            }
+
+            // Associate the run to a crypto context
+            SRTPCryptoContext context = this.contexts.get(ssrc);
+            if (context == null) {
+                context = this.reverseEngine.getDefaultContext().deriveContext(ssrc, 0, 0);
+                context.deriveSrtpKeys(burstPackets[runStart].getSequenceNumber());
+                contexts.put(ssrc, context);
+            }
+
+            // SRTP -> RTP
+            restoredCount += context.reverseTransformPackets(burstPackets, runStart, runEnd - runStart, restored);
+
+            runStart = runEnd;
+        }
+        return restoredCount;
+    }
+
+    /**
+     * Get a snapshot of the crypto contexts created so far, one per SSRC.
+     *
+     * @return the known SRTPCryptoContexts
+     */
+    public List<SRTPCryptoContext> getContexts () {
+        synchronized (contexts) {
+            return new ArrayList<>(contexts.values());
+        }
+    }
+
     /**
      * Close the transformer and underlying transform engine.
      * <p>
@@ -20,7 +20,11 @@
 
 package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
 
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.pkcs.PrivateKeyInfo;
 import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.pkcs.RSAPrivateKey;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.sec.ECPrivateKey;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x9.X9ObjectIdentifiers;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.Digest;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.digests.SHA1Digest;
 import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.digests.SHA256Digest;
@@ -75,6 +79,15 @@ public class TlsUtils {
         }
     }
 
+    /**
+     * Computes the fingerprint of a certificate file without loading its private key.
+     *
+     * @return The fingerprint in "sha-256 AB:CD:..." format
+     */
+    public static String fingerprint (String hashFunction, String certificateResource) throws IOException {
+        return fingerprint(hashFunction, readCertificateResource(certificateResource));
+    }
+
     static byte[] digestOf (String hashFunction, byte[] input) {
         Digest d;
         switch (hashFunction) {
@@ -100,47 +113,47 @@ public class TlsUtils {
 
     static TlsAgreementCredentials loadAgreementCredentials (TlsContext context,
                                                              String[] certResources, String keyResource) throws IOException {
-        TlsCertificate tlsCertificate = loadCertificateChain(certResources);
-        AsymmetricKeyParameter privateKey = loadPrivateKeyResource(keyResource);
-        return new DefaultTlsAgreementCredentials(tlsCertificate, privateKey);
+        DtlsCertificateStore.Credential credential = loadCredential(certResources, keyResource);
+        return new DefaultTlsAgreementCredentials(loadCertificateChain(credential), credential.getPrivateKey());
     }
 
     static TlsEncryptionCredentials loadEncryptionCredentials (
             TlsContext context, String[] certResources, String keyResource)
             throws IOException {
-        TlsCertificate tlsCertificate = loadCertificateChain(certResources);
-        AsymmetricKeyParameter privateKey = loadPrivateKeyResource(keyResource);
-        return new DefaultTlsEncryptionCredentials(context, tlsCertificate,
-                privateKey);
+        DtlsCertificateStore.Credential credential = loadCredential(certResources, keyResource);
+        return new DefaultTlsEncryptionCredentials(context, loadCertificateChain(credential),
+                credential.getPrivateKey());
     }
 
     static TlsSignerCredentials loadSignerCredentials (TlsContext context,
                                                        String[] certResources, String keyResource) throws IOException {
-        TlsCertificate tlsCertificate = loadCertificateChain(certResources);
-        AsymmetricKeyParameter privateKey = loadPrivateKeyResource(keyResource);
-        return new DefaultTlsSignerCredentials(context, tlsCertificate, privateKey);
+        DtlsCertificateStore.Credential credential = loadCredential(certResources, keyResource);
+        return new DefaultTlsSignerCredentials(context, loadCertificateChain(credential), credential.getPrivateKey());
     }
 
     static TlsSignerCredentials loadSignerCredentials (TlsServerContext context,
                                                        String[] certResources, String keyResource,
                                                        SignatureAndHashAlgorithm signatureAndHashAlgorithm)
             throws IOException {
-        TlsCertificate tlsCertificate = loadCertificateChain(certResources);
-        AsymmetricKeyParameter privateKey = loadPrivateKeyResource(keyResource);
-        return new DefaultTlsSignerCredentials(context, tlsCertificate,
-                privateKey, signatureAndHashAlgorithm);
+        DtlsCertificateStore.Credential credential = loadCredential(certResources, keyResource);
+        return new DefaultTlsSignerCredentials(context, loadCertificateChain(credential),
+                credential.getPrivateKey(), signatureAndHashAlgorithm);
     }
 
-    static TlsCertificate loadCertificateChain (String[] resources)
+    /**
+     * The certificate and the private key are taken from one cached credential, so a reload never mixes them.
+     * Only the first certificate resource is used, it is the one paired with the key.
+     */
+    static DtlsCertificateStore.Credential loadCredential (String[] certResources, String keyResource)
             throws IOException {
-        org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Certificate[] chain = new org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Certificate[resources.length];
-        for (int i = 0; i < resources.length; ++i) {
-            chain[i] = loadCertificateResource(resources[i]);
-        }
-        return new TlsCertificate(chain);
+        return DtlsCertificateStore.getInstance().getCredential(certResources[0], keyResource);
     }
 
-    static org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Certificate loadCertificateResource (
+    static TlsCertificate loadCertificateChain (DtlsCertificateStore.Credential credential) {
+        return new TlsCertificate(new org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Certificate[]{credential.getCertificate()});
+    }
+
+    static org.kkukie.jrtsp_gw.media.bouncycastle.asn1.x509.Certificate readCertificateResource (
             String resource) throws IOException {
         PemObject pem = loadPemResource(resource);
         if (pem.getType().endsWith("CERTIFICATE")) {
@@ -151,7 +164,7 @@ public class TlsUtils {
                 "'resource' doesn't specify a valid tlsCertificate");
     }
 
-    static AsymmetricKeyParameter loadPrivateKeyResource (String resource)
+    static AsymmetricKeyParameter readPrivateKeyResource (String resource)
             throws IOException {
         PemObject pem = loadPemResource(resource);
         if (pem.getType().endsWith("RSA PRIVATE KEY")) {
@@ -161,6 +174,16 @@ public class TlsUtils {
                     rsa.getPrime1(), rsa.getPrime2(), rsa.getExponent1(),
                     rsa.getExponent2(), rsa.getCoefficient());
         }
+        if (pem.getType().endsWith("EC PRIVATE KEY")) {
+            // SEC1 (RFC 5915) : wrap into PKCS#8 with the curve parameters of the key
+            ECPrivateKey ec = ECPrivateKey.getInstance(pem.getContent());
+            if (ec.getParameters() == null) {
+                throw new IllegalArgumentException(
+                        "'resource' doesn't specify the curve of the EC private key");
+            }
+            AlgorithmIdentifier algId = new AlgorithmIdentifier(X9ObjectIdentifiers.id_ecPublicKey, ec.getParameters());
+            return PrivateKeyFactory.createKey(new PrivateKeyInfo(algId, ec));
+        }
         if (pem.getType().endsWith("PRIVATE KEY")) {
             return PrivateKeyFactory.createKey(pem.getContent());
         }
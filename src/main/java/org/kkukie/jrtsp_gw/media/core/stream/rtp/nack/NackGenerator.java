@@ -0,0 +1,184 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.nack;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 1) SSRC 하나의 수신 순서 번호(sequence number)를 보고 빠진 패킷을 찾아서, Generic NACK 으로 재전송을 요청할 목록을 만든다.
+ *      - 빠진 패킷은 발견 즉시 요청하고, 응답이 없으면 RTT 간격으로 최대 maxRetries 번까지 다시 요청한다.
+ *      - maxWaitMs 가 0 보다 크면, 재전송이 maxWaitMs 안에 도착할 수 없는 요청(발견 후 경과 시간 + RTT > maxWaitMs)은 보내지 않는다.
+ * 2) RTT 는 NACK 를 한 번만 보낸 패킷이 재전송되어 도착한 시간으로 추정한다. (Karn's algorithm, EWMA 1/8)
+ * 3) 스레드 안전하지 않다. (RtpLossRecovery 가 직렬화한다.)
+ */
+public class NackGenerator {
+
+    public static final long DEFAULT_RTT_MS = 100;
+    private static final long MIN_RTT_MS = 5;
+    private static final long MAX_RTT_MS = 1000;
+
+    /** 이보다 크게 순서 번호가 뛰면 (송신측 재시작 등) 손실로 보지 않고 추적을 다시 시작한다. */
+    static final int MAX_GAP = 1000;
+    /** 동시에 추적하는 최대 손실 패킷 수 (넘으면 가장 오래된 것부터 포기한다.) */
+    static final int MAX_MISSING_COUNT = 500;
+
+    public enum Arrival {
+        /** 가장 높은 순서 번호보다 뒤의 새 패킷 */
+        NEW,
+        /** NACK 를 보낸 뒤 도착한 패킷 (재전송으로 복구) */
+        RECOVERED,
+        /** NACK 를 보내기 전에 늦게 도착한 패킷 (순서 뒤바뀜) */
+        REORDERED,
+        /** 이미 받았거나 포기한 패킷 */
+        DUPLICATE
+    }
+
+    private final int maxRetries;
+    private final long maxWaitMs;
+
+    private boolean isInitialized = false;
+    /** 지금까지 받은 가장 높은 순서 번호 (wrap-around 를 펼친 값) */
+    private long highestSeq = 0;
+    /** key : wrap-around 를 펼친 순서 번호 */
+    private final TreeMap<Long, MissingPacket> missingPackets = new TreeMap<>();
+
+    private long rttMs = DEFAULT_RTT_MS;
+    private int expiredCount = 0;
+
+    public NackGenerator(int maxRetries, long maxWaitMs) {
+        this.maxRetries = maxRetries;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public Arrival onPacket(int seqNumber, long now) {
+        if (!isInitialized) {
+            isInitialized = true;
+            highestSeq = seqNumber;
+            return Arrival.NEW;
+        }
+
+        long seq = extend(seqNumber);
+        long gap = seq - highestSeq;
+        if (gap > MAX_GAP || gap < -MAX_GAP) {
+            // 추적 재시작
+            expiredCount += missingPackets.size();
+            missingPackets.clear();
+            highestSeq = seqNumber;
+            return Arrival.NEW;
+        }
+
+        if (gap > 0) {
+            for (long missingSeq = highestSeq + 1; missingSeq < seq; missingSeq++) {
+                missingPackets.put(missingSeq, new MissingPacket(now));
+            }
+            while (missingPackets.size() > MAX_MISSING_COUNT) {
+                missingPackets.pollFirstEntry();
+                expiredCount++;
+            }
+            highestSeq = seq;
+            return Arrival.NEW;
+        }
+
+        MissingPacket missingPacket = missingPackets.remove(seq);
+        if (missingPacket == null) {
+            return Arrival.DUPLICATE;
+        }
+        if (missingPacket.retries == 0) {
+            return Arrival.REORDERED;
+        }
+
+        if (missingPacket.retries == 1) {
+            // 한 번만 요청한 패킷만 RTT 표본으로 쓴다. (어느 요청에 대한 응답인지 모호하지 않다.)
+            long sample = Math.min(Math.max(now - missingPacket.lastSentTime, MIN_RTT_MS), MAX_RTT_MS);
+            rttMs = (rttMs * 7 + sample) / 8;
+        }
+        return Arrival.RECOVERED;
+    }
+
+    /**
+     * 지금 요청해야 하는 순서 번호를 seqNumbers 에 담고, 요청 횟수를 갱신한다.
+     * 재요청 횟수를 다 쓴 패킷은 포기한다. (expiredCount)
+     *
+     * @return seqNumbers 에 담은 개수 (오름차순)
+     */
+    public int collect(long now, int[] seqNumbers) {
+        int count = 0;
+        Iterator<Map.Entry<Long, MissingPacket>> iterator = missingPackets.entrySet().iterator();
+        while (iterator.hasNext() && count < seqNumbers.length) {
+            Map.Entry<Long, MissingPacket> entry = iterator.next();
+            MissingPacket missingPacket = entry.getValue();
+            if (missingPacket.retries > 0 && now - missingPacket.lastSentTime < getRetryIntervalMs()) {
+                continue;
+            }
+
+            if (missingPacket.retries >= maxRetries
+                    || (maxWaitMs > 0 && now - missingPacket.detectedTime + rttMs > maxWaitMs)) {
+                iterator.remove();
+                expiredCount++;
+                continue;
+            }
+
+            missingPacket.retries++;
+            missingPacket.lastSentTime = now;
+            seqNumbers[count++] = (int) (entry.getKey() & 0xFFFF);
+        }
+        return count;
+    }
+
+    /**
+     * @return 다음에 collect() 를 호출해야 하는 시간, 추적 중인 손실 패킷이 없으면 -1
+     */
+    public long getNextDueTime() {
+        long nextDueTime = -1;
+        for (MissingPacket missingPacket : missingPackets.values()) {
+            long dueTime = missingPacket.retries == 0 ? missingPacket.detectedTime : missingPacket.lastSentTime + getRetryIntervalMs();
+            if (nextDueTime < 0 || dueTime < nextDueTime) {
+                nextDueTime = dueTime;
+            }
+        }
+        return nextDueTime;
+    }
+
+    /**
+     * @return 마지막 호출 이후 포기한 손실 패킷 수
+     */
+    public int pollExpiredCount() {
+        int curExpiredCount = expiredCount;
+        expiredCount = 0;
+        return curExpiredCount;
+    }
+
+    public int getMissingCount() {
+        return missingPackets.size();
+    }
+
+    public long getRttMs() {
+        return rttMs;
+    }
+
+    private long getRetryIntervalMs() {
+        // 재전송이 조금 늦게 와도 중복 요청하지 않도록 여유를 둔다.
+        return rttMs + (rttMs >> 2);
+    }
+
+    private long extend(int seqNumber) {
+        int delta = (seqNumber - (int) (highestSeq & 0xFFFF)) & 0xFFFF;
+        if (delta >= 0x8000) {
+            delta -= 0x10000;
+        }
+        return highestSeq + delta;
+    }
+
+    private static class MissingPacket {
+
+        private final long detectedTime;
+        private long lastSentTime = 0;
+        private int retries = 0;
+
+        private MissingPacket(long detectedTime) {
+            this.detectedTime = detectedTime;
+        }
+
+    }
+
+}
@@ -0,0 +1,358 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.nack;
+
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpInfo;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpPacket;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * SSRC 하나의 패킷을 순서 번호 순서대로 내보내는 수신 지터(재정렬) 버퍼
+ * 1) 기다리는 순서 번호(expectedSeq)보다 뒤의 패킷이 먼저 오면 순서 번호로 인덱싱하는 링에 복사해서 보관한다. (그 사이 늦은 패킷이나 NACK 재전송을 기다린다.)
+ *      - 순서대로 도착한 패킷은 보관하지 않고 바로 내보낸다. (빠진 패킷이 있을 때만 지연이 생긴다.)
+ * 2) 빠진 패킷이 도착하면 이어지는 보관 패킷을 함께 내보내고,
+ *    가장 오래 보관한 패킷이 delayMs 를 넘기면 빠진 구간을 건너뛰고 내보낸다. (skippedCount)
+ * 3) delayMs 는 빠진 패킷이 실제로 도착하기까지 걸린 시간으로 조정한다. (최대 maxDelayMs)
+ *      - 관측값의 최대치를 유지하다가 DECAY_INTERVAL_MS 마다 1/16 씩 줄인다.
+ *      - 건너뛴 순서 번호의 패킷이 늦게 도착하면 두 배로 늘린다. (이미 내보낸 패킷의 중복은 지연에 반영하지 않는다.)
+ * 4) 기다리는 순서 번호보다 앞의 패킷(늦게 도착한 패킷, 중복, 늦은 재전송)은 내보내지 않고 버린다. (lateCount)
+ *      - 시청자에게는 항상 순서 번호 순서대로만 내보낸다.
+ *      - 보관 범위보다 먼 뒤쪽 점프이거나 MAX_CONSECUTIVE_LATE_COUNT 번 연속으로 늦은 패킷이 오면,
+ *        송신측이 다시 시작한 것으로 보고 보관 중인 패킷을 모두 내보낸 뒤 그 패킷부터 다시 시작한다. (resyncCount)
+ * 5) 링의 슬롯(RtpInfo + RtpPacket)은 처음 사용할 때 한 번 만들고 계속 재사용한다. (패킷마다 할당하지 않는다.)
+ *      - 출력 콜백이 반환되면 슬롯은 재사용되므로 콜백 안에서 복사해야 한다.
+ * 6) 스레드 안전하지 않다. (RtpLossRecovery 가 직렬화한다.)
+ */
+public class RtpJitterBuffer {
+
+    private static final int MIN_PACKET_CAPACITY = 1500;
+    /** 적응 지연의 최소값 */
+    static final long MIN_DELAY_MS = 10;
+    /** 지연 추정치를 줄이는 간격 */
+    static final long DECAY_INTERVAL_MS = 1000;
+    private static final int MAX_DECAY_COUNT = 64;
+    /** 이 횟수만큼 연속으로 늦은 패킷이 오면 순서 번호를 다시 맞춘다. */
+    static final int MAX_CONSECUTIVE_LATE_COUNT = 16;
+
+    /** 보관 가능한 순서 번호 범위, 65536 의 약수여야 한다. */
+    private final int capacity;
+    private final long maxDelayMs;
+
+    private final RtpInfo[] slots;
+    private final boolean[] isHeld;
+    private final long[] heldTimes;
+    /** 건너뛴 순서 번호 (없으면 -1), 늦게 도착한 패킷이 실제로 건너뛴 것인지 구분한다. */
+    private final int[] skippedSeqs;
+    private int heldCount = 0;
+    private long oldestHeldTime = 0;
+
+    private boolean isInitialized = false;
+    private int expectedSeq = 0;
+    private int consecutiveLateCount = 0;
+
+    /** 빠진 패킷이 도착하기까지 걸린 시간의 추정치 */
+    private long fillDelayMs;
+    private long delayMs;
+    private long lastDecayTime = 0;
+
+    /* 통계 (RtpLossRecovery 가 가져가면서 초기화한다.) */
+    private int releasedHeldCount = 0;
+    private long holdTimeSumMs = 0;
+    private long maxHoldTimeMs = 0;
+    private int skippedCount = 0;
+    private int lateCount = 0;
+    private int resyncCount = 0;
+
+    /**
+     * @param capacity   보관 가능한 순서 번호 범위 (2 의 거듭제곱, 최대 65536)
+     * @param maxDelayMs 빠진 패킷을 기다리는 최대 시간
+     */
+    public RtpJitterBuffer(int capacity, long maxDelayMs) {
+        if (capacity <= 0 || capacity > 0x10000 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Jitter buffer capacity must be a power of two. (capacity=" + capacity + ")");
+        }
+
+        this.capacity = capacity;
+        this.maxDelayMs = maxDelayMs;
+        this.slots = new RtpInfo[capacity];
+        this.isHeld = new boolean[capacity];
+        this.heldTimes = new long[capacity];
+        this.skippedSeqs = new int[capacity];
+        Arrays.fill(skippedSeqs, -1);
+        // 처음에는 최대 지연으로 시작해서 관측값에 맞춰 줄인다.
+        this.fillDelayMs = maxDelayMs;
+        this.delayMs = maxDelayMs;
+    }
+
+    public void receive(RtpInfo rtpInfo, long now, Consumer<RtpInfo> output) {
+        int seqNumber = rtpInfo.getRtpPacket().getSeqNumber();
+        if (!isInitialized) {
+            isInitialized = true;
+            expectedSeq = seqNumber;
+            lastDecayTime = now;
+        }
+        decay(now);
+
+        int delta = getDelta(seqNumber);
+        if (delta < 0 && (-delta > capacity || ++consecutiveLateCount >= MAX_CONSECUTIVE_LATE_COUNT)) {
+            // 송신측 재시작 (또는 SSRC 재사용) : 보관 중인 패킷을 모두 내보내고 이 패킷부터 다시 시작한다.
+            resync(seqNumber, now, output);
+            delta = 0;
+        } else if (delta < 0) {
+            lateCount++;
+            int index = seqNumber & (capacity - 1);
+            if (skippedSeqs[index] == seqNumber) {
+                // 기다렸다면 받을 수 있었던 패킷이다.
+                skippedSeqs[index] = -1;
+                fillDelayMs = Math.max(fillDelayMs, delayMs) * 2;
+                updateDelay();
+            }
+            return;
+        }
+        consecutiveLateCount = 0;
+
+        if (delta >= capacity) {
+            // 보관 범위를 넘는 점프 : 보관 중인 패킷을 모두 내보내고 이 패킷부터 다시 시작한다.
+            flush(now, output);
+            expectedSeq = seqNumber;
+            delta = 0;
+        }
+
+        if (delta == 0) {
+            if (heldCount > 0) {
+                // 빠진 패킷이 도착했다.
+                fillDelayMs = Math.max(fillDelayMs, now - oldestHeldTime);
+                updateDelay();
+            }
+            skippedSeqs[seqNumber & (capacity - 1)] = -1;
+            output.accept(rtpInfo);
+            expectedSeq = (expectedSeq + 1) & 0xFFFF;
+            releaseInOrder(now, output);
+            return;
+        }
+
+        int index = seqNumber & (capacity - 1);
+        if (isHeld[index]) {
+            // 이미 보관 중인 패킷의 중복
+            return;
+        }
+        hold(index, rtpInfo);
+        isHeld[index] = true;
+        heldTimes[index] = now;
+        if (heldCount++ == 0) {
+            oldestHeldTime = now;
+        }
+    }
+
+    /**
+     * delayMs 를 넘긴 보관 패킷이 있으면, 그 앞의 빠진 구간을 건너뛰고 내보낸다.
+     */
+    public void onTimer(long now, Consumer<RtpInfo> output) {
+        decay(now);
+        while (heldCount > 0 && now - oldestHeldTime >= delayMs) {
+            skipToNextHeld();
+            releaseInOrder(now, output);
+        }
+    }
+
+    /**
+     * @return 다음에 onTimer() 를 호출해야 하는 시간, 보관 중인 패킷이 없으면 -1
+     */
+    public long getNextDueTime() {
+        return heldCount > 0 ? oldestHeldTime + delayMs : -1;
+    }
+
+    /**
+     * 보관 중인 패킷을 모두 순서대로 내보낸다.
+     */
+    public void flush(long now, Consumer<RtpInfo> output) {
+        while (heldCount > 0) {
+            skipToNextHeld();
+            releaseInOrder(now, output);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = null;
+            isHeld[i] = false;
+            skippedSeqs[i] = -1;
+        }
+        heldCount = 0;
+        consecutiveLateCount = 0;
+    }
+
+    public int getHeldCount() {
+        return heldCount;
+    }
+
+    /**
+     * @return 빠진 패킷을 기다리는 현재 시간 (ms)
+     */
+    public long getDelayMs() {
+        return delayMs;
+    }
+
+    public int pollReleasedHeldCount() {
+        int curCount = releasedHeldCount;
+        releasedHeldCount = 0;
+        return curCount;
+    }
+
+    public long pollHoldTimeSumMs() {
+        long curSum = holdTimeSumMs;
+        holdTimeSumMs = 0;
+        return curSum;
+    }
+
+    public long pollMaxHoldTimeMs() {
+        long curMax = maxHoldTimeMs;
+        maxHoldTimeMs = 0;
+        return curMax;
+    }
+
+    public int pollSkippedCount() {
+        int curCount = skippedCount;
+        skippedCount = 0;
+        return curCount;
+    }
+
+    public int pollLateCount() {
+        int curCount = lateCount;
+        lateCount = 0;
+        return curCount;
+    }
+
+    public int pollResyncCount() {
+        int curCount = resyncCount;
+        resyncCount = 0;
+        return curCount;
+    }
+
+    private void resync(int seqNumber, long now, Consumer<RtpInfo> output) {
+        flush(now, output);
+        Arrays.fill(skippedSeqs, -1);
+        expectedSeq = seqNumber;
+        consecutiveLateCount = 0;
+        resyncCount++;
+    }
+
+    private void releaseInOrder(long now, Consumer<RtpInfo> output) {
+        boolean isReleased = false;
+        while (heldCount > 0) {
+            int index = expectedSeq & (capacity - 1);
+            if (!isHeld[index]) {
+                break;
+            }
+
+            isHeld[index] = false;
+            skippedSeqs[index] = -1;
+            heldCount--;
+            expectedSeq = (expectedSeq + 1) & 0xFFFF;
+            isReleased = true;
+
+            long holdTimeMs = now - heldTimes[index];
+            releasedHeldCount++;
+            holdTimeSumMs += holdTimeMs;
+            if (holdTimeMs > maxHoldTimeMs) {
+                maxHoldTimeMs = holdTimeMs;
+            }
+
+            output.accept(slots[index]);
+        }
+
+        if (isReleased && heldCount > 0) {
+            oldestHeldTime = findOldestHeldTime();
+        }
+    }
+
+    private void skipToNextHeld() {
+        for (int delta = 0; delta < capacity; delta++) {
+            int seqNumber = (expectedSeq + delta) & 0xFFFF;
+            if (isHeld[seqNumber & (capacity - 1)]) {
+                skippedCount += delta;
+                expectedSeq = seqNumber;
+                return;
+            }
+            skippedSeqs[seqNumber & (capacity - 1)] = seqNumber;
+        }
+    }
+
+    private long findOldestHeldTime() {
+        long curOldestHeldTime = Long.MAX_VALUE;
+        int foundCount = 0;
+        for (int delta = 0; delta < capacity && foundCount < heldCount; delta++) {
+            int index = (expectedSeq + delta) & (capacity - 1);
+            if (isHeld[index]) {
+                foundCount++;
+                curOldestHeldTime = Math.min(curOldestHeldTime, heldTimes[index]);
+            }
+        }
+        return curOldestHeldTime;
+    }
+
+    private void decay(long now) {
+        long elapsed = now - lastDecayTime;
+        if (elapsed < DECAY_INTERVAL_MS) {
+            return;
+        }
+
+        long decayCount = elapsed / DECAY_INTERVAL_MS;
+        lastDecayTime += decayCount * DECAY_INTERVAL_MS;
+        for (long i = 0; i < Math.min(decayCount, MAX_DECAY_COUNT); i++) {
+            fillDelayMs = Math.max(fillDelayMs - Math.max(fillDelayMs >> 4, 1), 0);
+        }
+        updateDelay();
+    }
+
+    private void updateDelay() {
+        fillDelayMs = Math.min(fillDelayMs, maxDelayMs);
+        // 관측값보다 조금 더 기다린다.
+        long targetDelayMs = fillDelayMs + (fillDelayMs >> 2);
+        delayMs = Math.min(Math.max(targetDelayMs, MIN_DELAY_MS), maxDelayMs);
+    }
+
+    /**
+     * @return expectedSeq 에서 seqNumber 까지의 거리 (wrap-around 고려, -32768 ~ 32767)
+     */
+    private int getDelta(int seqNumber) {
+        int delta = (seqNumber - expectedSeq) & 0xFFFF;
+        return delta >= 0x8000 ? delta - 0x10000 : delta;
+    }
+
+    private void hold(int index, RtpInfo rtpInfo) {
+        ByteBuffer srcBuffer = rtpInfo.getRtpPacket().getBuffer();
+        int length = srcBuffer.limit();
+
+        RtpInfo slot = slots[index];
+        if (slot == null || slot.getRtpPacket().getBuffer().capacity() < length || !isSameSource(slot, rtpInfo)) {
+            RtpPacket rtpPacket = slot != null && slot.getRtpPacket().getBuffer().capacity() >= length ?
+                    slot.getRtpPacket() : new RtpPacket(Math.max(length, MIN_PACKET_CAPACITY), false);
+            slot = new RtpInfo(rtpPacket, rtpInfo.getFromAddr(), rtpInfo.getToAddr(), rtpInfo.getMediaType(), rtpInfo.getEncodingName());
+            slots[index] = slot;
+        }
+
+        ByteBuffer dstBuffer = slot.getRtpPacket().getBuffer();
+        dstBuffer.clear();
+        if (srcBuffer.hasArray()) {
+            System.arraycopy(srcBuffer.array(), srcBuffer.arrayOffset(), dstBuffer.array(), dstBuffer.arrayOffset(), length);
+            dstBuffer.limit(length);
+        } else {
+            int position = srcBuffer.position();
+            srcBuffer.rewind();
+            dstBuffer.put(srcBuffer);
+            dstBuffer.flip();
+            srcBuffer.position(position);
+        }
+    }
+
+    private static boolean isSameSource(RtpInfo slot, RtpInfo rtpInfo) {
+        return Objects.equals(slot.getMediaType(), rtpInfo.getMediaType())
+                && Objects.equals(slot.getEncodingName(), rtpInfo.getEncodingName())
+                && Objects.equals(slot.getFromAddr(), rtpInfo.getFromAddr())
+                && Objects.equals(slot.getToAddr(), rtpInfo.getToAddr());
+    }
+
+}
@@ -0,0 +1,356 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.nack;
+
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpInfo;
+import org.kkukie.jrtsp_gw.session.media.base.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 호(Conference)의 수신 RTP 손실 복구 (Ingest 경로)
+ * 1) 비디오 SSRC 별 NackGenerator 로 빠진 패킷을 찾아서 NackSender 로 Generic NACK 을 보낸다. (패킷 도착/타이머마다 한 번에 모아서 보낸다.)
+ * 2) SSRC 별 RtpJitterBuffer 로 늦은 패킷(재전송 포함)을 기다리는 동안 뒤의 패킷을 보관했다가 순서대로 내보낸다.
+ *      - 오디오와 비디오의 최대 지연과 버퍼 크기를 따로 설정한다. (최대 지연이 0 이면 재정렬하지 않고 바로 내보낸다.)
+ *      - 비디오 지터 버퍼를 쓰면 그 안에 도착할 수 없는 NACK 은 보내지 않는다. (RTT 기준)
+ * 3) SSRC_IDLE_TIMEOUT_MS 동안 패킷이 오지 않은 SSRC 의 상태는 지운다. (송신측 재시작으로 SSRC 가 바뀐 경우)
+ *      - 지터 버퍼에 남은 패킷은 내보낸다.
+ *      - simulcast 처럼 같은 미디어의 SSRC 가 여러 개일 수 있어서, 새 SSRC 가 왔다고 바로 지우지는 않는다.
+ * 4) 스레드 안전하지 않다. RtpHandler 가 이 객체로 동기화해서 호출한다.
+ *      - 통계 getter 는 아무 스레드에서나 호출할 수 있다.
+ */
+public class RtpLossRecovery {
+
+    /** 한 번에 보내는 NACK 의 최대 순서 번호 개수 */
+    private static final int MAX_NACK_SEQ_COUNT = 64;
+    /** 비디오 지터 버퍼의 순서 번호 범위 (키프레임은 수백 개 패킷으로 나뉜다.) */
+    static final int VIDEO_JITTER_BUFFER_CAPACITY = 512;
+    /** 오디오 지터 버퍼의 순서 번호 범위 (20ms 패킷 기준 약 1.3 초) */
+    static final int AUDIO_JITTER_BUFFER_CAPACITY = 64;
+    /** 추적하는 최대 SSRC 수 (넘으면 가장 오래된 SSRC 부터 버린다.) */
+    private static final int MAX_SSRC_COUNT = 8;
+    /** 이 시간 동안 패킷이 오지 않은 SSRC 의 상태는 지운다. */
+    static final long SSRC_IDLE_TIMEOUT_MS = 5000;
+    /** 쉬고 있는 SSRC 를 찾는 주기 */
+    private static final long SSRC_PRUNE_INTERVAL_MS = 1000;
+
+    @FunctionalInterface
+    public interface NackSender {
+        void sendNack(long mediaSsrc, int[] seqNumbers, int length);
+    }
+
+    private final int nackMaxRetries;
+    private final long videoMaxDelayMs;
+    private final long audioMaxDelayMs;
+    private final NackSender nackSender;
+
+    /** SSRC 는 호마다 몇 개뿐이므로 순차 탐색한다. (패킷마다 Long 박싱을 하지 않는다.) */
+    private final List<SsrcState> ssrcStates = new ArrayList<>();
+    private final int[] nackSeqNumbers = new int[MAX_NACK_SEQ_COUNT];
+    private long lastPruneTime = 0;
+
+    /* 통계 */
+    private final AtomicLong nackPacketCount = new AtomicLong(0);
+    private final AtomicLong nackRequestCount = new AtomicLong(0);
+    private final AtomicLong recoveredCount = new AtomicLong(0);
+    private final AtomicLong unrecoveredCount = new AtomicLong(0);
+    private final AtomicLong reorderedCount = new AtomicLong(0);
+    private final AtomicLong duplicateCount = new AtomicLong(0);
+    private final AtomicLong skippedCount = new AtomicLong(0);
+    private final AtomicLong lateCount = new AtomicLong(0);
+    private final AtomicLong resyncCount = new AtomicLong(0);
+    private final AtomicLong heldPacketCount = new AtomicLong(0);
+    private final AtomicLong holdTimeSumMs = new AtomicLong(0);
+    private volatile long maxHoldTimeMs = 0;
+    private volatile long rttMs = NackGenerator.DEFAULT_RTT_MS;
+    private volatile long videoDelayMs;
+    private volatile long audioDelayMs;
+
+    /**
+     * @param nackMaxRetries  비디오 손실 패킷 하나에 보내는 최대 NACK 횟수 (0 : NACK 을 보내지 않는다.)
+     * @param videoMaxDelayMs 비디오 지터 버퍼의 최대 보관 시간 (0 : 재정렬하지 않는다.)
+     * @param audioMaxDelayMs 오디오 지터 버퍼의 최대 보관 시간 (0 : 재정렬하지 않는다.)
+     */
+    public RtpLossRecovery(int nackMaxRetries, long videoMaxDelayMs, long audioMaxDelayMs, NackSender nackSender) {
+        this.nackMaxRetries = nackMaxRetries;
+        this.videoMaxDelayMs = videoMaxDelayMs;
+        this.audioMaxDelayMs = audioMaxDelayMs;
+        this.nackSender = nackSender;
+        this.videoDelayMs = videoMaxDelayMs;
+        this.audioDelayMs = audioMaxDelayMs;
+    }
+
+    public void receive(RtpInfo rtpInfo, long now, Consumer<RtpInfo> output) {
+        pruneIdleSsrcStates(now, output);
+
+        long ssrc = rtpInfo.getRtpPacket().getSyncSource();
+        SsrcState ssrcState = getSsrcState(ssrc, rtpInfo.getMediaType());
+        ssrcState.lastReceiveTime = now;
+
+        if (ssrcState.nackGenerator != null) {
+            switch (ssrcState.nackGenerator.onPacket(rtpInfo.getRtpPacket().getSeqNumber(), now)) {
+                case RECOVERED:
+                    recoveredCount.incrementAndGet();
+                    rttMs = ssrcState.nackGenerator.getRttMs();
+                    break;
+                case REORDERED:
+                    reorderedCount.incrementAndGet();
+                    break;
+                case DUPLICATE:
+                    duplicateCount.incrementAndGet();
+                    return;
+                default:
+                    break;
+            }
+            sendNack(ssrcState, now);
+        }
+
+        if (ssrcState.jitterBuffer != null) {
+            ssrcState.jitterBuffer.receive(rtpInfo, now, output);
+            collectJitterBufferStats(ssrcState);
+        } else {
+            output.accept(rtpInfo);
+        }
+    }
+
+    /**
+     * getNextDueTime() 시간에 호출해서, NACK 재요청과 지터 버퍼 시간 초과를 처리한다.
+     */
+    public void onTimer(long now, Consumer<RtpInfo> output) {
+        pruneIdleSsrcStates(now, output);
+
+        for (int i = 0; i < ssrcStates.size(); i++) {
+            SsrcState ssrcState = ssrcStates.get(i);
+            if (ssrcState.nackGenerator != null) {
+                sendNack(ssrcState, now);
+            }
+            if (ssrcState.jitterBuffer != null) {
+                ssrcState.jitterBuffer.onTimer(now, output);
+                collectJitterBufferStats(ssrcState);
+            }
+        }
+    }
+
+    /**
+     * @return 다음에 onTimer() 를 호출해야 하는 시간, 처리할 일이 없으면 -1
+     */
+    public long getNextDueTime() {
+        long nextDueTime = -1;
+        for (int i = 0; i < ssrcStates.size(); i++) {
+            SsrcState ssrcState = ssrcStates.get(i);
+            if (ssrcState.nackGenerator != null) {
+                nextDueTime = min(nextDueTime, ssrcState.nackGenerator.getNextDueTime());
+            }
+            if (ssrcState.jitterBuffer != null) {
+                nextDueTime = min(nextDueTime, ssrcState.jitterBuffer.getNextDueTime());
+            }
+        }
+        return nextDueTime;
+    }
+
+    /**
+     * 보관 중인 패킷을 버리고 상태를 초기화한다.
+     */
+    public void clear() {
+        for (SsrcState ssrcState : ssrcStates) {
+            if (ssrcState.jitterBuffer != null) {
+                ssrcState.jitterBuffer.clear();
+            }
+        }
+        ssrcStates.clear();
+    }
+
+    private SsrcState getSsrcState(long ssrc, String mediaType) {
+        for (int i = 0; i < ssrcStates.size(); i++) {
+            SsrcState ssrcState = ssrcStates.get(i);
+            if (ssrcState.ssrc == ssrc) {
+                return ssrcState;
+            }
+        }
+
+        if (ssrcStates.size() >= MAX_SSRC_COUNT) {
+            SsrcState oldSsrcState = ssrcStates.remove(0);
+            if (oldSsrcState.jitterBuffer != null) {
+                oldSsrcState.jitterBuffer.clear();
+            }
+        }
+
+        SsrcState ssrcState = new SsrcState(ssrc, MediaType.VIDEO.getName().equals(mediaType));
+        ssrcStates.add(ssrcState);
+        return ssrcState;
+    }
+
+    private void pruneIdleSsrcStates(long now, Consumer<RtpInfo> output) {
+        if (now - lastPruneTime < SSRC_PRUNE_INTERVAL_MS) {
+            return;
+        }
+        lastPruneTime = now;
+
+        for (int i = ssrcStates.size() - 1; i >= 0; i--) {
+            SsrcState ssrcState = ssrcStates.get(i);
+            if (now - ssrcState.lastReceiveTime < SSRC_IDLE_TIMEOUT_MS) {
+                continue;
+            }
+
+            ssrcStates.remove(i);
+            if (ssrcState.jitterBuffer != null) {
+                ssrcState.jitterBuffer.flush(now, output);
+                collectJitterBufferStats(ssrcState);
+            }
+        }
+    }
+
+    private void sendNack(SsrcState ssrcState, long now) {
+        int count = ssrcState.nackGenerator.collect(now, nackSeqNumbers);
+        unrecoveredCount.addAndGet(ssrcState.nackGenerator.pollExpiredCount());
+        if (count <= 0) {
+            return;
+        }
+
+        nackPacketCount.incrementAndGet();
+        nackRequestCount.addAndGet(count);
+        nackSender.sendNack(ssrcState.ssrc, nackSeqNumbers, count);
+    }
+
+    private void collectJitterBufferStats(SsrcState ssrcState) {
+        RtpJitterBuffer jitterBuffer = ssrcState.jitterBuffer;
+        int releasedHeldCount = jitterBuffer.pollReleasedHeldCount();
+        if (releasedHeldCount > 0) {
+            heldPacketCount.addAndGet(releasedHeldCount);
+            holdTimeSumMs.addAndGet(jitterBuffer.pollHoldTimeSumMs());
+            long curMaxHoldTimeMs = jitterBuffer.pollMaxHoldTimeMs();
+            if (curMaxHoldTimeMs > maxHoldTimeMs) {
+                maxHoldTimeMs = curMaxHoldTimeMs;
+            }
+        }
+        int curSkippedCount = jitterBuffer.pollSkippedCount();
+        if (curSkippedCount > 0) {
+            skippedCount.addAndGet(curSkippedCount);
+        }
+        int curLateCount = jitterBuffer.pollLateCount();
+        if (curLateCount > 0) {
+            lateCount.addAndGet(curLateCount);
+        }
+        int curResyncCount = jitterBuffer.pollResyncCount();
+        if (curResyncCount > 0) {
+            resyncCount.addAndGet(curResyncCount);
+        }
+
+        if (ssrcState.isVideo) {
+            videoDelayMs = jitterBuffer.getDelayMs();
+        } else {
+            audioDelayMs = jitterBuffer.getDelayMs();
+        }
+    }
+
+    private static long min(long time1, long time2) {
+        if (time1 < 0) { return time2; }
+        if (time2 < 0) { return time1; }
+        return Math.min(time1, time2);
+    }
+
+    /** NACK 패킷 (RTCP) 송신 수 */
+    public long getNackPacketCount() {
+        return nackPacketCount.get();
+    }
+
+    /** NACK 으로 요청한 순서 번호 수 (재요청 포함) */
+    public long getNackRequestCount() {
+        return nackRequestCount.get();
+    }
+
+    /** 재전송으로 복구된 패킷 수 */
+    public long getRecoveredCount() {
+        return recoveredCount.get();
+    }
+
+    /** 재요청 횟수나 대기 시간을 넘겨서 포기한 손실 패킷 수 */
+    public long getUnrecoveredCount() {
+        return unrecoveredCount.get();
+    }
+
+    /** NACK 을 보내기 전에 늦게 도착한 패킷 수 */
+    public long getReorderedCount() {
+        return reorderedCount.get();
+    }
+
+    /** 버린 중복 패킷 수 */
+    public long getDuplicateCount() {
+        return duplicateCount.get();
+    }
+
+    /** 지터 버퍼가 기다리다가 건너뛴 순서 번호 수 */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /** 지터 버퍼가 건너뛴 뒤에 도착한 패킷 수 */
+    public long getLateCount() {
+        return lateCount.get();
+    }
+
+    /** 지터 버퍼가 뒤쪽 점프(송신측 재시작)로 순서 번호를 다시 맞춘 횟수 */
+    public long getResyncCount() {
+        return resyncCount.get();
+    }
+
+    /** 지터 버퍼에 보관되었다가 나간 패킷 수 */
+    public long getHeldPacketCount() {
+        return heldPacketCount.get();
+    }
+
+    /** 지터 버퍼에 보관된 패킷의 평균 추가 지연 (ms) */
+    public double getAvgHoldTimeMs() {
+        long curHeldPacketCount = heldPacketCount.get();
+        return curHeldPacketCount == 0 ? 0 : (double) holdTimeSumMs.get() / curHeldPacketCount;
+    }
+
+    /** 지터 버퍼에 보관된 패킷의 최대 추가 지연 (ms) */
+    public long getMaxHoldTimeMs() {
+        return maxHoldTimeMs;
+    }
+
+    /** 재전송 도착 시간으로 추정한 RTT (ms) */
+    public long getRttMs() {
+        return rttMs;
+    }
+
+    /** 비디오 지터 버퍼가 빠진 패킷을 기다리는 현재 시간 (ms) */
+    public long getVideoDelayMs() {
+        return videoDelayMs;
+    }
+
+    /** 오디오 지터 버퍼가 빠진 패킷을 기다리는 현재 시간 (ms) */
+    public long getAudioDelayMs() {
+        return audioDelayMs;
+    }
+
+    /** 추적 중인 SSRC 수 */
+    int getSsrcCount() {
+        return ssrcStates.size();
+    }
+
+    private class SsrcState {
+
+        private final long ssrc;
+        private final boolean isVideo;
+        private final NackGenerator nackGenerator;
+        private final RtpJitterBuffer jitterBuffer;
+        private long lastReceiveTime = 0;
+
+        private SsrcState(long ssrc, boolean isVideo) {
+            this.ssrc = ssrc;
+            this.isVideo = isVideo;
+            if (isVideo) {
+                this.nackGenerator = nackMaxRetries > 0 ? new NackGenerator(nackMaxRetries, videoMaxDelayMs) : null;
+                this.jitterBuffer = videoMaxDelayMs > 0 ? new RtpJitterBuffer(VIDEO_JITTER_BUFFER_CAPACITY, videoMaxDelayMs) : null;
+            } else {
+                this.nackGenerator = null;
+                this.jitterBuffer = audioMaxDelayMs > 0 ? new RtpJitterBuffer(AUDIO_JITTER_BUFFER_CAPACITY, audioMaxDelayMs) : null;
+            }
+        }
+
+    }
+
+}
@@ -77,6 +77,8 @@ public class RtpMember {
     // RTCP
     private long lastSrTimestamp;
     private long lastSrReceivedOn;
+    /** NTP to RTP timestamp mapping of the last SR, null until the first SR. Read by other threads. */
+    private volatile SenderReportMapping lastSrMapping;
 
     public RtpMember (RtpClock clock, long ssrc, String cname) {
         // Core elements
@@ -458,6 +460,16 @@ public class RtpMember {
         this.lastSrTimestamp = report.getNtpTs();
         this.lastSrReceivedOn = this.wallClock.getCurrentTime();
         this.receivedSinceSR = 0;
+        this.lastSrMapping = new SenderReportMapping(report.getNtpSec(), report.getNtpFrac(), report.getRtpTs(), System.nanoTime());
+    }
+
+    /**
+     * Gets the NTP to RTP timestamp mapping of the last SR sent by this member.
+     *
+     * @return The mapping, or null if no SR was received yet.
+     */
+    public SenderReportMapping getLastSrMapping () {
+        return this.lastSrMapping;
     }
 
 }
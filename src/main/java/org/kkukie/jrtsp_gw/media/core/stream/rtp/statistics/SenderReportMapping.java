@@ -0,0 +1,73 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NTP to RTP timestamp mapping carried by the last RTCP Sender Report of a member.
+ * Immutable so that it can be read from other threads without locking.
+ */
+public final class SenderReportMapping {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long ntpSec;
+    private final long ntpFrac;
+    private final long rtpTs;
+    /** Local monotonic time (System.nanoTime) the SR was received on */
+    private final long receivedNanos;
+
+    public SenderReportMapping(long ntpSec, long ntpFrac, long rtpTs, long receivedNanos) {
+        this.ntpSec = ntpSec;
+        this.ntpFrac = ntpFrac;
+        this.rtpTs = rtpTs;
+        this.receivedNanos = receivedNanos;
+    }
+
+    /**
+     * @return The 64 bit NTP timestamp (seconds in the high word, fraction in the low word)
+     *         the sender clock is expected to show at the given local time
+     */
+    public long getNtpTimestampAt(long nowNanos) {
+        long elapsedNanos = Math.max(nowNanos - receivedNanos, 0);
+        long elapsedSec = elapsedNanos / NANOS_PER_SECOND;
+        long elapsedFrac = ((elapsedNanos % NANOS_PER_SECOND) << 32) / NANOS_PER_SECOND;
+        return ((ntpSec << 32) | (ntpFrac & 0xFFFFFFFFL)) + (elapsedSec << 32) + elapsedFrac;
+    }
+
+    /**
+     * @return The RTP timestamp the sender is expected to stamp at the given local time
+     */
+    public long getRtpTimestampAt(long nowNanos, int clockRate) {
+        long elapsedNanos = Math.max(nowNanos - receivedNanos, 0);
+        long elapsedSec = elapsedNanos / NANOS_PER_SECOND;
+        long elapsedTicks = elapsedSec * clockRate + (elapsedNanos % NANOS_PER_SECOND) * clockRate / NANOS_PER_SECOND;
+        return (rtpTs + elapsedTicks) & 0xFFFFFFFFL;
+    }
+
+    public long getAgeNanos(long nowNanos) {
+        return nowNanos - receivedNanos;
+    }
+
+    public long getNtpSec() {
+        return ntpSec;
+    }
+
+    public long getNtpFrac() {
+        return ntpFrac;
+    }
+
+    public long getRtpTs() {
+        return rtpTs;
+    }
+
+    @Override
+    public String toString() {
+        return "SenderReportMapping{" +
+                "ntpSec=" + ntpSec +
+                ", ntpFrac=" + ntpFrac +
+                ", rtpTs=" + rtpTs +
+                ", receivedNanos=" + receivedNanos +
+                '}';
+    }
+
+}
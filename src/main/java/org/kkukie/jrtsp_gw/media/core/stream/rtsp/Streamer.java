@@ -1,7 +1,8 @@
 package org.kkukie.jrtsp_gw.media.core.stream.rtsp;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
@@ -9,15 +10,14 @@ import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.rtsp.RtspHeaderNames;
 import io.netty.handler.codec.rtsp.RtspHeaderValues;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.net.ntp.TimeStamp;
 import org.kkukie.jrtsp_gw.config.ConfigManager;
-import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpPacket;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.base.MediaType;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.NettyChannelManager;
-import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.type.regular.RtcpSenderReport;
-import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.type.regular.base.report.RtcpReportBlock;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.base.RtcpType;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.statistics.RtpRxStatistics;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.StreamInfo;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.TcpEgressGuard;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.UdpFlushBatcher;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.UdpStream;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.network.LocalNetworkInfo;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.network.TargetNetworkInfo;
@@ -27,13 +27,12 @@ import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.rtp.RtpDto;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.rtp.VideoRtpMeta;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.rtp.base.RtpMeta;
 
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 public class Streamer {
@@ -59,8 +58,33 @@ public class Streamer {
     private final RtpRxStatistics rtpRxStatistics;
     private boolean isNoRtp = true;
 
+    /* UDP 송신 flush 묶음 처리 (udpEgressFlushDelayUs 가 0 이면 사용하지 않는다) */
+    private final int udpEgressFlushDelayUs;
+    private volatile UdpFlushBatcher udpFlushBatcher = null;
+
+    /* TCP(interleaved) 송신 버퍼 보호 */
+    private static final int TCP_INTERLEAVED_HEADER_SIZE = 4;
+    private final int tcpEgressUnwritableTimeoutMs;
+    private volatile TcpEgressGuard tcpEgressGuard = null;
+
+    /* RTCP SR (UDP) : SenderReportScheduler 가 주기적으로 보낸다. */
+    private static final int RTP_HEADER_SIZE = 12;
+    private static final int SR_LENGTH = 28;
+    private static final int SR_SSRC_OFFSET = 4;
+    private static final int SR_NTP_OFFSET = 8;
+    private static final int SR_RTP_TS_OFFSET = 16;
+    private static final int SR_PACKET_COUNT_OFFSET = 20;
+    private static final int SR_OCTET_COUNT_OFFSET = 24;
+    private final AtomicLong sentPacketCount = new AtomicLong(0);
+    private final AtomicLong sentOctetCount = new AtomicLong(0);
+    private final Object senderReportLock = new Object();
+    private ByteBuf senderReportBuf = null;
+    private boolean isSenderReportClosed = false;
+
     public Streamer(MediaType mediaType, String conferenceId, String sessionId, String trackId, boolean isTcp, String listenIp, int listenPort) {
         this.RTP_BURST_BUFFER_COUNT = ConfigManager.getDefaultConfig().getRtpBurstBufferCount();
+        this.udpEgressFlushDelayUs = ConfigManager.getDefaultConfig().getUdpEgressFlushDelayUs();
+        this.tcpEgressUnwritableTimeoutMs = ConfigManager.getDefaultConfig().getTcpEgressUnwritableTimeoutMs();
 
         this.streamInfo = new StreamInfo(
                 mediaType, conferenceId, sessionId, trackId
@@ -88,11 +112,18 @@ public class Streamer {
     }
 
     public void open() {
+        synchronized (senderReportLock) {
+            isSenderReportClosed = false;
+        }
+
         try {
             UdpStream udpStream = streamInfo.getUdpStream();
             if (udpStream != null) {
                 if (udpStream.connectTargetRtpEndpoint(targetNetworkInfo)) {
                     log.debug("|Streamer({})| Success to connect the UDP Rtp endpoint. (targetNetworkInfo={})", getKey(), targetNetworkInfo);
+                    if (udpEgressFlushDelayUs > 0) {
+                        udpFlushBatcher = new UdpFlushBatcher(targetNetworkInfo.getRtpDestChannel(), udpEgressFlushDelayUs);
+                    }
 
                     if (udpStream.connectTargetRtcpEndpoint(targetNetworkInfo)) {
                         log.debug("|Streamer({})| Success to connect the UDP Rtcp endpoint. (targetNetworkInfo={})", getKey(), targetNetworkInfo);
@@ -129,6 +160,9 @@ public class Streamer {
     }
 
     public void close() {
+        udpFlushBatcher = null;
+        releaseSenderReportBuf();
+
         UdpStream udpStream = streamInfo.getUdpStream();
         if (udpStream != null) {
             udpStream.stop(targetNetworkInfo);
@@ -146,8 +180,12 @@ public class Streamer {
     public void stop() {
         //rtpRxStatistics.stop();
 
-        if (rtpBurstBuffer != null) {
-            rtpBurstBuffer.clear();
+        Queue<RtpDto> curRtpBurstBuffer = rtpBurstBuffer;
+        if (curRtpBurstBuffer != null) {
+            RtpDto rtpDto;
+            while ((rtpDto = curRtpBurstBuffer.poll()) != null) {
+                rtpDto.getRtpBuf().release();
+            }
             rtpBurstBuffer = null;
         }
 
@@ -266,6 +304,9 @@ public class Streamer {
 
     public void setRtspChannelContext(ChannelHandlerContext rtspChannelContext) {
         streamInfo.setRtspChannelContext(rtspChannelContext);
+        if (rtspChannelContext != null && isTcp()) {
+            tcpEgressGuard = new TcpEgressGuard(rtspChannelContext.channel(), tcpEgressUnwritableTimeoutMs);
+        }
     }
 
     public String getListenIp() {
@@ -276,10 +317,14 @@ public class Streamer {
         return localNetworkInfo.isTcp();
     }
 
-    public void sendPlayResponse(DefaultHttpResponse playResponse) {
+    /**
+     * @param onSent PLAY 응답이 전송된 뒤 실행할 작업 (RTP 전송 시작)
+     */
+    public void sendPlayResponse(DefaultHttpResponse playResponse, Runnable onSent) {
         ChannelHandlerContext rtspChannelContext = streamInfo.getRtspChannelContext();
         if (rtspChannelContext == null) {
             log.warn("|Streamer({})| Fail to send the play response. Context is null.", getKey());
+            onSent.run();
             return;
         }
 
@@ -287,8 +332,14 @@ public class Streamer {
                 RtspHeaderNames.RTP_INFO,
                 makeRtpInfoData()
         );
-        rtspChannelContext.writeAndFlush(playResponse);
-        log.debug("|Streamer({})| [PLAY] > Success to send the response: {}\n", getKey(), playResponse);
+        rtspChannelContext.writeAndFlush(playResponse).addListener(future -> {
+            if (future.isSuccess()) {
+                log.debug("|Streamer({})| [PLAY] > Success to send the response: {}\n", getKey(), playResponse);
+                onSent.run();
+            } else {
+                log.warn("|Streamer({})| [PLAY] > Fail to send the response.", getKey(), future.cause());
+            }
+        });
     }
 
     /**
@@ -304,24 +355,33 @@ public class Streamer {
                 + ";" + RtspHeaderValues.RTPTIME + "=" + getVideoCurTimeStamp();
     }
 
-    public void sendRtpPacket(RtpPacket rtpPacket, String mediaType) {
-        if (burstRtp(rtpPacket, mediaType)) { return; }
+    /**
+     * @param rtpBuf 모든 Streamer 가 공유하는 RTP 패킷 버퍼
+     *               (호출자가 소유권을 유지하며, Streamer 는 필요한 만큼 retainedDuplicate() 로 참조한다.)
+     * @param isKeyframeStart 키프레임의 첫 번째 비디오 패킷 여부 (TCP 송신 버퍼 초과 후 재개 시점 판단에 사용)
+     */
+    public void sendRtpPacket(ByteBuf rtpBuf, String mediaType, boolean isKeyframeStart) {
+        if (burstRtp(rtpBuf, mediaType)) { return; }
 
-        send(rtpPacket, mediaType);
+        send(rtpBuf, mediaType, isKeyframeStart);
     }
 
-    private boolean burstRtp(RtpPacket rtpPacket, String mediaType) {
+    private boolean burstRtp(ByteBuf rtpBuf, String mediaType) {
         if (!isRtpBurstDone) {
             if (rtpBurstBuffer == null) {
                 rtpBurstBuffer = new ConcurrentLinkedQueue<>();
             }
 
-            rtpBurstBuffer.offer(new RtpDto(rtpPacket, mediaType));
+            rtpBurstBuffer.offer(new RtpDto(rtpBuf.retainedDuplicate(), mediaType));
             if (rtpBurstBuffer.size() == RTP_BURST_BUFFER_COUNT) {
                 while (!rtpBurstBuffer.isEmpty()) {
                     RtpDto rtpDto = rtpBurstBuffer.poll();
                     if (rtpDto == null) { continue; }
-                    send(rtpDto.getRtpPacket(), rtpDto.getMediaType());
+                    try {
+                        send(rtpDto.getRtpBuf(), rtpDto.getMediaType(), false);
+                    } finally {
+                        rtpDto.getRtpBuf().release();
+                    }
                 }
                 rtpBurstBuffer = null;
                 isRtpBurstDone = true;
@@ -332,12 +392,63 @@ public class Streamer {
         return false;
     }
 
-    private void send(RtpPacket rtpPacket, String mediaType) {
+    /**
+     * GOP 캐시에서 재전송하는 패킷을 전송한다. (burst 버퍼는 사용하지 않는다.)
+     *
+     * @param rtpBufs 재전송할 패킷 목록 (소유권이 Streamer 로 넘어온다)
+     */
+    public void replayRtpPackets(List<ByteBuf> rtpBufs, String mediaType) {
+        isRtpBurstDone = true;
+
+        // TCP 송신 버퍼 한도를 GOP 크기만큼 늘려서 재전송이 중간에 잘리지 않게 한다.
+        TcpEgressGuard curTcpEgressGuard = isTcp() ? tcpEgressGuard : null;
+        if (curTcpEgressGuard != null) {
+            long replayBytes = 0;
+            for (ByteBuf rtpBuf : rtpBufs) {
+                replayBytes += TCP_INTERLEAVED_HEADER_SIZE + rtpBuf.readableBytes();
+            }
+            curTcpEgressGuard.allowBurst(rtpBufs.size(), replayBytes);
+        }
+
+        boolean isFirst = true;
+        for (ByteBuf rtpBuf : rtpBufs) {
+            try {
+                // GOP 는 항상 키프레임부터 시작한다.
+                send(rtpBuf, mediaType, isFirst);
+            } finally {
+                rtpBuf.release();
+            }
+            isFirst = false;
+        }
+        if (curTcpEgressGuard != null) {
+            curTcpEgressGuard.endBurst();
+        }
+        flushUdpEgress();
+    }
+
+    /**
+     * 릴레이 묶음이 끝날 때 호출한다. UDP 송신 flush 묶음 처리를 사용하면 쌓인 패킷을 한 번에 보낸다.
+     */
+    public void flushUdpEgress() {
+        UdpFlushBatcher curUdpFlushBatcher = udpFlushBatcher;
+        if (curUdpFlushBatcher != null) {
+            curUdpFlushBatcher.flushBurst();
+        }
+    }
+
+    /**
+     * @return 비디오 RTP 를 전송하는 Streamer 이면 true (TCP 는 트랙 구분 없이 모든 패킷을 전송한다)
+     */
+    public boolean isVideoAccepted() {
+        return isTcp() || streamInfo.getMediaType() == MediaType.VIDEO;
+    }
+
+    private void send(ByteBuf rtpBuf, String mediaType, boolean isKeyframeStart) {
         if (isTcp()) {
-            sendRtpPacketWithTcp(rtpPacket);
+            sendRtpPacketWithTcp(rtpBuf, mediaType, isKeyframeStart);
         } else {
             if (streamInfo.getMediaType().getName().equals(mediaType)) {
-                sendRtpPacketWithUdp(rtpPacket);
+                sendRtpPacketWithUdp(rtpBuf);
             }
         }
 
@@ -345,20 +456,31 @@ public class Streamer {
             isNoRtp = false;
         }
 
-        rtpRxStatistics.calculate(rtpPacket.getRawData().length);
+        rtpRxStatistics.calculate(rtpBuf.readableBytes());
     }
 
-    public void sendRtpPacketWithTcp(RtpPacket rtpPacket) {
+    public void sendRtpPacketWithTcp(ByteBuf rtpBuf, String mediaType, boolean isKeyframeStart) {
         ChannelHandlerContext rtspChannelContext = streamInfo.getRtspChannelContext();
         if (rtspChannelContext == null) {
             return;
         }
 
-        ByteBuf rtpBuf = Unpooled.copiedBuffer(makeTcpRtpData(rtpPacket));
-        rtspChannelContext.writeAndFlush(rtpBuf);
+        TcpEgressGuard curTcpEgressGuard = tcpEgressGuard;
+        if (curTcpEgressGuard != null && !curTcpEgressGuard.admit(
+                rtpBuf.readableBytes(), MediaType.VIDEO.getName().equals(mediaType), isKeyframeStart)) {
+            if (curTcpEgressGuard.checkUnwritableTimeout()) {
+                log.warn("|Streamer({})| Close the slow TCP viewer. Channel stays unwritable over {} ms. (pendingBytes={}, droppedBytes={})",
+                        getKey(), tcpEgressUnwritableTimeoutMs, curTcpEgressGuard.getPendingBytes(), curTcpEgressGuard.getDroppedBytes()
+                );
+                rtspChannelContext.close();
+            }
+            return;
+        }
+
+        rtspChannelContext.writeAndFlush(makeTcpRtpData(rtspChannelContext, rtpBuf));
     }
 
-    private byte[] makeTcpRtpData(RtpPacket rtpPacket) {
+    private ByteBuf makeTcpRtpData(ChannelHandlerContext rtspChannelContext, ByteBuf rtpBuf) {
         /**
          * The RTP data will be encapsulated in the following format:
          *    | magic number | channel number | Embedded data length | data |
@@ -366,103 +488,158 @@ public class Streamer {
          *    1. Magic Number - 1 byte value of hex 0X24 (RTP data identifier)
          *    2. Channel number - 1 byte value to denote the channel number-1 bytes used to indicate the channel
          *    3. The embedded date length - 2 bytes to indicate the length of the inserted data
-         *    4. RTP data (byte array)
+         *    4. RTP data (shared buffer, not copied)
          */
 
-        byte[] rtpPacketRawData = rtpPacket.getRawData();
-        int rtpDataLength = rtpPacketRawData.length;
-
-        byte[] newRtpData = new byte[1 + 1 + 2 + rtpDataLength];
-        newRtpData[0] = StreamInfo.TCP_RTP_MAGIC_NUMBER;
-        newRtpData[1] = Byte.parseByte(streamInfo.getTrackId());
+        ByteBuf interleavedHeader = rtspChannelContext.alloc().buffer(TCP_INTERLEAVED_HEADER_SIZE);
+        interleavedHeader.writeByte(StreamInfo.TCP_RTP_MAGIC_NUMBER);
+        interleavedHeader.writeByte(Byte.parseByte(streamInfo.getTrackId()));
+        interleavedHeader.writeShort(rtpBuf.readableBytes());
 
-        byte[] rtpDataLengthArray = ByteBuffer.allocate(2).putShort((short) rtpDataLength).array();
-        newRtpData[2] = rtpDataLengthArray[0];
-        newRtpData[3] = rtpDataLengthArray[1];
-        System.arraycopy(rtpPacketRawData, 0, newRtpData, 4, rtpDataLength);
-        return newRtpData;
+        CompositeByteBuf tcpRtpBuf = rtspChannelContext.alloc().compositeBuffer(2);
+        tcpRtpBuf.addComponents(true, interleavedHeader, rtpBuf.retainedDuplicate());
+        return tcpRtpBuf;
     }
 
-    public void sendRtpPacketWithUdp(RtpPacket rtpPacket) {
+    public void sendRtpPacketWithUdp(ByteBuf rtpBuf) {
         try {
-            ByteBuf rtpBuf = Unpooled.copiedBuffer(rtpPacket.getRawData());
             if (rtpBuf == null || rtpBuf.readableBytes() <= 0
                     || targetNetworkInfo.getDestIp() == null || targetNetworkInfo.getRtpDestPort() <= 0) {
                 return;
             }
 
+            sentPacketCount.incrementAndGet();
+            sentOctetCount.addAndGet(getRtpPayloadLength(rtpBuf));
+
+            UdpFlushBatcher curUdpFlushBatcher = udpFlushBatcher;
+            if (curUdpFlushBatcher != null) {
+                curUdpFlushBatcher.write(rtpBuf.retainedDuplicate());
+                return;
+            }
+
             Channel rtpDestChannel = targetNetworkInfo.getRtpDestChannel();
             if (rtpDestChannel != null) {
-                ChannelFuture channelFuture = rtpDestChannel.writeAndFlush(rtpBuf);
+                ChannelFuture channelFuture = rtpDestChannel.writeAndFlush(rtpBuf.retainedDuplicate());
                 if (channelFuture == null && !isRtpDestActive()) {
                     log.warn("|Streamer({})| Fail to send the message to rtp target. (targetNetworkInfo={})", getKey(), targetNetworkInfo);
-                } /*else {
-                    log.debug("RtpPacket: ts={}, seq={}, ssrc={} / destIp={}, rtpDestPort={}",
-                            rtpPacket.getTimestamp(), rtpPacket.getSeqNumber(), rtpPacket.getSyncSource(),
-                            targetNetworkInfo.getDestIp(), targetNetworkInfo.getRtpDestPort()
-                    );
-                    //processRtcpPacket(rtpPacket);
-                }*/
+                }
             }
         } catch (Exception e) {
             log.warn("|Streamer({})| Streamer.send.Exception", getKey(), e);
         }
     }
 
-    private void processRtcpPacket(RtpPacket rtpPacket) {
+    /**
+     * RTCP SR 을 UDP 시청자에게 보낸다. (SenderReportScheduler 타이머 스레드)
+     * 1) SR(28 bytes) + SDES CNAME 복합 패킷을 담는 버퍼는 처음 한 번 만들고 계속 재사용한다.
+     *      - 이전 SR 이 아직 전송 중이면(버퍼 참조가 남아 있으면) 이번 SR 은 보내지 않는다.
+     * 2) NTP/RTP timestamp 는 송신측 SR 에서 계산한 값을 그대로 쓴다. (RTP 를 그대로 전달하므로 시청자의 A/V 동기화 기준이 송신측과 같다.)
+     * 3) TCP(interleaved) 시청자는 RTCP 채널을 따로 협상하지 않으므로 보내지 않는다.
+     *
+     * @param ssrc         이 트랙으로 전달 중인 RTP 의 SSRC
+     * @param ntpTimestamp 64 bit NTP timestamp (상위 32 bit 초, 하위 32 bit 소수)
+     * @param rtpTimestamp ntpTimestamp 에 해당하는 RTP timestamp
+     * @return 보냈으면 true
+     */
+    public boolean sendSenderReport(long ssrc, long ntpTimestamp, long rtpTimestamp) {
         Channel rtcpDestChannel = targetNetworkInfo.getRtcpDestChannel();
-        if (rtcpDestChannel != null) {
-            int curRtcpSrCount = rtcpInfo.getCurRtcpSrCount();
-            if (curRtcpSrCount < RtcpInfo.RTCP_SR_LIMIT_COUNT) {
-                rtcpInfo.setCurRtcpSrCount(curRtcpSrCount + 1);
-                rtcpInfo.setSpc(rtcpInfo.getSpc() + rtpPacket.getPayloadLength());
-                return;
+        if (isTcp() || rtcpDestChannel == null || !isStarted() || targetNetworkInfo.getRtcpDestPort() <= 0) {
+            return false;
+        }
+
+        ByteBuf srBuf;
+        synchronized (senderReportLock) {
+            if (isSenderReportClosed) {
+                return false;
             }
 
-            // RTCP SR
-            RtcpSenderReport rtcpSenderReport = getRtcpSenderReport(rtpPacket);
-            ByteBuf rtcpBuf = Unpooled.copiedBuffer(rtcpSenderReport.getData());
-            if (rtcpBuf == null || rtcpBuf.readableBytes() <= 0 || targetNetworkInfo.getDestIp() == null || targetNetworkInfo.getRtcpDestPort() <= 0) {
-                log.trace("|Streamer({})| Fail to send the message. RtcpBuf is not defined. (targetNetworkInfo={}, bytes={})",
-                        getKey(), targetNetworkInfo, Objects.requireNonNull(rtcpBuf).readableBytes()
-                );
-                return;
+            if (senderReportBuf == null) {
+                senderReportBuf = makeSenderReportBuf();
+            } else if (senderReportBuf.refCnt() > 1) {
+                return false;
             }
 
-            ChannelFuture rtcpChannelFuture = rtcpDestChannel.writeAndFlush(rtcpBuf);
-            if (rtcpChannelFuture == null && !isRtcpDestActive()) {
-                log.warn("|Streamer({})| Fail to send the message to rtcp target. (targetNetworkInfo={})", getKey(), targetNetworkInfo);
+            srBuf = senderReportBuf;
+            srBuf.setInt(SR_SSRC_OFFSET, (int) ssrc);
+            srBuf.setLong(SR_NTP_OFFSET, ntpTimestamp);
+            srBuf.setInt(SR_RTP_TS_OFFSET, (int) rtpTimestamp);
+            srBuf.setInt(SR_PACKET_COUNT_OFFSET, (int) sentPacketCount.get());
+            srBuf.setInt(SR_OCTET_COUNT_OFFSET, (int) sentOctetCount.get());
+            srBuf.setInt(SR_LENGTH + 4, (int) ssrc);
+            srBuf = srBuf.retainedDuplicate();
+        }
+
+        ChannelFuture rtcpChannelFuture = rtcpDestChannel.writeAndFlush(srBuf);
+        if (rtcpChannelFuture == null && !isRtcpDestActive()) {
+            log.warn("|Streamer({})| Fail to send the sender report to rtcp target. (targetNetworkInfo={})", getKey(), targetNetworkInfo);
+            return false;
+        }
+        return true;
+    }
+
+    private ByteBuf makeSenderReportBuf() {
+        byte[] cname = getConferenceId().getBytes(StandardCharsets.UTF_8);
+        int cnameLength = Math.min(cname.length, 255);
+        // SSRC + CNAME item (type, length, text) + null 종료 후 32 bit 정렬
+        int chunkLength = (4 + 2 + cnameLength + 4) & ~3;
+        int sdesLength = 4 + chunkLength;
+
+        ByteBuf srBuf = PooledByteBufAllocator.DEFAULT.directBuffer(SR_LENGTH + sdesLength);
+        // SR : V=2, RC=0, PT=200
+        srBuf.writeByte(0x80);
+        srBuf.writeByte(RtcpType.SENDER_REPORT);
+        srBuf.writeShort(SR_LENGTH / 4 - 1);
+        srBuf.writeZero(SR_LENGTH - 4);
+
+        // SDES : V=2, SC=1, PT=202
+        srBuf.writeByte(0x81);
+        srBuf.writeByte(RtcpType.SOURCE_DESCRIPTION);
+        srBuf.writeShort(sdesLength / 4 - 1);
+        srBuf.writeZero(4);
+        srBuf.writeByte(1); // CNAME
+        srBuf.writeByte(cnameLength);
+        srBuf.writeBytes(cname, 0, cnameLength);
+        srBuf.writeZero(chunkLength - 4 - 2 - cnameLength);
+        return srBuf;
+    }
+
+    private void releaseSenderReportBuf() {
+        synchronized (senderReportLock) {
+            isSenderReportClosed = true;
+            if (senderReportBuf != null) {
+                senderReportBuf.release();
+                senderReportBuf = null;
             }
         }
     }
 
-    private RtcpSenderReport getRtcpSenderReport(RtpPacket rtpPacket) {
-        long curSeconds = TimeStamp.getCurrentTime().getSeconds();
-        long curFraction = TimeStamp.getCurrentTime().getFraction();
-        long rtpTimestamp = rtpPacket.getTimestamp();
-        long rtpSeqNum = rtpPacket.getSeqNumber();
+    /**
+     * @return RTP 패킷의 payload octet 수 (RFC 3550 의 sender's octet count 기준, header/extension/padding 제외)
+     */
+    static int getRtpPayloadLength(ByteBuf rtpBuf) {
+        int length = rtpBuf.readableBytes();
+        if (length < RTP_HEADER_SIZE) {
+            return 0;
+        }
 
-        // REPORT BLOCK LIST
-        List<RtcpReportBlock> rtcpReportBlockList = new ArrayList<>();
-        RtcpReportBlock source1 = new RtcpReportBlock(
-                rtpPacket.getSyncSource(), (byte) curFraction, 0,
-                rtpSeqNum, 0,
-                curSeconds, 0
-        );
-        rtcpReportBlockList.add(source1);
-
-        RtcpSenderReport rtcpSenderReport = new RtcpSenderReport(
-                curSeconds,
-                curFraction, rtpTimestamp,
-                rtcpInfo.getCurRtcpSrCount(), rtcpInfo.getSpc(),
-                rtcpReportBlockList,
-                null
-        );
+        int index = rtpBuf.readerIndex();
+        int firstByte = rtpBuf.getUnsignedByte(index);
+        int headerLength = RTP_HEADER_SIZE + (firstByte & 0x0F) * 4;
+        if ((firstByte & 0x10) != 0 && length >= headerLength + 4) {
+            headerLength += 4 + rtpBuf.getUnsignedShort(index + headerLength + 2) * 4;
+        }
+        int paddingLength = (firstByte & 0x20) != 0 ? rtpBuf.getUnsignedByte(index + length - 1) : 0;
+        return Math.max(length - headerLength - paddingLength, 0);
+    }
+
+    /** 이 시청자에게 보낸 RTP 패킷 수 (UDP) */
+    public long getSentPacketCount() {
+        return sentPacketCount.get();
+    }
 
-        rtcpInfo.setCurRtcpSrCount(0);
-        rtcpInfo.setSpc(0);
-        log.debug("|Streamer({})| RtcpSenderReport: \n{}", getKey(), rtcpSenderReport);
-        return rtcpSenderReport;
+    /** 이 시청자에게 보낸 RTP payload octet 수 (UDP) */
+    public long getSentOctetCount() {
+        return sentOctetCount.get();
     }
 
     public int getCongestionLevel() {
@@ -483,6 +660,20 @@ public class Streamer {
                 : streamInfo.getConferenceId() + ":" + streamInfo.getSessionId();
     }
 
+    /**
+     * @return UDP 송신 flush 통계, flush 묶음 처리를 사용하지 않으면 null
+     */
+    public UdpFlushBatcher getUdpFlushBatcher() {
+        return udpFlushBatcher;
+    }
+
+    /**
+     * @return TCP 송신 버퍼 보호 통계, TCP 가 아니면 null
+     */
+    public TcpEgressGuard getTcpEgressGuard() {
+        return tcpEgressGuard;
+    }
+
     public boolean isNoRtp() {
         return isNoRtp;
     }
@@ -0,0 +1,26 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback;
+
+/**
+ * 시청자 수신 품질을 WebRTC 송신측에 알리는 RTCP 메시지 종류
+ *  - NONE  : 보내지 않는다. (기본값)
+ *  - REMB  : Receiver Estimated Max Bitrate (PSFB, FMT=15)
+ *  - TMMBR : Temporary Maximum Media Stream Bit Rate Request (RTPFB, FMT=3, RFC 5104)
+ */
+public enum BitrateFeedbackType {
+
+    NONE, REMB, TMMBR;
+
+    public static BitrateFeedbackType of(String name) {
+        if (name == null || name.isEmpty()) {
+            return NONE;
+        }
+
+        for (BitrateFeedbackType type : values()) {
+            if (type.name().equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        return NONE;
+    }
+
+}
@@ -0,0 +1,313 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback;
+
+import io.netty.util.Timeout;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.core.manager.MediaTimerManager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class ViewerFeedbackAggregator
+ * @brief 호(Conference) 시청자들의 RTCP RR 을 모아서 WebRTC 송신측에 보낼 최대 비트레이트(REMB/TMMBR)를 정하는 클래스
+ * 1) 시청자(Streamer)별로 마지막 RR 의 비디오 손실률(fraction lost)과 지터를 보관한다.
+ *      - REPORT_TIMEOUT_MS 동안 RR 을 보내지 않은 시청자는 집계에서 뺀다.
+ * 2) FEEDBACK_INTERVAL_MS 마다 시청자 손실률/지터의 percentile 값(100 이면 가장 나쁜 시청자)으로 비트레이트를 조정한다. (GCC 손실 기반 제어)
+ *      - 손실률 > HIGH_LOSS : min(비트레이트, 실제 수신 비트레이트) * (1 - 0.5 * 손실률)
+ *      - 손실률 < LOW_LOSS 이고 지터 < HIGH_JITTER_MS : INCREASE_RATIO 만큼 올린다. (실제 수신 비트레이트의 MAX_INCOMING_RATIO 배까지)
+ *      - 그 사이면 유지한다.
+ * 3) 조정한 비트레이트가 최대 비트레이트보다 낮을 때(제한 중)만 BitrateFeedbackSender 로 보낸다.
+ *      - 제한이 풀리거나 시청자가 모두 떠나면 최대 비트레이트를 한 번 보내서 제한을 푼다.
+ */
+@Slf4j
+public class ViewerFeedbackAggregator {
+
+    static final long REPORT_TIMEOUT_MS = 5000;
+    static final long FEEDBACK_INTERVAL_MS = 1000;
+    static final double LOW_LOSS = 0.02;
+    static final double HIGH_LOSS = 0.10;
+    static final double INCREASE_RATIO = 1.05;
+    static final long HIGH_JITTER_MS = 30;
+    static final double MAX_INCOMING_RATIO = 1.5;
+    private static final int VIDEO_CLOCK_RATE = 90000;
+
+    @FunctionalInterface
+    public interface BitrateFeedbackSender {
+        void sendBitrateFeedback(long mediaSsrc, long bitrate);
+    }
+
+    private final String conferenceId;
+    private final int percentile;
+    private final long minBitrate;
+    private final long maxBitrate;
+    private final BitrateFeedbackSender bitrateFeedbackSender;
+
+    private volatile long videoSsrc = -1;
+    private final AtomicLong incomingBytes = new AtomicLong(0);
+
+    /* 아래 상태는 이 객체의 락으로 보호한다. */
+    private final Map<String, ViewerReport> viewerReportMap = new HashMap<>();
+    private int[] fractionLosts = new int[16];
+    private long[] jitters = new long[16];
+    private long lastIncomingBytes = 0;
+    private long lastTimerTime = -1;
+    private long estimatedBitrate;
+    private boolean isLimited = false;
+    private Timeout timeout = null;
+    private boolean isClosed = false;
+
+    /* 통계 */
+    private volatile int viewerCount = 0;
+    private volatile int fractionLost = 0;
+    private volatile long jitterMs = 0;
+    private volatile long incomingBitrate = 0;
+    private volatile long sentBitrate = -1;
+    private final AtomicLong feedbackCount = new AtomicLong(0);
+
+    /**
+     * @param percentile 집계에 쓰는 시청자 손실률/지터의 percentile (1 ~ 100)
+     * @param minBitrate 요청하는 최소 비트레이트 (bps)
+     * @param maxBitrate 요청하는 최대 비트레이트 (bps)
+     */
+    public ViewerFeedbackAggregator(String conferenceId, int percentile, long minBitrate, long maxBitrate,
+                                    BitrateFeedbackSender bitrateFeedbackSender) {
+        this.conferenceId = conferenceId;
+        this.percentile = Math.min(Math.max(percentile, 1), 100);
+        this.minBitrate = Math.min(minBitrate, maxBitrate);
+        this.maxBitrate = maxBitrate;
+        this.bitrateFeedbackSender = bitrateFeedbackSender;
+        this.estimatedBitrate = maxBitrate;
+    }
+
+    public void start() {
+        synchronized (this) {
+            scheduleTimer();
+        }
+    }
+
+    public synchronized void close() {
+        isClosed = true;
+        viewerReportMap.clear();
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    /**
+     * 시청자의 비디오 Report Block 을 받을 때 호출한다.
+     *
+     * @param streamerKey  시청자(Streamer) 키
+     * @param fractionLost 손실률 (0 ~ 255, RFC 3550)
+     * @param jitter       도착 간격 지터 (RTP timestamp 단위)
+     */
+    public void onReceiverReport(String streamerKey, int fractionLost, long jitter) {
+        onReceiverReport(streamerKey, fractionLost, jitter * 1000 / VIDEO_CLOCK_RATE, currentTimeMillis());
+    }
+
+    /**
+     * 송신측 비디오 패킷을 받을 때 호출한다. (Ingest 스레드)
+     */
+    public void onVideoPacket(long ssrc, int bytes) {
+        if (videoSsrc != ssrc) {
+            videoSsrc = ssrc;
+        }
+        incomingBytes.addAndGet(bytes);
+    }
+
+    synchronized void onReceiverReport(String streamerKey, int fractionLost, long jitterMs, long now) {
+        if (isClosed) {
+            return;
+        }
+
+        ViewerReport viewerReport = viewerReportMap.get(streamerKey);
+        if (viewerReport == null) {
+            viewerReport = new ViewerReport();
+            viewerReportMap.put(streamerKey, viewerReport);
+        }
+        viewerReport.fractionLost = fractionLost & 0xFF;
+        viewerReport.jitterMs = jitterMs;
+        viewerReport.receivedTime = now;
+    }
+
+    synchronized void onTimer(long now) {
+        long curIncomingBytes = incomingBytes.get();
+        if (lastTimerTime >= 0 && now > lastTimerTime) {
+            incomingBitrate = (curIncomingBytes - lastIncomingBytes) * 8000 / (now - lastTimerTime);
+        }
+        lastIncomingBytes = curIncomingBytes;
+        lastTimerTime = now;
+
+        int count = collectReports(now);
+        viewerCount = count;
+        if (count == 0) {
+            if (isLimited) {
+                // 시청자가 모두 떠났다. 제한을 푼다.
+                estimatedBitrate = maxBitrate;
+                isLimited = false;
+                send(maxBitrate);
+            }
+            return;
+        }
+
+        int curFractionLost = getPercentile(fractionLosts, count);
+        long curJitterMs = getPercentile(jitters, count);
+        fractionLost = curFractionLost;
+        jitterMs = curJitterMs;
+
+        double lossRatio = curFractionLost / 256.0;
+        long bitrate = estimatedBitrate;
+        if (lossRatio > HIGH_LOSS) {
+            long curIncomingBitrate = incomingBitrate;
+            if (curIncomingBitrate > 0) {
+                // 송신측이 최대치보다 적게 보내고 있으면 실제 비트레이트부터 줄인다.
+                bitrate = Math.min(bitrate, curIncomingBitrate);
+            }
+            bitrate = (long) (bitrate * (1 - 0.5 * lossRatio));
+        } else if (lossRatio < LOW_LOSS && curJitterMs < HIGH_JITTER_MS) {
+            long increasedBitrate = (long) (bitrate * INCREASE_RATIO);
+            long curIncomingBitrate = incomingBitrate;
+            if (curIncomingBitrate > 0) {
+                // 송신측이 실제로 보내는 것보다 지나치게 높은 값은 요청하지 않는다.
+                increasedBitrate = Math.min(increasedBitrate, Math.max((long) (curIncomingBitrate * MAX_INCOMING_RATIO), bitrate));
+            }
+            bitrate = increasedBitrate;
+        }
+        estimatedBitrate = Math.min(Math.max(bitrate, minBitrate), maxBitrate);
+        boolean wasLimited = isLimited;
+        isLimited = estimatedBitrate < maxBitrate;
+        if (isLimited || wasLimited) {
+            // 제한이 없으면 보내지 않는다. (제한이 풀릴 때는 최대 비트레이트를 한 번 보낸다.)
+            send(estimatedBitrate);
+        }
+    }
+
+    private int collectReports(long now) {
+        int count = 0;
+        Iterator<ViewerReport> iterator = viewerReportMap.values().iterator();
+        while (iterator.hasNext()) {
+            ViewerReport viewerReport = iterator.next();
+            if (now - viewerReport.receivedTime > REPORT_TIMEOUT_MS) {
+                iterator.remove();
+                continue;
+            }
+
+            if (count == fractionLosts.length) {
+                fractionLosts = Arrays.copyOf(fractionLosts, count * 2);
+                jitters = Arrays.copyOf(jitters, count * 2);
+            }
+            fractionLosts[count] = viewerReport.fractionLost;
+            jitters[count] = viewerReport.jitterMs;
+            count++;
+        }
+        return count;
+    }
+
+    private int getPercentile(int[] values, int count) {
+        Arrays.sort(values, 0, count);
+        return values[getPercentileIndex(count)];
+    }
+
+    private long getPercentile(long[] values, int count) {
+        Arrays.sort(values, 0, count);
+        return values[getPercentileIndex(count)];
+    }
+
+    private int getPercentileIndex(int count) {
+        // nearest-rank
+        return Math.max((int) Math.ceil(percentile * count / 100.0) - 1, 0);
+    }
+
+    private void send(long bitrate) {
+        long curVideoSsrc = videoSsrc;
+        if (curVideoSsrc < 0) {
+            return;
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("|ViewerFeedbackAggregator({})| Send the bitrate feedback. (bitrate={}, viewers={}, fractionLost={}, jitterMs={}, incomingBitrate={})",
+                    conferenceId, bitrate, viewerCount, fractionLost, jitterMs, incomingBitrate
+            );
+        }
+        sentBitrate = bitrate;
+        feedbackCount.incrementAndGet();
+        bitrateFeedbackSender.sendBitrateFeedback(curVideoSsrc, bitrate);
+    }
+
+    private void scheduleTimer() {
+        if (isClosed || (timeout != null && !timeout.isExpired())) {
+            return;
+        }
+
+        try {
+            timeout = MediaTimerManager.getInstance().newTimeout(
+                    curTimeout -> onTimeout(), FEEDBACK_INTERVAL_MS, TimeUnit.MILLISECONDS
+            );
+        } catch (IllegalStateException e) {
+            timeout = null;
+            log.warn("|ViewerFeedbackAggregator({})| Media timer is not running. Bitrate feedback is disabled.", conferenceId);
+        }
+    }
+
+    private void onTimeout() {
+        try {
+            synchronized (this) {
+                timeout = null;
+                if (isClosed) {
+                    return;
+                }
+                onTimer(currentTimeMillis());
+                scheduleTimer();
+            }
+        } catch (Exception e) {
+            log.warn("|ViewerFeedbackAggregator({})| Fail to handle the feedback timer.", conferenceId, e);
+        }
+    }
+
+    private static long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /** RR 을 보내고 있는 시청자 수 */
+    public int getViewerCount() {
+        return viewerCount;
+    }
+
+    /** 집계한 시청자 손실률 (0 ~ 255) */
+    public int getFractionLost() {
+        return fractionLost;
+    }
+
+    /** 집계한 시청자 지터 (ms) */
+    public long getJitterMs() {
+        return jitterMs;
+    }
+
+    /** 송신측에서 받는 비디오 비트레이트 (bps) */
+    public long getIncomingBitrate() {
+        return incomingBitrate;
+    }
+
+    /** 마지막으로 보낸 비트레이트 (bps), 없으면 -1 */
+    public long getSentBitrate() {
+        return sentBitrate;
+    }
+
+    /** 보낸 REMB/TMMBR 수 */
+    public long getFeedbackCount() {
+        return feedbackCount.get();
+    }
+
+    private static class ViewerReport {
+
+        private int fractionLost = 0;
+        private long jitterMs = 0;
+        private long receivedTime = 0;
+
+    }
+
+}
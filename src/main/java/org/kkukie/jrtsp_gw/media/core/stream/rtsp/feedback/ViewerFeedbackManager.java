@@ -0,0 +1,87 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.config.DefaultConfig;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @class public class ViewerFeedbackManager
+ * @brief 호(Conference)별 ViewerFeedbackAggregator 를 관리하는 클래스
+ * 1) viewerFeedbackType : 송신측에 보내는 메시지 종류 (none / remb / tmmbr)
+ * 2) viewerFeedbackPercentile : 시청자 손실률/지터 집계 percentile (100 이면 가장 나쁜 시청자)
+ * 3) viewerFeedbackMinBitrateKbps, viewerFeedbackMaxBitrateKbps : 요청하는 비트레이트 범위
+ * 4) ViewerFeedbackAggregator 는 RTCP 를 보낼 수 있는 호(PacketHandlerMaster)가 만들고, 시청자 RTCP 채널에서 호 ID 로 찾아서 RR 을 넘긴다.
+ */
+@Slf4j
+public class ViewerFeedbackManager {
+
+    private static final ViewerFeedbackManager viewerFeedbackManager = new ViewerFeedbackManager();
+
+    private final ConcurrentHashMap<String, ViewerFeedbackAggregator> aggregatorMap = new ConcurrentHashMap<>();
+
+    private ViewerFeedbackManager() {}
+
+    public static ViewerFeedbackManager getInstance() {
+        return viewerFeedbackManager;
+    }
+
+    public BitrateFeedbackType getFeedbackType() {
+        DefaultConfig defaultConfig = ConfigManager.getDefaultConfig();
+        return defaultConfig != null ? BitrateFeedbackType.of(defaultConfig.getViewerFeedbackType()) : BitrateFeedbackType.NONE;
+    }
+
+    /**
+     * @return 호의 ViewerFeedbackAggregator, 사용하지 않으면 null
+     */
+    public ViewerFeedbackAggregator createAggregator(String conferenceId, ViewerFeedbackAggregator.BitrateFeedbackSender bitrateFeedbackSender) {
+        if (conferenceId == null || getFeedbackType() == BitrateFeedbackType.NONE) {
+            return null;
+        }
+
+        DefaultConfig defaultConfig = ConfigManager.getDefaultConfig();
+        ViewerFeedbackAggregator aggregator = new ViewerFeedbackAggregator(
+                conferenceId, defaultConfig.getViewerFeedbackPercentile(),
+                defaultConfig.getViewerFeedbackMinBitrateKbps() * 1000L,
+                defaultConfig.getViewerFeedbackMaxBitrateKbps() * 1000L,
+                bitrateFeedbackSender
+        );
+        ViewerFeedbackAggregator prevAggregator = aggregatorMap.put(conferenceId, aggregator);
+        if (prevAggregator != null) {
+            prevAggregator.close();
+        }
+        aggregator.start();
+        log.debug("|ViewerFeedbackManager| ViewerFeedbackAggregator is created. (conferenceId={}, type={})", conferenceId, getFeedbackType());
+        return aggregator;
+    }
+
+    public ViewerFeedbackAggregator getAggregator(String conferenceId) {
+        if (conferenceId == null) {
+            return null;
+        }
+        return aggregatorMap.get(conferenceId);
+    }
+
+    /**
+     * 시청자 RTCP 채널에서 비디오 Report Block 을 받을 때 호출한다.
+     */
+    public void onReceiverReport(String conferenceId, String streamerKey, int fractionLost, long jitter) {
+        ViewerFeedbackAggregator aggregator = getAggregator(conferenceId);
+        if (aggregator != null) {
+            aggregator.onReceiverReport(streamerKey, fractionLost, jitter);
+        }
+    }
+
+    public void deleteAggregator(String conferenceId, ViewerFeedbackAggregator aggregator) {
+        if (conferenceId == null || aggregator == null) {
+            return;
+        }
+
+        aggregator.close();
+        if (aggregatorMap.remove(conferenceId, aggregator)) {
+            log.debug("|ViewerFeedbackManager| ViewerFeedbackAggregator is deleted. (conferenceId={})", conferenceId);
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.Streamer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.base.MediaType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @class public class GopCache
+ * @brief 호(Conference)별로 마지막 키프레임부터의 비디오 RTP 패킷을 보관하는 클래스
+ * 1) 키프레임(SPS/VPS 포함) 시작 패킷이 들어오면 이전 GOP 를 비우고 새 GOP 를 시작한다.
+ * 2) 패킷은 공유 RTP 버퍼를 retainedDuplicate() 로 참조하므로 추가 복사가 없다.
+ * 3) GOP 가 호별/전체 메모리 한도를 넘으면 캐시를 비우고 다음 키프레임까지 기다린다.
+ * 4) 새 시청자가 PLAY 하면 캐시된 GOP 를 먼저 보내고 실시간 패킷을 이어서 보낸다.
+ *      - PLAY 응답의 RTP-Info 는 prepareReplay() 로 정하고, 재전송(replayAndStart)은 PLAY 응답을 보낸 뒤에 한다.
+ *
+ * 실시간 릴레이(add + fan-out)와 재전송(replayAndStart)은 이 객체의 락으로 직렬화되어
+ * 재전송 패킷과 실시간 패킷의 순서가 섞이지 않는다.
+ */
+@Slf4j
+public class GopCache {
+
+    private final String conferenceId;
+    private final long maxBytes;
+    private final GopCacheManager gopCacheManager;
+
+    private final ArrayDeque<ByteBuf> packets = new ArrayDeque<>();
+    private long cachedBytes = 0;
+    private boolean hasKeyframe = false;
+    private long gopTimestamp = -1;
+
+    GopCache(String conferenceId, long maxBytes, GopCacheManager gopCacheManager) {
+        this.conferenceId = conferenceId;
+        this.maxBytes = maxBytes;
+        this.gopCacheManager = gopCacheManager;
+    }
+
+    /**
+     * @param rtpBuf       비디오 RTP 패킷 (호출자가 소유권을 유지한다)
+     * @param timestamp    RTP timestamp
+     * @param encodingName 비디오 코덱 이름
+     */
+    public synchronized void add(ByteBuf rtpBuf, long timestamp, String encodingName) {
+        if (!KeyframeDetector.isSupported(encodingName)) {
+            return;
+        }
+
+        // SPS/PPS/IDR 은 같은 timestamp 를 가지므로 같은 접근 단위(Access Unit) 안에서는 GOP 를 다시 시작하지 않는다.
+        if (KeyframeDetector.isKeyframeStart(rtpBuf, encodingName)
+                && (!hasKeyframe || timestamp != gopTimestamp)) {
+            clear();
+            hasKeyframe = true;
+            gopTimestamp = timestamp;
+        }
+
+        if (!hasKeyframe) {
+            return;
+        }
+
+        int length = rtpBuf.readableBytes();
+        if (cachedBytes + length > maxBytes || !gopCacheManager.reserve(length)) {
+            if (log.isDebugEnabled()) {
+                log.debug("|GopCache({})| GOP exceeds the memory limit. Wait for the next keyframe. (cachedBytes={}, totalCachedBytes={})",
+                        conferenceId, cachedBytes, gopCacheManager.getTotalCachedBytes()
+                );
+            }
+            clear();
+            return;
+        }
+
+        packets.add(rtpBuf.retainedDuplicate());
+        cachedBytes += length;
+    }
+
+    /**
+     * PLAY 응답의 RTP-Info 에 넣을 재전송 시작 sequence number 와 timestamp 를 Streamer 에 설정한다.
+     * 응답을 보내는 동안 같은 GOP 에 패킷이 더 들어와도 재전송은 같은 값에서 시작한다.
+     * (재전송 sequence number 는 마지막 패킷에서 거꾸로 정하므로 GOP 가 길어져도 첫 값은 같다.)
+     *
+     * @return 재전송할 GOP 가 있으면 true
+     */
+    public synchronized boolean prepareReplay(Streamer streamer) {
+        if (packets.isEmpty()) {
+            return false;
+        }
+
+        ByteBuf firstPacket = packets.peekFirst();
+        streamer.setVideoCurSeqNum(getReplayStartSeqNum());
+        streamer.setVideoCurTimeStamp(firstPacket.getUnsignedInt(firstPacket.readerIndex() + 4));
+        return true;
+    }
+
+    /**
+     * 캐시된 GOP 를 Streamer 에 먼저 전송하고 Streamer 를 시작한다.
+     * 재전송 패킷의 sequence number 는 다음 실시간 패킷 바로 앞에서 끝나는 연속된 값으로 다시 쓴다.
+     * (GOP 중간에 유실된 패킷이 있어도 시청자에게는 연속된 스트림으로 보인다.)
+     * timestamp 는 이어지는 실시간 패킷과 어긋나지 않도록 원래 값을 유지한다.
+     *
+     * @return 재전송한 패킷 수
+     */
+    public synchronized int replayAndStart(Streamer streamer) {
+        int count = packets.size();
+        if (count > 0) {
+            int seqNum = getReplayStartSeqNum();
+
+            List<ByteBuf> replayPackets = new ArrayList<>(count);
+            for (ByteBuf packet : packets) {
+                int length = packet.readableBytes();
+                ByteBuf replayPacket = PooledByteBufAllocator.DEFAULT.directBuffer(length);
+                replayPacket.writeBytes(packet, packet.readerIndex(), length);
+                replayPacket.setShort(2, seqNum);
+                seqNum = (seqNum + 1) & 0xFFFF;
+                replayPackets.add(replayPacket);
+            }
+            streamer.replayRtpPackets(replayPackets, MediaType.VIDEO.getName());
+
+            log.debug("|GopCache({})| GOP is replayed to the streamer. (key={}, packets={}, bytes={})",
+                    conferenceId, streamer.getKey(), count, cachedBytes
+            );
+        }
+
+        streamer.start();
+        return count;
+    }
+
+    private int getReplayStartSeqNum() {
+        ByteBuf lastPacket = packets.peekLast();
+        return (lastPacket.getUnsignedShort(lastPacket.readerIndex() + 2) - packets.size() + 1) & 0xFFFF;
+    }
+
+    public synchronized void clear() {
+        ByteBuf packet;
+        while ((packet = packets.poll()) != null) {
+            packet.release();
+        }
+        if (cachedBytes > 0) {
+            gopCacheManager.release(cachedBytes);
+        }
+        cachedBytes = 0;
+        hasKeyframe = false;
+        gopTimestamp = -1;
+    }
+
+    public synchronized int getPacketCount() {
+        return packets.size();
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.config.DefaultConfig;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class GopCacheManager
+ * @brief 호(Conference)별 GopCache 와 전체 GOP 캐시 메모리 사용량을 관리하는 클래스
+ * 1) gopCacheMaxBytesPerConference : 호 하나의 GOP 캐시 최대 크기 (0 이면 GOP 캐시를 사용하지 않는다)
+ * 2) gopCacheMaxBytesTotal : 모든 호의 GOP 캐시 합계 최대 크기
+ */
+@Slf4j
+public class GopCacheManager {
+
+    private static final GopCacheManager gopCacheManager = new GopCacheManager();
+
+    private final ConcurrentHashMap<String, GopCache> gopCacheMap = new ConcurrentHashMap<>();
+    private final AtomicLong totalCachedBytes = new AtomicLong(0);
+
+    private GopCacheManager() {}
+
+    public static GopCacheManager getInstance() {
+        return gopCacheManager;
+    }
+
+    public boolean isEnabled() {
+        DefaultConfig defaultConfig = ConfigManager.getDefaultConfig();
+        return defaultConfig != null && defaultConfig.getGopCacheMaxBytesPerConference() > 0;
+    }
+
+    /**
+     * @return 호의 GopCache, GOP 캐시를 사용하지 않으면 null
+     */
+    public GopCache getOrCreateGopCache(String conferenceId) {
+        if (conferenceId == null || !isEnabled()) {
+            return null;
+        }
+
+        return gopCacheMap.computeIfAbsent(conferenceId, key -> {
+            log.debug("|GopCacheManager| GopCache is created. (conferenceId={})", key);
+            return new GopCache(key, ConfigManager.getDefaultConfig().getGopCacheMaxBytesPerConference(), this);
+        });
+    }
+
+    public GopCache getGopCache(String conferenceId) {
+        if (conferenceId == null) {
+            return null;
+        }
+        return gopCacheMap.get(conferenceId);
+    }
+
+    public void deleteGopCache(String conferenceId) {
+        if (conferenceId == null) {
+            return;
+        }
+
+        GopCache gopCache = gopCacheMap.remove(conferenceId);
+        if (gopCache != null) {
+            gopCache.clear();
+            log.debug("|GopCacheManager| GopCache is deleted. (conferenceId={})", conferenceId);
+        }
+    }
+
+    public long getTotalCachedBytes() {
+        return totalCachedBytes.get();
+    }
+
+    /**
+     * 전체 캐시 한도 안에서 메모리를 예약한다.
+     *
+     * @return 한도를 넘으면 false (예약하지 않음)
+     */
+    boolean reserve(int bytes) {
+        long maxBytesTotal = ConfigManager.getDefaultConfig().getGopCacheMaxBytesTotal();
+        while (true) {
+            long cur = totalCachedBytes.get();
+            if (maxBytesTotal > 0 && cur + bytes > maxBytesTotal) {
+                return false;
+            }
+            if (totalCachedBytes.compareAndSet(cur, cur + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long bytes) {
+        totalCachedBytes.addAndGet(-bytes);
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * @class public class KeyframeDetector
+ * @brief RTP 페이로드 헤더를 보고 키프레임(GOP 시작) 패킷인지 판단하는 클래스
+ *
+ * - H.264 (RFC 6184) : SPS(7), IDR(5) / STAP-A(24), FU-A(28) 의 첫 조각
+ * - H.265 (RFC 7798) : VPS(32), SPS(33), IRAP(16~21) / AP(48), FU(49) 의 첫 조각
+ * - VP8   (RFC 7741) : 파티션 0 시작 패킷의 VP8 페이로드 헤더 P 비트가 0
+ */
+public class KeyframeDetector {
+
+    public static final String H264 = "H264";
+    public static final String H265 = "H265";
+    public static final String HEVC = "HEVC";
+    public static final String VP8 = "VP8";
+
+    private KeyframeDetector() {}
+
+    public static boolean isSupported(String encodingName) {
+        return encodingName != null
+                && (encodingName.equalsIgnoreCase(H264)
+                || encodingName.equalsIgnoreCase(H265) || encodingName.equalsIgnoreCase(HEVC)
+                || encodingName.equalsIgnoreCase(VP8));
+    }
+
+    /**
+     * @param rtpBuf       RTP 패킷 전체 (readerIndex 부터 RTP 헤더 시작)
+     * @param encodingName 코덱 이름
+     * @return 키프레임이 시작되는 패킷이면 true
+     */
+    public static boolean isKeyframeStart(ByteBuf rtpBuf, String encodingName) {
+        int payloadOffset = getPayloadOffset(rtpBuf);
+        int end = rtpBuf.writerIndex();
+        if (payloadOffset < 0 || payloadOffset >= end) {
+            return false;
+        }
+
+        if (encodingName.equalsIgnoreCase(H264)) {
+            return isH264KeyframeStart(rtpBuf, payloadOffset, end);
+        } else if (encodingName.equalsIgnoreCase(H265) || encodingName.equalsIgnoreCase(HEVC)) {
+            return isH265KeyframeStart(rtpBuf, payloadOffset, end);
+        } else if (encodingName.equalsIgnoreCase(VP8)) {
+            return isVp8KeyframeStart(rtpBuf, payloadOffset, end);
+        }
+        return false;
+    }
+
+    private static int getPayloadOffset(ByteBuf rtpBuf) {
+        int start = rtpBuf.readerIndex();
+        if (rtpBuf.readableBytes() < 12) {
+            return -1;
+        }
+
+        int firstByte = rtpBuf.getUnsignedByte(start);
+        int csrcCount = firstByte & 0x0F;
+        boolean hasExtension = (firstByte & 0x10) != 0;
+
+        int offset = start + 12 + csrcCount * 4;
+        if (hasExtension) {
+            if (offset + 4 > rtpBuf.writerIndex()) {
+                return -1;
+            }
+            int extensionLength = rtpBuf.getUnsignedShort(offset + 2);
+            offset += 4 + extensionLength * 4;
+        }
+        return offset;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private static boolean isH264KeyNal(int nalType) {
+        return nalType == 5 || nalType == 7;
+    }
+
+    private static boolean isH264KeyframeStart(ByteBuf buf, int offset, int end) {
+        int nalType = buf.getUnsignedByte(offset) & 0x1F;
+        if (nalType == 24) {
+            // STAP-A : | STAP-A NAL HDR | NALU 1 Size (2) | NALU 1 HDR | ... |
+            int cur = offset + 1;
+            while (cur + 2 < end) {
+                int naluSize = buf.getUnsignedShort(cur);
+                if (naluSize == 0 || cur + 2 + naluSize > end) {
+                    break;
+                }
+                if (isH264KeyNal(buf.getUnsignedByte(cur + 2) & 0x1F)) {
+                    return true;
+                }
+                cur += 2 + naluSize;
+            }
+            return false;
+        } else if (nalType == 28) {
+            // FU-A : | FU indicator | FU header (S E R Type) |
+            if (offset + 1 >= end) {
+                return false;
+            }
+            int fuHeader = buf.getUnsignedByte(offset + 1);
+            return (fuHeader & 0x80) != 0 && isH264KeyNal(fuHeader & 0x1F);
+        }
+        return isH264KeyNal(nalType);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private static boolean isH265KeyNal(int nalType) {
+        return nalType == 32 || nalType == 33 || (nalType >= 16 && nalType <= 21);
+    }
+
+    private static boolean isH265KeyframeStart(ByteBuf buf, int offset, int end) {
+        if (offset + 1 >= end) {
+            return false;
+        }
+
+        int nalType = (buf.getUnsignedByte(offset) >> 1) & 0x3F;
+        if (nalType == 48) {
+            // AP : | PayloadHdr (2) | NALU 1 Size (2) | NALU 1 HDR (2) | ... |
+            int cur = offset + 2;
+            while (cur + 2 < end) {
+                int naluSize = buf.getUnsignedShort(cur);
+                if (naluSize == 0 || cur + 2 + naluSize > end) {
+                    break;
+                }
+                if (isH265KeyNal((buf.getUnsignedByte(cur + 2) >> 1) & 0x3F)) {
+                    return true;
+                }
+                cur += 2 + naluSize;
+            }
+            return false;
+        } else if (nalType == 49) {
+            // FU : | PayloadHdr (2) | FU header (S E FuType) |
+            if (offset + 2 >= end) {
+                return false;
+            }
+            int fuHeader = buf.getUnsignedByte(offset + 2);
+            return (fuHeader & 0x80) != 0 && isH265KeyNal(fuHeader & 0x3F);
+        }
+        return isH265KeyNal(nalType);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private static boolean isVp8KeyframeStart(ByteBuf buf, int offset, int end) {
+        // | X R N S R PID | (X: | I L T K RSV |) (I: | M PictureID |) (L: TL0PICIDX) (T/K: | TID Y KEYIDX |)
+        int first = buf.getUnsignedByte(offset);
+        boolean isStartOfPartition = (first & 0x10) != 0;
+        int partitionId = first & 0x0F;
+        if (!isStartOfPartition || partitionId != 0) {
+            return false;
+        }
+
+        int cur = offset + 1;
+        if ((first & 0x80) != 0) {
+            if (cur >= end) {
+                return false;
+            }
+            int extension = buf.getUnsignedByte(cur++);
+            if ((extension & 0x80) != 0) {
+                if (cur >= end) {
+                    return false;
+                }
+                cur += (buf.getUnsignedByte(cur) & 0x80) != 0 ? 2 : 1;
+            }
+            if ((extension & 0x40) != 0) {
+                cur++;
+            }
+            if ((extension & 0x30) != 0) {
+                cur++;
+            }
+        }
+        if (cur >= end) {
+            return false;
+        }
+
+        // VP8 payload header : | Size0 SHOW_FRAME VER P | (P == 0 : key frame)
+        return (buf.getUnsignedByte(cur) & 0x01) == 0;
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.config.DefaultConfig;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @class public class KeyframeRequestManager
+ * @brief 호(Conference)별 KeyframeRequester 를 관리하는 클래스
+ * 1) keyframeRequestMinIntervalMs : 호 하나에서 업스트림으로 보내는 키프레임 요청의 최소 간격 (0 이면 요청하지 않는다)
+ * 2) KeyframeRequester 는 RTCP 를 보낼 수 있는 호(PacketHandlerMaster)가 만들고, RTSP PLAY 처리에서 호 ID 로 찾아서 요청한다.
+ */
+@Slf4j
+public class KeyframeRequestManager {
+
+    private static final KeyframeRequestManager keyframeRequestManager = new KeyframeRequestManager();
+
+    private final ConcurrentHashMap<String, KeyframeRequester> keyframeRequesterMap = new ConcurrentHashMap<>();
+
+    private KeyframeRequestManager() {}
+
+    public static KeyframeRequestManager getInstance() {
+        return keyframeRequestManager;
+    }
+
+    public boolean isEnabled() {
+        DefaultConfig defaultConfig = ConfigManager.getDefaultConfig();
+        return defaultConfig != null && defaultConfig.getKeyframeRequestMinIntervalMs() > 0;
+    }
+
+    /**
+     * @return 호의 KeyframeRequester, 키프레임 요청을 사용하지 않으면 null
+     */
+    public KeyframeRequester createKeyframeRequester(String conferenceId, KeyframeRequester.KeyframeRequestSender keyframeRequestSender) {
+        if (conferenceId == null || !isEnabled()) {
+            return null;
+        }
+
+        KeyframeRequester keyframeRequester = new KeyframeRequester(
+                conferenceId, ConfigManager.getDefaultConfig().getKeyframeRequestMinIntervalMs(), keyframeRequestSender
+        );
+        KeyframeRequester prevKeyframeRequester = keyframeRequesterMap.put(conferenceId, keyframeRequester);
+        if (prevKeyframeRequester != null) {
+            prevKeyframeRequester.close();
+        }
+        log.debug("|KeyframeRequestManager| KeyframeRequester is created. (conferenceId={})", conferenceId);
+        return keyframeRequester;
+    }
+
+    public KeyframeRequester getKeyframeRequester(String conferenceId) {
+        if (conferenceId == null) {
+            return null;
+        }
+        return keyframeRequesterMap.get(conferenceId);
+    }
+
+    /**
+     * 호의 시청자가 비디오 재생을 시작할 때 호출한다.
+     *
+     * @param hasCachedGop GOP 캐시에서 키프레임부터 재전송받았으면 true
+     */
+    public void requestKeyframe(String conferenceId, boolean hasCachedGop) {
+        KeyframeRequester keyframeRequester = getKeyframeRequester(conferenceId);
+        if (keyframeRequester != null) {
+            keyframeRequester.request(hasCachedGop);
+        }
+    }
+
+    public void deleteKeyframeRequester(String conferenceId, KeyframeRequester keyframeRequester) {
+        if (conferenceId == null || keyframeRequester == null) {
+            return;
+        }
+
+        keyframeRequester.close();
+        if (keyframeRequesterMap.remove(conferenceId, keyframeRequester)) {
+            log.debug("|KeyframeRequestManager| KeyframeRequester is deleted. (conferenceId={})", conferenceId);
+        }
+    }
+
+}
@@ -0,0 +1,273 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop;
+
+import io.netty.util.Timeout;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.core.manager.MediaTimerManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class KeyframeRequester
+ * @brief 호(Conference)별로 WebRTC 송신측에 키프레임(PLI/FIR)을 요청하는 클래스
+ * 1) 시청자가 PLAY 하면 PLI 를 보내서 인코더의 다음 GOP 를 기다리지 않고 바로 IDR 을 받게 한다.
+ * 2) 여러 시청자의 요청을 하나로 합친다.
+ *      - 보낸 요청의 키프레임을 기다리는 동안 들어온 요청은 그 키프레임으로 함께 처리한다. (coalescedCount)
+ *      - 마지막 요청 후 minIntervalMs 가 지나지 않았으면 바로 보내지 않고 minIntervalMs 가 지난 시점에 한 번만 보낸다.
+ *        그 사이 키프레임이 도착하면 보내지 않는다.
+ * 3) GOP 캐시에서 키프레임부터 재전송받은 시청자는 요청하지 않는다. (gopCacheHitCount)
+ * 4) minIntervalMs 안에 키프레임이 오지 않으면 FIR 로 다시 요청한다. (최대 MAX_RETRIES 번)
+ */
+@Slf4j
+public class KeyframeRequester {
+
+    /** 키프레임이 오지 않을 때 다시 요청하는 최대 횟수 */
+    static final int MAX_RETRIES = 2;
+
+    @FunctionalInterface
+    public interface KeyframeRequestSender {
+        void sendKeyframeRequest(long mediaSsrc, boolean isFir);
+    }
+
+    private final String conferenceId;
+    private final long minIntervalMs;
+    private final KeyframeRequestSender keyframeRequestSender;
+
+    private volatile long videoSsrc = -1;
+
+    /* 아래 상태는 이 객체의 락으로 보호한다. */
+    /** 요청을 보냈고 키프레임을 기다리는 중 */
+    private boolean isWaitingKeyframe = false;
+    /** minIntervalMs 가 지나면 보낼 요청이 있음 */
+    private boolean isDeferred = false;
+    private int retries = 0;
+    private long lastSentTime = -1;
+    private long firstSentTime = -1;
+    private Timeout timeout = null;
+    private boolean isClosed = false;
+
+    /* 통계 */
+    private final AtomicLong requestCount = new AtomicLong(0);
+    private final AtomicLong pliCount = new AtomicLong(0);
+    private final AtomicLong firCount = new AtomicLong(0);
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+    private final AtomicLong gopCacheHitCount = new AtomicLong(0);
+    private final AtomicLong keyframeCount = new AtomicLong(0);
+    private final AtomicLong unansweredCount = new AtomicLong(0);
+    private volatile long lastLatencyMs = -1;
+
+    /**
+     * @param minIntervalMs 업스트림으로 보내는 키프레임 요청 사이의 최소 간격
+     */
+    public KeyframeRequester(String conferenceId, long minIntervalMs, KeyframeRequestSender keyframeRequestSender) {
+        this.conferenceId = conferenceId;
+        this.minIntervalMs = minIntervalMs;
+        this.keyframeRequestSender = keyframeRequestSender;
+    }
+
+    /**
+     * 새 시청자가 비디오 재생을 시작할 때 호출한다.
+     *
+     * @param hasCachedGop GOP 캐시에서 키프레임부터 재전송받았으면 true
+     */
+    public void request(boolean hasCachedGop) {
+        synchronized (this) {
+            request(currentTimeMillis(), hasCachedGop);
+            scheduleTimer();
+        }
+    }
+
+    /**
+     * 송신측 비디오에서 새 키프레임(접근 단위의 첫 패킷)을 받을 때 호출한다.
+     */
+    public void onKeyframe() {
+        synchronized (this) {
+            onKeyframe(currentTimeMillis());
+            if (!isWaitingKeyframe && !isDeferred && timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+    }
+
+    public void setVideoSsrc(long videoSsrc) {
+        if (this.videoSsrc != videoSsrc) {
+            this.videoSsrc = videoSsrc;
+        }
+    }
+
+    public synchronized void close() {
+        isClosed = true;
+        isWaitingKeyframe = false;
+        isDeferred = false;
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    synchronized void request(long now, boolean hasCachedGop) {
+        requestCount.incrementAndGet();
+        if (hasCachedGop) {
+            gopCacheHitCount.incrementAndGet();
+            return;
+        }
+
+        if (isWaitingKeyframe || isDeferred) {
+            coalescedCount.incrementAndGet();
+            return;
+        }
+
+        if (lastSentTime < 0 || now - lastSentTime >= minIntervalMs) {
+            send(now, false);
+        } else {
+            isDeferred = true;
+        }
+    }
+
+    synchronized void onKeyframe(long now) {
+        keyframeCount.incrementAndGet();
+        if (isWaitingKeyframe) {
+            lastLatencyMs = now - firstSentTime;
+            isWaitingKeyframe = false;
+        }
+        // 미뤄둔 요청의 시청자들도 이 키프레임부터 받는다.
+        isDeferred = false;
+        retries = 0;
+    }
+
+    /**
+     * getNextDueTime() 시간에 호출해서, 미뤄둔 요청을 보내거나 응답이 없는 요청을 다시 보낸다.
+     */
+    synchronized void onTimer(long now) {
+        if ((!isDeferred && !isWaitingKeyframe) || now - lastSentTime < minIntervalMs) {
+            return;
+        }
+
+        if (isDeferred) {
+            isDeferred = false;
+            send(now, false);
+        } else if (retries >= MAX_RETRIES) {
+            isWaitingKeyframe = false;
+            retries = 0;
+            unansweredCount.incrementAndGet();
+            log.warn("|KeyframeRequester({})| Keyframe is not received after {} retries. (videoSsrc={})",
+                    conferenceId, MAX_RETRIES, videoSsrc
+            );
+        } else {
+            retries++;
+            // PLI 를 무시하는 송신측도 FIR 은 반드시 처리해야 한다. (RFC 5104)
+            send(now, true);
+        }
+    }
+
+    /**
+     * @return 다음에 onTimer() 를 호출해야 하는 시간, 처리할 요청이 없으면 -1
+     */
+    synchronized long getNextDueTime() {
+        return (isDeferred || isWaitingKeyframe) ? lastSentTime + minIntervalMs : -1;
+    }
+
+    private void send(long now, boolean isFir) {
+        long curVideoSsrc = videoSsrc;
+        if (curVideoSsrc < 0) {
+            // 아직 비디오를 받지 않았다. (첫 비디오는 키프레임부터 시작한다.)
+            return;
+        }
+
+        if (!isFir) {
+            firstSentTime = now;
+        }
+        lastSentTime = now;
+        isWaitingKeyframe = true;
+        if (isFir) {
+            firCount.incrementAndGet();
+        } else {
+            pliCount.incrementAndGet();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("|KeyframeRequester({})| Request a keyframe. (type={}, videoSsrc={}, retries={})",
+                    conferenceId, isFir ? "FIR" : "PLI", curVideoSsrc, retries
+            );
+        }
+        keyframeRequestSender.sendKeyframeRequest(curVideoSsrc, isFir);
+    }
+
+    private void scheduleTimer() {
+        long dueTime = getNextDueTime();
+        if (isClosed || dueTime < 0 || (timeout != null && !timeout.isExpired())) {
+            return;
+        }
+
+        try {
+            timeout = MediaTimerManager.getInstance().newTimeout(
+                    curTimeout -> onTimeout(),
+                    Math.max(dueTime - currentTimeMillis(), 0), TimeUnit.MILLISECONDS
+            );
+        } catch (IllegalStateException e) {
+            timeout = null;
+            log.warn("|KeyframeRequester({})| Media timer is not running. Deferred keyframe requests are dropped.", conferenceId);
+        }
+    }
+
+    private void onTimeout() {
+        try {
+            synchronized (this) {
+                timeout = null;
+                if (isClosed) {
+                    return;
+                }
+                onTimer(currentTimeMillis());
+                scheduleTimer();
+            }
+        } catch (Exception e) {
+            log.warn("|KeyframeRequester({})| Fail to handle the keyframe request timer.", conferenceId, e);
+        }
+    }
+
+    private static long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /** 시청자의 키프레임 요청 수 */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /** 업스트림으로 보낸 PLI 수 */
+    public long getPliCount() {
+        return pliCount.get();
+    }
+
+    /** 업스트림으로 보낸 FIR 수 (응답이 없는 요청의 재요청) */
+    public long getFirCount() {
+        return firCount.get();
+    }
+
+    /** 보낸 요청의 키프레임을 기다리는 동안 들어와서 합쳐진 요청 수 */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /** GOP 캐시로 처리되어 보내지 않은 요청 수 */
+    public long getGopCacheHitCount() {
+        return gopCacheHitCount.get();
+    }
+
+    /** 송신측에서 받은 키프레임 수 */
+    public long getKeyframeCount() {
+        return keyframeCount.get();
+    }
+
+    /** 재요청 횟수를 다 쓰고도 키프레임을 받지 못한 요청 수 */
+    public long getUnansweredCount() {
+        return unansweredCount.get();
+    }
+
+    /** 마지막으로 응답받은 요청의 첫 송신부터 키프레임 도착까지의 시간 (ms), 없으면 -1 */
+    public long getLastLatencyMs() {
+        return lastLatencyMs;
+    }
+
+}
@@ -10,7 +10,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
 
 /**
  * @class public class NettyChannelManager
@@ -21,6 +20,8 @@ public class NettyChannelManager {
 
     private static final Logger logger = LoggerFactory.getLogger(NettyChannelManager.class);
 
+    private static final Streamer[] EMPTY_STREAMERS = new Streamer[0];
+
     private static NettyChannelManager manager = null;
     private final HashMap<String, RtcpNettyChannel> rtcpChannelMap = new HashMap<>();
     private final ReentrantLock rtcpChannelMapLock = new ReentrantLock();
@@ -213,6 +214,15 @@ public class NettyChannelManager {
         rtspNettyChannel.deleteStreamer(streamer.getKey());
     }
 
+    public void openStreaming(String key) {
+        if (rtspNettyChannel == null) {
+            logger.warn("({}) Fail to open to stream media. Not found the netty channel", key);
+            return;
+        }
+
+        rtspNettyChannel.openStreaming(key);
+    }
+
     public void startStreaming(String key) {
         if (rtspNettyChannel == null) {
             logger.warn("({}) Fail to start to stream media. Not found the netty channel", key);
@@ -232,51 +242,53 @@ public class NettyChannelManager {
     }
 
     public List<Streamer> getStreamerListByUri(String videoUri) {
-        return rtspNettyChannel.getCloneStreamerMap().values().stream().filter(
-                streamer -> {
-                    if (streamer == null) {
-                        return false;
-                    }
-                    return streamer.getUri().equals(videoUri);
-                }
-        ).collect(Collectors.toList());
+        if (rtspNettyChannel == null) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.asList(rtspNettyChannel.getStreamersByUri(videoUri));
     }
 
     public List<Streamer> getStreamerListByCallId(String conferenceId) {
-        Collection<Streamer> values = rtspNettyChannel.getCloneStreamerMap().values();
-        if (!values.isEmpty()) {
-            return values.stream().filter(
-                    streamer -> {
-                        if (streamer == null) {
-                            return false;
-                        }
-                        return streamer.getConferenceId().equals(conferenceId);
-                    }
-            ).collect(Collectors.toList());
+        return Arrays.asList(getStreamersByCallId(conferenceId));
+    }
+
+    /**
+     * @param conferenceId Conference ID
+     * @return 해당 호를 구독 중인 Streamer 배열, RTP 릴레이 경로에서 락/할당 없이 조회한다. (수정 금지)
+     */
+    public Streamer[] getStreamersByCallId(String conferenceId) {
+        if (rtspNettyChannel == null) {
+            return EMPTY_STREAMERS;
         }
 
-        return Collections.emptyList();
+        return rtspNettyChannel.getStreamersByConferenceId(conferenceId);
     }
 
     public Streamer getStreamerBySessionId(String sessionId) {
-        return rtspNettyChannel.getCloneStreamerMap().values().stream().filter(
-                streamer -> {
-                    if (streamer == null) {
-                        return false;
-                    }
-                    return streamer.getSessionId().equals(sessionId);
-                }
-        ).findFirst().orElse(null);
+        if (rtspNettyChannel == null) {
+            return null;
+        }
+
+        Streamer[] streamers = rtspNettyChannel.getStreamersBySessionId(sessionId);
+        return streamers.length > 0 ? streamers[0] : null;
     }
 
-    public List<Streamer> getAllStreamers() {
-        Map<String, Streamer> cloneStreamerMap = rtspNettyChannel.getCloneStreamerMap();
+    public void setStreamerUri(Streamer streamer, String uri) {
+        if (rtspNettyChannel == null) {
+            streamer.setUri(uri);
+            return;
+        }
 
-        if (cloneStreamerMap.isEmpty()) {
+        rtspNettyChannel.setStreamerUri(streamer, uri);
+    }
+
+    public List<Streamer> getAllStreamers() {
+        if (rtspNettyChannel == null) {
             return Collections.emptyList();
         }
 
-        return new ArrayList<>(cloneStreamerMap.values());
+        return rtspNettyChannel.getAllStreamers();
     }
 
 }
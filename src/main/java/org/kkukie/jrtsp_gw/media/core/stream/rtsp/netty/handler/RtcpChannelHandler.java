@@ -6,6 +6,7 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.socket.DatagramPacket;
 import lombok.extern.slf4j.Slf4j;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.Streamer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback.ViewerFeedbackManager;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.NettyChannelManager;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.base.RtcpType;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.rtcp.packet.RtcpPacket;
@@ -39,11 +40,13 @@ public class RtcpChannelHandler extends SimpleChannelInboundHandler<DatagramPack
 
     ////////////////////////////////////////////////////////////////////////////////
 
-    private static void handleReceiverReport(RtcpPacket rtcpPacket, Streamer streamer, long ssrc) {
+    private void handleReceiverReport(RtcpPacket rtcpPacket, Streamer streamer, long ssrc, boolean isVideo) {
         RtcpReceiverReport rtcpReceiverReport = (RtcpReceiverReport) rtcpPacket.getRtcpFormat();
         RtcpReportBlock rtcpReportBlock = rtcpReceiverReport.getReportBlockBySsrc(ssrc);
         if (rtcpReportBlock != null) {
-            float fractionLost = ((float) rtcpReportBlock.getFraction() / 100);
+            // fraction lost 는 손실률 * 256 (RFC 3550, 6.4.1)
+            int fraction = rtcpReportBlock.getFraction() & 0xFF;
+            float fractionLost = ((float) fraction / 256);
             if (fractionLost >= 0 && fractionLost <= 0.01) {
                 streamer.setCongestionLevel(0);
             } else if (fractionLost > 0.01 && fractionLost <= 0.25) {
@@ -55,6 +58,12 @@ public class RtcpChannelHandler extends SimpleChannelInboundHandler<DatagramPack
             } else {
                 streamer.setCongestionLevel(4);
             }
+
+            if (isVideo) {
+                ViewerFeedbackManager.getInstance().onReceiverReport(
+                        streamer.getConferenceId(), streamerKey, fraction, rtcpReportBlock.getIaj()
+                );
+            }
         }
     }
 
@@ -84,19 +93,17 @@ public class RtcpChannelHandler extends SimpleChannelInboundHandler<DatagramPack
 
                 int packetType = rtcpPacket.getRtcpHeader().getPacketType();
                 if (packetType == RtcpType.RECEIVER_REPORT) {
-                    for (Streamer streamer : NettyChannelManager.getInstance().getAllStreamers()) {
-                        if (streamer == null) {
-                            continue;
-                        }
-
+                    // 이 채널의 시청자(Streamer)가 보낸 RR 이다.
+                    Streamer streamer = NettyChannelManager.getInstance().getStreamer(streamerKey);
+                    if (streamer != null) {
                         long audioSsrc = streamer.getAudioSsrc();
                         if (audioSsrc > 0) {
-                            handleReceiverReport(rtcpPacket, streamer, audioSsrc);
+                            handleReceiverReport(rtcpPacket, streamer, audioSsrc, false);
                         }
 
                         long videoSsrc = streamer.getVideoSsrc();
                         if (videoSsrc > 0) {
-                            handleReceiverReport(rtcpPacket, streamer, videoSsrc);
+                            handleReceiverReport(rtcpPacket, streamer, videoSsrc, true);
                         }
                     }
                 }
@@ -83,7 +83,7 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
         if (uri.contains("*")) {
             uri = uri.replaceAll("[*]", " ");
         }
-        streamer.setUri(uri);
+        NettyChannelManager.getInstance().setStreamerUri(streamer, uri);
     }
 
     public static void sendResponse(String name, ChannelHandlerContext ctx, DefaultHttpRequest req, FullHttpResponse res) {
@@ -592,6 +592,14 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
             log.debug("({}) AudioContextStreamer is selected. (sessionId={})", audioContextStreamer.getKey(), audioContextStreamer.getSessionId());
             log.debug("({}) VideoContextStreamer is selected. (sessionId={})", videoContextStreamer.getKey(), videoContextStreamer.getSessionId());
 
+            // RTP(GOP 재전송 포함)는 PLAY 응답을 보낸 뒤에 시작한다.
+            String audioKey = audioContextStreamer.getKey();
+            String videoKey = videoContextStreamer.getKey();
+            Runnable startStreaming = () -> {
+                NettyChannelManager.getInstance().startStreaming(audioKey);
+                NettyChannelManager.getInstance().startStreaming(videoKey);
+            };
+
             if (audioContextStreamer.isTcp() && videoContextStreamer.isTcp()) {
                 String curSessionId = req.headers().get(RtspHeaderNames.SESSION);
                 if (curSessionId == null) {
@@ -603,8 +611,8 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                 }
                 log.debug("({}) Current sessionId is [{}].", name, curSessionId);
 
-                NettyChannelManager.getInstance().startStreaming(audioContextStreamer.getKey());
-                NettyChannelManager.getInstance().startStreaming(videoContextStreamer.getKey());
+                NettyChannelManager.getInstance().openStreaming(audioContextStreamer.getKey());
+                NettyChannelManager.getInstance().openStreaming(videoContextStreamer.getKey());
 
                 res.setStatus(RtspResponseStatuses.OK);
                 res.headers().add(
@@ -621,9 +629,9 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                 Streamer streamer = NettyChannelManager.getInstance().getStreamerBySessionId(curSessionId);
                 if (streamer != null) {
                     log.debug("({}) Play response is saved in [{}]", name, streamer.getKey());
-                    streamer.sendPlayResponse(res);
+                    streamer.sendPlayResponse(res, startStreaming);
                 } else {
-                    audioContextStreamer.sendPlayResponse(res);
+                    audioContextStreamer.sendPlayResponse(res, startStreaming);
                 }
             } else {
                 String targetUri = parseTargetUri(req);
@@ -662,8 +670,8 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                 }
 
                 // CHECK RTSP DESTINATION IP
-                NettyChannelManager.getInstance().startStreaming(audioContextStreamer.getKey());
-                NettyChannelManager.getInstance().startStreaming(videoContextStreamer.getKey());
+                NettyChannelManager.getInstance().openStreaming(audioContextStreamer.getKey());
+                NettyChannelManager.getInstance().openStreaming(videoContextStreamer.getKey());
 
                 // SUCCESS RESPONSE
                 res.setStatus(RtspResponseStatuses.OK);
@@ -682,9 +690,9 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                 Streamer streamer = NettyChannelManager.getInstance().getStreamerBySessionId(curSessionId);
                 if (streamer != null) {
                     log.debug("({}) Play response is saved in [{}]", name, streamer.getKey());
-                    streamer.sendPlayResponse(res);
+                    streamer.sendPlayResponse(res, startStreaming);
                 } else {
-                    audioContextStreamer.sendPlayResponse(res);
+                    audioContextStreamer.sendPlayResponse(res, startStreaming);
                 }
             }
         }
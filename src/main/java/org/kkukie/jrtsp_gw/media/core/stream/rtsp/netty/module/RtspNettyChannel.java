@@ -12,6 +12,9 @@ import org.kkukie.jrtsp_gw.config.ConfigManager;
 import org.kkukie.jrtsp_gw.config.DefaultConfig;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.Streamer;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.base.MediaType;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.GopCache;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.GopCacheManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop.KeyframeRequestManager;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.handler.RtspChannelHandler;
 import org.kkukie.jrtsp_gw.media.core.util.WebSocketPortManager;
 import org.slf4j.Logger;
@@ -19,9 +22,10 @@ import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -36,8 +40,12 @@ public class RtspNettyChannel { // > TCP
     private final int listenPort;
     /* Streamer Map */
     /* Key: To MDN, value: Streamer */
-    private final HashMap<String, Streamer> streamerMap = new HashMap<>();
+    private final ConcurrentHashMap<String, Streamer> streamerMap = new ConcurrentHashMap<>();
     private final ReentrantLock streamerMapLock = new ReentrantLock();
+    /* Streamer 보조 인덱스 (streamerMapLock 으로 streamerMap 과 함께 갱신된다) */
+    private final StreamerIndex conferenceIndex = new StreamerIndex();
+    private final StreamerIndex sessionIndex = new StreamerIndex();
+    private final StreamerIndex uriIndex = new StreamerIndex();
     private EventLoopGroup bossGroup = new NioEventLoopGroup();
     private ServerBootstrap b;
     /*메시지 수신용 채널 */
@@ -64,6 +72,10 @@ public class RtspNettyChannel { // > TCP
                 .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 1000)
+                // 시청자(연결)별 송신 버퍼 제한 : high 를 넘으면 Channel.isWritable() 이 false 가 된다.
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        defaultConfig.getTcpEgressWriteBufferLowMark(), defaultConfig.getTcpEgressWriteBufferHighMark()
+                ))
                 .childHandler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel socketChannel) {
@@ -165,7 +177,12 @@ public class RtspNettyChannel { // > TCP
                     isTcp,
                     listenIp, WebSocketPortManager.getInstance().takePort()
             );
-            streamerMap.putIfAbsent(streamer.getKey(), streamer);
+            if (streamerMap.putIfAbsent(streamer.getKey(), streamer) != null) {
+                logger.warn("Streamer is already exist. (key={})", streamer.getKey());
+                streamer.close();
+                return null;
+            }
+            addToIndex(streamer);
             return streamer;
         } catch (Exception e) {
             logger.warn("Fail to add streamer (conferenceId={}, sessionId={}, trackId={})", conferenceId, sessionId, trackId, e);
@@ -185,7 +202,9 @@ public class RtspNettyChannel { // > TCP
 
         streamerMapLock.lock();
         try {
-            streamerMap.remove(key);
+            if (streamerMap.remove(key, streamer)) {
+                removeFromIndex(streamer);
+            }
         } catch (Exception e) {
             logger.warn("Fail to delete the Streamer. (key={})", key, e);
         } finally {
@@ -199,20 +218,18 @@ public class RtspNettyChannel { // > TCP
     public void deleteAllStreamers() {
         streamerMapLock.lock();
         try {
-            for (Map.Entry<String, Streamer> entry : getCloneStreamerMap().entrySet()) {
-                String key = entry.getKey();
-                if (key == null) {
-                    continue;
-                }
-
+            for (Map.Entry<String, Streamer> entry : streamerMap.entrySet()) {
                 Streamer streamer = entry.getValue();
                 if (streamer == null) {
                     continue;
                 }
 
                 streamer.close();
-                streamerMap.remove(key);
             }
+            streamerMap.clear();
+            conferenceIndex.clear();
+            sessionIndex.clear();
+            uriIndex.clear();
         } catch (Exception e) {
             logger.warn("Fail to delete all the Streamers.", e);
         } finally {
@@ -220,24 +237,56 @@ public class RtspNettyChannel { // > TCP
         }
     }
 
-    public Map<String, Streamer> getCloneStreamerMap() {
-        if (streamerMap.isEmpty()) {
-            return Collections.emptyMap();
-        }
+    public List<Streamer> getAllStreamers() {
+        return new ArrayList<>(streamerMap.values());
+    }
 
-        HashMap<String, Streamer> cloneMap;
+    /**
+     * @param conferenceId Conference ID
+     * @return 해당 호의 Streamer 배열 (RTP 릴레이 경로에서 사용, 수정 금지)
+     */
+    public Streamer[] getStreamersByConferenceId(String conferenceId) {
+        return conferenceIndex.get(conferenceId);
+    }
 
+    public Streamer[] getStreamersBySessionId(String sessionId) {
+        return sessionIndex.get(sessionId);
+    }
+
+    public Streamer[] getStreamersByUri(String uri) {
+        return uriIndex.get(uri);
+    }
+
+    /**
+     * @fn public void setStreamerUri(Streamer streamer, String uri)
+     * @brief Streamer 의 URI 를 변경하고 URI 인덱스를 갱신하는 함수
+     */
+    public void setStreamerUri(Streamer streamer, String uri) {
         streamerMapLock.lock();
         try {
-            cloneMap = (HashMap<String, Streamer>) streamerMap.clone();
-        } catch (Exception e) {
-            logger.warn("Fail to clone the message sender map.");
-            cloneMap = streamerMap;
+            boolean isRegistered = streamerMap.get(streamer.getKey()) == streamer;
+            if (isRegistered) {
+                uriIndex.remove(streamer.getUri(), streamer);
+            }
+            streamer.setUri(uri);
+            if (isRegistered) {
+                uriIndex.add(uri, streamer);
+            }
         } finally {
             streamerMapLock.unlock();
         }
+    }
 
-        return cloneMap;
+    private void addToIndex(Streamer streamer) {
+        conferenceIndex.add(streamer.getConferenceId(), streamer);
+        sessionIndex.add(streamer.getSessionId(), streamer);
+        uriIndex.add(streamer.getUri(), streamer);
+    }
+
+    private void removeFromIndex(Streamer streamer) {
+        conferenceIndex.remove(streamer.getConferenceId(), streamer);
+        sessionIndex.remove(streamer.getSessionId(), streamer);
+        uriIndex.remove(streamer.getUri(), streamer);
     }
 
     /**
@@ -250,6 +299,28 @@ public class RtspNettyChannel { // > TCP
         return streamerMap.get(key);
     }
 
+    /**
+     * PLAY 응답을 보내기 전에 호출한다. 송신 경로를 열고, GOP 를 재전송할 시청자는 RTP-Info 값을 재전송 시작 값으로 맞춘다.
+     * 실제 전송은 PLAY 응답을 보낸 뒤 startStreaming() 에서 시작한다.
+     */
+    public void openStreaming(String key) {
+        Streamer streamer = getStreamer(key);
+        if (streamer == null) {
+            logger.warn("Fail to open the streaming. (key={})", key);
+            return;
+        }
+
+        streamer.open();
+
+        GopCache gopCache = GopCacheManager.getInstance().getGopCache(streamer.getConferenceId());
+        if (gopCache != null && streamer.isVideoAccepted()) {
+            gopCache.prepareReplay(streamer);
+        }
+    }
+
+    /**
+     * PLAY 응답을 보낸 뒤에 호출한다. (RTSP over TCP 에서 interleaved RTP 가 PLAY 응답보다 먼저 가지 않는다.)
+     */
     public void startStreaming(String key) {
         Streamer streamer = getStreamer(key);
         if (streamer == null) {
@@ -257,8 +328,19 @@ public class RtspNettyChannel { // > TCP
             return;
         }
 
-        streamer.open();
-        streamer.start();
+        // 호의 GOP 캐시가 있으면 마지막 키프레임부터 먼저 보내고 시작한다.
+        GopCache gopCache = GopCacheManager.getInstance().getGopCache(streamer.getConferenceId());
+        int replayedCount = 0;
+        if (gopCache != null && streamer.isVideoAccepted()) {
+            replayedCount = gopCache.replayAndStart(streamer);
+        } else {
+            streamer.start();
+        }
+
+        // 재전송할 GOP 가 없으면 송신측에 키프레임을 요청한다. (호 단위로 합쳐서 보낸다.)
+        if (streamer.isVideoAccepted()) {
+            KeyframeRequestManager.getInstance().requestKeyframe(streamer.getConferenceId(), replayedCount > 0);
+        }
     }
 
     public void stopStreaming(String key) {
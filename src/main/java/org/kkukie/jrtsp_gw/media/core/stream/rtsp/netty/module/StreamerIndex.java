@@ -0,0 +1,85 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.module;
+
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.Streamer;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @class public class StreamerIndex
+ * @brief 특정 키(conferenceId, sessionId, uri)로 Streamer 를 찾기 위한 보조 인덱스
+ * 값은 copy-on-write 배열로 관리하여, 조회(RTP 릴레이 경로)는 락이나 객체 할당 없이 수행된다.
+ * 추가/삭제는 RTSP 요청 처리 시에만 발생하므로 배열 복사 비용은 무시할 수 있다.
+ */
+public class StreamerIndex {
+
+    private static final Streamer[] EMPTY_STREAMERS = new Streamer[0];
+
+    private final ConcurrentHashMap<String, Streamer[]> indexMap = new ConcurrentHashMap<>();
+
+    public void add(String key, Streamer streamer) {
+        if (key == null || streamer == null) {
+            return;
+        }
+
+        indexMap.compute(key, (k, streamers) -> {
+            if (streamers == null) {
+                return new Streamer[]{streamer};
+            }
+            for (Streamer cur : streamers) {
+                if (cur == streamer) {
+                    return streamers;
+                }
+            }
+            Streamer[] newStreamers = Arrays.copyOf(streamers, streamers.length + 1);
+            newStreamers[streamers.length] = streamer;
+            return newStreamers;
+        });
+    }
+
+    public void remove(String key, Streamer streamer) {
+        if (key == null || streamer == null) {
+            return;
+        }
+
+        indexMap.computeIfPresent(key, (k, streamers) -> {
+            int index = -1;
+            for (int i = 0; i < streamers.length; i++) {
+                if (streamers[i] == streamer) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return streamers;
+            }
+            if (streamers.length == 1) {
+                // 비어 있는 항목은 제거한다.
+                return null;
+            }
+
+            Streamer[] newStreamers = new Streamer[streamers.length - 1];
+            System.arraycopy(streamers, 0, newStreamers, 0, index);
+            System.arraycopy(streamers, index + 1, newStreamers, index, streamers.length - index - 1);
+            return newStreamers;
+        });
+    }
+
+    /**
+     * @param key 인덱스 키
+     * @return 키에 해당하는 Streamer 배열 (없으면 빈 배열), 반환된 배열은 수정하면 안된다.
+     */
+    public Streamer[] get(String key) {
+        if (key == null) {
+            return EMPTY_STREAMERS;
+        }
+
+        Streamer[] streamers = indexMap.get(key);
+        return streamers != null ? streamers : EMPTY_STREAMERS;
+    }
+
+    public void clear() {
+        indexMap.clear();
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay;
+
+import io.netty.buffer.ByteBuf;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * @class public class RelayPacket
+ * @brief RTSP 구독자에게 전달할 RTP 패킷과 메타 정보
+ * RtpHandler 의 RtpPacket 은 재사용되므로, 다른 스레드로 넘길 때는 필요한 값을 여기에 복사해둔다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class RelayPacket {
+
+    /** 공유 RTP 버퍼 (RelayPacket 이 참조 하나를 소유한다) */
+    private final ByteBuf rtpBuf;
+    private final String mediaType;
+    private final String encodingName;
+    private final long ssrc;
+    private final int seqNum;
+    private final long timestamp;
+    /** 키프레임(접근 단위)에 속한 비디오 패킷이면 true */
+    private final boolean keyframe;
+    /** 키프레임의 첫 번째 패킷이면 true */
+    private final boolean keyframeStart;
+
+    public void release() {
+        rtpBuf.release();
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay;
+
+import io.netty.channel.EventLoop;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.media.core.manager.EventLoopGroupManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * @class public class RtpRelayManager
+ * @brief 호(Conference)별 RtpRelayRing 을 관리하는 클래스
+ * relayRingSize 가 0 이면 링을 만들지 않고, Ingest 스레드에서 바로 fan-out 한다.
+ */
+@Slf4j
+public class RtpRelayManager {
+
+    private static final RtpRelayManager rtpRelayManager = new RtpRelayManager();
+
+    private final ConcurrentHashMap<String, RtpRelayRing> relayRingMap = new ConcurrentHashMap<>();
+
+    private RtpRelayManager() {}
+
+    public static RtpRelayManager getInstance() {
+        return rtpRelayManager;
+    }
+
+    /**
+     * @return 새로 만든 RtpRelayRing, 비동기 전달을 사용하지 않으면 null
+     */
+    public RtpRelayRing createRelayRing(String conferenceId, Consumer<RelayPacket> relayHandler,
+                                        Consumer<RelayPacket> dropHandler, Runnable drainEndHandler) {
+        int relayRingSize = ConfigManager.getDefaultConfig().getRelayRingSize();
+        if (conferenceId == null || relayRingSize <= 0) {
+            return null;
+        }
+
+        EventLoop egressLoop = EventLoopGroupManager.getInstance().getEgressLoop(conferenceId);
+        if (egressLoop == null) {
+            log.warn("|RtpRelayManager| Egress event loop group is not started. Relay synchronously. (conferenceId={})", conferenceId);
+            return null;
+        }
+
+        RtpRelayRing relayRing = new RtpRelayRing(conferenceId, relayRingSize, egressLoop, relayHandler, dropHandler, drainEndHandler);
+        RtpRelayRing oldRelayRing = relayRingMap.put(conferenceId, relayRing);
+        if (oldRelayRing != null) {
+            oldRelayRing.close();
+        }
+        log.debug("|RtpRelayManager| RtpRelayRing is created. (conferenceId={}, capacity={})", conferenceId, relayRing.getCapacity());
+        return relayRing;
+    }
+
+    public RtpRelayRing getRelayRing(String conferenceId) {
+        if (conferenceId == null) {
+            return null;
+        }
+        return relayRingMap.get(conferenceId);
+    }
+
+    public void deleteRelayRing(String conferenceId, RtpRelayRing relayRing) {
+        if (conferenceId == null || relayRing == null) {
+            return;
+        }
+
+        if (relayRingMap.remove(conferenceId, relayRing)) {
+            log.debug("|RtpRelayManager| RtpRelayRing is deleted. (conferenceId={})", conferenceId);
+        }
+        relayRing.close();
+    }
+
+}
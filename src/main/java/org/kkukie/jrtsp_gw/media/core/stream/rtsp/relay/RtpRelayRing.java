@@ -0,0 +1,228 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay;
+
+import io.netty.channel.EventLoop;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.session.media.base.MediaType;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @class public class RtpRelayRing
+ * @brief 호(Conference)별 Ingest -> RTSP fan-out 사이의 비동기 전달 링
+ * 1) 생산자 : 호의 DataChannel 을 처리하는 Ingest 스레드 (하나)
+ *      - SRTP 병렬 복호화 시에는 SrtpDecryptWorkerGroup 워커가 RtpHandler 의 joinLock 안에서 한 번에 하나씩 생산한다.
+ * 2) 소비자 : 호에 고정 배정된 Egress EventLoop (하나)
+ *      - 느린 TCP 시청자가 있어도 Ingest(SRTP 복호화, ICE/DTLS 응답)는 멈추지 않는다.
+ * 3) 드롭 정책
+ *      - 오디오는 버리지 않는다. (링의 AUDIO_RESERVE_RATIO 만큼은 오디오 전용으로 남겨둔다.)
+ *      - 점유율이 HIGH_WATERMARK_RATIO 를 넘으면 소비자가 가장 오래된 비디오 비키프레임부터 버린다.
+ *      - 비디오 전용 공간이 가득 차면 생산자는 새 비디오 패킷을 버린다.
+ *      - 비디오를 한 번 버리면 다음 키프레임 시작 패킷까지 비디오를 모두 버린다. (깨진 프레임을 시청자에게 보내지 않는다.)
+ *      - 소비자가 버린 비디오 패킷은 dropHandler 로 넘긴다. (GOP 캐시는 끊기지 않게 계속 채운다.)
+ */
+@Slf4j
+public class RtpRelayRing {
+
+    /** 한 번의 drain 에서 처리할 최대 패킷 수 (같은 EventLoop 의 다른 호와 공정성 보장) */
+    private static final int MAX_DRAIN_COUNT = 256;
+    private static final double HIGH_WATERMARK_RATIO = 0.75;
+    private static final double AUDIO_RESERVE_RATIO = 0.125;
+
+    private final String conferenceId;
+    private final SpscRing<RelayPacket> ring;
+    private final int highWatermark;
+    private final int videoLimit;
+
+    private final EventLoop consumerLoop;
+    private final Consumer<RelayPacket> relayHandler;
+    private final Consumer<RelayPacket> dropHandler;
+    private final Runnable drainEndHandler;
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean(false);
+    private final Runnable drainTask = this::drain;
+    private volatile boolean isClosed = false;
+    /** 생산자가 비디오 패킷을 버렸으면 true, 소비자가 확인하고 비디오 건너뛰기를 시작한다. */
+    private volatile boolean isVideoLost = false;
+    /** 다음 키프레임 시작 패킷까지 비디오를 버리는 중이면 true (소비자 스레드 전용) */
+    private boolean isSkippingVideo = false;
+
+    /* 통계 */
+    private final AtomicLong enqueuedCount = new AtomicLong(0);
+    private final AtomicLong droppedVideoCount = new AtomicLong(0);
+    private final AtomicLong droppedAudioCount = new AtomicLong(0);
+    private volatile int maxOccupancy = 0;
+
+    /**
+     * @param relayHandler    패킷마다 호출한다. (fan-out)
+     * @param dropHandler     소비자가 버린 비디오 패킷마다 호출한다. (GOP 캐시)
+     * @param drainEndHandler drain 한 번이 끝날 때 호출한다. (릴레이 묶음의 끝, UDP 송신 flush)
+     */
+    public RtpRelayRing(String conferenceId, int capacity, EventLoop consumerLoop,
+                        Consumer<RelayPacket> relayHandler, Consumer<RelayPacket> dropHandler, Runnable drainEndHandler) {
+        this.conferenceId = conferenceId;
+        this.ring = new SpscRing<>(capacity);
+        this.highWatermark = (int) (ring.getCapacity() * HIGH_WATERMARK_RATIO);
+        this.videoLimit = ring.getCapacity() - Math.max(1, (int) (ring.getCapacity() * AUDIO_RESERVE_RATIO));
+        this.consumerLoop = consumerLoop;
+        this.relayHandler = relayHandler;
+        this.dropHandler = dropHandler;
+        this.drainEndHandler = drainEndHandler;
+    }
+
+    /**
+     * 생산자(Ingest) 스레드에서 호출한다.
+     *
+     * @param relayPacket 전달할 패킷 (소유권이 링으로 넘어온다)
+     * @return 링에 들어갔으면 true, 드롭되었으면 false
+     */
+    public boolean publish(RelayPacket relayPacket) {
+        if (isClosed) {
+            relayPacket.release();
+            return false;
+        }
+
+        boolean isAudio = MediaType.AUDIO.getName().equals(relayPacket.getMediaType());
+        if (!isAudio && ring.size() >= videoLimit) {
+            droppedVideoCount.incrementAndGet();
+            isVideoLost = true;
+            relayPacket.release();
+            return false;
+        }
+
+        if (!ring.offer(relayPacket)) {
+            if (isAudio) {
+                droppedAudioCount.incrementAndGet();
+            } else {
+                droppedVideoCount.incrementAndGet();
+                isVideoLost = true;
+            }
+            relayPacket.release();
+            return false;
+        }
+        enqueuedCount.incrementAndGet();
+
+        int occupancy = ring.size();
+        if (occupancy > maxOccupancy) {
+            maxOccupancy = occupancy;
+        }
+
+        scheduleDrain();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            consumerLoop.execute(drainTask);
+        }
+    }
+
+    /**
+     * 소비자(Egress EventLoop) 스레드에서만 실행된다.
+     */
+    private void drain() {
+        isDrainScheduled.set(false);
+
+        int drainCount = 0;
+        RelayPacket relayPacket;
+        while ((relayPacket = ring.poll()) != null) {
+            try {
+                if (isClosed) {
+                    continue;
+                }
+
+                if (!MediaType.AUDIO.getName().equals(relayPacket.getMediaType()) && isVideoSkipped(relayPacket)) {
+                    droppedVideoCount.incrementAndGet();
+                    dropHandler.accept(relayPacket);
+                    continue;
+                }
+
+                relayHandler.accept(relayPacket);
+            } catch (Exception e) {
+                log.warn("|RtpRelayRing({})| Fail to relay the packet.", conferenceId, e);
+            } finally {
+                relayPacket.release();
+            }
+
+            if (++drainCount >= MAX_DRAIN_COUNT) {
+                break;
+            }
+        }
+
+        if (drainCount > 0 && !isClosed) {
+            try {
+                drainEndHandler.run();
+            } catch (Exception e) {
+                log.warn("|RtpRelayRing({})| Fail to handle the end of the drain.", conferenceId, e);
+            }
+        }
+
+        if (!ring.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 소비자 스레드에서만 호출한다.
+     *
+     * @return 비디오 패킷을 버려야 하면 true
+     */
+    private boolean isVideoSkipped(RelayPacket relayPacket) {
+        if (isVideoLost) {
+            isVideoLost = false;
+            isSkippingVideo = true;
+        }
+
+        // 밀려 있으면 가장 오래된 비디오 비키프레임부터 버린다.
+        if (!isSkippingVideo && ring.size() >= highWatermark && !relayPacket.isKeyframe()) {
+            isSkippingVideo = true;
+        }
+
+        if (isSkippingVideo) {
+            if (!relayPacket.isKeyframeStart()) {
+                return true;
+            }
+            isSkippingVideo = false;
+        }
+        return false;
+    }
+
+    /**
+     * 링을 닫는다. 남은 패킷은 소비자 스레드에서 해제된다.
+     */
+    public void close() {
+        isClosed = true;
+        if (!consumerLoop.isShuttingDown()) {
+            scheduleDrain();
+        }
+    }
+
+    public String getConferenceId() {
+        return conferenceId;
+    }
+
+    public int getCapacity() {
+        return ring.getCapacity();
+    }
+
+    public int getOccupancy() {
+        return ring.size();
+    }
+
+    public int getMaxOccupancy() {
+        return maxOccupancy;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.get();
+    }
+
+    public long getDroppedVideoCount() {
+        return droppedVideoCount.get();
+    }
+
+    public long getDroppedAudioCount() {
+        return droppedAudioCount.get();
+    }
+
+}
@@ -0,0 +1,78 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class SpscRing
+ * @brief 단일 생산자 / 단일 소비자 전용 lock-free 고정 크기 링 버퍼
+ * 1) offer() 는 한 스레드(생산자)에서만, poll()/peek() 는 한 스레드(소비자)에서만 호출해야 한다.
+ * 2) 인덱스는 lazySet(release) 으로 게시하고 get(acquire) 으로 읽어 배열 원소의 가시성을 보장한다.
+ */
+public class SpscRing<E> {
+
+    private final Object[] buffer;
+    private final int capacity;
+    private final int mask;
+
+    /** 소비자 인덱스 (다음에 읽을 위치) */
+    private final AtomicLong head = new AtomicLong(0);
+    /** 생산자 인덱스 (다음에 쓸 위치) */
+    private final AtomicLong tail = new AtomicLong(0);
+    /** 생산자 스레드 전용 head 캐시 (매번 head 를 읽지 않기 위함) */
+    private long cachedHead = 0;
+
+    /**
+     * @param capacity 최대 원소 수 (2 의 거듭제곱으로 올림)
+     */
+    public SpscRing(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Object[size];
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    public boolean offer(E element) {
+        long curTail = tail.get();
+        if (curTail - cachedHead >= capacity) {
+            cachedHead = head.get();
+            if (curTail - cachedHead >= capacity) {
+                return false;
+            }
+        }
+
+        buffer[(int) (curTail & mask)] = element;
+        tail.lazySet(curTail + 1);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long curHead = head.get();
+        if (curHead >= tail.get()) {
+            return null;
+        }
+
+        int index = (int) (curHead & mask);
+        E element = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(curHead + 1);
+        return element;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+}
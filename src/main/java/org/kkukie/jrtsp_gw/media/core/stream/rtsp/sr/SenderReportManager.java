@@ -0,0 +1,76 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.sr;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.config.DefaultConfig;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @class public class SenderReportManager
+ * @brief 호(Conference)별 SenderReportScheduler 를 관리하는 클래스
+ * 1) rtspSenderReportIntervalMs : RTSP 시청자 트랙마다 RTCP SR 을 보내는 간격 (0 이면 보내지 않는다)
+ * 2) SenderReportScheduler 는 송신측 SR 을 받을 수 있는 호(PacketHandlerMaster)가 만든다.
+ */
+@Slf4j
+public class SenderReportManager {
+
+    private static final SenderReportManager senderReportManager = new SenderReportManager();
+
+    private final ConcurrentHashMap<String, SenderReportScheduler> schedulerMap = new ConcurrentHashMap<>();
+
+    private SenderReportManager() {}
+
+    public static SenderReportManager getInstance() {
+        return senderReportManager;
+    }
+
+    public boolean isEnabled() {
+        DefaultConfig defaultConfig = ConfigManager.getDefaultConfig();
+        return defaultConfig != null && defaultConfig.getRtspSenderReportIntervalMs() > 0;
+    }
+
+    /**
+     * @return 호의 SenderReportScheduler, SR 을 보내지 않으면 null
+     */
+    public SenderReportScheduler createScheduler(String conferenceId, int audioClockRate, int videoClockRate,
+                                                 SenderReportScheduler.SenderReportMappingSource senderReportMappingSource,
+                                                 SenderReportScheduler.IoExecutor ioExecutor) {
+        if (conferenceId == null || !isEnabled()) {
+            return null;
+        }
+
+        SenderReportScheduler scheduler = new SenderReportScheduler(
+                conferenceId, ConfigManager.getDefaultConfig().getRtspSenderReportIntervalMs(),
+                audioClockRate, videoClockRate, senderReportMappingSource, ioExecutor
+        );
+        SenderReportScheduler prevScheduler = schedulerMap.put(conferenceId, scheduler);
+        if (prevScheduler != null) {
+            prevScheduler.close();
+        }
+        scheduler.start();
+        log.debug("|SenderReportManager| SenderReportScheduler is created. (conferenceId={}, audioClockRate={}, videoClockRate={})",
+                conferenceId, audioClockRate, videoClockRate
+        );
+        return scheduler;
+    }
+
+    public SenderReportScheduler getScheduler(String conferenceId) {
+        if (conferenceId == null) {
+            return null;
+        }
+        return schedulerMap.get(conferenceId);
+    }
+
+    public void deleteScheduler(String conferenceId, SenderReportScheduler scheduler) {
+        if (conferenceId == null || scheduler == null) {
+            return;
+        }
+
+        scheduler.close();
+        if (schedulerMap.remove(conferenceId, scheduler)) {
+            log.debug("|SenderReportManager| SenderReportScheduler is deleted. (conferenceId={})", conferenceId);
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.sr;
+
+import io.netty.util.Timeout;
+import lombok.extern.slf4j.Slf4j;
+import org.kkukie.jrtsp_gw.media.core.manager.MediaTimerManager;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics.SenderReportMapping;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.Streamer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.base.MediaType;
+import org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.NettyChannelManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class SenderReportScheduler
+ * @brief 호(Conference)의 RTSP 시청자 트랙마다 RTCP SR 을 주기적으로 보내는 클래스
+ * 1) 전역 MediaTimerManager(hashed-wheel) 타이머로 intervalMs 마다 호의 모든 시청자 트랙(Streamer)에 SR 을 보낸다.
+ *      - 타이머 스레드에서는 작업을 호의 I/O 스레드(IoExecutor)로 넘기기만 한다. (다른 호의 타이머를 막지 않는다.)
+ * 2) NTP ↔ RTP timestamp 는 송신측(WebRTC)이 보낸 마지막 SR(RtpMember.onReceiveSR)에서 현재 시간으로 외삽한다.
+ *      - RTP 를 SSRC/timestamp 그대로 전달하므로 시청자는 송신측과 같은 기준으로 오디오/비디오를 맞춘다. (lip-sync)
+ *      - 송신측 SR 을 아직 받지 못했거나(noMappingCount) MAX_MAPPING_AGE_MS 보다 오래되었으면(staleMappingCount) 보내지 않는다.
+ * 3) SR 버퍼는 Streamer 가 트랙마다 한 번 만들어서 재사용한다.
+ */
+@Slf4j
+public class SenderReportScheduler {
+
+    /** 송신측 SR 이 이보다 오래되면 외삽하지 않는다. (송신측이 SR 을 멈춘 경우) */
+    static final long MAX_MAPPING_AGE_MS = 30000;
+
+    @FunctionalInterface
+    public interface SenderReportMappingSource {
+        /**
+         * @return 송신측 SSRC 의 마지막 SR 매핑, 없으면 null
+         */
+        SenderReportMapping getSenderReportMapping(long ssrc);
+    }
+
+    @FunctionalInterface
+    public interface IoExecutor {
+        /**
+         * @return 작업이 호의 I/O 스레드에 전달되었으면 true, 채널이 닫혀 있으면 false
+         */
+        boolean execute(Runnable task);
+    }
+
+    private final String conferenceId;
+    private final long intervalMs;
+    private final int audioClockRate;
+    private final int videoClockRate;
+    private final SenderReportMappingSource senderReportMappingSource;
+    private final IoExecutor ioExecutor;
+    private final Runnable sendTask = this::sendReports;
+
+    /* 아래 상태는 이 객체의 락으로 보호한다. */
+    private Timeout timeout = null;
+    private volatile boolean isClosed = false;
+
+    /* 통계 */
+    private final AtomicLong sentCount = new AtomicLong(0);
+    private final AtomicLong noMappingCount = new AtomicLong(0);
+    private final AtomicLong staleMappingCount = new AtomicLong(0);
+
+    /**
+     * @param intervalMs     시청자 트랙마다 SR 을 보내는 간격
+     * @param audioClockRate 오디오 RTP clock rate (0 이면 오디오 SR 을 보내지 않는다)
+     * @param videoClockRate 비디오 RTP clock rate (0 이면 비디오 SR 을 보내지 않는다)
+     * @param ioExecutor     SR 전송을 실행할 호의 I/O 스레드 (DataChannel.execute)
+     */
+    public SenderReportScheduler(String conferenceId, long intervalMs, int audioClockRate, int videoClockRate,
+                                 SenderReportMappingSource senderReportMappingSource, IoExecutor ioExecutor) {
+        this.conferenceId = conferenceId;
+        this.intervalMs = intervalMs;
+        this.audioClockRate = audioClockRate;
+        this.videoClockRate = videoClockRate;
+        this.senderReportMappingSource = senderReportMappingSource;
+        this.ioExecutor = ioExecutor;
+    }
+
+    public synchronized void start() {
+        scheduleTimer();
+    }
+
+    public synchronized void close() {
+        isClosed = true;
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    void onTimer(long nowNanos, Streamer[] streamers) {
+        for (Streamer streamer : streamers) {
+            if (streamer == null || !streamer.isStarted() || streamer.isTcp()) {
+                continue;
+            }
+
+            boolean isVideo = streamer.getMediaType() == MediaType.VIDEO;
+            long ssrc = isVideo ? streamer.getVideoSsrc() : streamer.getAudioSsrc();
+            int clockRate = isVideo ? videoClockRate : audioClockRate;
+            if (ssrc <= 0 || clockRate <= 0) {
+                continue;
+            }
+
+            SenderReportMapping senderReportMapping = senderReportMappingSource.getSenderReportMapping(ssrc);
+            if (senderReportMapping == null) {
+                noMappingCount.incrementAndGet();
+                continue;
+            }
+            if (senderReportMapping.getAgeNanos(nowNanos) > TimeUnit.MILLISECONDS.toNanos(MAX_MAPPING_AGE_MS)) {
+                staleMappingCount.incrementAndGet();
+                continue;
+            }
+
+            if (streamer.sendSenderReport(ssrc,
+                    senderReportMapping.getNtpTimestampAt(nowNanos),
+                    senderReportMapping.getRtpTimestampAt(nowNanos, clockRate))) {
+                sentCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void scheduleTimer() {
+        if (isClosed || (timeout != null && !timeout.isExpired())) {
+            return;
+        }
+
+        try {
+            timeout = MediaTimerManager.getInstance().newTimeout(
+                    curTimeout -> onTimeout(), intervalMs, TimeUnit.MILLISECONDS
+            );
+        } catch (IllegalStateException e) {
+            timeout = null;
+            log.warn("|SenderReportScheduler({})| Media timer is not running. Sender reports are disabled.", conferenceId);
+        }
+    }
+
+    private void onTimeout() {
+        synchronized (this) {
+            timeout = null;
+            if (isClosed) {
+                return;
+            }
+            scheduleTimer();
+        }
+
+        if (!ioExecutor.execute(sendTask)) {
+            log.debug("|SenderReportScheduler({})| Data channel is closed. Sender reports are dropped.", conferenceId);
+        }
+    }
+
+    /**
+     * 호의 I/O 스레드에서 실행된다.
+     */
+    private void sendReports() {
+        if (isClosed) {
+            return;
+        }
+
+        try {
+            onTimer(System.nanoTime(), NettyChannelManager.getInstance().getStreamersByCallId(conferenceId));
+        } catch (Exception e) {
+            log.warn("|SenderReportScheduler({})| Fail to send the sender reports.", conferenceId, e);
+        }
+    }
+
+    /** 보낸 SR 수 */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /** 송신측 SR 을 아직 받지 못해서 보내지 않은 수 */
+    public long getNoMappingCount() {
+        return noMappingCount.get();
+    }
+
+    /** 송신측 SR 이 오래되어서 보내지 않은 수 */
+    public long getStaleMappingCount() {
+        return staleMappingCount.get();
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class TcpEgressGuard
+ * @brief RTSP over TCP (interleaved) 시청자의 송신 버퍼를 보호하는 클래스
+ * 1) 채널이 쓰기 불가능(송신 버퍼가 high watermark 초과) 상태이면 패킷을 쓰지 않고 버린다.
+ * 2) 비디오를 한 번이라도 버렸으면, 채널이 다시 쓰기 가능해져도 다음 키프레임 시작 패킷부터 전송을 재개한다.
+ *    (오디오는 쓰기 가능해지는 즉시 재개한다.)
+ * 3) 쓰기 불가능 상태가 unwritableTimeoutMs 이상 지속되면 연결 종료 대상으로 판단한다.
+ * 4) GOP 재전송처럼 한 번에 몰리는 전송은 allowBurst() 로 송신 버퍼 한도를 그 크기만큼 미리 늘린다.
+ *      - 재전송이 high watermark 를 넘어도 중간에 잘리지 않고, 이어지는 실시간 패킷도 늘린 한도 안에서는 버리지 않는다.
+ *      - 늘린 한도는 송신 버퍼가 비워져서 채널이 다시 쓰기 가능해지면 없어진다. (재전송이 원래 한도 안에 들어갔으면 endBurst() 에서 바로 없앤다.)
+ */
+public class TcpEgressGuard {
+
+    /** Netty 송신 버퍼가 메시지마다 더하는 크기 (ChannelOutboundBuffer 기본값) */
+    private static final int PENDING_ENTRY_OVERHEAD = 96;
+
+    private final Channel channel;
+    private final long unwritableTimeoutMs;
+
+    private volatile boolean isSkippingVideo = false;
+    private volatile long unwritableSince = 0;
+    private final AtomicBoolean isTimedOut = new AtomicBoolean(false);
+
+    /** allowBurst() 로 늘린 송신 버퍼 한도 (0 : 사용하지 않음) */
+    private volatile long burstLimitBytes = 0;
+    /** 늘린 한도 덕분에 쓰기 불가능 상태에서 전송한 적이 있으면 true */
+    private volatile boolean isBurstUsed = false;
+
+    /* 통계 */
+    private final AtomicLong droppedPackets = new AtomicLong(0);
+    private final AtomicLong droppedBytes = new AtomicLong(0);
+    private volatile long maxPendingBytes = 0;
+
+    public TcpEgressGuard(Channel channel, long unwritableTimeoutMs) {
+        this.channel = channel;
+        this.unwritableTimeoutMs = unwritableTimeoutMs;
+    }
+
+    /**
+     * @param bytes           전송할 패킷 크기
+     * @param isVideo         비디오 패킷 여부
+     * @param isKeyframeStart 키프레임의 첫 번째 패킷 여부
+     * @return 전송해도 되면 true, 버려야 하면 false
+     */
+    public boolean admit(int bytes, boolean isVideo, boolean isKeyframeStart) {
+        long pendingBytes = getPendingBytes();
+        if (pendingBytes > maxPendingBytes) {
+            maxPendingBytes = pendingBytes;
+        }
+
+        boolean isWritable = channel.isWritable();
+        if (!isWritable && (burstLimitBytes <= 0 || pendingBytes + bytes > burstLimitBytes)) {
+            long now = System.currentTimeMillis();
+            if (unwritableSince == 0) {
+                unwritableSince = now;
+            } else if (unwritableTimeoutMs > 0 && now - unwritableSince >= unwritableTimeoutMs) {
+                isTimedOut.set(true);
+            }
+
+            if (isVideo) {
+                isSkippingVideo = true;
+            }
+            drop(bytes);
+            return false;
+        }
+        unwritableSince = 0;
+
+        if (!isWritable) {
+            isBurstUsed = true;
+        } else if (isBurstUsed) {
+            // 몰린 전송이 모두 비워졌다.
+            burstLimitBytes = 0;
+            isBurstUsed = false;
+        }
+
+        if (isVideo && isSkippingVideo) {
+            if (!isKeyframeStart) {
+                drop(bytes);
+                return false;
+            }
+            isSkippingVideo = false;
+        }
+        return true;
+    }
+
+    /**
+     * 지금 송신 버퍼에 쌓인 양(high watermark 보다 적으면 high watermark)에 몰린 전송 크기를 더한 만큼까지 전송을 허용한다.
+     *
+     * @param packetCount 한 번에 보낼 패킷 수
+     * @param bytes       한 번에 보낼 바이트 수 (interleaved 헤더 포함)
+     */
+    public void allowBurst(int packetCount, long bytes) {
+        burstLimitBytes = Math.max(getPendingBytes(), channel.config().getWriteBufferHighWaterMark())
+                + bytes + (long) packetCount * PENDING_ENTRY_OVERHEAD;
+        isBurstUsed = false;
+    }
+
+    /**
+     * 몰린 전송이 끝나면 호출한다. 원래 한도 안에서 끝났으면 늘린 한도를 없앤다.
+     */
+    public void endBurst() {
+        if (!isBurstUsed) {
+            burstLimitBytes = 0;
+        }
+    }
+
+    /**
+     * @return 쓰기 불가능 상태가 제한 시간을 넘었으면 한 번만 true 를 반환한다.
+     */
+    public boolean checkUnwritableTimeout() {
+        return isTimedOut.compareAndSet(true, false) && channel.isActive();
+    }
+
+    private void drop(int bytes) {
+        droppedPackets.incrementAndGet();
+        droppedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * @return 채널 송신 버퍼에 쌓여 있는 바이트 수
+     */
+    public long getPendingBytes() {
+        ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+        return outboundBuffer != null ? outboundBuffer.totalPendingWriteBytes() : 0;
+    }
+
+    public long getMaxPendingBytes() {
+        return maxPendingBytes;
+    }
+
+    public long getDroppedPackets() {
+        return droppedPackets.get();
+    }
+
+    public long getDroppedBytes() {
+        return droppedBytes.get();
+    }
+
+    public boolean isSkippingVideo() {
+        return isSkippingVideo;
+    }
+
+}
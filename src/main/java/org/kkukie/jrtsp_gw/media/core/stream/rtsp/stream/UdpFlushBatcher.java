@@ -0,0 +1,115 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class UdpFlushBatcher
+ * @brief UDP 송신 채널의 flush 를 묶어서 처리하는 클래스
+ * 1) 패킷은 write() 로 채널 outbound 버퍼에만 쌓고, 릴레이 묶음(RtpRelayRing drain)이 끝날 때 flushBurst() 로 한 번 flush 한다.
+ *      - 최대 지연 시간 후의 flush 는 묶음 끝을 알 수 없는 경로(링 미사용, GOP 재전송)를 위한 안전장치이다.
+ * 2) epoll 사용 시 flush 한 번에 쌓인 패킷이 sendmmsg 로 한 번에 전송된다.
+ * 3) 쌓인 패킷 수가 MAX_PENDING_PACKETS 에 도달하면 지연 시간을 기다리지 않고 바로 flush 한다.
+ * 4) write, 카운트, flush 예약은 모두 채널의 EventLoop 에서 실행한다.
+ *      - 다른 스레드에서 호출하면 EventLoop 로 넘긴다. (write 가 실행되기 전에 flush 되어 패킷이 버퍼에 남는 일이 없다.)
+ */
+public class UdpFlushBatcher {
+
+    /** flush 없이 쌓아둘 수 있는 최대 패킷 수 (sendmmsg 한 번의 최대 전송 수와 비슷한 수준) */
+    private static final int MAX_PENDING_PACKETS = 64;
+
+    private final Channel channel;
+    private final long flushDelayMicros;
+
+    /* 아래 상태는 채널의 EventLoop 에서만 접근한다. */
+    private int pendingPackets = 0;
+    private boolean isFlushScheduled = false;
+    private final Runnable flushTask = this::flush;
+    private final Runnable delayedFlushTask = this::onFlushDelay;
+
+    /* 통계 */
+    private final AtomicLong totalFlushCount = new AtomicLong(0);
+    private final AtomicLong totalFlushedPackets = new AtomicLong(0);
+    private volatile int lastPacketsPerFlush = 0;
+
+    public UdpFlushBatcher(Channel channel, long flushDelayMicros) {
+        this.channel = channel;
+        this.flushDelayMicros = flushDelayMicros;
+    }
+
+    /**
+     * @param rtpBuf 전송할 버퍼 (소유권이 채널로 넘어간다)
+     */
+    public void write(ByteBuf rtpBuf) {
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            writeInLoop(rtpBuf);
+        } else {
+            eventLoop.execute(() -> writeInLoop(rtpBuf));
+        }
+    }
+
+    /**
+     * 릴레이 묶음이 끝날 때 호출해서 쌓인 패킷을 한 번에 보낸다.
+     */
+    public void flushBurst() {
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            flush();
+        } else {
+            eventLoop.execute(flushTask);
+        }
+    }
+
+    private void writeInLoop(ByteBuf rtpBuf) {
+        channel.write(rtpBuf, channel.voidPromise());
+
+        if (++pendingPackets >= MAX_PENDING_PACKETS) {
+            flush();
+        } else if (!isFlushScheduled) {
+            isFlushScheduled = true;
+            channel.eventLoop().schedule(delayedFlushTask, flushDelayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void onFlushDelay() {
+        isFlushScheduled = false;
+        flush();
+    }
+
+    private void flush() {
+        int packets = pendingPackets;
+        if (packets <= 0) {
+            return;
+        }
+        pendingPackets = 0;
+
+        channel.flush();
+
+        lastPacketsPerFlush = packets;
+        totalFlushCount.incrementAndGet();
+        totalFlushedPackets.addAndGet(packets);
+    }
+
+    public long getTotalFlushCount() {
+        return totalFlushCount.get();
+    }
+
+    public long getTotalFlushedPackets() {
+        return totalFlushedPackets.get();
+    }
+
+    public int getLastPacketsPerFlush() {
+        return lastPacketsPerFlush;
+    }
+
+    public double getAvgPacketsPerFlush() {
+        long flushCount = totalFlushCount.get();
+        return flushCount > 0 ? (double) totalFlushedPackets.get() / flushCount : 0;
+    }
+
+}
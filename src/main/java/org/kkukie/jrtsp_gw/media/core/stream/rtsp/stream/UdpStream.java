@@ -3,11 +3,11 @@ package org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.DatagramChannel;
 import lombok.NoArgsConstructor;
 import org.kkukie.jrtsp_gw.config.ConfigManager;
 import org.kkukie.jrtsp_gw.config.DefaultConfig;
+import org.kkukie.jrtsp_gw.media.core.manager.EventLoopGroupManager;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.handler.StreamerChannelHandler;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream.network.TargetNetworkInfo;
 
@@ -19,22 +19,27 @@ import java.net.UnknownHostException;
 public class UdpStream {
 
     private final Bootstrap bootstrap = new Bootstrap();
-    private NioEventLoopGroup nioEventLoopGroup = null;
 
     public void start(String conferenceId) {
         DefaultConfig defaultConfig = ConfigManager.getDefaultConfig();
+        EventLoopGroupManager eventLoopGroupManager = EventLoopGroupManager.getInstance();
 
-        nioEventLoopGroup = new NioEventLoopGroup(defaultConfig.getStreamThreadPoolSize());
-        bootstrap.group(nioEventLoopGroup).channel(NioDatagramChannel.class)
+        // 게이트웨이 공유 Egress 그룹에서 호별로 고정된 EventLoop 를 사용한다.
+        EventLoop egressLoop = eventLoopGroupManager.getEgressLoop(conferenceId);
+        if (egressLoop == null) {
+            throw new IllegalStateException("Egress event loop group is not started. (conferenceId=" + conferenceId + ")");
+        }
+
+        bootstrap.group(egressLoop).channel(eventLoopGroupManager.getDatagramChannelClass())
                 .option(ChannelOption.SO_BROADCAST, false)
                 .option(ChannelOption.SO_SNDBUF, defaultConfig.getSendBufSize())
                 .option(ChannelOption.SO_RCVBUF, defaultConfig.getRecvBufSize())
                 .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2000)
-                .handler(new ChannelInitializer<NioDatagramChannel>() {
+                .handler(new ChannelInitializer<DatagramChannel>() {
                     @Override
-                    public void initChannel(final NioDatagramChannel ch) {
+                    public void initChannel(final DatagramChannel ch) {
                         final ChannelPipeline pipeline = ch.pipeline();
                         pipeline.addLast(
                                 //new DefaultEventExecutorGroup(1),
@@ -47,10 +52,6 @@ public class UdpStream {
     public void stop(TargetNetworkInfo targetNetworkInfo) {
         closeTargetRtpEndpoint(targetNetworkInfo);
         closeTargetRtcpEndpoint(targetNetworkInfo);
-
-        if (nioEventLoopGroup != null) {
-            nioEventLoopGroup.shutdownGracefully();
-        }
     }
 
     public boolean connectTargetRtpEndpoint(TargetNetworkInfo targetNetworkInfo) throws InterruptedException, UnknownHostException {
@@ -7,9 +7,6 @@ import lombok.Data;
 @Data
 public class RtcpInfo {
 
-    public static final int RTCP_SR_LIMIT_COUNT = 5;
-    private int curRtcpSrCount = 5;
-    private int spc = 0;
     private int congestionLevel = 0;
 
     @Override
@@ -8,7 +8,6 @@ import lombok.extern.slf4j.Slf4j;
 import media.core.rtsp.sdp.*;
 import org.kkukie.jrtsp_gw.config.ConfigManager;
 import org.kkukie.jrtsp_gw.config.DtlsConfig;
-import org.kkukie.jrtsp_gw.media.core.manager.PacketSelector;
 import org.kkukie.jrtsp_gw.media.core.model.DataChannel;
 import org.kkukie.jrtsp_gw.media.core.stream.webrtc.websocket.command.OmeAnswer;
 import org.kkukie.jrtsp_gw.media.core.stream.webrtc.websocket.command.OmeCandidate;
@@ -46,7 +45,6 @@ public class WebSocketInfo {
     private int localPort = 0;
     private String remoteRealm = null;
 
-    private PacketSelector packetSelector = null;
     private DataChannel dataChannel;
 
     private WebRtcServiceInfo webRtcServiceInfo = null;
@@ -57,6 +55,7 @@ public class WebSocketInfo {
     public WebSocketInfo() {
         DtlsConfig dtlsConfig = ConfigManager.getDtlsConfig();
         localPeerConnection.setCertPath(dtlsConfig.getCertPath());
+        localPeerConnection.setKeyPath(dtlsConfig.getKeyPath());
     }
 
     public void start(WebRtcServiceInfo webRtcServiceInfo) throws WebSocketException, IOException, NoSuchAlgorithmException {
@@ -73,13 +72,6 @@ public class WebSocketInfo {
         localIp = webSocket.getSocket().getLocalAddress().getHostAddress();
         localPort = webSocket.getSocket().getLocalPort();
 
-        if (packetSelector != null) {
-            packetSelector.stop();
-            packetSelector = null;
-        }
-        packetSelector = new PacketSelector(webRtcServiceInfo.getConferenceId());
-        packetSelector.start();
-
         log.debug("|WebSocketInfo({})| LOCAL NETWORK = {}:{}", webRtcServiceInfo.getConferenceId(), localIp, localPort);
     }
 
@@ -112,8 +104,6 @@ public class WebSocketInfo {
     public void stop() {
         freeMediaChannel();
 
-        packetSelector.stop();
-
         if (webSocket != null) {
             webSocket.disconnect();
             webSocket = null;
@@ -124,8 +114,7 @@ public class WebSocketInfo {
         try {
             if (dataChannel == null) {
                 dataChannel = new DataChannel(
-                        packetSelector, mediaSession,
-                        webRtcServiceInfo.getConferenceId(), localAddress
+                        mediaSession, webRtcServiceInfo.getConferenceId(), localAddress
                 );
                 dataChannel.initChannel();
 
@@ -1,45 +1,42 @@
 package org.kkukie.jrtsp_gw.media.core.stream.webrtc.websocket.service.module;
 
-import javax.xml.bind.DatatypeConverter;
-import java.io.FileInputStream;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.kkukie.jrtsp_gw.config.DtlsConfig;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.DtlsCertificateStore;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.TlsUtils;
+
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.CertificateException;
-import java.security.cert.CertificateFactory;
-import java.security.cert.X509Certificate;
 
 public class FingerPrintGenerator {
 
-    private static X509Certificate getCertObject(String filePath) throws IOException, CertificateException {
-        try (FileInputStream is = new FileInputStream(filePath)) {
-            CertificateFactory certificateFactory = CertificateFactory
-                    .getInstance("X.509");
-            return (X509Certificate) certificateFactory.generateCertificate(is);
+    private static final String HASH_FUNCTION = "sha-256";
+
+    /**
+     * 설정된 DTLS 개인키(dtls.keyPath)와 짝인 인증서의 SHA-256 fingerprint 를 반환한다.
+     * 설정이 없으면(Spring 컨텍스트 없이 호출) 개인키 짝 검사 없이 인증서 파일만 읽는다.
+     *
+     * @return "AB:CD:..." 형식의 fingerprint
+     */
+    public static String getFingerPrint(String certPath) throws IOException {
+        DtlsConfig dtlsConfig = ConfigManager.getDtlsConfig();
+        if (dtlsConfig != null && dtlsConfig.getKeyPath() != null) {
+            return getFingerPrint(certPath, dtlsConfig.getKeyPath());
         }
+        return removeHashFunction(TlsUtils.fingerprint(HASH_FUNCTION, certPath));
     }
 
-    public static String getFingerPrint(String filePath) throws NoSuchAlgorithmException, CertificateException, IOException {
-        X509Certificate certObject = getCertObject(filePath);
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        md.update(certObject.getEncoded());
-
-        String rawFingerPrint = DatatypeConverter.printHexBinary(md.digest()).toUpperCase();
-        String[] split = rawFingerPrint.split("");
-
-        int count = 0;
-        StringBuilder newFingerPrint = new StringBuilder();
-        for (String c : split) {
-            if (count > 0 && count % 2 == 0) {
-                newFingerPrint.append(":");
-            }
-            newFingerPrint.append(c);
-            count++;
-        }
+    /**
+     * DtlsCertificateStore 에 캐시된 인증서의 SHA-256 fingerprint 를 반환한다. (인증서 파일을 매번 다시 읽지 않는다.)
+     *
+     * @return "AB:CD:..." 형식의 fingerprint
+     */
+    public static String getFingerPrint(String certPath, String keyPath) throws IOException {
+        // "sha-256 AB:CD:..." (핸드셰이크에 쓰는 개인키와 같은 쌍의 인증서)
+        return removeHashFunction(DtlsCertificateStore.getInstance().getCredential(certPath, keyPath).getFingerprint(HASH_FUNCTION));
+    }
 
-        return newFingerPrint.toString();
+    private static String removeHashFunction(String fingerprint) {
+        return fingerprint.substring(fingerprint.indexOf(' ') + 1);
     }
 
 }
-
-
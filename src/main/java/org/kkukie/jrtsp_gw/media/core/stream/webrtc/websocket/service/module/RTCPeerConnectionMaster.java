@@ -15,6 +15,7 @@ import java.util.Collections;
 public class RTCPeerConnectionMaster {
 
     private String certPath;
+    private String keyPath;
 
     private SdpSession remoteDesc = null;
     private SdpSession localDesc = null;
@@ -83,7 +84,7 @@ public class RTCPeerConnectionMaster {
         String newFingerPrint;
 
         try {
-            newFingerPrint = FingerPrintGenerator.getFingerPrint(certPath);
+            newFingerPrint = FingerPrintGenerator.getFingerPrint(certPath, keyPath);
         } catch (Exception e) {
             log.warn("RTCPeerConnectionMaster.getFingerPrint.Exception", e);
             return true;
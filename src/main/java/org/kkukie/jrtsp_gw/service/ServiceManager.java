@@ -3,8 +3,20 @@ package org.kkukie.jrtsp_gw.service;
 import lombok.extern.slf4j.Slf4j;
 import org.kkukie.jrtsp_gw.config.ConfigManager;
 import org.kkukie.jrtsp_gw.config.DefaultConfig;
+import org.kkukie.jrtsp_gw.config.DtlsConfig;
+import org.kkukie.jrtsp_gw.media.core.manager.EventLoopGroupManager;
+import org.kkukie.jrtsp_gw.media.core.manager.MediaTimerManager;
+import org.kkukie.jrtsp_gw.media.core.manager.PacketSelector;
+import org.kkukie.jrtsp_gw.media.core.manager.SrtpDecryptWorkerGroup;
+import org.kkukie.jrtsp_gw.media.core.model.transport.DataTransportType;
+import org.kkukie.jrtsp_gw.media.core.stream.dtls.DtlsHandshakeExecutor;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.AlgorithmCertificate;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.DtlsCertificateGenerator;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.DtlsCertificateStore;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPCipherFactory;
 import org.kkukie.jrtsp_gw.media.core.stream.rtsp.netty.NettyChannelManager;
 import org.kkukie.jrtsp_gw.media.core.util.WebSocketPortManager;
+import org.kkukie.jrtsp_gw.service.monitor.DtlsCertificateReloadHandler;
 import org.kkukie.jrtsp_gw.service.monitor.HaHandler;
 import org.kkukie.jrtsp_gw.service.scheduler.job.Job;
 import org.kkukie.jrtsp_gw.service.scheduler.job.JobBuilder;
@@ -41,11 +53,13 @@ public class ServiceManager {
     private boolean isQuit = false;
 
     private final DefaultConfig defaultConfig;
+    private final DtlsConfig dtlsConfig;
 
     private ServiceManager() {
         Runtime.getRuntime().addShutdownHook(new ShutDownHookHandler("ShutDownHookHandler", Thread.currentThread()));
 
         defaultConfig = ConfigManager.getDefaultConfig();
+        dtlsConfig = ConfigManager.getDtlsConfig();
     }
 
     public static ServiceManager getInstance() {
@@ -57,6 +71,21 @@ public class ServiceManager {
 
         WebSocketPortManager.getInstance().initResource(defaultConfig.getLocalPortMin(), defaultConfig.getLocalPortMax());
 
+        SRTPCipherFactory.init(defaultConfig.getSrtpCipherBackend());
+        SrtpDecryptWorkerGroup.getInstance().start(defaultConfig.getSrtpDecryptThreadSize());
+        DtlsHandshakeExecutor.getInstance().start(dtlsConfig.getHandshakeThreadSize());
+        MediaTimerManager.getInstance().start();
+        if (!loadDtlsCertificate()) {
+            return false;
+        }
+
+        if (DataTransportType.of(defaultConfig.getIngestTransportType()) == DataTransportType.NETTY) {
+            EventLoopGroupManager.getInstance().startIngestGroup(defaultConfig.getSelectorThreadSize());
+        } else {
+            PacketSelector.getInstance().start(defaultConfig.getSelectorThreadSize());
+        }
+        EventLoopGroupManager.getInstance().startEgressGroup(defaultConfig.getStreamThreadPoolSize());
+
         NettyChannelManager.getInstance().openRtspChannel(
                 defaultConfig.getLocalListenIp(),
                 defaultConfig.getLocalRtspListenPort()
@@ -82,17 +111,101 @@ public class ServiceManager {
                 log.warn("|ServiceManager| [-RUN FAIL] HA Handler");
                 return false;
             }
+
+            if (dtlsConfig.getCertReloadIntervalMs() > 0) {
+                Job dtlsCertificateReloadJob = new JobBuilder()
+                        .setScheduleManager(scheduleManager)
+                        .setName(DtlsCertificateReloadHandler.class.getSimpleName())
+                        .setInitialDelay(dtlsConfig.getCertReloadIntervalMs())
+                        .setInterval(dtlsConfig.getCertReloadIntervalMs())
+                        .setTimeUnit(TimeUnit.MILLISECONDS)
+                        .setPriority(5)
+                        .setTotalRunCount(1)
+                        .setIsLasted(true)
+                        .build();
+                DtlsCertificateReloadHandler dtlsCertificateReloadHandler = new DtlsCertificateReloadHandler(dtlsCertificateReloadJob);
+                dtlsCertificateReloadHandler.init();
+                if (scheduleManager.startJob(MAIN_SCHEDULE_JOB, dtlsCertificateReloadHandler.getJob())) {
+                    log.debug("|ServiceManager| [+RUN] DTLS Certificate Reload Handler");
+                } else {
+                    log.warn("|ServiceManager| [-RUN FAIL] DTLS Certificate Reload Handler");
+                    return false;
+                }
+            }
         }
 
         log.debug("|ServiceManager| All services are opened.");
         return true;
     }
 
+    private boolean loadDtlsCertificate() {
+        boolean isCertExist = isFileExist(dtlsConfig.getCertPath());
+        boolean isKeyExist = isFileExist(dtlsConfig.getKeyPath());
+        if (!isCertExist && !isKeyExist) {
+            generateDtlsCertificate();
+        } else if (!isCertExist || !isKeyExist) {
+            // Only one of the pair exists : do not overwrite the other one with a generated pair
+            log.error("|ServiceManager| DTLS {} file is missing. Fail to start. (certPath={}, keyPath={})",
+                    isCertExist ? "key" : "certificate", dtlsConfig.getCertPath(), dtlsConfig.getKeyPath()
+            );
+            return false;
+        }
+
+        // Parse the certificate and key once, before the first call is set up
+        DtlsCertificateStore dtlsCertificateStore = DtlsCertificateStore.getInstance();
+        try {
+            DtlsCertificateStore.Credential credential = dtlsCertificateStore.getCredential(dtlsConfig.getCertPath(), dtlsConfig.getKeyPath());
+            log.debug("|ServiceManager| DTLS certificate is loaded. ({})", credential.getFingerprint("sha-256"));
+        } catch (Exception e) {
+            log.warn("|ServiceManager| Fail to load the DTLS certificate. (certPath={}, keyPath={})",
+                    dtlsConfig.getCertPath(), dtlsConfig.getKeyPath(), e
+            );
+        }
+        return true;
+    }
+
+    private void generateDtlsCertificate() {
+        // No usable certificate : generate an ECDSA P-256 certificate (cheaper to sign than RSA in every handshake)
+        String certPath = dtlsConfig.getCertPath();
+        String keyPath = dtlsConfig.getKeyPath();
+        if (certPath != null && !certPath.isEmpty() && keyPath != null && !keyPath.isEmpty()) {
+            try {
+                DtlsCertificateGenerator.generate(certPath, keyPath, AlgorithmCertificate.ECDSA);
+                log.warn("|ServiceManager| DTLS certificate is not found. ECDSA certificate is generated. (certPath={}, keyPath={})", certPath, keyPath);
+                return;
+            } catch (Exception e) {
+                log.warn("|ServiceManager| Fail to generate the DTLS certificate in the configured path. (certPath={}, keyPath={})", certPath, keyPath, e);
+            }
+        }
+
+        File dtlsDir = new File(tmpdir, "jrtsp_gw_dtls");
+        certPath = new File(dtlsDir, "cert.pem").getAbsolutePath();
+        keyPath = new File(dtlsDir, "key.pem").getAbsolutePath();
+        try {
+            DtlsCertificateGenerator.generate(certPath, keyPath, AlgorithmCertificate.ECDSA);
+            dtlsConfig.setCertPath(certPath);
+            dtlsConfig.setKeyPath(keyPath);
+            log.warn("|ServiceManager| DTLS certificate is not configured. ECDSA certificate is generated. (certPath={}, keyPath={})", certPath, keyPath);
+        } catch (Exception e) {
+            log.warn("|ServiceManager| Fail to generate the DTLS certificate. (certPath={}, keyPath={})", certPath, keyPath, e);
+        }
+    }
+
+    private static boolean isFileExist(String path) {
+        return path != null && !path.isEmpty() && new File(path).isFile();
+    }
+
     public void stop() {
         WebSocketPortManager.getInstance().releaseResource();
 
         NettyChannelManager.getInstance().deleteRtspChannel();
 
+        MediaTimerManager.getInstance().stop();
+        PacketSelector.getInstance().stop();
+        SrtpDecryptWorkerGroup.getInstance().stop();
+        DtlsHandshakeExecutor.getInstance().stop();
+        EventLoopGroupManager.getInstance().stop();
+
         scheduleManager.stopAll(MAIN_SCHEDULE_JOB);
 
         systemUnLock();
@@ -0,0 +1,24 @@
+package org.kkukie.jrtsp_gw.service.monitor;
+
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.DtlsCertificateStore;
+import org.kkukie.jrtsp_gw.service.scheduler.job.Job;
+import org.kkukie.jrtsp_gw.service.scheduler.job.JobContainer;
+
+/**
+ * DTLS 인증서/개인키 파일이 바뀌었는지 주기적으로 확인하고, 바뀐 (인증서, 개인키) 쌍만 DtlsCertificateStore 에 다시 읽는다.
+ */
+public class DtlsCertificateReloadHandler extends JobContainer {
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public DtlsCertificateReloadHandler(Job dtlsCertificateReloadJob) {
+        setJob(dtlsCertificateReloadJob);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public void init() {
+        getJob().setRunnable(() -> DtlsCertificateStore.getInstance().reloadIfModified());
+    }
+
+}
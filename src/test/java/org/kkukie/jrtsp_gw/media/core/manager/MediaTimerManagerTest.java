@@ -0,0 +1,45 @@
+package org.kkukie.jrtsp_gw.media.core.manager;
+
+import io.netty.util.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MediaTimerManagerTest {
+
+    @AfterEach
+    public void stop() {
+        MediaTimerManager.getInstance().stop();
+    }
+
+    @Test
+    public void expireAndCancel() throws Exception {
+        MediaTimerManager mediaTimerManager = MediaTimerManager.getInstance();
+        mediaTimerManager.start();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        mediaTimerManager.newTimeout(timeout -> latch.countDown(), 20, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+
+        AtomicBoolean isExpired = new AtomicBoolean(false);
+        Timeout timeout = mediaTimerManager.newTimeout(t -> isExpired.set(true), 50, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        Thread.sleep(150);
+        assertFalse(isExpired.get());
+    }
+
+    @Test
+    public void notRunning() {
+        assertThrows(IllegalStateException.class, () ->
+                MediaTimerManager.getInstance().newTimeout(timeout -> { }, 10, TimeUnit.MILLISECONDS)
+        );
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.kkukie.jrtsp_gw.media.core.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.PacketTransformer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPParameters;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.newSrtpTransformer;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.rtp;
+
+public class SrtpDecryptWorkerGroupTest {
+
+    private static final int PACKET_COUNT = 500;
+
+    @AfterEach
+    public void stop() {
+        SrtpDecryptWorkerGroup.getInstance().stop();
+    }
+
+    @Test
+    public void decryptInOrderPerSsrc() throws InterruptedException {
+        SrtpDecryptWorkerGroup workerGroup = SrtpDecryptWorkerGroup.getInstance();
+        workerGroup.start(2);
+
+        // 서로 다른 워커에 배정되는 SSRC 두 개
+        long[] ssrcs = {0x1000L, 0x1001L};
+        assertNotEquals(
+                SrtpDecryptWorkerGroup.getWorkerIndex(ssrcs[0], 2),
+                SrtpDecryptWorkerGroup.getWorkerIndex(ssrcs[1], 2)
+        );
+
+        PacketTransformer encoder = newSrtpTransformer(SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80);
+        PacketTransformer decoder = newSrtpTransformer(SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80);
+
+        List<List<Integer>> decodedSeqNums = new ArrayList<>();
+        for (int i = 0; i < ssrcs.length; i++) {
+            decodedSeqNums.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        CountDownLatch latch = new CountDownLatch(PACKET_COUNT * ssrcs.length);
+        for (int seqNum = 1; seqNum <= PACKET_COUNT; seqNum++) {
+            for (int i = 0; i < ssrcs.length; i++) {
+                ByteBuffer buffer = ByteBuffer.wrap(encoder.transform(rtp(ssrcs[i], seqNum, 160)));
+                List<Integer> seqNums = decodedSeqNums.get(i);
+                assertTrue(workerGroup.execute(ssrcs[i], () -> {
+                    if (decoder.reverseTransform(buffer)) {
+                        seqNums.add(((buffer.get(2) & 0xFF) << 8) | (buffer.get(3) & 0xFF));
+                    }
+                    latch.countDown();
+                }));
+            }
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        for (List<Integer> seqNums : decodedSeqNums) {
+            assertEquals(PACKET_COUNT, seqNums.size());
+            for (int i = 0; i < PACKET_COUNT; i++) {
+                assertEquals(i + 1, seqNums.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void inactive() {
+        assertEquals(0, SrtpDecryptWorkerGroup.getInstance().getThreadSize());
+        assertFalse(SrtpDecryptWorkerGroup.getInstance().execute(0x1000L, () -> {}));
+    }
+
+}
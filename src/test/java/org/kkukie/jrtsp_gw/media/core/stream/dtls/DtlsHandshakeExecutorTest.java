@@ -0,0 +1,145 @@
+package org.kkukie.jrtsp_gw.media.core.stream.dtls;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kkukie.jrtsp_gw.config.ConfigEnv;
+import org.kkukie.jrtsp_gw.config.ConfigManager;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DtlsHandshakeExecutorTest {
+
+    @AfterEach
+    public void stop() {
+        DtlsHandshakeExecutor.getInstance().stop();
+    }
+
+    @Test
+    public void boundedConcurrency() throws InterruptedException {
+        DtlsHandshakeExecutor executor = DtlsHandshakeExecutor.getInstance();
+        executor.start(2);
+
+        // 스레드 2개가 모두 막혀 있으면 나머지 핸드셰이크는 큐에서 기다린다.
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(4);
+        long completedCount = executor.getCompletedCount();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(executor.execute(() -> {
+                executor.onHandshakeStarted();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    executor.onHandshakeFinished(true, 10);
+                    finished.countDown();
+                }
+            }));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getActiveCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, executor.getActiveCount());
+        assertEquals(2, executor.getPendingCount());
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(completedCount + 4, executor.getCompletedCount());
+        assertEquals(2, executor.getMaxActiveCount());
+        assertEquals(10, executor.getLastLatencyMs());
+    }
+
+    @Test
+    public void queuedHandshakeGetsFullTime() throws IOException, InterruptedException {
+        initConfig();
+        DtlsHandshakeExecutor executor = DtlsHandshakeExecutor.getInstance();
+        executor.start(2);
+
+        // 응답 없는 상대 4개 : 뒤의 2개는 앞의 2개가 시간을 넘길 때까지 큐에서 기다린다.
+        long maxDelay = 300;
+        int handshakeCount = 4;
+        long[] failedTimes = new long[handshakeCount];
+        CountDownLatch failed = new CountDownLatch(handshakeCount);
+        List<DtlsHandler> dtlsHandlers = new ArrayList<>();
+        long requestTime = System.currentTimeMillis();
+        for (int i = 0; i < handshakeCount; i++) {
+            int index = i;
+            DtlsHandler dtlsHandler = new DtlsHandler("dtls-test-" + i, new InetSocketAddress("127.0.0.1", 50000 + i));
+            dtlsHandler.setMaxDelay(maxDelay);
+            dtlsHandler.addListener(new DtlsListener() {
+                @Override
+                public void onDtlsHandshakeComplete() {
+                    // nothing
+                }
+
+                @Override
+                public void onDtlsHandshakeFailed(Throwable e) {
+                    if (failedTimes[index] == 0) {
+                        failedTimes[index] = System.currentTimeMillis();
+                        failed.countDown();
+                    }
+                }
+            });
+            dtlsHandlers.add(dtlsHandler);
+            dtlsHandler.handshake(false);
+        }
+
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        int lateFailedCount = 0;
+        for (long failedTime : failedTimes) {
+            // 큐에서 기다린 시간은 핸드셰이크 시간에 포함되지 않는다.
+            if (failedTime - requestTime >= maxDelay * 2) {
+                lateFailedCount++;
+            }
+        }
+        assertEquals(2, lateFailedCount);
+        for (DtlsHandler dtlsHandler : dtlsHandlers) {
+            assertTrue(dtlsHandler.isHandshakeFailed());
+            dtlsHandler.close();
+        }
+        assertEquals(2, executor.getMaxActiveCount());
+    }
+
+    @Test
+    public void notStarted() {
+        long rejectedCount = DtlsHandshakeExecutor.getInstance().getRejectedCount();
+        assertFalse(DtlsHandshakeExecutor.getInstance().execute(() -> {}));
+        assertEquals(rejectedCount + 1, DtlsHandshakeExecutor.getInstance().getRejectedCount());
+    }
+
+    /**
+     * application.yml (local) 로 ConfigManager 를 초기화한다. (Spring 컨텍스트 없이 사용)
+     */
+    private static void initConfig() throws IOException {
+        if (ConfigManager.getDtlsConfig() != null) {
+            return;
+        }
+
+        StandardEnvironment environment = new StandardEnvironment();
+        List<PropertySource<?>> propertySources = new YamlPropertySourceLoader().load(
+                "application", new ClassPathResource("application.yml")
+        );
+        for (PropertySource<?> propertySource : propertySources) {
+            if ("local".equals(propertySource.getProperty("spring.config.activate.on-profile"))) {
+                environment.getPropertySources().addLast(propertySource);
+            }
+        }
+        new ConfigManager(new ConfigEnv(environment));
+    }
+
+}
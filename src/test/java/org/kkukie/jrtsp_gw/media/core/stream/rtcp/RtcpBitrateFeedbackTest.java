@@ -0,0 +1,47 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtcp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RtcpBitrateFeedbackTest {
+
+    private static final long SENDER_SSRC = 0x11223344L;
+    private static final long MEDIA_SSRC = 0xAABBCCDDL;
+
+    @Test
+    public void rembRoundTrip() {
+        // 2.5 Mbps needs an exponent : 2_500_000 = 156250 << 4
+        byte[] rawData = new byte[1500];
+        int length = RtcpPacketFactory.buildRemb(SENDER_SSRC, 2_500_000, MEDIA_SSRC).encode(rawData, 0);
+        assertEquals(24, length);
+
+        RtcpPsFb psFb = new RtcpPsFb();
+        psFb.decode(rawData, 0);
+        assertEquals(RtcpPsFb.PSFB_AFB, psFb.getCount());
+        assertEquals(SENDER_SSRC, psFb.getSenderSsrc());
+        assertEquals(0, psFb.getMediaSsrc());
+
+        RtcpFciRemb remb = (RtcpFciRemb) psFb.getRtcpFcis().get(0);
+        assertEquals(2_500_000, remb.getBitrate());
+        assertArrayEquals(new long[]{MEDIA_SSRC}, remb.getSsrcs());
+    }
+
+    @Test
+    public void tmmbrRoundTrip() {
+        byte[] rawData = new byte[1500];
+        int length = RtcpPacketFactory.buildTmmbr(SENDER_SSRC, MEDIA_SSRC, 1_000_000, 40).encode(rawData, 0);
+        assertEquals(20, length);
+
+        RtcpRtpFb rtpFb = new RtcpRtpFb();
+        rtpFb.decode(rawData, 0);
+        assertEquals(RtcpRtpFb.RTPFB_TMMBR, rtpFb.getCount());
+
+        RtcpFciTmmbr tmmbr = (RtcpFciTmmbr) rtpFb.getRtcpFcis().get(0);
+        assertEquals(MEDIA_SSRC, tmmbr.getSsrc());
+        assertEquals(1_000_000, tmmbr.getBitrate());
+        assertEquals(40, tmmbr.getOverhead());
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp;
+
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.PacketTransformer;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPParameters;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto.SRTPTransformEngine;
+
+/**
+ * @class public final class RtpTestFixtures
+ * @brief 테스트에서 공통으로 사용하는 RTP / SRTP 입력 데이터
+ * 모든 값은 고정되어 있어서, 송신측과 수신측을 따로 만들어도 같은 키와 패킷이 만들어진다.
+ */
+public final class RtpTestFixtures {
+
+    /** 비디오 RTP 정보 (H264/90000, 30fps) */
+    public static final int VIDEO_PAYLOAD_TYPE = 96;
+    public static final String VIDEO_ENCODING_NAME = "H264";
+    public static final long VIDEO_TIMESTAMP_STEP = 3000L;
+    public static final int VIDEO_PAYLOAD_LENGTH = 100;
+
+    /** 오디오 RTP 정보 (OPUS/48000, 20ms) */
+    public static final int AUDIO_PAYLOAD_TYPE = 111;
+    public static final String AUDIO_ENCODING_NAME = "opus";
+    public static final long AUDIO_TIMESTAMP_STEP = 960L;
+    public static final int AUDIO_PAYLOAD_LENGTH = 160;
+
+    private RtpTestFixtures() {
+        // nothing
+    }
+
+    /**
+     * @return 0x01 부터 1씩 증가하는 SRTP master key
+     */
+    public static byte[] masterKey(int length) {
+        byte[] masterKey = new byte[length];
+        for (int i = 0; i < masterKey.length; i++) { masterKey[i] = (byte) (i + 1); }
+        return masterKey;
+    }
+
+    /**
+     * @return 0xA0 부터 1씩 증가하는 SRTP master salt
+     */
+    public static byte[] masterSalt(int length) {
+        byte[] masterSalt = new byte[length];
+        for (int i = 0; i < masterSalt.length; i++) { masterSalt[i] = (byte) (0xA0 + i); }
+        return masterSalt;
+    }
+
+    /**
+     * @return 고정된 master key / salt 로 만든 RTP 변환기 (호출할 때마다 새 암호화 컨텍스트를 가진다.)
+     */
+    public static PacketTransformer newSrtpTransformer(SRTPParameters parameters) {
+        return new SRTPTransformEngine(
+                masterKey(parameters.getCipherKeyLength()), masterSalt(parameters.getCipherSaltLength()),
+                parameters.getSrtpPolicy(), parameters.getSrtcpPolicy()
+        ).getRTPTransformer();
+    }
+
+    /**
+     * @return 12 바이트 RTP 헤더 (V=2, PT=96) 와 바이트 위치 값으로 채운 payload
+     */
+    public static byte[] rtp(long ssrc, int seqNum, int payloadLength) {
+        byte[] rtp = new byte[12 + payloadLength];
+        rtp[0] = (byte) 0x80;
+        rtp[1] = VIDEO_PAYLOAD_TYPE;
+        rtp[2] = (byte) (seqNum >> 8);
+        rtp[3] = (byte) seqNum;
+        rtp[8] = (byte) (ssrc >> 24);
+        rtp[9] = (byte) (ssrc >> 16);
+        rtp[10] = (byte) (ssrc >> 8);
+        rtp[11] = (byte) ssrc;
+        for (int i = 12; i < rtp.length; i++) {
+            rtp[i] = (byte) i;
+        }
+        return rtp;
+    }
+
+    /**
+     * @param mediaType video 또는 audio
+     * @return 순서 번호에 맞는 timestamp 를 가진 RTP 정보 (송수신 주소 없음)
+     */
+    public static RtpInfo makeRtpInfo(String mediaType, long ssrc, int seqNumber) {
+        boolean isVideo = "video".equals(mediaType);
+        RtpPacket rtpPacket = new RtpPacket(RtpPacket.RTP_PACKET_MAX_SIZE, false);
+        byte[] payload = new byte[isVideo ? VIDEO_PAYLOAD_LENGTH : AUDIO_PAYLOAD_LENGTH];
+        rtpPacket.wrap(false,
+                isVideo ? VIDEO_PAYLOAD_TYPE : AUDIO_PAYLOAD_TYPE,
+                seqNumber,
+                seqNumber * (isVideo ? VIDEO_TIMESTAMP_STEP : AUDIO_TIMESTAMP_STEP),
+                ssrc, payload, 0, payload.length
+        );
+        return new RtpInfo(rtpPacket, null, null, mediaType, isVideo ? VIDEO_ENCODING_NAME : AUDIO_ENCODING_NAME);
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.kkukie.jrtsp_gw.media.bouncycastle.asn1.sec.ECPrivateKey;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.kkukie.jrtsp_gw.media.bouncycastle.util.io.pem.PemObject;
+import org.kkukie.jrtsp_gw.media.bouncycastle.util.io.pem.PemWriter;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DtlsCertificateGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void generateEcdsa() throws Exception {
+        String certPath = tempDir.resolve("cert.pem").toString();
+        String keyPath = tempDir.resolve("key.pem").toString();
+        DtlsCertificateGenerator.generate(certPath, keyPath, AlgorithmCertificate.ECDSA);
+
+        DtlsCertificateStore dtlsCertificateStore = DtlsCertificateStore.getInstance();
+        assertEquals(AlgorithmCertificate.ECDSA, dtlsCertificateStore.getAlgorithmCertificate(certPath, keyPath));
+        // "sha-256 " + 32 bytes (2 hex + ':' each, except the last ':')
+        assertEquals(8 + 32 * 3 - 1, dtlsCertificateStore.getCredential(certPath, keyPath).getFingerprint("sha-256").length());
+
+        // ECDSA 인증서이면 서버는 ECDHE-ECDSA suite 만 선택한다.
+        for (CipherSuite cipherSuite : CipherSuite.getServerCipherSuites(AlgorithmCertificate.ECDSA)) {
+            assertTrue(cipherSuite.name().startsWith("TLS_ECDHE_ECDSA_"));
+        }
+        assertEquals(CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256, CipherSuite.getClientCipherSuites()[0]);
+    }
+
+    @Test
+    public void loadSec1EcPrivateKey() throws Exception {
+        String certPath = tempDir.resolve("cert.pem").toString();
+        String keyPath = tempDir.resolve("key.pem").toString();
+        DtlsCertificateGenerator.generate(certPath, keyPath, AlgorithmCertificate.ECDSA);
+
+        // Rewrite the PKCS#8 key as "EC PRIVATE KEY" (SEC1, as written by openssl ecparam -genkey)
+        PrivateKeyInfo privateKeyInfo = PrivateKeyInfo.getInstance(TlsUtils.loadPemResource(keyPath).getContent());
+        ECPrivateKey pkcs8Key = ECPrivateKey.getInstance(privateKeyInfo.parsePrivateKey());
+        ECPrivateKey sec1Key = new ECPrivateKey(256, pkcs8Key.getKey(), privateKeyInfo.getPrivateKeyAlgorithm().getParameters());
+        String sec1KeyPath = tempDir.resolve("sec1.pem").toString();
+        try (PemWriter pemWriter = new PemWriter(new FileWriter(sec1KeyPath))) {
+            pemWriter.writeObject(new PemObject("EC PRIVATE KEY", sec1Key.getEncoded()));
+        }
+
+        AsymmetricKeyParameter privateKey = TlsUtils.readPrivateKeyResource(sec1KeyPath);
+        assertTrue(privateKey instanceof ECPrivateKeyParameters);
+        assertEquals(pkcs8Key.getKey(), ((ECPrivateKeyParameters) privateKey).getD());
+        assertEquals(AlgorithmCertificate.ECDSA, DtlsCertificateStore.getInstance().getAlgorithmCertificate(certPath, sec1KeyPath));
+    }
+
+    @Test
+    public void generateRsa() throws Exception {
+        String certPath = tempDir.resolve("cert.pem").toString();
+        String keyPath = tempDir.resolve("key.pem").toString();
+        DtlsCertificateGenerator.generate(certPath, keyPath, AlgorithmCertificate.RSA);
+
+        assertEquals(AlgorithmCertificate.RSA, DtlsCertificateStore.getInstance().getAlgorithmCertificate(certPath, keyPath));
+    }
+
+    @Test
+    public void rejectMismatchedKey() throws Exception {
+        String certPath = tempDir.resolve("cert.pem").toString();
+        String keyPath = tempDir.resolve("key.pem").toString();
+        DtlsCertificateGenerator.generate(certPath, keyPath, AlgorithmCertificate.ECDSA);
+        String otherCertPath = tempDir.resolve("other_cert.pem").toString();
+        String otherKeyPath = tempDir.resolve("other_key.pem").toString();
+        DtlsCertificateGenerator.generate(otherCertPath, otherKeyPath, AlgorithmCertificate.ECDSA);
+
+        DtlsCertificateStore dtlsCertificateStore = DtlsCertificateStore.getInstance();
+        assertThrows(IOException.class, () -> dtlsCertificateStore.getCredential(certPath, otherKeyPath));
+
+        // Only the key is replaced : the reload is rejected and the previous pair is kept
+        DtlsCertificateStore.Credential credential = dtlsCertificateStore.getCredential(certPath, keyPath);
+        Files.copy(Paths.get(otherKeyPath), Paths.get(keyPath), StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(Paths.get(keyPath), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        dtlsCertificateStore.reloadIfModified();
+        assertSame(credential, dtlsCertificateStore.getCredential(certPath, keyPath));
+
+        // The certificate follows : the new pair is swapped in as a whole
+        Files.copy(Paths.get(otherCertPath), Paths.get(certPath), StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(Paths.get(certPath), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        dtlsCertificateStore.reloadIfModified();
+        assertEquals(dtlsCertificateStore.getCredential(otherCertPath, otherKeyPath).getFingerprint("sha-256"),
+                dtlsCertificateStore.getCredential(certPath, keyPath).getFingerprint("sha-256"));
+    }
+
+}
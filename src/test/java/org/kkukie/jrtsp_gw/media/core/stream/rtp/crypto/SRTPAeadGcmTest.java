@@ -0,0 +1,203 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.kkukie.jrtsp_gw.media.bouncycastle.crypto.tls.SRTPProtectionProfile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.masterKey;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.masterSalt;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.rtp;
+
+public class SRTPAeadGcmTest {
+
+    private static final long SSRC = 0x11223344L;
+
+    /** RFC 7714 16, 17 : AEAD_AES_128_GCM session key and salt ("Quid pro quo") */
+    private static final String KAT_KEY = "000102030405060708090a0b0c0d0e0f";
+    private static final String KAT_SALT = "517569642070726f2071756f";
+    /** RFC 7714 16.1.1 : RTP header + "Gallia est omnis divisa in partes tres" */
+    private static final String KAT_RTP = "8040f17b8041f8d35501a0b2"
+            + "47616c6c696120657374206f6d6e69732064697669736120696e207061727465732074726573";
+    private static final String KAT_SRTP = "8040f17b8041f8d35501a0b2"
+            + "f24de3a3fb34de6cacba861c9d7e4bcabe633bd50d294e6f42a5f47a51c7d19b36de3adf8833899d7f27beb16a91"
+            + "52cf765ee4390cce";
+    /** RFC 7714 17.1 : Sender Report, SRTCP index 0x5d4 */
+    private static final int KAT_SRTCP_INDEX = 0x5d4;
+    private static final String KAT_RTCP = "81c8000d4d6172734e5450314e545032525450200000042a0000e9304c756e61"
+            + "deadbeefdeadbeefdeadbeefdeadbeefdeadbeef";
+    private static final String KAT_SRTCP = "81c8000d4d617273"
+            + "63e94885dcdab67ca727d7662f6b7e997ff5c0f76c06f32dc676a5f1730d6fda4ce09b4686303ded0bb9275bc84aa458"
+            + "96cf4d2fc5abf87245d9eade"
+            + "800005d4";
+    /** RFC 7714 17.2 : the same packet authenticated only (E flag cleared) */
+    private static final String KAT_SRTCP_AUTH_ONLY = KAT_RTCP
+            + "841dd9683dd78ec92ae58790125f62b3"
+            + "000005d4";
+
+    @Test
+    public void chooseGcmFirst() {
+        assertEquals(SRTPProtectionProfile.SRTP_AEAD_AES_128_GCM, SRTPParameters.choosePreferredProfile(new int[]{
+                SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80,
+                SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32,
+                SRTPProtectionProfile.SRTP_AEAD_AES_256_GCM,
+                SRTPProtectionProfile.SRTP_AEAD_AES_128_GCM
+        }));
+        assertEquals(SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80, SRTPParameters.choosePreferredProfile(new int[]{
+                SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32,
+                SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80
+        }));
+        assertEquals(-1, SRTPParameters.choosePreferredProfile(new int[]{0x0099}));
+    }
+
+    @Test
+    public void srtpRoundTrip() {
+        for (SRTPParameters parameters : new SRTPParameters[]{SRTPParameters.SRTP_AEAD_AES_128_GCM, SRTPParameters.SRTP_AEAD_AES_256_GCM}) {
+            SRTPCryptoContext sender = newSrtpContext(parameters);
+            SRTPCryptoContext receiver = newSrtpContext(parameters);
+
+            RawPacket packet = new RawPacket();
+            for (int seqNum = 1; seqNum <= 3; seqNum++) {
+                byte[] rtp = rtp(SSRC, seqNum, 100 + seqNum * 7);
+                packet.wrap(rtp, 0, rtp.length);
+
+                sender.transformPacket(packet);
+                byte[] srtp = packet.getData();
+                assertEquals(rtp.length + SRTPCipherGCM.TAG_LENGTH, srtp.length);
+
+                // 태그가 변조된 패킷은 거부해야 한다.
+                byte[] tampered = srtp.clone();
+                tampered[tampered.length - 1] ^= 0x01;
+                packet.wrap(tampered, 0, tampered.length);
+                assertFalse(receiver.reverseTransformPacket(packet));
+
+                packet.wrap(srtp, 0, srtp.length);
+                assertTrue(receiver.reverseTransformPacket(packet));
+                assertArrayEquals(rtp, packet.getData());
+
+                // 재전송(replay)된 패킷은 거부해야 한다.
+                packet.wrap(srtp, 0, srtp.length);
+                assertFalse(receiver.reverseTransformPacket(packet));
+            }
+        }
+    }
+
+    @Test
+    public void srtcpRoundTrip() {
+        SRTCPCryptoContext sender = newSrtcpContext(SRTPParameters.SRTP_AEAD_AES_128_GCM);
+        SRTCPCryptoContext receiver = newSrtcpContext(SRTPParameters.SRTP_AEAD_AES_128_GCM);
+
+        // Receiver Report (1 report block)
+        byte[] rtcp = new byte[32];
+        rtcp[0] = (byte) 0x81;
+        rtcp[1] = (byte) 201;
+        rtcp[3] = 7;
+        rtcp[4] = (byte) (SSRC >> 24);
+        rtcp[5] = (byte) (SSRC >> 16);
+        rtcp[6] = (byte) (SSRC >> 8);
+        rtcp[7] = (byte) SSRC;
+        for (int i = 8; i < rtcp.length; i++) {
+            rtcp[i] = (byte) i;
+        }
+
+        RawPacket packet = new RawPacket();
+        packet.wrap(rtcp, 0, rtcp.length);
+        sender.transformPacket(packet);
+        byte[] srtcp = packet.getData();
+        assertEquals(rtcp.length + SRTPCipherGCM.TAG_LENGTH + 4, srtcp.length);
+
+        packet.wrap(srtcp, 0, srtcp.length);
+        assertTrue(receiver.reverseTransformPacket(packet));
+        assertArrayEquals(rtcp, packet.getData());
+    }
+
+    @Test
+    public void srtpKnownAnswer() {
+        SRTPCryptoContext sender = newKatSrtpContext();
+        SRTPCryptoContext receiver = newKatSrtpContext();
+
+        byte[] rtp = hex(KAT_RTP);
+        RawPacket packet = new RawPacket();
+        packet.wrap(rtp, 0, rtp.length);
+        sender.transformPacket(packet);
+        byte[] srtp = packet.getData();
+        assertArrayEquals(hex(KAT_SRTP), srtp);
+
+        packet.wrap(srtp, 0, srtp.length);
+        assertTrue(receiver.reverseTransformPacket(packet));
+        assertArrayEquals(rtp, packet.getData());
+    }
+
+    @Test
+    public void srtcpKnownAnswer() {
+        SRTCPCryptoContext sender = newKatSrtcpContext();
+        SRTCPCryptoContext receiver = newKatSrtcpContext();
+
+        byte[] rtcp = hex(KAT_RTCP);
+        RawPacket packet = new RawPacket();
+        packet.wrap(rtcp, 0, rtcp.length);
+        sender.transformPacket(packet);
+        byte[] srtcp = packet.getData();
+        assertArrayEquals(hex(KAT_SRTCP), srtcp);
+
+        packet.wrap(srtcp, 0, srtcp.length);
+        assertTrue(receiver.reverseTransformPacket(packet));
+        assertArrayEquals(rtcp, packet.getData());
+
+        // The sender always encrypts, but an authenticated only packet must be accepted too.
+        byte[] authOnly = hex(KAT_SRTCP_AUTH_ONLY);
+        packet.wrap(authOnly, 0, authOnly.length);
+        assertTrue(newKatSrtcpContext().reverseTransformPacket(packet));
+        assertArrayEquals(rtcp, packet.getData());
+
+        byte[] tampered = hex(KAT_SRTCP_AUTH_ONLY);
+        tampered[20] ^= 0x01;
+        packet.wrap(tampered, 0, tampered.length);
+        assertFalse(newKatSrtcpContext().reverseTransformPacket(packet));
+    }
+
+    private static SRTPCryptoContext newSrtpContext(SRTPParameters parameters) {
+        SRTPCryptoContext context = new SRTPCryptoContext(
+                0, 0, 0, masterKey(parameters.getCipherKeyLength()), masterSalt(parameters.getCipherSaltLength()), parameters.getSrtpPolicy()
+        ).deriveContext(SSRC, 0, 0);
+        context.deriveSrtpKeys(0);
+        return context;
+    }
+
+    private static SRTCPCryptoContext newSrtcpContext(SRTPParameters parameters) {
+        SRTCPCryptoContext context = new SRTCPCryptoContext(
+                0, masterKey(parameters.getCipherKeyLength()), masterSalt(parameters.getCipherSaltLength()), parameters.getSrtcpPolicy()
+        ).deriveContext(SSRC);
+        context.deriveSrtcpKeys();
+        return context;
+    }
+
+    private static SRTPCryptoContext newKatSrtpContext() {
+        SRTPParameters parameters = SRTPParameters.SRTP_AEAD_AES_128_GCM;
+        SRTPCryptoContext context = new SRTPCryptoContext(
+                0, 0, 0, hex(KAT_KEY), hex(KAT_SALT), parameters.getSrtpPolicy()
+        ).deriveContext(0x5501a0b2L, 0, 0);
+        context.setSessionKeys(hex(KAT_KEY), hex(KAT_SALT));
+        return context;
+    }
+
+    private static SRTCPCryptoContext newKatSrtcpContext() {
+        SRTPParameters parameters = SRTPParameters.SRTP_AEAD_AES_128_GCM;
+        SRTCPCryptoContext context = new SRTCPCryptoContext(
+                0, hex(KAT_KEY), hex(KAT_SALT), parameters.getSrtcpPolicy()
+        ).deriveContext(0x4d617273L);
+        context.setSessionKeys(hex(KAT_KEY), hex(KAT_SALT), KAT_SRTCP_INDEX);
+        return context;
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+}
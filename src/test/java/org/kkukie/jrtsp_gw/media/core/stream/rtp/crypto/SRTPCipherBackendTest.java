@@ -0,0 +1,68 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.masterKey;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.masterSalt;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.rtp;
+
+public class SRTPCipherBackendTest {
+
+    private static final byte[] MASTER_KEY = masterKey(16);
+    private static final byte[] MASTER_SALT = masterSalt(14);
+    private static final long SSRC = 0x11223344L;
+
+    @AfterEach
+    public void reset() {
+        SRTPCipherFactory.init(SRTPCipherBackend.BOUNCYCASTLE.name());
+    }
+
+    @Test
+    public void selfTest() {
+        assertTrue(SRTPCipherFactory.selfTest(SRTPCipherBackend.BOUNCYCASTLE));
+        assertTrue(SRTPCipherFactory.selfTest(SRTPCipherBackend.JCE));
+        assertEquals(SRTPCipherBackend.JCE, SRTPCipherFactory.init("jce"));
+    }
+
+    @Test
+    public void interop() {
+        // BouncyCastle 로 암호화한 패킷을 JCE 로 복호화할 수 있어야 한다. (반대 방향 포함)
+        for (int encType : new int[]{SRTPPolicy.AESCM_ENCRYPTION, SRTPPolicy.AESF8_ENCRYPTION}) {
+            roundTrip(encType, SRTPCipherBackend.BOUNCYCASTLE, SRTPCipherBackend.JCE);
+            roundTrip(encType, SRTPCipherBackend.JCE, SRTPCipherBackend.BOUNCYCASTLE);
+        }
+    }
+
+    private void roundTrip(int encType, SRTPCipherBackend sender, SRTPCipherBackend receiver) {
+        SRTPCryptoContext senderContext = newContext(encType, sender);
+        SRTPCryptoContext receiverContext = newContext(encType, receiver);
+
+        RawPacket packet = new RawPacket();
+        for (int seqNum = 1; seqNum <= 3; seqNum++) {
+            byte[] rtp = rtp(SSRC, seqNum, 100 + seqNum * 7);
+            packet.wrap(rtp, 0, rtp.length);
+
+            senderContext.transformPacket(packet);
+            byte[] srtp = packet.getData();
+
+            packet.wrap(srtp, 0, srtp.length);
+            assertTrue(receiverContext.reverseTransformPacket(packet));
+            assertArrayEquals(rtp, packet.getData());
+        }
+    }
+
+    private SRTPCryptoContext newContext(int encType, SRTPCipherBackend backend) {
+        SRTPCipherFactory.init(backend.name());
+
+        SRTPPolicy policy = new SRTPPolicy(encType, 16, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 14);
+        SRTPCryptoContext context = new SRTPCryptoContext(0, 0, 0, MASTER_KEY, MASTER_SALT, policy)
+                .deriveContext(SSRC, 0, 0);
+        context.deriveSrtpKeys(0);
+        return context;
+    }
+
+}
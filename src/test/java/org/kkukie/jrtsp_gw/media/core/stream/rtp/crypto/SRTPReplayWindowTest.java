@@ -0,0 +1,109 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SRTPReplayWindowTest {
+
+    private static final long SSRC = 0x0A0B0C0DL;
+
+    @Test
+    public void window() {
+        SRTPReplayWindow window = new SRTPReplayWindow();
+        assertEquals(SRTPReplayWindow.ACCEPTED, window.check(0));
+
+        window.update(200);
+        assertEquals(SRTPReplayWindow.REPLAYED, window.check(200));
+        assertEquals(SRTPReplayWindow.ACCEPTED, window.check(199));
+
+        // 두 번째 long(64~127) 영역의 비트
+        window.update(100);
+        assertEquals(SRTPReplayWindow.REPLAYED, window.check(100));
+        assertEquals(SRTPReplayWindow.ACCEPTED, window.check(101));
+        assertEquals(SRTPReplayWindow.ACCEPTED, window.check(200 - SRTPReplayWindow.WINDOW_SIZE + 1));
+        assertEquals(SRTPReplayWindow.TOO_OLD, window.check(200 - SRTPReplayWindow.WINDOW_SIZE));
+
+        // 비트가 lowBits 에서 highBits 로 넘어가도 유지되어야 한다.
+        window.update(230);
+        assertEquals(SRTPReplayWindow.REPLAYED, window.check(200));
+        assertEquals(SRTPReplayWindow.REPLAYED, window.check(230));
+        assertEquals(SRTPReplayWindow.TOO_OLD, window.check(100));
+
+        window.update(230 + 64);
+        assertEquals(SRTPReplayWindow.REPLAYED, window.check(230));
+        assertEquals(SRTPReplayWindow.ACCEPTED, window.check(231));
+
+        window.update(230 + 64 + SRTPReplayWindow.WINDOW_SIZE);
+        assertEquals(SRTPReplayWindow.TOO_OLD, window.check(230 + 64));
+        assertEquals(230 + 64 + SRTPReplayWindow.WINDOW_SIZE, window.getHighestIndex());
+    }
+
+    @Test
+    public void replayCounters() {
+        SRTPCryptoContext sender = newContext();
+        SRTPCryptoContext receiver = newContext();
+
+        // 65530 ~ 65535, 0 ~ 199 (ROC 가 한 번 증가한다.)
+        byte[][] srtps = new byte[206][];
+        for (int i = 0; i < srtps.length; i++) {
+            srtps[i] = protect(sender, (65530 + i) & 0xFFFF);
+        }
+
+        // 순서가 바뀐 패킷도 윈도우 안이면 받아야 한다.
+        for (int i = 0; i < srtps.length; i++) {
+            int n = i % 2 == 0 && i + 1 < srtps.length ? i + 1 : (i % 2 == 1 ? i - 1 : i);
+            assertTrue(receiver.reverseTransformPacket(wrap(srtps[n])), "packet " + n);
+        }
+        assertEquals(1, receiver.getROC());
+        assertEquals(199, receiver.getSeqNum());
+        assertEquals(1, receiver.getRocWrapCount());
+
+        assertFalse(receiver.reverseTransformPacket(wrap(srtps[srtps.length - 1])));
+        assertFalse(receiver.reverseTransformPacket(wrap(srtps[srtps.length - 100])));
+        assertFalse(receiver.reverseTransformPacket(wrap(srtps[0])));
+        assertEquals(2, receiver.getReplayedCount());
+        assertEquals(1, receiver.getTooOldCount());
+    }
+
+    private static SRTPCryptoContext newContext() {
+        SRTPParameters parameters = SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80;
+        byte[] masterKey = new byte[parameters.getCipherKeyLength()];
+        for (int i = 0; i < masterKey.length; i++) { masterKey[i] = (byte) (i + 7); }
+        byte[] masterSalt = new byte[parameters.getCipherSaltLength()];
+        for (int i = 0; i < masterSalt.length; i++) { masterSalt[i] = (byte) (0x30 + i); }
+
+        SRTPCryptoContext context = new SRTPCryptoContext(
+                0, 0, 0, masterKey, masterSalt, parameters.getSrtpPolicy()
+        ).deriveContext(SSRC, 0, 0);
+        context.deriveSrtpKeys(0);
+        return context;
+    }
+
+    private static byte[] protect(SRTPCryptoContext sender, int seqNum) {
+        byte[] rtp = new byte[12 + 40];
+        rtp[0] = (byte) 0x80;
+        rtp[1] = 96;
+        rtp[2] = (byte) (seqNum >> 8);
+        rtp[3] = (byte) seqNum;
+        rtp[8] = (byte) (SSRC >> 24);
+        rtp[9] = (byte) (SSRC >> 16);
+        rtp[10] = (byte) (SSRC >> 8);
+        rtp[11] = (byte) SSRC;
+
+        RawPacket packet = new RawPacket();
+        packet.wrap(rtp, 0, rtp.length);
+        sender.transformPacket(packet);
+        return packet.getData();
+    }
+
+    private static RawPacket wrap(byte[] srtp) {
+        RawPacket packet = new RawPacket();
+        byte[] copy = srtp.clone();
+        packet.wrap(copy, 0, copy.length);
+        return packet;
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.crypto;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.newSrtpTransformer;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.rtp;
+
+public class SRTPTransformerTest {
+
+    private static final long SSRC = 0x55667788L;
+
+    @AfterEach
+    public void reset() {
+        SRTPCipherFactory.init(SRTPCipherBackend.BOUNCYCASTLE.name());
+    }
+
+    @Test
+    public void reverseTransformInPlace() {
+        for (SRTPCipherBackend backend : SRTPCipherBackend.values()) {
+            SRTPCipherFactory.init(backend.name());
+
+            for (SRTPParameters parameters : new SRTPParameters[]{
+                    SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80,
+                    SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_32,
+                    SRTPParameters.SRTP_AEAD_AES_128_GCM,
+                    SRTPParameters.SRTP_AEAD_AES_256_GCM}) {
+                // heap, direct 버퍼 모두 복사 경로와 같은 결과를 내야 한다.
+                reverseTransformInPlace(parameters, ByteBuffer.allocate(1500));
+                reverseTransformInPlace(parameters, ByteBuffer.allocateDirect(1500));
+            }
+        }
+    }
+
+    @Test
+    public void reverseTransformBurst() {
+        PacketTransformer encoder = newSrtpTransformer(SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80);
+        PacketTransformer decoder = newSrtpTransformer(SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80);
+
+        byte[][] rtps = {
+                rtp(SSRC, 1, 100), rtp(SSRC, 2, 110), rtp(SSRC + 1, 1, 120), rtp(SSRC + 1, 2, 130), rtp(SSRC, 3, 140)
+        };
+        ByteBuffer[] buffers = new ByteBuffer[rtps.length + 1];
+        for (int i = 0; i < rtps.length; i++) {
+            buffers[i] = ByteBuffer.wrap(encoder.transform(rtps[i]));
+        }
+        // 마지막 패킷은 첫 번째 패킷의 재전송(replay)
+        buffers[rtps.length] = ByteBuffer.wrap(encoder.transform(rtps[0]));
+
+        boolean[] restored = new boolean[buffers.length];
+        assertEquals(rtps.length, decoder.reverseTransform(buffers, buffers.length, restored));
+        for (int i = 0; i < rtps.length; i++) {
+            assertTrue(restored[i]);
+
+            byte[] decoded = new byte[buffers[i].limit()];
+            buffers[i].rewind();
+            buffers[i].get(decoded);
+            assertArrayEquals(rtps[i], decoded);
+        }
+        assertFalse(restored[rtps.length]);
+    }
+
+    private void reverseTransformInPlace(SRTPParameters parameters, ByteBuffer buffer) {
+        PacketTransformer encoder = newSrtpTransformer(parameters);
+        PacketTransformer decoder = newSrtpTransformer(parameters);
+
+        for (int seqNum = 1; seqNum <= 3; seqNum++) {
+            byte[] rtp = rtp(SSRC, seqNum, 200 + seqNum * 13);
+            byte[] srtp = encoder.transform(rtp);
+
+            buffer.clear();
+            buffer.put(srtp);
+            buffer.flip();
+            assertTrue(decoder.reverseTransform(buffer));
+
+            byte[] decoded = new byte[buffer.limit()];
+            buffer.rewind();
+            buffer.get(decoded);
+            assertArrayEquals(rtp, decoded);
+
+            // 변조된 패킷은 거부해야 한다.
+            byte[] tampered = encoder.transform(rtp(SSRC, seqNum + 100, 64));
+            tampered[tampered.length - 1] ^= 0x01;
+            buffer.clear();
+            buffer.put(tampered);
+            buffer.flip();
+            assertFalse(decoder.reverseTransform(buffer));
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.nack;
+
+import org.junit.jupiter.api.Test;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.makeRtpInfo;
+
+public class RtpJitterBufferTest {
+
+    private static final long SSRC = 0x12345678L;
+
+    private final List<Integer> outputSeqNumbers = new ArrayList<>();
+    private final List<RtpInfo> outputRtpInfos = new ArrayList<>();
+    private final Consumer<RtpInfo> output = rtpInfo -> {
+        outputSeqNumbers.add(rtpInfo.getRtpPacket().getSeqNumber());
+        outputRtpInfos.add(rtpInfo);
+    };
+
+    @Test
+    public void reorderWithReusedSlots() {
+        RtpJitterBuffer jitterBuffer = new RtpJitterBuffer(16, 40);
+
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 1), 0, output);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 3), 20, output);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 2), 25, output);
+        assertEquals(Arrays.asList(1, 2, 3), outputSeqNumbers);
+
+        // The held packet is copied into the slot of its sequence number, and the slot is reused next time around.
+        RtpInfo slot = outputRtpInfos.get(2);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 5), 40, output);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 4), 41, output);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 6), 42, output);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 3 + 16), 43, output);
+        for (int seqNumber = 7; seqNumber < 3 + 16; seqNumber++) {
+            jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber), 44, output);
+        }
+        assertEquals(19, outputSeqNumbers.size());
+        assertSame(slot, outputRtpInfos.get(outputRtpInfos.size() - 1));
+        assertEquals(3 + 16, slot.getRtpPacket().getSeqNumber());
+    }
+
+    @Test
+    public void adaptDelay() {
+        RtpJitterBuffer jitterBuffer = new RtpJitterBuffer(64, 100);
+        assertEquals(100, jitterBuffer.getDelayMs());
+
+        // Gaps are filled within 8ms : the delay shrinks toward the observation
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 0), 0, output);
+        int seqNumber = 1;
+        long now = 0;
+        for (int i = 0; i < 100; i++, now += 1000) {
+            jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber + 1), now, output);
+            jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber), now + 8, output);
+            seqNumber += 2;
+        }
+        assertEquals(RtpJitterBuffer.MIN_DELAY_MS, jitterBuffer.getDelayMs());
+        assertEquals(201, outputSeqNumbers.size());
+
+        // A packet arrives after the gap is skipped : it is dropped, and the delay grows
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber + 1), now, output);
+        jitterBuffer.onTimer(now + RtpJitterBuffer.MIN_DELAY_MS, output);
+        assertEquals(seqNumber + 1, outputSeqNumbers.get(outputSeqNumbers.size() - 1));
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber), now + 30, output);
+        assertEquals(202, outputSeqNumbers.size());
+        assertEquals(RtpJitterBuffer.MIN_DELAY_MS * 2 + (RtpJitterBuffer.MIN_DELAY_MS * 2 >> 2), jitterBuffer.getDelayMs());
+        assertEquals(1, jitterBuffer.pollSkippedCount());
+        assertEquals(1, jitterBuffer.pollLateCount());
+    }
+
+    @Test
+    public void dropDuplicates() {
+        RtpJitterBuffer jitterBuffer = new RtpJitterBuffer(64, 100);
+
+        // No gap for a while : the delay shrinks to the minimum
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 0), 0, output);
+        long now = RtpJitterBuffer.DECAY_INTERVAL_MS * 64;
+        for (int seqNumber = 1; seqNumber < 10; seqNumber++, now += 20) {
+            jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber), now, output);
+            // Every packet is received twice : the copy is dropped, and the delay does not grow
+            jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber), now + 1, output);
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), outputSeqNumbers);
+        assertEquals(RtpJitterBuffer.MIN_DELAY_MS, jitterBuffer.getDelayMs());
+        assertEquals(9, jitterBuffer.pollLateCount());
+        assertEquals(0, jitterBuffer.pollSkippedCount());
+    }
+
+    @Test
+    public void dropLateAfterSkip() {
+        RtpJitterBuffer jitterBuffer = new RtpJitterBuffer(64, 100);
+
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 0), 0, output);
+        long now = RtpJitterBuffer.DECAY_INTERVAL_MS * 64;
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 1), now, output);
+        assertEquals(RtpJitterBuffer.MIN_DELAY_MS, jitterBuffer.getDelayMs());
+
+        // 2 and 3 are skipped after the delay
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 4), now + 20, output);
+        jitterBuffer.onTimer(now + 20 + RtpJitterBuffer.MIN_DELAY_MS, output);
+        assertEquals(Arrays.asList(0, 1, 4), outputSeqNumbers);
+        assertEquals(2, jitterBuffer.pollSkippedCount());
+
+        // The late 2 is dropped and grows the delay
+        long grownDelayMs = RtpJitterBuffer.MIN_DELAY_MS * 2 + (RtpJitterBuffer.MIN_DELAY_MS * 2 >> 2);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 2), now + 40, output);
+        assertEquals(grownDelayMs, jitterBuffer.getDelayMs());
+
+        // A second copy of 2 and a copy of the delivered 1 are dropped without growing the delay
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 2), now + 41, output);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 1), now + 42, output);
+        assertEquals(grownDelayMs, jitterBuffer.getDelayMs());
+
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 5), now + 43, output);
+        assertEquals(Arrays.asList(0, 1, 4, 5), outputSeqNumbers);
+        assertEquals(3, jitterBuffer.pollLateCount());
+    }
+
+    @Test
+    public void resyncOnBackwardJump() {
+        RtpJitterBuffer jitterBuffer = new RtpJitterBuffer(64, 100);
+
+        for (int seqNumber = 1000; seqNumber < 1003; seqNumber++) {
+            jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber), seqNumber, output);
+        }
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 1005), 1005, output);
+        assertEquals(1, jitterBuffer.getHeldCount());
+
+        // A jump further back than the buffer flushes the held packet and restarts from the new sequence
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 100), 1006, output);
+        jitterBuffer.receive(makeRtpInfo("audio", SSRC, 101), 1007, output);
+        assertEquals(Arrays.asList(1000, 1001, 1002, 1005, 100, 101), outputSeqNumbers);
+        assertEquals(0, jitterBuffer.getHeldCount());
+        assertEquals(1, jitterBuffer.pollResyncCount());
+        assertEquals(0, jitterBuffer.pollLateCount());
+    }
+
+    @Test
+    public void resyncOnSenderRestart() {
+        RtpJitterBuffer jitterBuffer = new RtpJitterBuffer(64, 100);
+
+        for (int seqNumber = 30; seqNumber < 40; seqNumber++) {
+            jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber), seqNumber, output);
+        }
+        outputSeqNumbers.clear();
+
+        // The sender restarts slightly behind : the first late packets are dropped, then the buffer follows the new sequence
+        int restartSeq = 10;
+        int lateCount = RtpJitterBuffer.MAX_CONSECUTIVE_LATE_COUNT - 1;
+        for (int seqNumber = restartSeq; seqNumber < restartSeq + lateCount + 3; seqNumber++) {
+            jitterBuffer.receive(makeRtpInfo("audio", SSRC, seqNumber), 40 + seqNumber, output);
+        }
+        assertEquals(Arrays.asList(restartSeq + lateCount, restartSeq + lateCount + 1, restartSeq + lateCount + 2), outputSeqNumbers);
+        assertEquals(lateCount, jitterBuffer.pollLateCount());
+        assertEquals(1, jitterBuffer.pollResyncCount());
+    }
+
+    @Test
+    public void invalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RtpJitterBuffer(100, 40));
+    }
+
+}
@@ -0,0 +1,129 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.nack;
+
+import org.junit.jupiter.api.Test;
+import org.kkukie.jrtsp_gw.media.core.stream.rtcp.RtcpFci;
+import org.kkukie.jrtsp_gw.media.core.stream.rtcp.RtcpFciNack;
+import org.kkukie.jrtsp_gw.media.core.stream.rtcp.RtcpPacket;
+import org.kkukie.jrtsp_gw.media.core.stream.rtcp.RtcpPacketFactory;
+import org.kkukie.jrtsp_gw.media.core.stream.rtcp.RtcpRtpFb;
+import org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.kkukie.jrtsp_gw.media.core.stream.rtp.RtpTestFixtures.makeRtpInfo;
+
+public class RtpLossRecoveryTest {
+
+    private static final long SSRC = 0x12345678L;
+
+    private final List<Integer> outputSeqNumbers = new ArrayList<>();
+    private final Consumer<RtpInfo> output = rtpInfo -> outputSeqNumbers.add(rtpInfo.getRtpPacket().getSeqNumber());
+    private final List<Integer> nackSeqNumbers = new ArrayList<>();
+    private final RtpLossRecovery.NackSender nackSender = (mediaSsrc, seqNumbers, length) -> {
+        for (int i = 0; i < length; i++) {
+            nackSeqNumbers.add(seqNumbers[i]);
+        }
+    };
+
+    @Test
+    public void recoverWithRetransmission() {
+        RtpLossRecovery lossRecovery = new RtpLossRecovery(3, 100, 0, nackSender);
+
+        // 65535 -> 2 : 0, 1 are lost (wrap-around)
+        lossRecovery.receive(makeRtpInfo("video", SSRC, 65535), 0, output);
+        lossRecovery.receive(makeRtpInfo("video", SSRC, 2), 10, output);
+        lossRecovery.receive(makeRtpInfo("video", SSRC, 3), 11, output);
+        assertEquals(Arrays.asList(0, 1), nackSeqNumbers);
+        assertEquals(Arrays.asList(65535), outputSeqNumbers);
+
+        // Retransmissions arrive, held packets are released in order
+        lossRecovery.receive(makeRtpInfo("video", SSRC, 1), 40, output);
+        lossRecovery.receive(makeRtpInfo("video", SSRC, 0), 41, output);
+        assertEquals(Arrays.asList(65535, 0, 1, 2, 3), outputSeqNumbers);
+        assertEquals(2, lossRecovery.getRecoveredCount());
+        assertEquals(3, lossRecovery.getHeldPacketCount());
+        assertEquals(31, lossRecovery.getMaxHoldTimeMs());
+        assertEquals(-1, lossRecovery.getNextDueTime());
+
+        // Duplicate retransmission is dropped
+        lossRecovery.receive(makeRtpInfo("video", SSRC, 1), 50, output);
+        assertEquals(1, lossRecovery.getDuplicateCount());
+        assertEquals(5, outputSeqNumbers.size());
+    }
+
+    @Test
+    public void retryAndSkip() {
+        RtpLossRecovery lossRecovery = new RtpLossRecovery(2, 300, 0, nackSender);
+
+        lossRecovery.receive(makeRtpInfo("video", SSRC, 10), 0, output);
+        lossRecovery.receive(makeRtpInfo("video", SSRC, 12), 0, output);
+        assertEquals(Arrays.asList(11), nackSeqNumbers);
+
+        // Retry after RTT (+ margin)
+        long dueTime = lossRecovery.getNextDueTime();
+        assertEquals(NackGenerator.DEFAULT_RTT_MS + (NackGenerator.DEFAULT_RTT_MS >> 2), dueTime);
+        lossRecovery.onTimer(dueTime, output);
+        assertEquals(Arrays.asList(11, 11), nackSeqNumbers);
+
+        // Retries are exhausted, the jitter buffer skips the gap after its delay
+        lossRecovery.onTimer(dueTime * 2, output);
+        assertEquals(1, lossRecovery.getUnrecoveredCount());
+        assertEquals(Arrays.asList(10), outputSeqNumbers);
+        lossRecovery.onTimer(300, output);
+        assertEquals(Arrays.asList(10, 12), outputSeqNumbers);
+        assertEquals(1, lossRecovery.getSkippedCount());
+        assertEquals(2, lossRecovery.getNackRequestCount());
+    }
+
+    @Test
+    public void pruneIdleSsrc() {
+        RtpLossRecovery lossRecovery = new RtpLossRecovery(0, 0, 100, nackSender);
+        long newSsrc = SSRC + 1;
+
+        // 2 is missing, so 3 is held when the sender restarts with a new SSRC
+        lossRecovery.receive(makeRtpInfo("audio", SSRC, 1), 0, output);
+        lossRecovery.receive(makeRtpInfo("audio", SSRC, 3), 20, output);
+        lossRecovery.receive(makeRtpInfo("audio", newSsrc, 500), 40, output);
+        assertEquals(2, lossRecovery.getSsrcCount());
+
+        // The old SSRC goes idle : its state is dropped and the held packet is released
+        long now = 20 + RtpLossRecovery.SSRC_IDLE_TIMEOUT_MS;
+        for (int seqNumber = 501; seqNumber < 505; seqNumber++, now += 20) {
+            lossRecovery.receive(makeRtpInfo("audio", newSsrc, seqNumber), now, output);
+        }
+        assertEquals(1, lossRecovery.getSsrcCount());
+        assertEquals(Arrays.asList(1, 500, 3, 501, 502, 503, 504), outputSeqNumbers);
+        assertEquals(1, lossRecovery.getSkippedCount());
+
+        // The active SSRC is kept
+        lossRecovery.onTimer(now + RtpLossRecovery.SSRC_IDLE_TIMEOUT_MS - 100, output);
+        assertEquals(1, lossRecovery.getSsrcCount());
+    }
+
+    @Test
+    public void buildNack() {
+        int[] seqNumbers = {65534, 65535, 1, 30};
+        RtcpPacket rtcpPacket = RtcpPacketFactory.buildNack(1, SSRC, seqNumbers, seqNumbers.length);
+        byte[] data = new byte[256];
+        int length = rtcpPacket.encode(data, 0);
+        // header(4) + sender ssrc(4) + media ssrc(4) + 2 FCI(4)
+        assertEquals(20, length);
+
+        RtcpRtpFb nack = new RtcpRtpFb();
+        nack.decode(data, 0);
+        assertEquals(RtcpRtpFb.RTPFB_NACK, nack.getCount());
+        assertEquals(SSRC, nack.getMediaSsrc());
+
+        List<RtcpFci> fcis = nack.getRtcpFcis();
+        assertEquals(2, fcis.size());
+        assertEquals(65534, ((RtcpFciNack) fcis.get(0)).getPid());
+        assertEquals(0b101, ((RtcpFciNack) fcis.get(0)).getBlp());
+        assertEquals(30, ((RtcpFciNack) fcis.get(1)).getPid());
+        assertEquals(0, ((RtcpFciNack) fcis.get(1)).getBlp());
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtp.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SenderReportMappingTest {
+
+    private static final long NTP_SEC = 3_900_000_000L;
+    private static final long RECEIVED_NANOS = 1_000_000_000L;
+
+    @Test
+    public void extrapolateFromLastSr() {
+        // Half a second fraction, RTP timestamp close to the 32 bit wrap
+        SenderReportMapping mapping = new SenderReportMapping(NTP_SEC, 0x80000000L, 0xFFFFFF00L, RECEIVED_NANOS);
+
+        long nowNanos = RECEIVED_NANOS + TimeUnit.MILLISECONDS.toNanos(2750);
+        long ntpTimestamp = mapping.getNtpTimestampAt(nowNanos);
+        // 0.5 s + 2.75 s = 3.25 s
+        assertEquals(NTP_SEC + 3, ntpTimestamp >>> 32);
+        assertEquals(0x40000000L, ntpTimestamp & 0xFFFFFFFFL);
+
+        // 90 kHz : 2.75 s = 247500 ticks, wraps around
+        assertEquals((0xFFFFFF00L + 247_500) & 0xFFFFFFFFL, mapping.getRtpTimestampAt(nowNanos, 90000));
+        // 48 kHz : 2.75 s = 132000 ticks
+        assertEquals((0xFFFFFF00L + 132_000) & 0xFFFFFFFFL, mapping.getRtpTimestampAt(nowNanos, 48000));
+    }
+
+    @Test
+    public void sameInstantAtReception() {
+        SenderReportMapping mapping = new SenderReportMapping(NTP_SEC, 0x12345678L, 1234, RECEIVED_NANOS);
+
+        assertEquals((NTP_SEC << 32) | 0x12345678L, mapping.getNtpTimestampAt(RECEIVED_NANOS));
+        assertEquals(1234, mapping.getRtpTimestampAt(RECEIVED_NANOS, 90000));
+        // A clock read before the reception does not go backwards
+        assertEquals(1234, mapping.getRtpTimestampAt(RECEIVED_NANOS - 1000, 90000));
+    }
+
+}
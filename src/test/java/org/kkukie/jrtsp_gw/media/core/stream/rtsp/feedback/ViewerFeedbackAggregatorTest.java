@@ -0,0 +1,134 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.feedback;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ViewerFeedbackAggregatorTest {
+
+    private static final long SSRC = 0x12345678L;
+    private static final long MIN_BITRATE = 300_000;
+    private static final long MAX_BITRATE = 4_000_000;
+
+    private final List<Long> sentBitrates = new ArrayList<>();
+
+    private ViewerFeedbackAggregator newAggregator(int percentile) {
+        ViewerFeedbackAggregator aggregator = new ViewerFeedbackAggregator(
+                "test", percentile, MIN_BITRATE, MAX_BITRATE,
+                (mediaSsrc, bitrate) -> {
+                    assertEquals(SSRC, mediaSsrc);
+                    sentBitrates.add(bitrate);
+                }
+        );
+        aggregator.onVideoPacket(SSRC, 1000);
+        return aggregator;
+    }
+
+    @Test
+    public void decreaseOnLossAndRecover() {
+        ViewerFeedbackAggregator aggregator = newAggregator(100);
+
+        // No viewer report yet : nothing to send
+        aggregator.onTimer(0);
+        assertEquals(0, sentBitrates.size());
+
+        // The worst viewer loses 25% : bitrate * (1 - 0.5 * 0.25)
+        aggregator.onReceiverReport("viewer1", 0, 5, 500);
+        aggregator.onReceiverReport("viewer2", 64, 5, 500);
+        aggregator.onTimer(1000);
+        assertEquals(2, aggregator.getViewerCount());
+        assertEquals(64, aggregator.getFractionLost());
+        assertEquals(3_500_000, sentBitrates.get(0));
+
+        // Moderate loss : hold
+        aggregator.onReceiverReport("viewer2", 13, 5, 1500);
+        aggregator.onTimer(2000);
+        assertEquals(3_500_000, sentBitrates.get(1));
+
+        // No loss but high jitter : hold
+        aggregator.onReceiverReport("viewer2", 0, ViewerFeedbackAggregator.HIGH_JITTER_MS + 10, 2500);
+        aggregator.onTimer(3000);
+        assertEquals(3_500_000, sentBitrates.get(2));
+
+        // No loss and low jitter : increase
+        aggregator.onReceiverReport("viewer2", 0, 5, 3500);
+        aggregator.onTimer(4000);
+        assertEquals((long) (3_500_000 * ViewerFeedbackAggregator.INCREASE_RATIO), sentBitrates.get(3));
+        assertEquals(4, aggregator.getFeedbackCount());
+    }
+
+    @Test
+    public void percentileIgnoresOutlier() {
+        ViewerFeedbackAggregator aggregator = newAggregator(90);
+
+        // 1 of 20 viewers has a bad link : the 90th percentile is still clean
+        for (int i = 0; i < 19; i++) {
+            aggregator.onReceiverReport("viewer" + i, 0, 5, 0);
+        }
+        aggregator.onReceiverReport("bad", 200, 100, 0);
+        aggregator.onTimer(1000);
+        assertEquals(0, aggregator.getFractionLost());
+        // Not limited : nothing to send
+        assertEquals(0, sentBitrates.size());
+    }
+
+    @Test
+    public void decreaseFromIncomingBitrate() {
+        ViewerFeedbackAggregator aggregator = newAggregator(100);
+        aggregator.onTimer(0);
+
+        // The source sends 1 Mbps, well below the maximum : the decrease starts from 1 Mbps
+        aggregator.onVideoPacket(SSRC, 125_000);
+        aggregator.onReceiverReport("viewer1", 64, 5, 500);
+        aggregator.onTimer(1000);
+        assertEquals(1_000_000, aggregator.getIncomingBitrate());
+        assertEquals(875_000, sentBitrates.get(0));
+    }
+
+    @Test
+    public void sendReleaseOnceWhenLimitEnds() {
+        ViewerFeedbackAggregator aggregator = newAggregator(100);
+
+        aggregator.onReceiverReport("viewer1", 64, 5, 500);
+        aggregator.onTimer(1000);
+        assertEquals(3_500_000, sentBitrates.get(0));
+
+        // No loss : the bitrate grows back to the maximum, which is sent once
+        long now = 1000;
+        while (sentBitrates.get(sentBitrates.size() - 1) < MAX_BITRATE) {
+            now += 1000;
+            aggregator.onReceiverReport("viewer1", 0, 5, now - 500);
+            aggregator.onTimer(now);
+        }
+        int sentCount = sentBitrates.size();
+        for (int i = 0; i < 5; i++) {
+            now += 1000;
+            aggregator.onReceiverReport("viewer1", 0, 5, now - 500);
+            aggregator.onTimer(now);
+        }
+        assertEquals(sentCount, sentBitrates.size());
+    }
+
+    @Test
+    public void releaseLimitWhenViewersLeave() {
+        ViewerFeedbackAggregator aggregator = newAggregator(100);
+
+        aggregator.onReceiverReport("viewer1", 255, 5, 0);
+        for (int i = 1; i <= 5; i++) {
+            aggregator.onTimer(i * 1000);
+        }
+        assertEquals(MIN_BITRATE, sentBitrates.get(sentBitrates.size() - 1));
+
+        // The viewer stops sending reports : the limit is released once
+        aggregator.onTimer(ViewerFeedbackAggregator.REPORT_TIMEOUT_MS + 1000);
+        aggregator.onTimer(ViewerFeedbackAggregator.REPORT_TIMEOUT_MS + 2000);
+        assertEquals(0, aggregator.getViewerCount());
+        assertEquals(MAX_BITRATE, sentBitrates.get(sentBitrates.size() - 1));
+        assertTrue(sentBitrates.size() <= 6);
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyframeDetectorTest {
+
+    private static ByteBuf rtp(int... payload) {
+        // V=2, no padding/extension/CSRC, PT=96, seq=1, ts=0, ssrc=1
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes(new byte[]{(byte) 0x80, 96, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1});
+        for (int b : payload) {
+            buf.writeByte(b);
+        }
+        return buf;
+    }
+
+    @Test
+    public void h264() {
+        // 1) Single NAL : SPS, IDR, non-IDR slice
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x67, 0x42), KeyframeDetector.H264));
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x65, 0x88), KeyframeDetector.H264));
+        assertFalse(KeyframeDetector.isKeyframeStart(rtp(0x41, 0x9A), KeyframeDetector.H264));
+
+        // 2) FU-A : IDR start / IDR middle
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x7C, 0x85, 0x00), KeyframeDetector.H264));
+        assertFalse(KeyframeDetector.isKeyframeStart(rtp(0x7C, 0x05, 0x00), KeyframeDetector.H264));
+
+        // 3) STAP-A : SPS(2 bytes) + PPS(2 bytes)
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x78, 0x00, 0x02, 0x67, 0x42, 0x00, 0x02, 0x68, 0xCE), KeyframeDetector.H264));
+    }
+
+    @Test
+    public void h265() {
+        // 1) VPS / IDR_W_RADL / TRAIL_R
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x40, 0x01, 0x0C), KeyframeDetector.H265));
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x26, 0x01, 0xAF), KeyframeDetector.H265));
+        assertFalse(KeyframeDetector.isKeyframeStart(rtp(0x02, 0x01, 0xD0), KeyframeDetector.H265));
+
+        // 2) FU : IDR_W_RADL start
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x62, 0x01, 0x93, 0xAF), KeyframeDetector.H265));
+    }
+
+    @Test
+    public void vp8() {
+        // 1) S=1, PID=0, P=0 -> key frame
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x10, 0x50, 0x01, 0x00), KeyframeDetector.VP8));
+        // 2) Extended descriptor with 15-bit PictureID, P=1 -> inter frame
+        assertFalse(KeyframeDetector.isKeyframeStart(rtp(0x90, 0x80, 0x81, 0x23, 0x31, 0x01), KeyframeDetector.VP8));
+        // 3) Extended descriptor with 15-bit PictureID, P=0 -> key frame
+        assertTrue(KeyframeDetector.isKeyframeStart(rtp(0x90, 0x80, 0x81, 0x23, 0x30, 0x01), KeyframeDetector.VP8));
+        // 4) Not start of partition
+        assertFalse(KeyframeDetector.isKeyframeStart(rtp(0x00, 0x50), KeyframeDetector.VP8));
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.gop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class KeyframeRequesterTest {
+
+    private static final long SSRC = 0x12345678L;
+    private static final long MIN_INTERVAL_MS = 1000;
+
+    /** "PLI" or "FIR" */
+    private final List<String> sentRequests = new ArrayList<>();
+    private final KeyframeRequester keyframeRequester = new KeyframeRequester(
+            "test", MIN_INTERVAL_MS,
+            (mediaSsrc, isFir) -> {
+                assertEquals(SSRC, mediaSsrc);
+                sentRequests.add(isFir ? "FIR" : "PLI");
+            }
+    );
+
+    @Test
+    public void coalesceViewers() {
+        keyframeRequester.setVideoSsrc(SSRC);
+
+        // 50 viewers join within the same second : only one PLI
+        for (int i = 0; i < 50; i++) {
+            keyframeRequester.request(i * 10, false);
+        }
+        assertEquals(Arrays.asList("PLI"), sentRequests);
+        assertEquals(49, keyframeRequester.getCoalescedCount());
+
+        keyframeRequester.onKeyframe(120);
+        assertEquals(120, keyframeRequester.getLastLatencyMs());
+        assertEquals(-1, keyframeRequester.getNextDueTime());
+
+        // A viewer joins before the minimum interval : deferred until the interval passes
+        keyframeRequester.request(500, false);
+        keyframeRequester.request(600, false);
+        assertEquals(1, sentRequests.size());
+        assertEquals(MIN_INTERVAL_MS, keyframeRequester.getNextDueTime());
+        keyframeRequester.onTimer(MIN_INTERVAL_MS);
+        assertEquals(Arrays.asList("PLI", "PLI"), sentRequests);
+
+        // A viewer that got the cached GOP does not request
+        keyframeRequester.onKeyframe(1100);
+        keyframeRequester.request(3000, true);
+        assertEquals(2, sentRequests.size());
+        assertEquals(1, keyframeRequester.getGopCacheHitCount());
+        assertEquals(53, keyframeRequester.getRequestCount());
+    }
+
+    @Test
+    public void deferredRequestIsSatisfiedByKeyframe() {
+        keyframeRequester.setVideoSsrc(SSRC);
+
+        keyframeRequester.request(0, false);
+        keyframeRequester.onKeyframe(50);
+        keyframeRequester.request(100, false);
+
+        // The encoder sends a keyframe on its own before the interval passes
+        keyframeRequester.onKeyframe(400);
+        keyframeRequester.onTimer(MIN_INTERVAL_MS);
+        assertEquals(Arrays.asList("PLI"), sentRequests);
+    }
+
+    @Test
+    public void retryWithFir() {
+        keyframeRequester.request(0, false);
+        // No video yet : nothing to request
+        assertEquals(0, sentRequests.size());
+
+        keyframeRequester.setVideoSsrc(SSRC);
+        keyframeRequester.request(10, false);
+        keyframeRequester.onTimer(500);
+        keyframeRequester.onTimer(1010);
+        keyframeRequester.onTimer(2010);
+        assertEquals(Arrays.asList("PLI", "FIR", "FIR"), sentRequests);
+
+        // Retries are exhausted
+        keyframeRequester.onTimer(3010);
+        assertEquals(3, sentRequests.size());
+        assertEquals(1, keyframeRequester.getUnansweredCount());
+        assertEquals(-1, keyframeRequester.getNextDueTime());
+    }
+
+}
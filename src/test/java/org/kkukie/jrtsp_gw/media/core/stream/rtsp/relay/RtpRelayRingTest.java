@@ -0,0 +1,135 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultEventLoop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kkukie.jrtsp_gw.session.media.base.MediaType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RtpRelayRingTest {
+
+    private static final int CAPACITY = 16;
+
+    private final DefaultEventLoop consumerLoop = new DefaultEventLoop();
+    private final List<Integer> relayedAudio = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> relayedVideo = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> droppedVideo = Collections.synchronizedList(new ArrayList<>());
+    private final List<ByteBuf> buffers = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    public void close() {
+        consumerLoop.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    public void rejectWhenFull() throws InterruptedException {
+        RtpRelayRing relayRing = newRelayRing();
+
+        // Hold the consumer until the ring is full
+        CountDownLatch consumerHold = new CountDownLatch(1);
+        consumerLoop.execute(() -> {
+            try {
+                consumerHold.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // The video share is full, and the last slots are kept for the audio
+        int videoLimit = relayRing.getCapacity() - relayRing.getCapacity() / 8;
+        for (int seqNum = 0; seqNum < videoLimit; seqNum++) {
+            assertTrue(relayRing.publish(video(seqNum)));
+        }
+        assertFalse(relayRing.publish(video(videoLimit)));
+        assertEquals(1, relayRing.getDroppedVideoCount());
+
+        for (int seqNum = videoLimit; seqNum < relayRing.getCapacity(); seqNum++) {
+            assertTrue(relayRing.publish(audio(seqNum)));
+        }
+        assertFalse(relayRing.publish(audio(relayRing.getCapacity())));
+        assertEquals(1, relayRing.getDroppedAudioCount());
+        assertEquals(relayRing.getCapacity(), relayRing.getOccupancy());
+        assertEquals(relayRing.getCapacity(), relayRing.getEnqueuedCount());
+
+        // A video packet was lost : the queued video is skipped until the next keyframe, the audio is still relayed
+        consumerHold.countDown();
+        awaitDrained(relayRing);
+        assertEquals(relayRing.getCapacity() - videoLimit, relayedAudio.size());
+        assertEquals(videoLimit, droppedVideo.size());
+        assertTrue(relayedVideo.isEmpty());
+        assertReleased();
+    }
+
+    @Test
+    public void keepOrderAcrossThreads() throws InterruptedException {
+        RtpRelayRing relayRing = newRelayRing();
+        final int count = 100_000;
+
+        Thread producer = new Thread(() -> {
+            for (int seqNum = 0; seqNum < count; seqNum++) {
+                relayRing.publish(audio(seqNum));
+            }
+        }, "relay-producer");
+        producer.start();
+        producer.join(10_000);
+        awaitDrained(relayRing);
+
+        // Some audio may be dropped when the consumer falls behind, but the relayed audio keeps its order
+        assertEquals(count, relayedAudio.size() + relayRing.getDroppedAudioCount());
+        for (int i = 1; i < relayedAudio.size(); i++) {
+            assertTrue(relayedAudio.get(i - 1) < relayedAudio.get(i));
+        }
+        assertReleased();
+    }
+
+    private RtpRelayRing newRelayRing() {
+        return new RtpRelayRing("conference", CAPACITY, consumerLoop,
+                relayPacket -> (MediaType.AUDIO.getName().equals(relayPacket.getMediaType()) ? relayedAudio : relayedVideo).add(relayPacket.getSeqNum()),
+                relayPacket -> droppedVideo.add(relayPacket.getSeqNum()),
+                () -> { }
+        );
+    }
+
+    private RelayPacket audio(int seqNum) {
+        return new RelayPacket(buffer(), MediaType.AUDIO.getName(), "opus", 1L, seqNum, seqNum * 960L, false, false);
+    }
+
+    private RelayPacket video(int seqNum) {
+        return new RelayPacket(buffer(), MediaType.VIDEO.getName(), "H264", 2L, seqNum, seqNum * 3000L, false, false);
+    }
+
+    private ByteBuf buffer() {
+        ByteBuf rtpBuf = Unpooled.buffer(12);
+        buffers.add(rtpBuf);
+        return rtpBuf;
+    }
+
+    /**
+     * The drain runs on the consumer loop : a task queued after it runs when the ring is empty.
+     */
+    private void awaitDrained(RtpRelayRing relayRing) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (relayRing.getOccupancy() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        consumerLoop.submit(() -> { }).await(1000);
+    }
+
+    private void assertReleased() {
+        for (ByteBuf rtpBuf : buffers) {
+            assertEquals(0, rtpBuf.refCnt());
+        }
+    }
+
+}
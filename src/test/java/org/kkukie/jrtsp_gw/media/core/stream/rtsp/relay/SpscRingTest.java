@@ -0,0 +1,95 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.relay;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpscRingTest {
+
+    @Test
+    public void roundUpCapacity() {
+        assertEquals(1, new SpscRing<Integer>(1).getCapacity());
+        assertEquals(8, new SpscRing<Integer>(5).getCapacity());
+        assertEquals(16, new SpscRing<Integer>(16).getCapacity());
+    }
+
+    @Test
+    public void wrapAround() {
+        SpscRing<Integer> ring = new SpscRing<>(4);
+
+        // The indexes go around the 4 slots many times
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(ring.offer(next++));
+            }
+            assertEquals(3, ring.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected++, ring.poll());
+            }
+            assertTrue(ring.isEmpty());
+        }
+        assertNull(ring.poll());
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void rejectWhenFull() {
+        SpscRing<Integer> ring = new SpscRing<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+
+        // One free slot accepts exactly one element
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        assertFalse(ring.offer(5));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void keepOrderAcrossThreads() throws InterruptedException {
+        final int count = 200_000;
+        SpscRing<Integer> ring = new SpscRing<>(64);
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!ring.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        }, "spsc-producer");
+        AtomicReference<Throwable> producerError = new AtomicReference<>();
+        producer.setUncaughtExceptionHandler((thread, e) -> producerError.set(e));
+        producer.start();
+
+        // A small ring is full most of the time : every element must still arrive once and in order
+        int expected = 0;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (expected < count && System.currentTimeMillis() < deadline) {
+            Integer element = ring.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(expected++, element);
+        }
+        producer.join(1000);
+
+        assertNull(producerError.get());
+        assertEquals(count, expected);
+        assertTrue(ring.isEmpty());
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.kkukie.jrtsp_gw.media.core.stream.rtsp.stream;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TcpEgressGuardTest {
+
+    private static final int LOW_MARK = 1024;
+    private static final int HIGH_MARK = 4096;
+    private static final int PACKET_SIZE = 1000;
+    /** 16 packets : the GOP is about 4 times the high mark */
+    private static final int GOP_PACKET_COUNT = 16;
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @AfterEach
+    public void close() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void replayGopBiggerThanHighMark() {
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(LOW_MARK, HIGH_MARK));
+        TcpEgressGuard tcpEgressGuard = new TcpEgressGuard(channel, 0);
+
+        // The viewer has not read anything yet : the whole GOP stays in the send buffer
+        tcpEgressGuard.allowBurst(GOP_PACKET_COUNT, (long) GOP_PACKET_COUNT * PACKET_SIZE);
+        for (int i = 0; i < GOP_PACKET_COUNT; i++) {
+            assertTrue(tcpEgressGuard.admit(PACKET_SIZE, true, i == 0));
+            write();
+        }
+        tcpEgressGuard.endBurst();
+        assertFalse(channel.isWritable());
+        assertEquals(0, tcpEgressGuard.getDroppedPackets());
+
+        // Live packets right after the replay are still sent within the raised limit
+        assertTrue(tcpEgressGuard.admit(PACKET_SIZE, true, false));
+        write();
+        assertFalse(tcpEgressGuard.isSkippingVideo());
+
+        // Beyond the raised limit the viewer is slow
+        int admittedCount = 0;
+        while (tcpEgressGuard.admit(PACKET_SIZE, true, false)) {
+            write();
+            admittedCount++;
+        }
+        assertTrue(admittedCount > 0);
+        assertTrue(tcpEgressGuard.isSkippingVideo());
+
+        // Once drained, the raised limit is gone and the high mark applies again
+        channel.flush();
+        assertTrue(channel.isWritable());
+        assertTrue(tcpEgressGuard.admit(PACKET_SIZE, true, true));
+        for (int i = 0; i <= HIGH_MARK / PACKET_SIZE; i++) {
+            write();
+        }
+        assertFalse(channel.isWritable());
+        assertFalse(tcpEgressGuard.admit(PACKET_SIZE, true, false));
+    }
+
+    @Test
+    public void endBurstWithinHighMark() {
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(LOW_MARK, HIGH_MARK));
+        TcpEgressGuard tcpEgressGuard = new TcpEgressGuard(channel, 0);
+
+        // A small GOP fits below the high mark, so the raised limit is dropped right away
+        tcpEgressGuard.allowBurst(2, 2L * PACKET_SIZE);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(tcpEgressGuard.admit(PACKET_SIZE, true, i == 0));
+            write();
+        }
+        tcpEgressGuard.endBurst();
+
+        for (int i = 0; i < HIGH_MARK / PACKET_SIZE; i++) {
+            write();
+        }
+        assertFalse(channel.isWritable());
+        assertFalse(tcpEgressGuard.admit(PACKET_SIZE, true, false));
+        assertEquals(1, tcpEgressGuard.getDroppedPackets());
+    }
+
+    private void write() {
+        channel.write(Unpooled.wrappedBuffer(new byte[PACKET_SIZE]));
+    }
+
+}